@@ -0,0 +1,1009 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.network.merge.internal.model.AttributeMapping;
+import org.cytoscape.network.merge.internal.model.SourceSnapshot;
+import org.cytoscape.network.merge.internal.util.MergeEvents;
+import org.cytoscape.work.TaskMonitor;
+
+/**
+ * NetworkMerge implement
+ */
+public abstract class AbstractNetworkMerge implements NetworkMerge {
+
+	protected boolean withinNetworkMerge = false;
+	protected boolean reuseRootElements = false;
+	protected SourceSnapshot sourceSnapshot;
+	// whether nodes and edges are actually reused by the current merge
+	private boolean reusing;
+	protected final TaskMonitor taskMonitor;
+	//Maps a node and its position in the match list
+	protected Map<CyNode,Integer> mapNodesIndex;
+	//There are two different maps to differentiate directed and undirected edges
+	//Each map does a first map based on type of interactions and then a second map that maps
+	//a Long index made of combination of two integer indexes from the two nodes and the
+	//index of that edge in the matched list
+	//There is also a second set of maps for the case when the edges do not have a value
+	//in the interaction column. This would be a special case that needs to be considered too
+	protected Map<String,Map<Long,Integer>> mapEdgeDirectedInteractions;
+	protected Map<String,Map<Long,Integer>> mapEdgeInteractions;
+	protected Map<Long,Integer> mapEdgeNoInteractions;
+	protected Map<Long,Integer> mapEdgeDirectedNoInteractions;
+
+	// For canceling task
+	private volatile boolean interrupted;
+
+	private MergeStatistics statistics;
+	// node comparisons or key lookups, and edge lookups, made by the matching so far
+	private long comparisons;
+
+	public AbstractNetworkMerge(final TaskMonitor taskMonitor) {
+		this.taskMonitor = taskMonitor;
+		interrupted = false;
+		mapNodesIndex = new HashMap<CyNode,Integer>();
+		mapEdgeDirectedInteractions = new HashMap<String,Map<Long,Integer>>();
+		mapEdgeInteractions = new HashMap<String,Map<Long,Integer>>();
+		mapEdgeNoInteractions = new HashMap<Long,Integer>();
+		mapEdgeDirectedNoInteractions = new HashMap<Long,Integer>();
+	}
+
+	public void setWithinNetworkMerge(boolean withinNetworkMerge) {
+		this.withinNetworkMerge = withinNetworkMerge;
+	}
+
+	/**
+	 * If set and the merged network is a subnetwork of the root of all the source networks,
+	 * a group made of a single node or edge of that root (possibly in several networks) is
+	 * merged by adding that node or edge to the merged network instead of a copy.
+	 */
+	public void setReuseRootElements(boolean reuseRootElements) {
+		this.reuseRootElements = reuseRootElements;
+	}
+
+	/**
+	 * 
+	 * @param sourceSnapshot
+	 *            if not null, the source values are read from it instead of the tables
+	 */
+	public void setSourceSnapshot(SourceSnapshot sourceSnapshot) {
+		this.sourceSnapshot = sourceSnapshot;
+	}
+
+	/**
+	 * 
+	 * @param statistics
+	 *            if not null, receives the figures of each phase of the merge
+	 */
+	public void setStatistics(MergeStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * @return the row of a source table, from the snapshot if any
+	 */
+	protected CyRow getSourceRow(final CyTable table, final long suid) {
+		return sourceSnapshot == null ? table.getRow(suid) : sourceSnapshot.getRow(table, suid);
+	}
+
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	/**
+	 * Keys of the nodes of a network, such that two nodes match if and only if they are
+	 * the same node or they share a key, which lets them be matched without comparing
+	 * every pair.
+	 *
+	 * @param network
+	 *            a source network
+	 * @return the keys by node, or null if the nodes can only be compared by matchNode
+	 */
+	protected Map<CyNode,Object[]> getMatchingKeys(CyNetwork network) {
+		return null;
+	}
+
+	/**
+	 * Check whether two nodes match
+	 *
+	 * @param n1
+	 *            ,n2 two nodes belongs to net1 and net2 respectively
+	 *
+	 * @return true if n1 and n2 matches
+	 */
+	protected abstract boolean matchNode(CyNetwork net1, CyNode n1, CyNetwork net2, CyNode n2);
+
+	/**
+	 * Merge (matched) nodes into one
+	 *
+	 * @param mapNetNode
+	 *            map of network to node, node in the network to be merged
+	 * @param newNode
+	 *            merge data to this new node
+	 */
+	protected abstract void mergeNode(Map<CyNetwork, Set<CyNode>> mapNetNode, CyNode newNode, CyNetwork newNetwork);
+
+	/**
+	 * Merge (matched) networks into one
+	 *
+	 * @param networks
+	 *            the list of networks
+	 * @param newNetwork
+	 *            merge data to this new network
+	 */
+	protected abstract void mergeNetworks(List<CyNetwork> networks, CyNetwork newNetwork);
+
+	/**
+	 * Merge (matched) nodes into one. This method will be refactored in
+	 * Cytoscape3
+	 *
+	 * @param mapNetEdge
+	 *            map from network to Edge, Edge in the network to be merged
+	 * @param newEdge
+	 *            merge data to this edge
+	 *
+	 * @return merged Edge
+	 */
+	protected abstract void mergeEdge(Map<CyNetwork, Set<CyEdge>> mapNetEdge, CyEdge newEdge, CyNetwork newNetwork);
+
+	/**
+	 * Check whether an edge match the other edges already considered, if so it will
+	 * return the position in the match list
+	 *
+	 * @param network1 The source network of the edge to evaluate
+	 * @param e1 The edge to check if it has a match
+	 * @param position The position in the match list that the new edge belong if no match is found
+	 *
+	 * @return the index in the match list where this edge has found a match or -1 if no match found
+	 */
+	protected int matchEdge( CyNetwork network1, CyEdge e1, int position) {
+
+		int index = -1;
+		long id1, id2 = 0;
+		Map<Long,Integer> mapNodesEdges = null;
+		Map<Long,Integer> mapNodesDirectedEdges = null;
+		if (e1 == null ) {
+			throw new NullPointerException();
+		}
+
+		String i1 = getSourceRow(network1.getDefaultEdgeTable(), e1.getSUID()).get(CyEdge.INTERACTION, String.class);
+
+
+		CyNode source = e1.getSource();
+		CyNode target = e1.getTarget();
+
+		if (source == null || target == null ) {
+			throw new NullPointerException();
+		}
+
+		int iSource = mapNodesIndex.get(source);
+
+		int iTarget = mapNodesIndex.get(target);
+
+		if (e1.isDirected())
+		{
+			if(i1 == null)
+				mapNodesDirectedEdges = mapEdgeDirectedNoInteractions;
+			else
+				mapNodesDirectedEdges = mapEdgeDirectedInteractions.get(i1);
+			id1 = getUniqueIdNumber(iSource, iTarget);
+			if( mapNodesDirectedEdges != null)
+			{
+				//System.out.println("same interaction directed edge: " + i1);
+				if(mapNodesDirectedEdges.get(id1) != null)
+					index = mapNodesDirectedEdges.get(id1);
+			}
+
+		}
+		else
+		{
+			if(i1 == null)
+				mapNodesEdges = mapEdgeNoInteractions;
+			else
+				mapNodesEdges = mapEdgeInteractions.get(i1);
+			id1 = getUniqueIdNumber(iSource, iTarget);
+			id2 = getUniqueIdNumber(iTarget,iSource);
+			if(mapNodesEdges != null)
+			{
+				//System.out.println("same interaction edge: " + i1);
+				if(mapNodesEdges.get(id1) != null && mapNodesEdges.get(id2) != null && mapNodesEdges.get(id1).equals(mapNodesEdges.get(id2)))
+					index = mapNodesEdges.get(id1);
+			}
+		}
+
+
+		if(index == -1)
+		{
+			if (e1.isDirected())
+			{
+				if( mapNodesDirectedEdges != null)
+					mapNodesDirectedEdges.put(id1, position);
+				else
+				{
+					mapNodesDirectedEdges = new HashMap<Long,Integer>();
+					mapNodesDirectedEdges.put(id1, position);
+					mapEdgeDirectedInteractions.put(i1, mapNodesDirectedEdges);
+				}
+			}
+			else
+			{
+				if( mapNodesEdges != null)
+				{
+					mapNodesEdges.put(id1, position);
+					mapNodesEdges.put(id2, position);
+				}
+				else
+				{
+					mapNodesEdges = new HashMap<Long,Integer>();
+					mapNodesEdges.put(id1, position);
+					mapNodesEdges.put(id2, position);
+					mapEdgeInteractions.put(i1, mapNodesEdges);
+				}
+
+			}
+		}
+
+		return index;
+	}
+
+	private long getUniqueIdNumber(int a, int b)
+	{
+		return ((long) a << 32) | b ;
+	}
+
+	protected abstract void proprocess(CyNetwork toNetwork);
+
+	/**
+	 * Estimate the merged columns of the selected groups, for a dry run: nothing is
+	 * written to any table.
+	 *
+	 * @param estimate
+	 *            receives the number of merged columns and the conflicts
+	 * @param matchedNodeList
+	 *            the node groups that would be merged
+	 * @param matchedEdgeList
+	 *            the edge groups that would be merged
+	 */
+	protected void estimateColumns(MergeEstimate estimate, List<Map<CyNetwork, Set<CyNode>>> matchedNodeList,
+			List<Map<CyNetwork, Set<CyEdge>>> matchedEdgeList) {
+	}
+
+	/**
+	 * Called once the nodes to be merged are known, before any node is created.
+	 *
+	 * @param matchedNodeList
+	 *            the selected node groups
+	 * @param differenceNodeList
+	 *            the node groups that may be added for difference, or null
+	 */
+	protected void nodesSelected(List<Map<CyNetwork, Set<CyNode>>> matchedNodeList,
+			List<Map<CyNetwork, Set<CyNode>>> differenceNodeList) {
+	}
+
+	/**
+	 * Called once the edges to be merged are known, before any edge is created.
+	 *
+	 * @param matchedEdgeList
+	 *            the selected edge groups
+	 */
+	protected void edgesSelected(List<Map<CyNetwork, Set<CyEdge>>> matchedEdgeList) {
+	}
+
+	/**
+	 * Merge the attributes of the nodes, once they are all created.
+	 *
+	 * @param matchedNodeList
+	 *            the selected node groups
+	 * @param newNodes
+	 *            the node created for each group, null if none was
+	 */
+	protected void mergeNodes(List<Map<CyNetwork, Set<CyNode>>> matchedNodeList, List<CyNode> newNodes,
+			CyNetwork newNetwork) {
+		final int nNode = matchedNodeList.size();
+		for (int i = 0; i < nNode; i++) {
+			if (interrupted)
+				return;
+
+			taskMonitor.setProgress(((double)(i + 1)/ nNode)*0.5d);
+
+			final CyNode node = newNodes.get(i);
+			if (node != null)
+				mergeNode(matchedNodeList.get(i), node, newNetwork);
+		}
+	}
+
+	/**
+	 * Merge the attributes of the edges, once they are all created.
+	 *
+	 * @param matchedEdgeList
+	 *            the selected edge groups
+	 * @param newEdges
+	 *            the edge created for each group, null if none was
+	 */
+	protected void mergeEdges(List<Map<CyNetwork, Set<CyEdge>>> matchedEdgeList, List<CyEdge> newEdges,
+			CyNetwork newNetwork) {
+		final int nEdge = matchedEdgeList.size();
+		for (int i = 0; i < nEdge; i++) {
+			if (interrupted)
+				return;
+
+			taskMonitor.setProgress(((double)(i + 1) / nEdge)*0.5d + 0.5d);
+
+			final CyEdge edge = newEdges.get(i);
+			if (edge != null)
+				mergeEdge(matchedEdgeList.get(i), edge, newNetwork);
+		}
+	}
+
+	protected boolean isInterrupted() {
+		return interrupted;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CyNetwork mergeNetwork(final CyNetwork mergedNetwork, final List<CyNetwork> fromNetworks, final Operation op, final boolean subtractOnlyUnconnectedNodes, final boolean nodesOnly) {
+		// Null checks for required fields...
+		if (mergedNetwork == null) {
+			throw new NullPointerException("Merged networks wasn't created.");
+		}
+		if (fromNetworks == null) {
+			throw new NullPointerException("No networks selected.");
+		}
+		if (op == null) {
+			throw new NullPointerException("Operation parameter is missing.");
+		}
+		if (fromNetworks.isEmpty()) {
+			throw new IllegalArgumentException("No source networks!");
+		}
+
+		reusing = reuseRootElements && isSharedRoot(mergedNetwork, fromNetworks);
+		proprocess(mergedNetwork);
+
+		mapNodesIndex.clear();
+		mapEdgeDirectedInteractions.clear();
+		mapEdgeInteractions.clear();
+		mapEdgeDirectedNoInteractions.clear();
+		mapEdgeNoInteractions.clear();
+		// get node matching list
+		startPhase(MergeStatistics.MATCH_NODES);
+		long nSource = 0;
+		for (CyNetwork net : fromNetworks)
+			nSource += net.getNodeCount();
+		List<Map<CyNetwork, Set<CyNode>>> matchedNodeList = getMatchedList(fromNetworks, true);
+		stopPhase(MergeStatistics.MATCH_NODES, nSource);
+		List<Map<CyNetwork, Set<CyNode>>> differenceNodeList = null;
+		if(op == Operation.DIFFERENCE && subtractOnlyUnconnectedNodes) {
+			differenceNodeList = matchedNodeList;
+		}
+
+		// Check cancel status
+		if(interrupted) {
+			return null;
+		}
+
+		startPhase(MergeStatistics.SELECT_NODES);
+		matchedNodeList = selectMatchedGOList(matchedNodeList, op, fromNetworks);
+
+		Map<CyNode, Map<CyNetwork, Set<CyNode>>> differenceNodeMap = null;
+		List<Map<CyNetwork, Set<CyNode>>> differenceGroups = null;
+		if(differenceNodeList != null) {
+			differenceNodeList.removeAll(matchedNodeList);
+			differenceNodeMap = new HashMap<CyNode, Map<CyNetwork, Set<CyNode>>>();
+			differenceGroups = new ArrayList<Map<CyNetwork, Set<CyNode>>>();
+			for(Map<CyNetwork, Set<CyNode>> mapNetNode: differenceNodeList) {
+				Set<CyNode> nodes = mapNetNode.get(fromNetworks.get(0));
+				if(nodes != null) {
+					//remove networks besides the first
+					for(int i=1; i<fromNetworks.size(); i++)
+						mapNetNode.remove(fromNetworks.get(i));
+
+					for(CyNode node: nodes)
+						differenceNodeMap.put(node, mapNetNode);
+					differenceGroups.add(mapNetNode);
+				}
+			}
+		}
+		nodesSelected(matchedNodeList, differenceGroups);
+		stopPhase(MergeStatistics.SELECT_NODES, matchedNodeList.size());
+		final Map<CyNode, CyNode> mapNN = new HashMap<CyNode, CyNode>();
+
+		// create the nodes, then merge their attributes
+		taskMonitor.setStatusMessage("Merging nodes...");
+		startPhase(MergeStatistics.CREATE_NODES);
+		final int nNode = matchedNodeList.size();
+		final List<CyNode> newNodes = new ArrayList<CyNode>(nNode);
+		int nNewNodes = 0;
+		for (int i = 0; i < nNode; i++) {
+			if (interrupted)
+				return null;
+
+			final Map<CyNetwork, Set<CyNode>> mapNetNode = matchedNodeList.get(i);
+			if (mapNetNode == null || mapNetNode.isEmpty()) {
+				newNodes.add(null);
+				continue;
+			}
+
+			CyNode node = addNode(mergedNetwork, mapNetNode);
+			newNodes.add(node);
+			nNewNodes++;
+
+			for (Set<CyNode> nodes_ori: mapNetNode.values()) {
+				for (CyNode node_ori: nodes_ori) {
+					mapNN.put(node_ori, node);
+				}
+			}
+		}
+
+		stopPhase(MergeStatistics.CREATE_NODES, nNewNodes);
+
+		startPhase(MergeStatistics.MERGE_NODE_ATTRIBUTES);
+		mergeNodes(matchedNodeList, newNodes, mergedNetwork);
+		stopPhase(MergeStatistics.MERGE_NODE_ATTRIBUTES, nNode);
+		if (interrupted)
+			return null;
+
+		// match edges
+		taskMonitor.setStatusMessage("Merging edges...");
+		startPhase(MergeStatistics.MATCH_EDGES);
+		nSource = 0;
+		for (CyNetwork net : fromNetworks)
+			nSource += net.getEdgeCount();
+		List<Map<CyNetwork, Set<CyEdge>>> matchedEdgeList = getMatchedList(fromNetworks, false);
+		stopPhase(MergeStatistics.MATCH_EDGES, nSource);
+
+		// Check cancel status
+		if(interrupted) {
+			return null;
+		}
+
+		startPhase(MergeStatistics.SELECT_EDGES);
+    // if nodesOnly is true, treat all operations as union operation
+		if(nodesOnly){
+		matchedEdgeList = selectMatchedGOList(matchedEdgeList, Operation.UNION, fromNetworks);
+		} else {
+		matchedEdgeList = selectMatchedGOList(matchedEdgeList, op, fromNetworks);
+		}
+		edgesSelected(matchedEdgeList);
+		stopPhase(MergeStatistics.SELECT_EDGES, matchedEdgeList.size());
+
+		// create the edges, then merge their attributes
+		startPhase(MergeStatistics.CREATE_EDGES);
+		final int nEdge = matchedEdgeList.size();
+		final List<CyEdge> newEdges = new ArrayList<CyEdge>(nEdge);
+		int nNewEdges = 0;
+
+		for (int i = 0; i < nEdge; i++) {
+			if (interrupted)
+				return null;
+
+			final Map<CyNetwork, Set<CyEdge>> mapNetEdge = matchedEdgeList.get(i);
+			if (mapNetEdge == null || mapNetEdge.isEmpty()) {
+				newEdges.add(null);
+				continue;
+			}
+
+			// get the source and target nodes in merged network
+			final Iterator<Set<CyEdge>> itEdges = mapNetEdge.values().iterator();
+
+			final Set<CyEdge> edgeSet = itEdges.next();
+			if (edgeSet == null || edgeSet.isEmpty()) {
+				throw new IllegalStateException("Null or empty edge set");
+			}
+
+			final CyEdge originalEdge = edgeSet.iterator().next();
+			CyNode source = mapNN.get(originalEdge.getSource());
+			CyNode target = mapNN.get(originalEdge.getTarget());
+
+			if(differenceNodeMap != null) {
+				// For difference, need to create nodes if necessary.
+
+				if(source == null) {
+					CyNode originalSource = originalEdge.getSource();
+					Map<CyNetwork, Set<CyNode>> mapNetNode = differenceNodeMap.get(originalSource);
+					source = addNode(mergedNetwork, mapNetNode);
+					mergeNode(mapNetNode, source, mergedNetwork);
+					for(Set<CyNode> nodes: mapNetNode.values())
+						for(CyNode node: nodes)
+							mapNN.put(node, source);
+				}
+				if(target == null) // the source may have just been added with the target
+					target = mapNN.get(originalEdge.getTarget());
+				if(target == null) {
+					CyNode originalTarget = originalEdge.getTarget();
+					Map<CyNetwork, Set<CyNode>> mapNetNode = differenceNodeMap.get(originalTarget);
+					target = addNode(mergedNetwork, mapNetNode);
+					mergeNode(mapNetNode, target, mergedNetwork);
+					for(Set<CyNode> nodes: mapNetNode.values())
+						for(CyNode node: nodes)
+							mapNN.put(node, target);
+				}
+			}
+			else if (source == null || target == null) { // some of the node may be
+													// exluded when intersection
+													// or difference
+				newEdges.add(null);
+				continue;
+			}
+
+			final boolean directed = originalEdge.isDirected();
+
+			CyEdge edge = null;
+			if (reusing) {
+				// the edge itself, if its nodes are reused too
+				final CyEdge single = getSingleGraphObject(mapNetEdge);
+				if (single != null && single.getSource() == source && single.getTarget() == target
+						&& ((CySubNetwork) mergedNetwork).addEdge(single))
+					edge = single;
+			}
+			if (edge == null)
+				edge = mergedNetwork.addEdge(source, target, directed);
+			newEdges.add(edge);
+			nNewEdges++;
+		}
+		stopPhase(MergeStatistics.CREATE_EDGES, nNewEdges);
+
+		startPhase(MergeStatistics.MERGE_EDGE_ATTRIBUTES);
+		mergeEdges(matchedEdgeList, newEdges, mergedNetwork);
+		stopPhase(MergeStatistics.MERGE_EDGE_ATTRIBUTES, nEdge);
+		if (interrupted)
+			return null;
+
+		// Last step -- merge the network attributes
+		startPhase(MergeStatistics.MERGE_NETWORK_ATTRIBUTES);
+		mergeNetworks(fromNetworks, mergedNetwork);
+		stopPhase(MergeStatistics.MERGE_NETWORK_ATTRIBUTES, fromNetworks.size());
+
+		return mergedNetwork;
+	}
+
+	/**
+	 * Run the matching phases of a merge without building anything, to know the number of
+	 * nodes and edges the merged network would have with each operation, and estimate the
+	 * conflicts and heap footprint of a merge with the given one.
+	 *
+	 * @param fromNetworks
+	 *            the source networks
+	 * @param op
+	 *            the operation of the merge to estimate
+	 * @param subtractOnlyUnconnectedNodes
+	 *            as for {@link #mergeNetwork}
+	 * @param nodesOnly
+	 *            as for {@link #mergeNetwork}
+	 * @return the estimate, incomplete if interrupted
+	 */
+	public MergeEstimate estimate(final List<CyNetwork> fromNetworks, final Operation op,
+			final boolean subtractOnlyUnconnectedNodes, final boolean nodesOnly) {
+		if (fromNetworks == null || op == null) {
+			throw new NullPointerException();
+		}
+		if (fromNetworks.isEmpty()) {
+			throw new IllegalArgumentException("No source networks!");
+		}
+
+		int sourceNodes = 0;
+		int sourceEdges = 0;
+		for (CyNetwork net : fromNetworks) {
+			sourceNodes += net.getNodeCount();
+			sourceEdges += net.getEdgeCount();
+		}
+		final MergeEstimate estimate = new MergeEstimate(op, sourceNodes, sourceEdges);
+
+		reusing = false;
+		mapNodesIndex.clear();
+		mapEdgeDirectedInteractions.clear();
+		mapEdgeInteractions.clear();
+		mapEdgeDirectedNoInteractions.clear();
+		mapEdgeNoInteractions.clear();
+
+		taskMonitor.setStatusMessage("Matching nodes...");
+		final List<Map<CyNetwork, Set<CyNode>>> nodeGroups = getMatchedList(fromNetworks, true);
+		taskMonitor.setProgress(0.4d);
+		if (interrupted) {
+			estimate.setInterrupted(true);
+			return estimate;
+		}
+		taskMonitor.setStatusMessage("Matching edges...");
+		final List<Map<CyNetwork, Set<CyEdge>>> edgeGroups = getMatchedList(fromNetworks, false);
+		taskMonitor.setProgress(0.8d);
+		if (interrupted) {
+			estimate.setInterrupted(true);
+			return estimate;
+		}
+
+		final CyNetwork net1 = fromNetworks.get(0);
+		List<Map<CyNetwork, Set<CyNode>>> estimatedNodes = null;
+		List<Map<CyNetwork, Set<CyEdge>>> estimatedEdges = null;
+		for (Operation o : Operation.values()) {
+			final List<Map<CyNetwork, Set<CyNode>>> selectedNodes = selectMatchedGOList(nodeGroups, o, fromNetworks);
+			final Set<Map<CyNetwork, Set<CyNode>>> selected =
+					Collections.newSetFromMap(new IdentityHashMap<Map<CyNetwork, Set<CyNode>>, Boolean>());
+			selected.addAll(selectedNodes);
+			final boolean difference = o == Operation.DIFFERENCE && subtractOnlyUnconnectedNodes;
+
+			// as mergeNetwork does, edges are kept if both their nodes are, and for difference
+			// the unselected nodes of the first network are added with their edges
+			final List<Map<CyNetwork, Set<CyNode>>> addedNodes = new ArrayList<Map<CyNetwork, Set<CyNode>>>();
+			final Set<Map<CyNetwork, Set<CyNode>>> added =
+					Collections.newSetFromMap(new IdentityHashMap<Map<CyNetwork, Set<CyNode>>, Boolean>());
+			final List<Map<CyNetwork, Set<CyEdge>>> keptEdges = new ArrayList<Map<CyNetwork, Set<CyEdge>>>();
+			for (Map<CyNetwork, Set<CyEdge>> mapNetEdge : selectMatchedGOList(edgeGroups, nodesOnly ? Operation.UNION : o, fromNetworks)) {
+				final CyEdge edge = mapNetEdge.values().iterator().next().iterator().next();
+				final Map<CyNetwork, Set<CyNode>> source = nodeGroups.get(mapNodesIndex.get(edge.getSource()));
+				final Map<CyNetwork, Set<CyNode>> target = nodeGroups.get(mapNodesIndex.get(edge.getTarget()));
+				if (selected.contains(source) && selected.contains(target)) {
+					keptEdges.add(mapNetEdge);
+				} else if (difference && (selected.contains(source) || source.containsKey(net1))
+						&& (selected.contains(target) || target.containsKey(net1))) {
+					keptEdges.add(mapNetEdge);
+					if (!selected.contains(source) && added.add(source))
+						addedNodes.add(Collections.singletonMap(net1, source.get(net1)));
+					if (!selected.contains(target) && added.add(target))
+						addedNodes.add(Collections.singletonMap(net1, target.get(net1)));
+				}
+			}
+			estimate.setGroups(o, selectedNodes.size() + addedNodes.size(), keptEdges.size());
+
+			if (o == op) {
+				estimatedNodes = new ArrayList<Map<CyNetwork, Set<CyNode>>>(selectedNodes);
+				estimatedNodes.addAll(addedNodes);
+				estimatedEdges = keptEdges;
+			}
+		}
+
+		taskMonitor.setStatusMessage("Estimating conflicts...");
+		estimateColumns(estimate, estimatedNodes, estimatedEdges);
+		estimate.setInterrupted(interrupted);
+		taskMonitor.setProgress(1.0d);
+		return estimate;
+	}
+
+	private void startPhase(final String phase) {
+		if (statistics != null) {
+			statistics.start(phase);
+			comparisons = 0;
+		}
+	}
+
+	private void stopPhase(final String phase, final long count) {
+		if (statistics != null)
+			statistics.stop(phase, count, comparisons);
+	}
+
+	private CyNode addNode(final CyNetwork mergedNetwork, final Map<CyNetwork, Set<CyNode>> mapNetNode) {
+		if (reusing) {
+			final CyNode single = getSingleGraphObject(mapNetNode);
+			if (single != null && ((CySubNetwork) mergedNetwork).addNode(single))
+				return single;
+		}
+		return mergedNetwork.addNode();
+	}
+
+	private static boolean isSharedRoot(final CyNetwork mergedNetwork, final List<CyNetwork> fromNetworks) {
+		if (!(mergedNetwork instanceof CySubNetwork))
+			return false;
+		final CyRootNetwork root = ((CySubNetwork) mergedNetwork).getRootNetwork();
+		for (CyNetwork net : fromNetworks) {
+			if (!(net instanceof CySubNetwork) || ((CySubNetwork) net).getRootNetwork() != root)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the node or edge of the group if there is only one, in one or several networks,
+	 *         null otherwise
+	 */
+	protected static <T extends CyIdentifiable> T getSingleGraphObject(final Map<CyNetwork, Set<T>> mapNetGOs) {
+		T single = null;
+		for (Set<T> gos : mapNetGOs.values()) {
+			for (T go : gos) {
+				if (single == null)
+					single = go;
+				else if (go != single)
+					return null;
+			}
+		}
+		return single;
+	}
+
+	/**
+	 * Get a list of matched nodes/edges
+	 *
+	 * @param networks
+	 *            Networks to be merged
+	 * @param isNode
+	 *            true if for node
+	 *
+	 *
+	 * @return list of map from network to node/edge
+	 */
+	protected <T extends CyIdentifiable> List<Map<CyNetwork, Set<T>>> getMatchedList(final List<CyNetwork> networks,
+			final boolean isNode) {
+		int index = 0;
+		if (networks == null)
+			throw new NullPointerException();
+
+		if (networks.isEmpty()) {
+			throw new IllegalArgumentException("No merging network");
+		}
+
+		if (isNode) {
+			final List<Map<CyNode,Object[]>> keys = new ArrayList<Map<CyNode,Object[]>>(networks.size());
+			for (CyNetwork net: networks) {
+				final Map<CyNode,Object[]> netKeys = getMatchingKeys(net);
+				if (netKeys == null)
+					break;
+				keys.add(netKeys);
+			}
+			if (keys.size() == networks.size())
+				return (List) getMatchedNodeList(networks, keys);
+		}
+
+		final List<Map<CyNetwork, Set<T>>> matchedList = new ArrayList<Map<CyNetwork, Set<T>>>();
+		final int nNet = networks.size();
+
+		for (int i = 0; i < nNet; i++) {
+			final CyNetwork net1 = networks.get(i);
+			final List<T> graphObjectList;
+			if (isNode)
+				graphObjectList = (List<T>) net1.getNodeList();
+			else
+				graphObjectList = (List<T>) net1.getEdgeList();
+			final Object event = MergeEvents.beginMatching();
+			final long startComparisons = comparisons;
+
+			for(T go1: graphObjectList) {
+				if (interrupted)
+					return null;
+
+				// chech whether any nodes in the matchedNodeList match with
+				// this node if yes, add to the list, else add a new map to the list
+				boolean matched = false;
+				final int n = matchedList.size();
+				//The search for a match has been split for nodes and edges. Edges don't need to go through the loop
+				//since they can take advantage of node's information in the previous found node match list
+				if(isNode)
+				{
+
+					int j = 0;
+					for (; j < n; j++) {
+						final Map<CyNetwork, Set<T>> matchedGO = matchedList.get(j);
+						for (CyNetwork net2: matchedGO.keySet()) {
+							// if (net1==net2) continue; // assume the same network
+							// don't have nodes match to each other
+							if (!withinNetworkMerge && net1 == net2)
+								continue;
+
+							for (CyIdentifiable go2: matchedGO.get(net2)) {
+								matched = matchNode(net1, (CyNode) go1, net2, (CyNode) go2);
+								comparisons++;
+
+								if (matched) {
+									index = j;
+									mapNodesIndex.put((CyNode) go1, index);
+									break;
+								}
+							}
+							if (matched) {
+								break;
+							}
+						}
+						if (matched) {
+							break;
+						}
+					}
+				}
+				else
+				{
+					index = matchEdge(net1,(CyEdge) go1,n);
+					comparisons++;
+					if(index >= 0)
+					{
+						//check if the edge belongs to the same network
+						//if so, the match is not valid
+						if(matchedList.get(index).containsKey(net1) && matchedList.get(index).keySet().size() == 1 && !withinNetworkMerge)
+							matched = false;
+						else
+							matched = true;
+					}
+					else
+						matched = false;
+				}
+				if (!matched) {
+					// no matched node/edge found, add new map to the list
+					final Map<CyNetwork, Set<T>> matchedGO = new HashMap<CyNetwork, Set<T>>();
+					Set<T> gos1 = new HashSet<T>();
+					gos1.add(go1);
+					matchedGO.put(net1, gos1);
+					if(isNode)
+						mapNodesIndex.put((CyNode) go1, n);
+					matchedList.add(matchedGO);
+				}
+				else
+				{
+					Set<T> gos1 = matchedList.get(index).get(net1);
+					if (gos1 == null) {
+						gos1 = new HashSet<T>();
+						matchedList.get(index).put(net1, gos1);
+					}
+					gos1.add(go1);
+				}
+			}
+			MergeEvents.endMatching(event, net1.getSUID(), isNode ? "node" : "edge", graphObjectList.size(),
+					comparisons - startComparisons);
+		}
+		return matchedList;
+	}
+
+
+	/**
+	 * Same as getMatchedList for nodes, but looks up the matches by key: each node joins
+	 * the first matched node set holding a node with one of its keys, from another
+	 * network unless merging within networks.
+	 *
+	 * @return list of map from network to node
+	 */
+	private List<Map<CyNetwork, Set<CyNode>>> getMatchedNodeList(final List<CyNetwork> networks,
+			final List<Map<CyNode,Object[]>> keys) {
+		final List<Map<CyNetwork, Set<CyNode>>> matchedList = new ArrayList<Map<CyNetwork, Set<CyNode>>>();
+		final int nNet = networks.size();
+
+		// for each key (or node), the lowest index in the matched list by network
+		final Map<Object,int[]> firstIndexes = new HashMap<Object,int[]>();
+
+		for (int i = 0; i < nNet; i++) {
+			final CyNetwork net1 = networks.get(i);
+			final Map<CyNode,Object[]> netKeys = keys.get(i);
+			final List<CyNode> nodeList = net1.getNodeList();
+			final Object event = MergeEvents.beginMatching();
+			final long startComparisons = comparisons;
+
+			for (CyNode node: nodeList) {
+				if (interrupted)
+					return null;
+
+				final Object[] nodeKeys = netKeys.get(node);
+				int index = getFirstIndex(firstIndexes.get(node), i);
+				comparisons++;
+				if (nodeKeys != null) {
+					for (Object key: nodeKeys)
+						index = Math.min(index, getFirstIndex(firstIndexes.get(key), i));
+					comparisons += nodeKeys.length;
+				}
+
+				if (index == Integer.MAX_VALUE) {
+					// no matched node found, add new map to the list
+					index = matchedList.size();
+					matchedList.add(new HashMap<CyNetwork, Set<CyNode>>());
+				}
+				Set<CyNode> nodes = matchedList.get(index).get(net1);
+				if (nodes == null) {
+					nodes = new HashSet<CyNode>();
+					matchedList.get(index).put(net1, nodes);
+				}
+				nodes.add(node);
+				mapNodesIndex.put(node, index);
+
+				putFirstIndex(firstIndexes, node, i, index, nNet);
+				if (nodeKeys != null) {
+					for (Object key: nodeKeys)
+						putFirstIndex(firstIndexes, key, i, index, nNet);
+				}
+			}
+			MergeEvents.endMatching(event, net1.getSUID(), "node", nodeList.size(), comparisons - startComparisons);
+		}
+		return matchedList;
+	}
+
+	private int getFirstIndex(final int[] indexes, final int network) {
+		int first = Integer.MAX_VALUE;
+		if (indexes != null) {
+			for (int j = 0; j < indexes.length; j++) {
+				if (j != network || withinNetworkMerge)
+					first = Math.min(first, indexes[j]);
+			}
+		}
+		return first;
+	}
+
+	private static void putFirstIndex(final Map<Object,int[]> firstIndexes, final Object key, final int network,
+			final int index, final int nNet) {
+		int[] indexes = firstIndexes.get(key);
+		if (indexes == null) {
+			indexes = new int[nNet];
+			Arrays.fill(indexes, Integer.MAX_VALUE);
+			firstIndexes.put(key, indexes);
+		}
+		indexes[network] = Math.min(indexes[network], index);
+	}
+
+	/**
+	 * Select nodes for merge according to different op
+	 *
+	 * @param networks
+	 *            Networks to be merged
+	 * @param op
+	 *            Operation
+	 * @param size
+	 *            Number of networks
+	 *
+	 * @return list of matched nodes
+	 */
+	private <T extends CyIdentifiable> List<Map<CyNetwork, Set<T>>> selectMatchedGOList(
+			final List<Map<CyNetwork, Set<T>>> matchedGOList, final Operation op, final List<CyNetwork> networks) {
+		if (matchedGOList == null || op == null)
+			throw new NullPointerException();
+
+		int nnet = networks.size();
+
+		if (op == Operation.UNION) {
+			return matchedGOList;
+		} else if (op == Operation.INTERSECTION) {
+			List<Map<CyNetwork, Set<T>>> list = new ArrayList<Map<CyNetwork, Set<T>>>();
+			for (Map<CyNetwork, Set<T>> map : matchedGOList) {
+				if (map.size() == nnet) {// if contained in all the networks
+					list.add(map);
+				}
+			}
+			return list;
+		} else {
+			// For Operation.DIFFERENCE
+			final List<Map<CyNetwork, Set<T>>> list = new ArrayList<Map<CyNetwork, Set<T>>>();
+			if (nnet < 2)
+				return list;
+
+			final CyNetwork net1 = networks.get(0);
+			final CyNetwork net2 = networks.get(1);
+			for (Map<CyNetwork, Set<T>> map : matchedGOList) {
+				if ((map.containsKey(net1) && !map.containsKey(net2)))
+					list.add(map);
+			}
+
+			return list;
+		}
+	}
+}
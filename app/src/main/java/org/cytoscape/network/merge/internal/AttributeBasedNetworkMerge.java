@@ -0,0 +1,1031 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.VirtualColumnInfo;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.network.merge.internal.model.AttributeMapping;
+import org.cytoscape.network.merge.internal.model.CompiledAttributeMapping;
+import org.cytoscape.network.merge.internal.model.CompiledAttributeMapping.Conversion;
+import org.cytoscape.network.merge.internal.model.MatchingAttribute;
+import org.cytoscape.network.merge.internal.model.MatchingKeyIndex;
+import org.cytoscape.network.merge.internal.util.AttributeMerger;
+import org.cytoscape.network.merge.internal.util.AttributeValueMatcher;
+import org.cytoscape.network.merge.internal.util.ColumnType;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeMerger;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeMerger.MergedValue;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeValueMatcher;
+import org.cytoscape.work.TaskMonitor;
+
+/**
+ * Column based network merge
+ * 
+ * 
+ */
+public class AttributeBasedNetworkMerge extends AbstractNetworkMerge {
+
+	private final MatchingAttribute matchingAttribute;
+	private final AttributeMapping nodeAttributeMapping;
+	private final AttributeMapping edgeAttributeMapping;
+	private final AttributeMapping networkAttributeMapping;
+	private final AttributeValueMatcher attributeValueMatcher;
+	private final AttributeMerger attributeMerger;
+	// whether the merger is the default one, so that merged values can be copied, or
+	// computed apart from writing them, as it would do
+	private final boolean defaultMerger;
+
+	// compiled mappings and their target columns, set up by proprocess
+	private CompiledAttributeMapping nodePlan;
+	private CompiledAttributeMapping edgePlan;
+	private CompiledAttributeMapping networkPlan;
+	private CyColumn[] nodeTargetColumns;
+	private CyColumn[] edgeTargetColumns;
+	private CyColumn[] networkTargetColumns;
+	// target columns that reused nodes and edges already share with the sources
+	private boolean[] nodeSharedColumns;
+	private boolean[] edgeSharedColumns;
+
+	// join key columns of the virtual columns, and the network ordinal they refer to
+	private int[] nodeJoinOrdinals;
+	private String[] nodeJoinKeys;
+	private int[] edgeJoinOrdinals;
+	private String[] edgeJoinKeys;
+
+	// groups of nodes/edges whose values are computed by a worker thread at once
+	private static final int CHUNK_SIZE = 1024;
+
+	private boolean pruneEmptyColumns = false;
+	private boolean virtualColumns = false;
+	private int parallelism = 1;
+	private MatchingKeyIndex matchingKeyIndex;
+	private CyNetwork toNetwork;
+
+	/**
+	 * 
+	 * @param matchingAttribute
+	 * @param nodeAttributeMapping
+	 * @param edgeAttributeMapping
+	 * @param attributeMerger
+	 */
+	public AttributeBasedNetworkMerge(final MatchingAttribute matchingAttribute,
+			final AttributeMapping nodeAttributeMapping, final AttributeMapping edgeAttributeMapping,
+			final AttributeMapping networkAttributeMapping, 
+			final AttributeMerger attributeMerger, final TaskMonitor taskMonitor) {
+		this(matchingAttribute, nodeAttributeMapping, edgeAttributeMapping, networkAttributeMapping,
+		     attributeMerger, new DefaultAttributeValueMatcher(), taskMonitor);
+	}
+
+	/**
+	 * 
+	 * @param matchingAttribute
+	 * @param nodeAttributeMapping
+	 * @param edgeAttributeMapping
+	 * @param attributeMerger
+	 * @param attributeValueMatcher
+	 */
+	public AttributeBasedNetworkMerge(final MatchingAttribute matchingAttribute,
+			final AttributeMapping nodeAttributeMapping, final AttributeMapping edgeAttributeMapping,
+			final AttributeMapping networkAttributeMapping, 
+			final AttributeMerger attributeMerger, AttributeValueMatcher attributeValueMatcher,
+			final TaskMonitor taskMonitor) {
+		super(taskMonitor);
+
+		if (matchingAttribute == null || nodeAttributeMapping == null || edgeAttributeMapping == null
+				|| attributeMerger == null || attributeValueMatcher == null) {
+			throw new java.lang.NullPointerException();
+		}
+		this.matchingAttribute = matchingAttribute;
+		this.nodeAttributeMapping = nodeAttributeMapping;
+		this.edgeAttributeMapping = edgeAttributeMapping;
+		this.networkAttributeMapping = networkAttributeMapping;
+		this.attributeMerger = attributeMerger;
+		this.attributeValueMatcher = attributeValueMatcher;
+		this.defaultMerger = attributeMerger.getClass() == DefaultAttributeMerger.class;
+	}
+
+	/**
+	 * If set, node and edge columns are only created once the merged nodes and edges are
+	 * known, and only if at least one of them has a value in that column.
+	 */
+	public void setPruneEmptyColumns(boolean pruneEmptyColumns) {
+		this.pruneEmptyColumns = pruneEmptyColumns;
+	}
+
+	/**
+	 * If set and the merged network is a subnetwork of the same root as a source network,
+	 * node and edge columns whose values all come from a single node or edge of that network
+	 * are not copied, but added to the local table of the merged network as immutable
+	 * virtual columns. They are joined on the source SUID, held in that local table by a
+	 * column per source network, named __merge_source_ followed by the network SUID.
+	 */
+	public void setVirtualColumns(boolean virtualColumns) {
+		this.virtualColumns = virtualColumns;
+	}
+
+	/**
+	 * Number of threads computing the merged values of the nodes and edges, which are
+	 * written by the merging thread only. With 1, the default, each node and edge is merged
+	 * in turn by the merging thread.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Read the node matching keys from this index, which can be shared with other merges
+	 * of the same networks. By default the keys are read again for each merge.
+	 */
+	public void setMatchingKeyIndex(MatchingKeyIndex matchingKeyIndex) {
+		this.matchingKeyIndex = matchingKeyIndex;
+	}
+
+	@Override
+	protected boolean matchNode(final CyNetwork net1, final CyNode n1, final CyNetwork net2, final CyNode n2) {
+		if (net1 == null || n1 == null || net2 == null || n2 == null)
+			throw new NullPointerException();
+
+		// TODO: should it match if n1==n2?
+		if (n1 == n2)
+			return true;
+
+		CyColumn attr1 = matchingAttribute.getAttributeForMatching(net1);
+		CyColumn attr2 = matchingAttribute.getAttributeForMatching(net2);
+		
+		if (attr1 == null || attr2 == null)
+			throw new IllegalArgumentException("Please specify the matching table column first");
+		
+		return attributeValueMatcher.matched(n1, attr1, n2, attr2);
+	}
+
+	@Override
+	protected Map<CyNode,Object[]> getMatchingKeys(final CyNetwork network) {
+		// other matchers can only compare pairs of nodes
+		if (attributeValueMatcher.getClass() != DefaultAttributeValueMatcher.class)
+			return null;
+
+		final CyColumn column = matchingAttribute.getAttributeForMatching(network);
+		if (column == null)
+			return null;
+
+		// without a shared index, each network's keys are read once per matching
+		final MatchingKeyIndex index = matchingKeyIndex != null ? matchingKeyIndex : new MatchingKeyIndex(sourceSnapshot);
+		return index.getKeys(network, column);
+	}
+
+	@Override
+	protected void proprocess(CyNetwork toNetwork) {
+		this.toNetwork = toNetwork;
+		nodePlan = nodeAttributeMapping.compile();
+		edgePlan = edgeAttributeMapping.compile();
+		nodeJoinOrdinals = edgeJoinOrdinals = null;
+		nodeJoinKeys = edgeJoinKeys = null;
+		if (!pruneEmptyColumns && !virtualColumns) {
+			// otherwise created once the nodes and edges are selected
+			nodeTargetColumns = setAttributeTypes(toNetwork.getDefaultNodeTable(), getCreationTable(CyNode.class), nodePlan, null);
+			edgeTargetColumns = setAttributeTypes(toNetwork.getDefaultEdgeTable(), getCreationTable(CyEdge.class), edgePlan, null);
+			nodeSharedColumns = getSharedColumns(nodeTargetColumns, CyNode.class);
+			edgeSharedColumns = getSharedColumns(edgeTargetColumns, CyEdge.class);
+		}
+		if (networkAttributeMapping != null) {
+			networkPlan = networkAttributeMapping.compile();
+			networkTargetColumns = setAttributeTypes(toNetwork.getDefaultNetworkTable(), toNetwork.getDefaultNetworkTable(), networkPlan, null);
+		}
+	}
+
+	@Override
+	protected void estimateColumns(final MergeEstimate estimate, final List<Map<CyNetwork, Set<CyNode>>> matchedNodeList,
+			final List<Map<CyNetwork, Set<CyEdge>>> matchedEdgeList) {
+		final CompiledAttributeMapping nodeMapping = nodeAttributeMapping.compile();
+		final CompiledAttributeMapping edgeMapping = edgeAttributeMapping.compile();
+		estimate.setColumns(nodeMapping.getSizeMergedAttributes(), edgeMapping.getSizeMergedAttributes());
+		estimate.setConflicts(countConflicts(matchedNodeList, nodeMapping), countConflicts(matchedEdgeList, edgeMapping));
+	}
+
+	/*
+	 * Count by merged column the groups whose sources have different values, as the default
+	 * attribute merger would find them. List columns do not conflict, and scalar columns
+	 * only mapped from list columns are left out.
+	 */
+	private <T extends CyIdentifiable> Map<String,Integer> countConflicts(final List<Map<CyNetwork, Set<T>>> groups,
+			final CompiledAttributeMapping attributeMapping) {
+		final int n = attributeMapping.getSizeMergedAttributes();
+		final int[] counts = new int[n];
+		final Object[] values = new Object[n];
+		final boolean[] conflicting = new boolean[n];
+
+		for (Map<CyNetwork, Set<T>> group : groups) {
+			if (isInterrupted())
+				break;
+			int size = 0;
+			for (Set<T> gos : group.values())
+				size += gos.size();
+			if (size < 2)
+				continue;
+
+			Arrays.fill(values, null);
+			Arrays.fill(conflicting, false);
+			for (Map.Entry<CyNetwork, Set<T>> entry : group.entrySet()) {
+				final int ordinal = attributeMapping.getNetworkOrdinal(entry.getKey());
+				if (ordinal == -1)
+					continue;
+
+				for (T go : entry.getValue()) {
+					CyTable table = null;
+					CyRow row = null;
+					for (int i = 0; i < n; i++) {
+						final Conversion conversion = attributeMapping.getConversion(ordinal, i);
+						if (conflicting[i] || (conversion != Conversion.COPY && conversion != Conversion.CAST))
+							continue;
+						final CyColumn column = attributeMapping.getOriginalColumn(ordinal, i);
+						if (column.getTable() != table) {
+							table = column.getTable();
+							row = getSourceRow(table, go.getSUID());
+						}
+						final Object value;
+						try {
+							value = copyValue(row, column, conversion, attributeMapping.getMergedAttributeType(i));
+						} catch (RuntimeException e) {
+							continue;
+						}
+						if (value == null || "".equals(value))
+							continue;
+						if (values[i] == null) {
+							values[i] = value;
+						} else if (!values[i].equals(value)) {
+							conflicting[i] = true;
+							counts[i]++;
+						}
+					}
+				}
+			}
+		}
+
+		final Map<String,Integer> conflicts = new LinkedHashMap<String,Integer>();
+		for (int i = 0; i < n; i++) {
+			if (counts[i] > 0)
+				conflicts.put(attributeMapping.getMergedAttribute(i), counts[i]);
+		}
+		return conflicts;
+	}
+
+	@Override
+	protected void nodesSelected(List<Map<CyNetwork, Set<CyNode>>> matchedNodeList,
+			List<Map<CyNetwork, Set<CyNode>>> differenceNodeList) {
+		if (!pruneEmptyColumns && !virtualColumns)
+			return;
+
+		List<Map<CyNetwork, Set<CyNode>>> groups = matchedNodeList;
+		if (differenceNodeList != null && !differenceNodeList.isEmpty()) {
+			groups = new ArrayList<Map<CyNetwork, Set<CyNode>>>(matchedNodeList);
+			groups.addAll(differenceNodeList);
+		}
+		final boolean[] create = pruneEmptyColumns ? scanColumns(groups, nodePlan, "node")
+				: allColumns(nodePlan);
+		final int[] sources = virtualColumns ? findVirtualColumns(groups, nodePlan, toNetwork.getDefaultNodeTable(), create) : null;
+		nodeTargetColumns = setAttributeTypes(toNetwork.getDefaultNodeTable(), getCreationTable(CyNode.class), nodePlan, create);
+		nodeSharedColumns = getSharedColumns(nodeTargetColumns, CyNode.class);
+		if (sources != null) {
+			final List<String> joinKeys = new ArrayList<String>();
+			nodeJoinOrdinals = addVirtualColumns(toNetwork.getTable(CyNode.class, CyNetwork.LOCAL_ATTRS), nodePlan,
+					sources, joinKeys, "node");
+			nodeJoinKeys = joinKeys.toArray(new String[joinKeys.size()]);
+		}
+	}
+
+	@Override
+	protected void edgesSelected(List<Map<CyNetwork, Set<CyEdge>>> matchedEdgeList) {
+		if (!pruneEmptyColumns && !virtualColumns)
+			return;
+
+		final boolean[] create = pruneEmptyColumns ? scanColumns(matchedEdgeList, edgePlan, "edge")
+				: allColumns(edgePlan);
+		final int[] sources = virtualColumns ? findVirtualColumns(matchedEdgeList, edgePlan, toNetwork.getDefaultEdgeTable(), create) : null;
+		edgeTargetColumns = setAttributeTypes(toNetwork.getDefaultEdgeTable(), getCreationTable(CyEdge.class), edgePlan, create);
+		edgeSharedColumns = getSharedColumns(edgeTargetColumns, CyEdge.class);
+		if (sources != null) {
+			final List<String> joinKeys = new ArrayList<String>();
+			edgeJoinOrdinals = addVirtualColumns(toNetwork.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS), edgePlan,
+					sources, joinKeys, "edge");
+			edgeJoinKeys = joinKeys.toArray(new String[joinKeys.size()]);
+		}
+	}
+
+	/*
+	 * Find the merged columns that can be virtual: columns not in the target table, mapped
+	 * from a single network sharing the root of the merged network, with the same scalar
+	 * type, and such that no group has more than one entity from that network, so that the
+	 * merged value is always the source value. Returns the network ordinal of each merged
+	 * column, -1 if it has to be copied, or null if no column can be virtual. Only the
+	 * columns flagged in create are considered, and those returned as virtual are unflagged.
+	 */
+	private <T extends CyIdentifiable> int[] findVirtualColumns(final Collection<Map<CyNetwork, Set<T>>> groups,
+			final CompiledAttributeMapping attributeMapping, final CyTable table, boolean[] create) {
+		if (!(toNetwork instanceof CySubNetwork))
+			return null;
+		final CyRootNetwork root = ((CySubNetwork) toNetwork).getRootNetwork();
+
+		final int nnet = attributeMapping.getSizeNetwork();
+		final boolean[] eligible = new boolean[nnet];
+		boolean any = false;
+		for (int k = 0; k < nnet; k++) {
+			final CyNetwork net = attributeMapping.getNetwork(k);
+			eligible[k] = net instanceof CySubNetwork && ((CySubNetwork) net).getRootNetwork() == root;
+			any |= eligible[k];
+		}
+		if (!any)
+			return null;
+		return selectVirtualColumns(groups, attributeMapping, table, create, eligible);
+	}
+
+	/*
+	 * Select the virtual columns among those mapped from the eligible networks, as
+	 * described above; eligible is updated with the networks having several entities in
+	 * a group.
+	 */
+	static <T extends CyIdentifiable> int[] selectVirtualColumns(final Collection<Map<CyNetwork, Set<T>>> groups,
+			final CompiledAttributeMapping attributeMapping, final CyTable table, final boolean[] create,
+			final boolean[] eligible) {
+		final int nnet = attributeMapping.getSizeNetwork();
+
+		// merging entities within a network needs the values to be merged
+		for (Map<CyNetwork, Set<T>> group : groups) {
+			for (Map.Entry<CyNetwork, Set<T>> entry : group.entrySet()) {
+				if (entry.getValue().size() > 1) {
+					final int ordinal = attributeMapping.getNetworkOrdinal(entry.getKey());
+					if (ordinal != -1)
+						eligible[ordinal] = false;
+				}
+			}
+		}
+
+		final int n = attributeMapping.getSizeMergedAttributes();
+		final int[] sources = new int[n];
+		boolean found = false;
+		for (int i = 0; i < n; i++) {
+			sources[i] = -1;
+			if (!create[i])
+				continue;
+			if (table.getColumn(attributeMapping.getMergedAttribute(i)) != null)
+				continue;
+			final ColumnType type = attributeMapping.getMergedAttributeType(i);
+			if (type.isList())
+				continue; // the merge removes duplicated and null elements
+
+			int source = -1;
+			for (int k = 0; k < nnet; k++) {
+				if (attributeMapping.getOriginalColumn(k, i) == null)
+					continue;
+				if (source != -1) {
+					source = -1;
+					break;
+				}
+				source = k;
+			}
+			if (source == -1 || !eligible[source])
+				continue;
+			if (ColumnType.getType(attributeMapping.getOriginalColumn(source, i)) != type)
+				continue;
+
+			sources[i] = source;
+			found = true;
+		}
+		if (!found)
+			return null;
+
+		for (int i = 0; i < n; i++) {
+			if (sources[i] != -1)
+				create[i] = false;
+		}
+		return sources;
+	}
+
+	/*
+	 * Add the virtual columns to the local table of the merged network, with a join key
+	 * column per source network. Returns the network ordinals of the join keys, whose names
+	 * are added to joinKeys.
+	 */
+	private int[] addVirtualColumns(final CyTable localTable, final CompiledAttributeMapping attributeMapping,
+			final int[] sources, final List<String> joinKeys, final String kind) {
+		final int[] joinOrdinals = new int[attributeMapping.getSizeNetwork()];
+		final String[] keys = new String[attributeMapping.getSizeNetwork()];
+		int njoin = 0;
+		int nvirtual = 0;
+		for (int i = 0; i < sources.length; i++) {
+			final int k = sources[i];
+			if (k == -1)
+				continue;
+
+			if (keys[k] == null) {
+				keys[k] = "__merge_source_" + attributeMapping.getNetwork(k).getSUID();
+				if (localTable.getColumn(keys[k]) == null)
+					localTable.createColumn(keys[k], Long.class, false);
+				joinOrdinals[njoin++] = k;
+				joinKeys.add(keys[k]);
+			}
+
+			// join on the table actually holding the values, rather than on a facade
+			final CyColumn column = getPhysicalColumn(attributeMapping.getOriginalColumn(k, i));
+			// immutable: the values belong to the source network
+			localTable.addVirtualColumn(attributeMapping.getMergedAttribute(i), column.getName(), column.getTable(),
+					keys[k], true);
+			nvirtual++;
+		}
+
+		taskMonitor.showMessage(TaskMonitor.Level.INFO, "Added " + nvirtual + " " + kind
+				+ " columns as virtual columns of the source networks");
+		return Arrays.copyOf(joinOrdinals, njoin);
+	}
+
+	/*
+	 * Find the merged columns having a value for at least one group, and report those
+	 * having a value for less than 1% of the groups. A column is not scanned any more
+	 * once it is known not to be sparse.
+	 */
+	private <T extends CyIdentifiable> boolean[] scanColumns(final Collection<Map<CyNetwork, Set<T>>> groups,
+			final CompiledAttributeMapping attributeMapping, final String kind) {
+		final int n = attributeMapping.getSizeMergedAttributes();
+		final int sparse = Math.max(1, groups.size() / 100);
+		final int[] counts = new int[n];
+		final int[] lastGroup = new int[n];
+		int remaining = n;
+
+		int g = 0;
+		scan:
+		for (Map<CyNetwork, Set<T>> group : groups) {
+			g++;
+			for (Map.Entry<CyNetwork, Set<T>> entry : group.entrySet()) {
+				final int ordinal = attributeMapping.getNetworkOrdinal(entry.getKey());
+				if (ordinal == -1)
+					continue;
+
+				for (T go : entry.getValue()) {
+					CyTable table = null;
+					CyRow row = null;
+					for (int i = 0; i < n; i++) {
+						if (counts[i] >= sparse || lastGroup[i] == g)
+							continue;
+						final CyColumn column = attributeMapping.getOriginalColumn(ordinal, i);
+						if (column == null)
+							continue;
+						if (column.getTable() != table) {
+							table = column.getTable();
+							row = getSourceRow(table, go.getSUID());
+						}
+						if (row.getRaw(column.getName()) != null) {
+							lastGroup[i] = g;
+							if (++counts[i] >= sparse && --remaining == 0)
+								break scan;
+						}
+					}
+				}
+			}
+		}
+
+		final boolean[] hasData = new boolean[n];
+		final List<String> empty = new ArrayList<String>();
+		final List<String> sparseColumns = new ArrayList<String>();
+		for (int i = 0; i < n; i++) {
+			hasData[i] = counts[i] > 0;
+			if (counts[i] == 0)
+				empty.add(attributeMapping.getMergedAttribute(i));
+			else if (counts[i] < sparse)
+				sparseColumns.add(attributeMapping.getMergedAttribute(i) + " (" + counts[i] + ")");
+		}
+
+		if (!empty.isEmpty())
+			taskMonitor.showMessage(TaskMonitor.Level.INFO, "Skipped " + empty.size() + " " + kind
+					+ " columns without any value: " + abbreviate(empty));
+		if (!sparseColumns.isEmpty())
+			taskMonitor.showMessage(TaskMonitor.Level.INFO, sparseColumns.size() + " sparse " + kind
+					+ " columns, with values for less than 1% of the " + groups.size() + " " + kind + "s: "
+					+ abbreviate(sparseColumns));
+		return hasData;
+	}
+
+	/*
+	 * follow the virtual columns joined on the primary keys to the column holding the values
+	 */
+	private static CyColumn getPhysicalColumn(CyColumn column) {
+		VirtualColumnInfo info = column.getVirtualColumnInfo();
+		while (info != null && info.isVirtual()
+				&& info.getTargetJoinKey().equals(column.getTable().getPrimaryKey().getName())
+				&& info.getSourceJoinKey().equals(info.getSourceTable().getPrimaryKey().getName())) {
+			column = info.getSourceTable().getColumn(info.getSourceColumn());
+			info = column.getVirtualColumnInfo();
+		}
+		return column;
+	}
+
+	/*
+	 * flag the target columns holding their values in the shared table of the root, which
+	 * reused nodes and edges already have; null if nothing is reused
+	 */
+	private boolean[] getSharedColumns(final CyColumn[] targetColumns, final Class<? extends CyIdentifiable> type) {
+		if (!reuseRootElements || !(toNetwork instanceof CySubNetwork))
+			return null;
+
+		final CyRootNetwork root = ((CySubNetwork) toNetwork).getRootNetwork();
+		final CyTable sharedTable = type == CyNode.class ? root.getSharedNodeTable() : root.getSharedEdgeTable();
+		final boolean[] shared = new boolean[targetColumns.length];
+		for (int i = 0; i < targetColumns.length; i++) {
+			shared[i] = targetColumns[i] != null && getPhysicalColumn(targetColumns[i]).getTable() == sharedTable;
+		}
+		return shared;
+	}
+
+	private static boolean[] allColumns(final CompiledAttributeMapping attributeMapping) {
+		final boolean[] all = new boolean[attributeMapping.getSizeMergedAttributes()];
+		Arrays.fill(all, true);
+		return all;
+	}
+
+	private static String abbreviate(final List<String> names) {
+		final int max = 20;
+		if (names.size() <= max)
+			return String.join(", ", names);
+		return String.join(", ", names.subList(0, max)) + ", ... (" + (names.size() - max) + " more)";
+	}
+
+	/*
+	 * Table where the missing node or edge columns are created. In a root shared with the
+	 * sources, creating them in the default table would add shared columns to every network
+	 * of the root, conflicting with their local columns of the same name.
+	 */
+	private CyTable getCreationTable(final Class<? extends CyIdentifiable> type) {
+		if ((virtualColumns || reuseRootElements) && toNetwork instanceof CySubNetwork)
+			return toNetwork.getTable(type, CyNetwork.LOCAL_ATTRS);
+		return toNetwork.getTable(type, CyNetwork.DEFAULT_ATTRS);
+	}
+
+	/*
+	 * create the merged columns missing from table in createIn, and return them in the order
+	 * of the mapping; if create is not null, only the flagged columns are created, the others
+	 * are null
+	 */
+	private CyColumn[] setAttributeTypes(final CyTable table, final CyTable createIn,
+			CompiledAttributeMapping attributeMapping, final boolean[] create) {
+		int n = attributeMapping.getSizeMergedAttributes();
+		final CyColumn[] columns = new CyColumn[n];
+		for (int i = 0; i < n; i++) {
+			String attr = attributeMapping.getMergedAttribute(i);
+			if (table.getColumn(attr) == null) {
+				if (create != null && !create[i])
+					continue;
+
+				// TODO: check if the type is the same
+
+				// TODO: immutability?
+				final ColumnType type = attributeMapping.getMergedAttributeType(i);
+				final boolean isImmutable = attributeMapping.getMergedAttributeMutability(i);
+				if (type.isList()) {
+					createIn.createListColumn(attr, type.getType(), isImmutable);
+				} else {
+					createIn.createColumn(attr, type.getType(), isImmutable);
+				}
+			}
+			columns[i] = table.getColumn(attr);
+		}
+		return columns;
+	}
+
+	@Override
+	protected void mergeNetworks(final List<CyNetwork> nets, CyNetwork newNetwork) {
+		if (networkAttributeMapping == null) return;
+		Map<CyNetwork,Set<CyNetwork>> mapNetNet = new HashMap<>();
+		for (CyNetwork net: nets) {
+			mapNetNet.put(net, Collections.singleton(net));
+		}
+
+		setAttribute(newNetwork, newNetwork, mapNetNet, networkPlan, networkTargetColumns, null, null, null);
+		
+	}
+
+	@Override
+	protected void mergeNode(final Map<CyNetwork, Set<CyNode>> mapNetNode, CyNode newNode, CyNetwork newNetwork) {
+		// TODO: refactor in Cytoscape3,
+		// in 2.x node with the same identifier be the same node
+		// and different nodes must have different identifier.
+		// Is this true in 3.0?
+		if (mapNetNode == null || mapNetNode.isEmpty())
+			return;
+
+		// for attribute confilict handling, introduce a conflict node here?
+
+		// set other attributes as indicated in attributeMapping
+		setAttribute(newNetwork, newNode, mapNetNode, nodePlan, nodeTargetColumns, nodeSharedColumns,
+				nodeJoinOrdinals, nodeJoinKeys);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void mergeEdge(final Map<CyNetwork, Set<CyEdge>> mapNetEdge, CyEdge newEdge, CyNetwork newNetwork) {
+		if (mapNetEdge == null || mapNetEdge.isEmpty() || newEdge == null) {
+			throw new IllegalArgumentException();
+		}
+
+		// set other attributes as indicated in attributeMapping
+		setAttribute(newNetwork, newEdge, mapNetEdge, edgePlan, edgeTargetColumns, edgeSharedColumns,
+				edgeJoinOrdinals, edgeJoinKeys);
+	}
+
+	/*
+	 * resolve the networks of a group once for all the columns: returns their ordinals,
+	 * and adds their nodes/edges to gos in the same order
+	 */
+	private static <T extends CyIdentifiable> int[] resolveNetworks(final Map<CyNetwork, Set<T>> mapNetGOs,
+			final CompiledAttributeMapping attributeMapping, final List<Set<T>> gos) {
+		final int[] ordinals = new int[mapNetGOs.size()];
+		for (Map.Entry<CyNetwork, Set<T>> entryNetGOs : mapNetGOs.entrySet()) {
+			final int ordinal = attributeMapping.getNetworkOrdinal(entryNetGOs.getKey());
+			if (ordinal == -1)
+				throw new IllegalArgumentException(entryNetGOs.getKey() + " is not selected as merging network");
+			ordinals[gos.size()] = ordinal;
+			gos.add(entryNetGOs.getValue());
+		}
+		return ordinals;
+	}
+
+	private static <T extends CyIdentifiable> void setJoinKeys(final CyNetwork newNetwork, final T toEntry,
+			final int[] ordinals, final List<Set<T>> gos, final int[] joinOrdinals, final String[] joinKeys) {
+		CyRow localRow = null;
+		for (int k = 0; k < joinOrdinals.length; k++) {
+			for (int j = 0; j < ordinals.length; j++) {
+				if (ordinals[j] == joinOrdinals[k]) {
+					// a single entity, as checked when the virtual columns were added
+					if (localRow == null)
+						localRow = newNetwork.getRow(toEntry, CyNetwork.LOCAL_ATTRS);
+					localRow.set(joinKeys[k], gos.get(j).iterator().next().getSUID());
+					break;
+				}
+			}
+		}
+	}
+
+	/*
+	 * value of a merged column having a single source, converted as the attribute merger
+	 * would do, or null if there is nothing to write; not for Conversion.OTHER
+	 */
+	private static Object copyValue(final CyRow row, final CyColumn column, final Conversion conversion,
+			final ColumnType mergedType) {
+		switch (conversion) {
+		case COPY:
+			return row.get(column.getName(), column.getType());
+		case CAST: {
+			final Object value = row.get(column.getName(), column.getType());
+			return value == null ? null : mergedType.castService(value);
+		}
+		case TO_LIST: {
+			Object value = row.get(column.getName(), column.getType());
+			if (value == null)
+				return null;
+			final ColumnType plainType = mergedType.toPlain();
+			if (plainType.getType() != column.getType())
+				value = plainType.castService(value);
+			final List<Object> list = new ArrayList<Object>(1);
+			list.add(value);
+			return list;
+		}
+		case LIST: {
+			final List<?> values = row.getList(column.getName(), column.getListElementType());
+			if (values == null)
+				return null;
+			final ColumnType plainType = mergedType.toPlain();
+			final boolean cast = plainType.getType() != column.getListElementType();
+			final List<Object> list = new ArrayList<Object>(values.size());
+			final Set<Object> seen = new HashSet<Object>();
+			for (Object value : values) {
+				if (value == null)
+					continue;
+				if (cast)
+					value = plainType.castService(value);
+				if (seen.add(value))
+					list.add(value);
+			}
+			return list.isEmpty() ? null : list;
+		}
+		default:
+			throw new IllegalArgumentException(conversion.toString());
+		}
+	}
+
+	/*
+	 * copy the values of the only source of a new node/edge, converted as the attribute
+	 * merger would do, without any conflict check; skipped columns are left as they are
+	 */
+	private <T extends CyIdentifiable> void copyAttributes(final CyNetwork newNetwork, final T toEntry, final T from,
+			final int ordinal, final CompiledAttributeMapping attributeMapping, final CyColumn[] targetColumns,
+			final boolean[] skippedColumns) {
+		final CyRow toRow = newNetwork.getRow(toEntry);
+		CyTable table = null;
+		CyRow row = null;
+
+		final int nattr = attributeMapping.getSizeMergedAttributes();
+		for (int i = 0; i < nattr; i++) {
+			final CyColumn attr_merged = targetColumns[i];
+			if (attr_merged == null || (skippedColumns != null && skippedColumns[i]))
+				continue;
+			final CyColumn column = attributeMapping.getOriginalColumn(ordinal, i);
+			if (column == null)
+				continue;
+			if (column.getTable() != table) {
+				table = column.getTable();
+				row = getSourceRow(table, from.getSUID());
+			}
+
+			try {
+				final Conversion conversion = attributeMapping.getConversion(ordinal, i);
+				if (conversion == Conversion.OTHER) {
+					attributeMerger.mergeAttribute(Collections.singletonMap(from, column), toEntry, attr_merged,
+							newNetwork);
+				} else {
+					final Object value = copyValue(row, column, conversion, attributeMapping.getMergedAttributeType(i));
+					if (value != null)
+						toRow.set(attr_merged.getName(), value);
+				}
+			} catch (Exception e) {
+				continue;
+			}
+		}
+	}
+
+	/*
+	 * set attribute for the merge node/edge according to the compiled attribute mapping,
+	 * and the join keys of its virtual columns if any; the shared columns are skipped if
+	 * the entry is the source node/edge itself
+	 */
+	protected <T extends CyIdentifiable> void setAttribute(CyNetwork newNetwork, T toEntry,
+			final Map<CyNetwork, Set<T>> mapNetGOs, final CompiledAttributeMapping attributeMapping,
+			final CyColumn[] targetColumns, final boolean[] sharedColumns,
+			final int[] joinOrdinals, final String[] joinKeys) {
+		final List<Set<T>> gos = new ArrayList<Set<T>>(mapNetGOs.size());
+		final int[] ordinals = resolveNetworks(mapNetGOs, attributeMapping, gos);
+		final int nnet = ordinals.length;
+
+		if (joinOrdinals != null)
+			setJoinKeys(newNetwork, toEntry, ordinals, gos, joinOrdinals, joinKeys);
+
+		final boolean reused = sharedColumns != null && getSingleGraphObject(mapNetGOs) == toEntry;
+
+		// a node/edge from a single source has nothing to merge, the row of the network
+		// is not new and keeps its name
+		if (defaultMerger && nnet == 1 && gos.get(0).size() == 1 && !(toEntry instanceof CyNetwork)) {
+			copyAttributes(newNetwork, toEntry, gos.get(0).iterator().next(), ordinals[0], attributeMapping,
+					targetColumns, reused ? sharedColumns : null);
+			return;
+		}
+
+		final int nattr = attributeMapping.getSizeMergedAttributes();
+		for (int i = 0; i < nattr; i++) {
+			CyColumn attr_merged = targetColumns[i];
+			if (attr_merged == null)
+				continue; // not created, no value to merge
+			if (reused && sharedColumns[i])
+				continue; // same row as the sources
+
+			// merge
+			Map<T, CyColumn> mapGOAttr = new HashMap<T, CyColumn>();
+			for (int j = 0; j < nnet; j++) {
+				final CyColumn column = attributeMapping.getOriginalColumn(ordinals[j], i);
+				if (column != null) {
+					for (T idGO : gos.get(j)) {
+						mapGOAttr.put(idGO, column);
+					}
+				}
+			}
+
+			try {
+				attributeMerger.mergeAttribute(mapGOAttr, toEntry, attr_merged, newNetwork);
+			} catch (Exception e) {
+				// e.printStackTrace();
+				continue;
+			}
+		}
+	}
+
+	@Override
+	protected void mergeNodes(List<Map<CyNetwork, Set<CyNode>>> matchedNodeList, List<CyNode> newNodes,
+			CyNetwork newNetwork) {
+		if (parallelism <= 1 || !defaultMerger) {
+			super.mergeNodes(matchedNodeList, newNodes, newNetwork);
+			return;
+		}
+		mergeInParallel(matchedNodeList, newNodes, newNetwork, nodePlan, nodeTargetColumns, nodeSharedColumns,
+				nodeJoinOrdinals, nodeJoinKeys, 0d);
+	}
+
+	@Override
+	protected void mergeEdges(List<Map<CyNetwork, Set<CyEdge>>> matchedEdgeList, List<CyEdge> newEdges,
+			CyNetwork newNetwork) {
+		if (parallelism <= 1 || !defaultMerger) {
+			super.mergeEdges(matchedEdgeList, newEdges, newNetwork);
+			return;
+		}
+		mergeInParallel(matchedEdgeList, newEdges, newNetwork, edgePlan, edgeTargetColumns, edgeSharedColumns,
+				edgeJoinOrdinals, edgeJoinKeys, 0.5d);
+	}
+
+	/*
+	 * The merged values of each chunk of groups are computed by the worker threads, and
+	 * written in order by the calling thread, the only one writing to the merged network.
+	 * At most two chunks per thread are computed ahead of the writer.
+	 */
+	private <T extends CyIdentifiable> void mergeInParallel(final List<Map<CyNetwork, Set<T>>> groups,
+			final List<T> newEntries, final CyNetwork newNetwork, final CompiledAttributeMapping attributeMapping,
+			final CyColumn[] targetColumns, final boolean[] sharedColumns, final int[] joinOrdinals,
+			final String[] joinKeys, final double progressStart) {
+		final DefaultAttributeMerger merger = (DefaultAttributeMerger) attributeMerger;
+		final int n = groups.size();
+		final int nchunk = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		final ArrayDeque<Future<MergedValue[][]>> pending = new ArrayDeque<Future<MergedValue[][]>>();
+		final ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+			final Thread thread = new Thread(r, "Network merge worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			int submitted = 0;
+			for (int c = 0; c < nchunk; c++) {
+				while (submitted < nchunk && pending.size() < 2 * parallelism) {
+					final int from = submitted * CHUNK_SIZE;
+					final int to = Math.min(n, from + CHUNK_SIZE);
+					pending.add(executor.submit(() -> planChunk(groups, newEntries, from, to, attributeMapping,
+							targetColumns, sharedColumns, merger)));
+					submitted++;
+				}
+
+				final MergedValue[][] values = pending.poll().get();
+				if (isInterrupted())
+					return;
+
+				final int from = c * CHUNK_SIZE;
+				for (int g = 0; g < values.length; g++) {
+					final T toEntry = newEntries.get(from + g);
+					if (toEntry == null)
+						continue;
+
+					if (joinOrdinals != null) {
+						final List<Set<T>> gos = new ArrayList<Set<T>>();
+						final int[] ordinals = resolveNetworks(groups.get(from + g), attributeMapping, gos);
+						setJoinKeys(newNetwork, toEntry, ordinals, gos, joinOrdinals, joinKeys);
+					}
+
+					final MergedValue[] groupValues = values[g];
+					for (int i = 0; i < groupValues.length; i++) {
+						if (groupValues[i] == null)
+							continue;
+						try {
+							merger.applyValue(toEntry, targetColumns[i], newNetwork, groupValues[i]);
+						} catch (Exception e) {
+							continue;
+						}
+					}
+				}
+				taskMonitor.setProgress(progressStart + ((double) Math.min(n, from + CHUNK_SIZE) / n) * 0.5d);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to merge the table columns", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private <T extends CyIdentifiable> MergedValue[][] planChunk(final List<Map<CyNetwork, Set<T>>> groups,
+			final List<T> newEntries, final int from, final int to, final CompiledAttributeMapping attributeMapping,
+			final CyColumn[] targetColumns, final boolean[] sharedColumns, final DefaultAttributeMerger merger) {
+		final MergedValue[][] values = new MergedValue[to - from][];
+		for (int g = from; g < to; g++) {
+			if (isInterrupted())
+				break;
+			final T toEntry = newEntries.get(g);
+			if (toEntry != null)
+				values[g - from] = planGroup(toEntry, groups.get(g), attributeMapping, targetColumns, sharedColumns, merger);
+			else
+				values[g - from] = new MergedValue[0];
+		}
+		return values;
+	}
+
+	/*
+	 * same as setAttribute, but computing the values without writing them; the rows of the
+	 * new nodes/edges are empty
+	 */
+	private <T extends CyIdentifiable> MergedValue[] planGroup(final T toEntry, final Map<CyNetwork, Set<T>> mapNetGOs,
+			final CompiledAttributeMapping attributeMapping, final CyColumn[] targetColumns,
+			final boolean[] sharedColumns, final DefaultAttributeMerger merger) {
+		final List<Set<T>> gos = new ArrayList<Set<T>>(mapNetGOs.size());
+		final int[] ordinals = resolveNetworks(mapNetGOs, attributeMapping, gos);
+		final int nnet = ordinals.length;
+		final boolean reused = sharedColumns != null && getSingleGraphObject(mapNetGOs) == toEntry;
+
+		final int nattr = attributeMapping.getSizeMergedAttributes();
+		final MergedValue[] values = new MergedValue[nattr];
+
+		if (nnet == 1 && gos.get(0).size() == 1) {
+			final T from = gos.get(0).iterator().next();
+			CyTable table = null;
+			CyRow row = null;
+			for (int i = 0; i < nattr; i++) {
+				final CyColumn attr_merged = targetColumns[i];
+				if (attr_merged == null || (reused && sharedColumns[i]))
+					continue;
+				final CyColumn column = attributeMapping.getOriginalColumn(ordinals[0], i);
+				if (column == null)
+					continue;
+				if (column.getTable() != table) {
+					table = column.getTable();
+					row = getSourceRow(table, from.getSUID());
+				}
+
+				try {
+					final Conversion conversion = attributeMapping.getConversion(ordinals[0], i);
+					if (conversion == Conversion.OTHER) {
+						values[i] = merger.computeValue(Collections.singletonMap(from, column), toEntry, attr_merged, null);
+					} else {
+						final Object value = copyValue(row, column, conversion, attributeMapping.getMergedAttributeType(i));
+						if (value != null)
+							values[i] = MergedValue.of(value);
+					}
+				} catch (Exception e) {
+					continue;
+				}
+			}
+			return values;
+		}
+
+		for (int i = 0; i < nattr; i++) {
+			final CyColumn attr_merged = targetColumns[i];
+			if (attr_merged == null || (reused && sharedColumns[i]))
+				continue;
+
+			final Map<T, CyColumn> mapGOAttr = new HashMap<T, CyColumn>();
+			for (int j = 0; j < nnet; j++) {
+				final CyColumn column = attributeMapping.getOriginalColumn(ordinals[j], i);
+				if (column != null) {
+					for (T idGO : gos.get(j)) {
+						mapGOAttr.put(idGO, column);
+					}
+				}
+			}
+
+			try {
+				values[i] = merger.computeValue(mapGOAttr, toEntry, attr_merged, null);
+			} catch (Exception e) {
+				continue;
+			}
+		}
+		return values;
+	}
+
+}
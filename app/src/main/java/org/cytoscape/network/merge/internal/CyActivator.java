@@ -0,0 +1,166 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Properties;
+
+import javax.management.JMException;
+
+import org.cytoscape.application.swing.CyAction;
+import org.cytoscape.service.util.AbstractCyActivator;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.work.ServiceProperties;
+import org.cytoscape.work.TaskFactory;
+import org.osgi.framework.BundleContext;
+
+import org.cytoscape.network.merge.internal.task.NetworkMergeTaskFactory;
+import org.cytoscape.network.merge.internal.task.NetworkMergeCommandTaskFactory;
+import org.cytoscape.network.merge.internal.task.NetworkMergeBatchCommandTaskFactory;
+import org.cytoscape.network.merge.internal.task.ConflictReportCommandTaskFactory;
+import org.cytoscape.network.merge.internal.task.MergeJobCommandTaskFactory;
+import org.cytoscape.network.merge.internal.task.MergeJobManager;
+
+import static org.cytoscape.work.ServiceProperties.COMMAND;
+import static org.cytoscape.work.ServiceProperties.COMMAND_DESCRIPTION;
+import static org.cytoscape.work.ServiceProperties.COMMAND_EXAMPLE_JSON;
+import static org.cytoscape.work.ServiceProperties.COMMAND_LONG_DESCRIPTION;
+import static org.cytoscape.work.ServiceProperties.COMMAND_NAMESPACE;
+import static org.cytoscape.work.ServiceProperties.COMMAND_SUPPORTS_JSON;
+import static org.cytoscape.work.ServiceProperties.IN_MENU_BAR;
+import static org.cytoscape.work.ServiceProperties.MENU_GRAVITY;
+import static org.cytoscape.work.ServiceProperties.PREFERRED_MENU;
+import static org.cytoscape.work.ServiceProperties.TITLE;
+
+
+public class CyActivator extends AbstractCyActivator {
+
+	private MergeJobManager jobManager;
+	private MergeMetrics metrics;
+	
+	public CyActivator() {
+		super();
+	}
+
+	@Override
+	public void start(BundleContext bc) {
+
+		CyServiceRegistrar serviceRegistrar = getService(bc, CyServiceRegistrar.class);
+		jobManager = new MergeJobManager(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+		metrics = new MergeMetrics();
+		try {
+			metrics.register();
+		} catch (JMException e) {
+			// still available as a service
+		}
+		registerService(bc, metrics, MergeMetricsMXBean.class, new Properties());
+
+		{
+			NetworkMergeTaskFactory mergeTask = new NetworkMergeTaskFactory(serviceRegistrar, metrics);
+
+			final Properties props = new Properties();
+			props.setProperty(TITLE, "Networks...");
+			props.setProperty(PREFERRED_MENU, "Tools.Merge");
+			props.setProperty(IN_MENU_BAR, "true");
+			props.setProperty(MENU_GRAVITY, "0.1");
+			registerService(bc, mergeTask, TaskFactory.class, props); 
+		}
+
+		{
+			NetworkMergeCommandTaskFactory mergeTask = new NetworkMergeCommandTaskFactory(serviceRegistrar, jobManager, metrics);
+			Properties props = new Properties();
+			props.setProperty(COMMAND_NAMESPACE, "network");
+			props.setProperty(COMMAND, "merge");
+			props.setProperty(COMMAND_DESCRIPTION, "Merge two or more networks");
+			props.setProperty(COMMAND_LONG_DESCRIPTION, "Combine networks via union, intersection, or difference.  Lots of parameters apply!");
+			props.setProperty(COMMAND_SUPPORTS_JSON, "true");
+			props.setProperty(COMMAND_EXAMPLE_JSON, "{\"SUID\":12345,\"statistics\":{\"matchNodes\":{\"time\":40,\"count\":2000,\"comparisons\":2400,\"allocatedBytes\":1048576}}}");
+			registerService(bc, mergeTask, TaskFactory.class, props);
+		}
+
+		{
+			NetworkMergeBatchCommandTaskFactory batchTask = new NetworkMergeBatchCommandTaskFactory(serviceRegistrar, metrics);
+			Properties props = new Properties();
+			props.setProperty(COMMAND_NAMESPACE, "network");
+			props.setProperty(COMMAND, "merge batch");
+			props.setProperty(COMMAND_DESCRIPTION, "Run many network merges from a manifest");
+			props.setProperty(COMMAND_LONG_DESCRIPTION, "Run the merge jobs of a JSON manifest, each with the parameters of 'network merge', concurrently on a bounded pool of threads. Jobs merging the same networks read their matching keys once.");
+			props.setProperty(COMMAND_SUPPORTS_JSON, "true");
+			props.setProperty(COMMAND_EXAMPLE_JSON, "{\"indexedColumns\":3,\"jobs\":[{\"id\":\"ab\",\"status\":\"done\",\"network\":1234,\"nodes\":120,\"edges\":310,\"time\":85,\"message\":null}]}");
+			registerService(bc, batchTask, TaskFactory.class, props);
+		}
+
+		{
+			MergeJobCommandTaskFactory statusTask = new MergeJobCommandTaskFactory(jobManager, false);
+			Properties props = new Properties();
+			props.setProperty(COMMAND_NAMESPACE, "network");
+			props.setProperty(COMMAND, "merge status");
+			props.setProperty(COMMAND_DESCRIPTION, "Poll background network merges");
+			props.setProperty(COMMAND_LONG_DESCRIPTION, "Return the status, phase and progress of a merge queued with 'network merge async=true', or of all the known ones, and the merged network once done.");
+			props.setProperty(COMMAND_SUPPORTS_JSON, "true");
+			props.setProperty(COMMAND_EXAMPLE_JSON, "{\"id\":\"1\",\"status\":\"running\",\"phase\":\"Merging nodes...\",\"progress\":0.3,\"network\":null,\"time\":5120,\"message\":null}");
+			registerService(bc, statusTask, TaskFactory.class, props);
+		}
+
+		{
+			MergeJobCommandTaskFactory cancelTask = new MergeJobCommandTaskFactory(jobManager, true);
+			Properties props = new Properties();
+			props.setProperty(COMMAND_NAMESPACE, "network");
+			props.setProperty(COMMAND, "merge cancel");
+			props.setProperty(COMMAND_DESCRIPTION, "Cancel a background network merge");
+			props.setProperty(COMMAND_LONG_DESCRIPTION, "Cancel a merge queued with 'network merge async=true'. A running merge is interrupted and its partial network destroyed.");
+			props.setProperty(COMMAND_SUPPORTS_JSON, "true");
+			props.setProperty(COMMAND_EXAMPLE_JSON, "{\"id\":\"1\",\"status\":\"running\",\"phase\":\"Merging nodes...\",\"progress\":0.3,\"network\":null,\"time\":5120,\"message\":null}");
+			registerService(bc, cancelTask, TaskFactory.class, props);
+		}
+
+		{
+			ConflictReportCommandTaskFactory reportTask = new ConflictReportCommandTaskFactory();
+			Properties props = new Properties();
+			props.setProperty(COMMAND_NAMESPACE, "network");
+			props.setProperty(COMMAND, "merge report");
+			props.setProperty(COMMAND_DESCRIPTION, "Query or export a merge conflict report");
+			props.setProperty(COMMAND_LONG_DESCRIPTION, "Stream the conflict report written by 'network merge' with the conflictReport argument, filtered by column, target or source network, and return or export the matching conflicts.");
+			props.setProperty(COMMAND_SUPPORTS_JSON, "true");
+			props.setProperty(COMMAND_EXAMPLE_JSON, "{\"count\":1,\"returned\":1,\"conflicts\":[{\"target\":1234,\"column\":\"name\",\"sourceNetwork\":52,\"source\":60,\"value\":\"YDL194W\"}]}");
+			registerService(bc, reportTask, TaskFactory.class, props);
+		}
+
+	}
+
+	@Override
+	public void stop(BundleContext bc) {
+		if (jobManager != null)
+			jobManager.dispose();
+		if (metrics != null) {
+			try {
+				metrics.unregister();
+			} catch (JMException e) {
+				// unregistered with the platform
+			}
+		}
+		super.stop(bc);
+	}
+}
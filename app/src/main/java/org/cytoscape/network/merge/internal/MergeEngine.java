@@ -0,0 +1,257 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictHandler;
+import org.cytoscape.network.merge.internal.conflict.ConflictReport;
+import org.cytoscape.network.merge.internal.conflict.DefaultAttributeConflictHandler;
+import org.cytoscape.network.merge.internal.model.AttributeMapping;
+import org.cytoscape.network.merge.internal.model.CompiledAttributeMapping;
+import org.cytoscape.network.merge.internal.model.SourceSnapshot;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeMerger;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeValueMatcher;
+import org.cytoscape.network.merge.internal.util.MergeEvents;
+import org.cytoscape.work.TaskMonitor;
+
+/**
+ * Runs a {@link MergeRequest} into a network, without any user interface: the dialog,
+ * the commands and scripts all go through it.
+ */
+public class MergeEngine {
+	private final TaskMonitor taskMonitor;
+	private volatile AttributeBasedNetworkMerge networkMerge;
+	private volatile boolean interrupted;
+
+	/**
+	 * 
+	 * @param taskMonitor
+	 *            receives the progress of the merge
+	 */
+	public MergeEngine(final TaskMonitor taskMonitor) {
+		if (taskMonitor == null) {
+			throw new java.lang.NullPointerException();
+		}
+		this.taskMonitor = taskMonitor;
+	}
+
+	/**
+	 * Merge the source networks of the request into a network.
+	 * 
+	 * @param toNetwork
+	 *            merge to this network, preferably a new subnetwork of the root of the
+	 *            source networks when virtual columns or root elements are requested
+	 * @param request
+	 *            what to merge and how
+	 * @return the result, also when the merge was interrupted
+	 * @throws IOException
+	 *             if the conflict report cannot be written
+	 */
+	public MergeResult merge(final CyNetwork toNetwork, final MergeRequest request) throws IOException {
+		if (toNetwork == null || request == null) {
+			throw new java.lang.NullPointerException();
+		}
+
+		final boolean inSharedRoot = toNetwork instanceof CySubNetwork
+				&& ((CySubNetwork) toNetwork).getRootNetwork() == getSharedRoot(request.getSourceNetworks());
+
+		final DefaultAttributeValueMatcher attributeValueMatcher = new DefaultAttributeValueMatcher();
+		final DefaultAttributeMerger attributeMerger;
+		// reported conflicts are resolved inline rather than collected
+		if (request.isInlineConflictHandling() || request.getConflictReportFile() != null)
+			attributeMerger = new DefaultAttributeMerger(request.getConflictCollector(), createConflictHandlers());
+		else
+			attributeMerger = new DefaultAttributeMerger(request.getConflictCollector());
+
+		final AttributeBasedNetworkMerge networkMerge = new AttributeBasedNetworkMerge(request.getMatchingAttribute(),
+				request.getNodeAttributeMapping(), request.getEdgeAttributeMapping(),
+				request.getNetworkAttributeMapping(), attributeMerger, attributeValueMatcher, taskMonitor);
+		networkMerge.setWithinNetworkMerge(request.isWithinNetworkMerge());
+		networkMerge.setPruneEmptyColumns(request.isPruneEmptyColumns());
+		networkMerge.setVirtualColumns(inSharedRoot && request.isVirtualColumns());
+		networkMerge.setReuseRootElements(inSharedRoot && request.isReuseRootElements());
+		networkMerge.setParallelism(request.getParallelism());
+		networkMerge.setMatchingKeyIndex(request.getMatchingKeyIndex());
+		final MergeStatistics statistics = new MergeStatistics();
+		statistics.setNetworkSUID(toNetwork.getSUID());
+		networkMerge.setStatistics(statistics);
+		this.networkMerge = networkMerge;
+		if (interrupted)
+			networkMerge.interrupt();
+
+		long copiedCells = 0;
+		SourceSnapshot snapshot = null;
+		// the worker threads of a parallel merge read the sources from a snapshot only
+		if (request.isSnapshotSources() || request.getParallelism() > 1) {
+			taskMonitor.setStatusMessage("Copying the source tables...");
+			statistics.start(MergeStatistics.SNAPSHOT);
+			snapshot = takeSnapshot(request);
+			attributeValueMatcher.setSourceSnapshot(snapshot);
+			attributeMerger.setSourceSnapshot(snapshot);
+			networkMerge.setSourceSnapshot(snapshot);
+			copiedCells = snapshot.getSize();
+			statistics.stop(MergeStatistics.SNAPSHOT, copiedCells, 0);
+		}
+
+		if (interrupted) {
+			this.networkMerge = null;
+			return new MergeResult(toNetwork, true, 0, -1, copiedCells, statistics);
+		}
+
+		final Object event = MergeEvents.beginMerge();
+		ConflictReport conflictReport = null;
+		if (request.getConflictReportFile() != null) {
+			conflictReport = new ConflictReport(request.getConflictReportFile(), request.getSourceNetworks());
+			conflictReport.setSourceSnapshot(snapshot);
+			attributeMerger.setConflictReport(conflictReport);
+		}
+		try {
+			networkMerge.mergeNetwork(toNetwork, request.getSourceNetworks(), request.getOperation(),
+					request.isSubtractOnlyUnconnectedNodes(), request.isNodesOnly());
+		} finally {
+			// drop the merge data, even if interrupted
+			this.networkMerge = null;
+			if (conflictReport != null)
+				conflictReport.close();
+			MergeEvents.endMerge(event, request.getOperation().toString(), request.getSourceNetworks().size(),
+					toNetwork.getSUID(), toNetwork.getNodeCount(), toNetwork.getEdgeCount(), interrupted);
+		}
+
+		return new MergeResult(toNetwork, interrupted, attributeMerger.getInlineResolvedConflicts(),
+				conflictReport == null ? -1 : conflictReport.getConflictCount(), copiedCells, statistics);
+	}
+
+	/**
+	 * Run the matching phases of the request without building any network, and estimate
+	 * what the merge would produce. The source tables are read directly, even if the
+	 * request asks for a snapshot.
+	 * 
+	 * @param request
+	 *            what to merge and how
+	 * @return the estimate, also when interrupted
+	 */
+	public MergeEstimate estimate(final MergeRequest request) {
+		if (request == null) {
+			throw new java.lang.NullPointerException();
+		}
+
+		final AttributeBasedNetworkMerge networkMerge = new AttributeBasedNetworkMerge(request.getMatchingAttribute(),
+				request.getNodeAttributeMapping(), request.getEdgeAttributeMapping(),
+				request.getNetworkAttributeMapping(), new DefaultAttributeMerger(request.getConflictCollector()),
+				new DefaultAttributeValueMatcher(), taskMonitor);
+		networkMerge.setWithinNetworkMerge(request.isWithinNetworkMerge());
+		networkMerge.setMatchingKeyIndex(request.getMatchingKeyIndex());
+		this.networkMerge = networkMerge;
+		if (interrupted)
+			networkMerge.interrupt();
+
+		try {
+			return networkMerge.estimate(request.getSourceNetworks(), request.getOperation(),
+					request.isSubtractOnlyUnconnectedNodes(), request.isNodesOnly());
+		} finally {
+			this.networkMerge = null;
+		}
+	}
+
+	/**
+	 * Stop the running merge or estimate as soon as possible.
+	 */
+	public void interrupt() {
+		interrupted = true;
+		final AttributeBasedNetworkMerge networkMerge = this.networkMerge;
+		if (networkMerge != null)
+			networkMerge.interrupt();
+	}
+
+	/**
+	 * @return the root network of all the networks, null if they do not share one
+	 */
+	public static CyRootNetwork getSharedRoot(final List<CyNetwork> networkList) {
+		CyRootNetwork root = null;
+		for (CyNetwork network: networkList) {
+			if (!(network instanceof CySubNetwork))
+				return null;
+			CyRootNetwork netRoot = ((CySubNetwork)network).getRootNetwork();
+			if (root != null && root != netRoot)
+				return null;
+			root = netRoot;
+		}
+		return root;
+	}
+
+	/**
+	 * The conflict handlers used after the merge, or inline while merging.
+	 */
+	public static List<AttributeConflictHandler> createConflictHandlers() {
+		List<AttributeConflictHandler> conflictHandlers = new ArrayList<AttributeConflictHandler>();
+
+		AttributeConflictHandler conflictHandler;
+
+		//             if (idMapping!=null) {
+		//                conflictHandler = new IDMappingAttributeConflictHandler(idMapping);
+		//                conflictHandlers.add(conflictHandler);
+		//             }
+
+		conflictHandler = new DefaultAttributeConflictHandler();
+		conflictHandlers.add(conflictHandler);
+
+		return conflictHandlers;
+	}
+
+	private static SourceSnapshot takeSnapshot(final MergeRequest request) {
+		final List<CyColumn> nodeColumns = new ArrayList<>();
+		final List<CyColumn> edgeColumns = new ArrayList<>();
+		final List<CyColumn> networkColumns = new ArrayList<>();
+		addColumns(nodeColumns, request.getNodeAttributeMapping());
+		addColumns(edgeColumns, request.getEdgeAttributeMapping());
+		addColumns(networkColumns, request.getNetworkAttributeMapping());
+		for (CyNetwork network: request.getSourceNetworks()) {
+			nodeColumns.add(request.getMatchingAttribute().getAttributeForMatching(network));
+			edgeColumns.add(network.getDefaultEdgeTable().getColumn(CyEdge.INTERACTION));
+		}
+		return SourceSnapshot.take(request.getSourceNetworks(), nodeColumns, edgeColumns, networkColumns);
+	}
+
+	private static void addColumns(final List<CyColumn> columns, final AttributeMapping attributeMapping) {
+		if (attributeMapping == null)
+			return;
+		final CompiledAttributeMapping plan = attributeMapping.compile();
+		for (int k = 0; k < plan.getSizeNetwork(); k++) {
+			for (int i = 0; i < plan.getSizeMergedAttributes(); i++) {
+				final CyColumn column = plan.getOriginalColumn(k, i);
+				if (column != null)
+					columns.add(column);
+			}
+		}
+	}
+}
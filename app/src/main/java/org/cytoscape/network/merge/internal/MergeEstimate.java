@@ -0,0 +1,193 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+
+/**
+ * Outcome of a dry run of a merge by {@link MergeEngine#estimate}: what the matching
+ * phases found in the source networks, without any network being built.
+ *
+ * The heap footprint is a rough projection from the number of nodes, edges and cells of
+ * the merged network, meant to tell whether a merge may fit in memory, not to size it.
+ */
+public class MergeEstimate {
+	// rough heap cost of a node or edge of the merged network with its rows, and of a cell
+	private static final long NODE_BYTES = 600;
+	private static final long EDGE_BYTES = 500;
+	private static final long CELL_BYTES = 64;
+
+	private final Operation operation;
+	private final int sourceNodes;
+	private final int sourceEdges;
+	private final Map<Operation,int[]> groups; // nodes and edges of the merged network by operation
+	private int nodeColumns;
+	private int edgeColumns;
+	private Map<String,Integer> nodeConflicts = Collections.emptyMap();
+	private Map<String,Integer> edgeConflicts = Collections.emptyMap();
+	private boolean interrupted;
+
+	MergeEstimate(final Operation operation, final int sourceNodes, final int sourceEdges) {
+		this.operation = operation;
+		this.sourceNodes = sourceNodes;
+		this.sourceEdges = sourceEdges;
+		this.groups = new EnumMap<Operation,int[]>(Operation.class);
+	}
+
+	void setGroups(final Operation op, final int nodes, final int edges) {
+		groups.put(op, new int[] { nodes, edges });
+	}
+
+	void setColumns(final int nodeColumns, final int edgeColumns) {
+		this.nodeColumns = nodeColumns;
+		this.edgeColumns = edgeColumns;
+	}
+
+	void setConflicts(final Map<String,Integer> nodeConflicts, final Map<String,Integer> edgeConflicts) {
+		this.nodeConflicts = Collections.unmodifiableMap(new LinkedHashMap<String,Integer>(nodeConflicts));
+		this.edgeConflicts = Collections.unmodifiableMap(new LinkedHashMap<String,Integer>(edgeConflicts));
+	}
+
+	void setInterrupted(final boolean interrupted) {
+		this.interrupted = interrupted;
+	}
+
+	/**
+	 * @return the operation of the request, which the conflicts and heap footprint are for
+	 */
+	public Operation getOperation() {
+		return operation;
+	}
+
+	/**
+	 * @return number of nodes of all the source networks
+	 */
+	public int getSourceNodes() {
+		return sourceNodes;
+	}
+
+	/**
+	 * @return number of edges of all the source networks
+	 */
+	public int getSourceEdges() {
+		return sourceEdges;
+	}
+
+	/**
+	 * @return number of nodes the merged network would have with this operation
+	 */
+	public int getNodeCount(final Operation op) {
+		final int[] counts = groups.get(op);
+		return counts == null ? 0 : counts[0];
+	}
+
+	/**
+	 * @return number of edges the merged network would have with this operation
+	 */
+	public int getEdgeCount(final Operation op) {
+		final int[] counts = groups.get(op);
+		return counts == null ? 0 : counts[1];
+	}
+
+	/**
+	 * @return number of merged node columns
+	 */
+	public int getNodeColumns() {
+		return nodeColumns;
+	}
+
+	/**
+	 * @return number of merged edge columns
+	 */
+	public int getEdgeColumns() {
+		return edgeColumns;
+	}
+
+	/**
+	 * @return by merged node column, the number of merged nodes whose sources have
+	 *         different values, for the columns having any
+	 */
+	public Map<String,Integer> getNodeConflicts() {
+		return nodeConflicts;
+	}
+
+	/**
+	 * @return by merged edge column, the number of merged edges whose sources have
+	 *         different values, for the columns having any
+	 */
+	public Map<String,Integer> getEdgeConflicts() {
+		return edgeConflicts;
+	}
+
+	/**
+	 * @return projected heap footprint of the merged network, in bytes
+	 */
+	public long getEstimatedBytes() {
+		final long nodes = getNodeCount(operation);
+		final long edges = getEdgeCount(operation);
+		return nodes * (NODE_BYTES + nodeColumns * CELL_BYTES) + edges * (EDGE_BYTES + edgeColumns * CELL_BYTES);
+	}
+
+	/**
+	 * @return heap that can still be allocated, in bytes
+	 */
+	public static long getAvailableBytes() {
+		final Runtime runtime = Runtime.getRuntime();
+		return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+	}
+
+	/**
+	 * @return true if the estimate was interrupted, in which case it is incomplete
+	 */
+	public boolean isInterrupted() {
+		return interrupted;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (Operation op : Operation.values()) {
+			sb.append(op).append(": ").append(getNodeCount(op)).append(" nodes, ")
+					.append(getEdgeCount(op)).append(" edges\n");
+		}
+		sb.append("Conflicting values (").append(operation).append("): ");
+		sb.append(sum(nodeConflicts)).append(" node and ").append(sum(edgeConflicts)).append(" edge cells\n");
+		sb.append("Estimated heap: ").append(getEstimatedBytes() >> 20).append(" MB of ")
+				.append(getAvailableBytes() >> 20).append(" MB available");
+		return sb.toString();
+	}
+
+	private static long sum(final Map<String,Integer> counts) {
+		long sum = 0;
+		for (int count : counts.values())
+			sum += count;
+		return sum;
+	}
+}
@@ -0,0 +1,206 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+
+/**
+ * Counters of the merges, updated by the merge tasks with adders only, so that they can
+ * stay on all the time without making concurrent merges contend.
+ */
+public class MergeMetrics implements MergeMetricsMXBean {
+	public static final String OBJECT_NAME = "org.cytoscape.networkmerge:type=MergeMetrics";
+
+	private static final long[] BUCKET_BOUNDS = { 100, 300, 1000, 3000, 10000, 30000, 100000, 300000, Long.MAX_VALUE };
+
+	private final LongAdder started = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder cancelled = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder inFlight = new LongAdder();
+	private final LongAdder nodes = new LongAdder();
+	private final LongAdder edges = new LongAdder();
+	private final LongAdder conflictsResolved = new LongAdder();
+	private final LongAdder mergeTime = new LongAdder();
+	private final Map<Operation,LongAdder[]> latencies = new EnumMap<Operation,LongAdder[]>(Operation.class);
+
+	private ObjectName objectName;
+
+	public MergeMetrics() {
+		for (Operation op : Operation.values()) {
+			final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length];
+			for (int i = 0; i < buckets.length; i++)
+				buckets[i] = new LongAdder();
+			latencies.put(op, buckets);
+		}
+	}
+
+	/**
+	 * Register to the platform MBean server, replacing the metrics registered by a previous
+	 * instance of the app.
+	 */
+	public void register() throws JMException {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(OBJECT_NAME);
+		if (server.isRegistered(name))
+			server.unregisterMBean(name);
+		server.registerMBean(this, name);
+		objectName = name;
+	}
+
+	public void unregister() throws JMException {
+		if (objectName == null)
+			return;
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName))
+			server.unregisterMBean(objectName);
+		objectName = null;
+	}
+
+	public void mergeStarted() {
+		started.increment();
+		inFlight.increment();
+	}
+
+	/**
+	 * @param millis
+	 *            duration of the merge
+	 * @param nodes
+	 *            nodes of the merged network
+	 * @param edges
+	 *            edges of the merged network
+	 */
+	public void mergeCompleted(final Operation op, final long millis, final long nodes, final long edges) {
+		inFlight.decrement();
+		completed.increment();
+		this.nodes.add(nodes);
+		this.edges.add(edges);
+		mergeTime.add(millis);
+		final LongAdder[] buckets = latencies.get(op);
+		int i = 0;
+		while (millis > BUCKET_BOUNDS[i])
+			i++;
+		buckets[i].increment();
+	}
+
+	public void mergeCancelled() {
+		inFlight.decrement();
+		cancelled.increment();
+	}
+
+	public void mergeFailed() {
+		inFlight.decrement();
+		failed.increment();
+	}
+
+	public void conflictsResolved(final long conflicts) {
+		conflictsResolved.add(conflicts);
+	}
+
+	@Override
+	public long getMergesStarted() {
+		return started.sum();
+	}
+
+	@Override
+	public long getMergesCompleted() {
+		return completed.sum();
+	}
+
+	@Override
+	public long getMergesCancelled() {
+		return cancelled.sum();
+	}
+
+	@Override
+	public long getMergesFailed() {
+		return failed.sum();
+	}
+
+	@Override
+	public long getMergesInFlight() {
+		return inFlight.sum();
+	}
+
+	@Override
+	public long getNodesMerged() {
+		return nodes.sum();
+	}
+
+	@Override
+	public long getEdgesMerged() {
+		return edges.sum();
+	}
+
+	@Override
+	public long getConflictsResolved() {
+		return conflictsResolved.sum();
+	}
+
+	@Override
+	public long getMergeTime() {
+		return mergeTime.sum();
+	}
+
+	@Override
+	public double getNodeThroughput() {
+		final long millis = mergeTime.sum();
+		return millis == 0 ? 0 : nodes.sum() * 1000.0 / millis;
+	}
+
+	@Override
+	public double getEdgeThroughput() {
+		final long millis = mergeTime.sum();
+		return millis == 0 ? 0 : edges.sum() * 1000.0 / millis;
+	}
+
+	@Override
+	public long[] getLatencyBucketBounds() {
+		return BUCKET_BOUNDS.clone();
+	}
+
+	@Override
+	public Map<String,long[]> getLatencyHistograms() {
+		final Map<String,long[]> histograms = new LinkedHashMap<String,long[]>();
+		for (Map.Entry<Operation,LongAdder[]> entry : latencies.entrySet()) {
+			final LongAdder[] buckets = entry.getValue();
+			final long[] counts = new long[buckets.length];
+			for (int i = 0; i < counts.length; i++)
+				counts[i] = buckets[i].sum();
+			histograms.put(entry.getKey().toString(), counts);
+		}
+		return histograms;
+	}
+}
@@ -0,0 +1,90 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Map;
+
+/**
+ * Live and cumulative figures of the merges run since the app was started, exposed
+ * through JMX as org.cytoscape.networkmerge:type=MergeMetrics, and as an OSGi service.
+ */
+public interface MergeMetricsMXBean {
+
+	/**
+	 * @return number of merges started, dry runs excluded
+	 */
+	long getMergesStarted();
+
+	long getMergesCompleted();
+
+	long getMergesCancelled();
+
+	long getMergesFailed();
+
+	/**
+	 * @return number of merges running now
+	 */
+	long getMergesInFlight();
+
+	/**
+	 * @return number of nodes of the merged networks
+	 */
+	long getNodesMerged();
+
+	/**
+	 * @return number of edges of the merged networks
+	 */
+	long getEdgesMerged();
+
+	/**
+	 * @return number of column conflicts resolved, while merging or after
+	 */
+	long getConflictsResolved();
+
+	/**
+	 * @return time spent in completed merges, in milliseconds
+	 */
+	long getMergeTime();
+
+	/**
+	 * @return nodes merged by second of completed merges
+	 */
+	double getNodeThroughput();
+
+	/**
+	 * @return edges merged by second of completed merges
+	 */
+	double getEdgeThroughput();
+
+	/**
+	 * @return upper bounds of the latency buckets, in milliseconds, the last one unbounded
+	 */
+	long[] getLatencyBucketBounds();
+
+	/**
+	 * @return by operation, the number of completed merges in each latency bucket
+	 */
+	Map<String,long[]> getLatencyHistograms();
+}
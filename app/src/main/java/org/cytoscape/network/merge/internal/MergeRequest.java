@@ -0,0 +1,250 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.File;
+import java.util.List;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollector;
+import org.cytoscape.network.merge.internal.model.AttributeMapping;
+import org.cytoscape.network.merge.internal.model.MatchingAttribute;
+import org.cytoscape.network.merge.internal.model.MatchingKeyIndex;
+
+/**
+ * What to merge and how, independently of the way the merge is started.
+ */
+public class MergeRequest {
+	private final List<CyNetwork> sourceNetworks;
+	private final Operation operation;
+	private final MatchingAttribute matchingAttribute;
+	private final AttributeMapping nodeAttributeMapping;
+	private final AttributeMapping edgeAttributeMapping;
+	private final AttributeMapping networkAttributeMapping;
+	private final AttributeConflictCollector conflictCollector;
+
+	private boolean subtractOnlyUnconnectedNodes;
+	private boolean nodesOnly;
+	private boolean withinNetworkMerge;
+	private boolean inlineConflictHandling;
+	private File conflictReportFile;
+	private boolean pruneEmptyColumns;
+	private boolean virtualColumns;
+	private boolean reuseRootElements;
+	private int parallelism = 1;
+	private boolean snapshotSources;
+	private MatchingKeyIndex matchingKeyIndex;
+
+	/**
+	 * 
+	 * @param sourceNetworks
+	 *            networks to be merged
+	 * @param operation
+	 *            operation
+	 * @param matchingAttribute
+	 *            columns used to match the nodes
+	 * @param nodeAttributeMapping
+	 * @param edgeAttributeMapping
+	 * @param networkAttributeMapping
+	 *            may be null
+	 * @param conflictCollector
+	 *            collects the conflicts that are not resolved while merging
+	 */
+	public MergeRequest(final List<CyNetwork> sourceNetworks, final Operation operation,
+			final MatchingAttribute matchingAttribute, final AttributeMapping nodeAttributeMapping,
+			final AttributeMapping edgeAttributeMapping, final AttributeMapping networkAttributeMapping,
+			final AttributeConflictCollector conflictCollector) {
+		if (sourceNetworks == null || operation == null || matchingAttribute == null
+				|| nodeAttributeMapping == null || edgeAttributeMapping == null || conflictCollector == null) {
+			throw new java.lang.NullPointerException();
+		}
+		this.sourceNetworks = sourceNetworks;
+		this.operation = operation;
+		this.matchingAttribute = matchingAttribute;
+		this.nodeAttributeMapping = nodeAttributeMapping;
+		this.edgeAttributeMapping = edgeAttributeMapping;
+		this.networkAttributeMapping = networkAttributeMapping;
+		this.conflictCollector = conflictCollector;
+	}
+
+	public List<CyNetwork> getSourceNetworks() {
+		return sourceNetworks;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public MatchingAttribute getMatchingAttribute() {
+		return matchingAttribute;
+	}
+
+	public AttributeMapping getNodeAttributeMapping() {
+		return nodeAttributeMapping;
+	}
+
+	public AttributeMapping getEdgeAttributeMapping() {
+		return edgeAttributeMapping;
+	}
+
+	public AttributeMapping getNetworkAttributeMapping() {
+		return networkAttributeMapping;
+	}
+
+	public AttributeConflictCollector getConflictCollector() {
+		return conflictCollector;
+	}
+
+	public boolean isSubtractOnlyUnconnectedNodes() {
+		return subtractOnlyUnconnectedNodes;
+	}
+
+	/**
+	 * Only subtract nodes if all their edges are to be removed (applies to difference only).
+	 */
+	public void setSubtractOnlyUnconnectedNodes(boolean subtractOnlyUnconnectedNodes) {
+		this.subtractOnlyUnconnectedNodes = subtractOnlyUnconnectedNodes;
+	}
+
+	public boolean isNodesOnly() {
+		return nodesOnly;
+	}
+
+	/**
+	 * Merge only nodes and ignore edges.
+	 */
+	public void setNodesOnly(boolean nodesOnly) {
+		this.nodesOnly = nodesOnly;
+	}
+
+	public boolean isWithinNetworkMerge() {
+		return withinNetworkMerge;
+	}
+
+	/**
+	 * Also merge the matching nodes of a same network.
+	 */
+	public void setWithinNetworkMerge(boolean withinNetworkMerge) {
+		this.withinNetworkMerge = withinNetworkMerge;
+	}
+
+	public boolean isInlineConflictHandling() {
+		return inlineConflictHandling;
+	}
+
+	/**
+	 * Resolve attribute conflicts while merging instead of collecting them.
+	 */
+	public void setInlineConflictHandling(boolean inlineConflictHandling) {
+		this.inlineConflictHandling = inlineConflictHandling;
+	}
+
+	public File getConflictReportFile() {
+		return conflictReportFile;
+	}
+
+	/**
+	 * Write every attribute conflict to a gzipped report file while merging. The reported
+	 * conflicts are then resolved inline, not left in the conflict collector.
+	 */
+	public void setConflictReportFile(File conflictReportFile) {
+		this.conflictReportFile = conflictReportFile;
+	}
+
+	public boolean isPruneEmptyColumns() {
+		return pruneEmptyColumns;
+	}
+
+	/**
+	 * Do not create node and edge columns that would have no value in the merged network.
+	 */
+	public void setPruneEmptyColumns(boolean pruneEmptyColumns) {
+		this.pruneEmptyColumns = pruneEmptyColumns;
+	}
+
+	public boolean isVirtualColumns() {
+		return virtualColumns;
+	}
+
+	/**
+	 * Expose the node and edge columns coming from a single source entity as virtual
+	 * columns, if the merged and the source networks belong to the same root network.
+	 * The merged network then reads these values from its sources: destroying a source
+	 * network invalidates them.
+	 */
+	public void setVirtualColumns(boolean virtualColumns) {
+		this.virtualColumns = virtualColumns;
+	}
+
+	public boolean isReuseRootElements() {
+		return reuseRootElements;
+	}
+
+	/**
+	 * Add to the merged network the nodes and edges that are the same in all their
+	 * networks, if the merged and the source networks belong to the same root network.
+	 */
+	public void setReuseRootElements(boolean reuseRootElements) {
+		this.reuseRootElements = reuseRootElements;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Number of threads computing the merged node and edge values, 1 by default. With
+	 * more than one thread, the sources are read from a snapshot, as with
+	 * {@link #setSnapshotSources(boolean)}.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public boolean isSnapshotSources() {
+		return snapshotSources;
+	}
+
+	/**
+	 * Copy the matching and mapped columns of the source networks before merging, and
+	 * read them from that copy during the whole merge.
+	 */
+	public void setSnapshotSources(boolean snapshotSources) {
+		this.snapshotSources = snapshotSources;
+	}
+
+	public MatchingKeyIndex getMatchingKeyIndex() {
+		return matchingKeyIndex;
+	}
+
+	/**
+	 * Read the node matching keys from this index, shared with other merges of the same
+	 * networks, instead of reading them for this merge only.
+	 */
+	public void setMatchingKeyIndex(MatchingKeyIndex matchingKeyIndex) {
+		this.matchingKeyIndex = matchingKeyIndex;
+	}
+}
@@ -0,0 +1,92 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.model.CyNetwork;
+
+/**
+ * Outcome of a merge run by {@link MergeEngine}.
+ */
+public class MergeResult {
+	private final CyNetwork network;
+	private final boolean interrupted;
+	private final int inlineResolvedConflicts;
+	private final long reportedConflicts;
+	private final long copiedCells;
+	private final MergeStatistics statistics;
+
+	MergeResult(final CyNetwork network, final boolean interrupted, final int inlineResolvedConflicts,
+			final long reportedConflicts, final long copiedCells, final MergeStatistics statistics) {
+		this.network = network;
+		this.interrupted = interrupted;
+		this.inlineResolvedConflicts = inlineResolvedConflicts;
+		this.reportedConflicts = reportedConflicts;
+		this.copiedCells = copiedCells;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * @return the merged network
+	 */
+	public CyNetwork getNetwork() {
+		return network;
+	}
+
+	/**
+	 * @return true if the merge was interrupted, in which case the network is incomplete
+	 */
+	public boolean isInterrupted() {
+		return interrupted;
+	}
+
+	/**
+	 * @return number of conflicts resolved while merging
+	 */
+	public int getInlineResolvedConflicts() {
+		return inlineResolvedConflicts;
+	}
+
+	/**
+	 * @return number of conflicts written to the report file, -1 if there is no report
+	 */
+	public long getReportedConflicts() {
+		return reportedConflicts;
+	}
+
+	/**
+	 * @return number of source table cells copied before merging, 0 without snapshot
+	 */
+	public long getCopiedCells() {
+		return copiedCells;
+	}
+
+	/**
+	 * @return the figures of the phases of the merge, which the following tasks of the
+	 *         merge can add their own phases to
+	 */
+	public MergeStatistics getStatistics() {
+		return statistics;
+	}
+}
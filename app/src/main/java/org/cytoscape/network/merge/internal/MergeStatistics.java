@@ -0,0 +1,251 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.network.merge.internal.util.MergeEvents;
+
+/**
+ * Wall time, element counts, comparisons and allocations of the phases of a merge, in
+ * the order they were first run. A phase run several times adds up.
+ *
+ * Allocations are those of the thread running the phase, so they leave out what worker
+ * threads allocate, and are unknown (-1) where the JVM does not measure them. Instances
+ * can be updated by the successive tasks of a merge, whatever their thread.
+ *
+ * Each phase run is also recorded as a Java Flight Recorder event.
+ */
+public class MergeStatistics {
+	public static final String SNAPSHOT = "snapshot";
+	public static final String MATCH_NODES = "matchNodes";
+	public static final String SELECT_NODES = "selectNodes";
+	public static final String CREATE_NODES = "createNodes";
+	public static final String MERGE_NODE_ATTRIBUTES = "mergeNodeAttributes";
+	public static final String MATCH_EDGES = "matchEdges";
+	public static final String SELECT_EDGES = "selectEdges";
+	public static final String CREATE_EDGES = "createEdges";
+	public static final String MERGE_EDGE_ATTRIBUTES = "mergeEdgeAttributes";
+	public static final String MERGE_NETWORK_ATTRIBUTES = "mergeNetworkAttributes";
+	public static final String HANDLE_CONFLICTS = "handleConflicts";
+	public static final String CREATE_VIEW = "createView";
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	// com.sun.management.ThreadMXBean.getThreadAllocatedBytes, looked up on the bean so that
+	// the bundle does not depend on the package
+	private static final Method ALLOCATED_BYTES = findAllocatedBytes();
+
+	/**
+	 * Totals of a phase.
+	 */
+	public static final class Phase {
+		private final String name;
+		private long nanos;
+		private long count;
+		private long comparisons;
+		private long allocatedBytes;
+
+		private Phase(final String name) {
+			this.name = name;
+		}
+
+		private Phase(final Phase phase) {
+			this.name = phase.name;
+			this.nanos = phase.nanos;
+			this.count = phase.count;
+			this.comparisons = phase.comparisons;
+			this.allocatedBytes = phase.allocatedBytes;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return wall time, in milliseconds
+		 */
+		public long getTime() {
+			return nanos / 1000000;
+		}
+
+		/**
+		 * @return number of nodes, edges, cells or conflicts processed
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return number of node comparisons or key lookups performed
+		 */
+		public long getComparisons() {
+			return comparisons;
+		}
+
+		/**
+		 * @return bytes allocated by the thread running the phase, -1 if unknown
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+	}
+
+	private final Map<String,Phase> phases = new LinkedHashMap<String,Phase>();
+	// start of the running phases: nano time, allocated bytes and thread id
+	private final Map<String,long[]> starts = new HashMap<String,long[]>();
+	private final Map<String,Object> events = new HashMap<String,Object>();
+	private long networkSuid = -1;
+
+	/**
+	 * Set the SUID of the merged network, recorded with the phase events.
+	 */
+	public synchronized void setNetworkSUID(final long networkSuid) {
+		this.networkSuid = networkSuid;
+	}
+
+	/**
+	 * Start timing a phase.
+	 */
+	public synchronized void start(final String phase) {
+		final long thread = Thread.currentThread().getId();
+		starts.put(phase, new long[] { System.nanoTime(), getAllocatedBytes(thread), thread });
+		events.put(phase, MergeEvents.beginPhase());
+	}
+
+	/**
+	 * Stop timing a phase started by {@link #start}, and add its figures to it.
+	 * 
+	 * @param count
+	 *            number of elements processed
+	 * @param comparisons
+	 *            number of comparisons performed
+	 */
+	public synchronized void stop(final String phase, final long count, final long comparisons) {
+		final long[] start = starts.remove(phase);
+		final Object event = events.remove(phase);
+		if (start == null)
+			return;
+
+		Phase totals = phases.get(phase);
+		if (totals == null) {
+			totals = new Phase(phase);
+			phases.put(phase, totals);
+		}
+		totals.nanos += System.nanoTime() - start[0];
+		totals.count += count;
+		totals.comparisons += comparisons;
+
+		final long thread = Thread.currentThread().getId();
+		final long allocated = thread == start[2] ? getAllocatedBytes(thread) : -1;
+		final long allocatedBytes = allocated < 0 || start[1] < 0 ? -1 : allocated - start[1];
+		if (allocatedBytes < 0 || totals.allocatedBytes < 0)
+			totals.allocatedBytes = -1;
+		else
+			totals.allocatedBytes += allocatedBytes;
+		MergeEvents.endPhase(event, phase, networkSuid, count, comparisons, allocatedBytes);
+	}
+
+	/**
+	 * @return a copy of the totals of the phases run so far
+	 */
+	public synchronized List<Phase> getPhases() {
+		final List<Phase> copy = new ArrayList<Phase>(phases.size());
+		for (Phase phase : phases.values())
+			copy.add(new Phase(phase));
+		return copy;
+	}
+
+	/**
+	 * @return wall time of all the phases, in milliseconds
+	 */
+	public synchronized long getTime() {
+		long nanos = 0;
+		for (Phase phase : phases.values())
+			nanos += phase.nanos;
+		return nanos / 1000000;
+	}
+
+	/**
+	 * @return the phases as a JSON object, by name
+	 */
+	public synchronized String toJson() {
+		final StringBuilder sb = new StringBuilder("{");
+		for (Phase phase : phases.values()) {
+			if (sb.length() > 1)
+				sb.append(",");
+			sb.append("\"").append(phase.name).append("\":{\"time\":").append(phase.nanos / 1000000)
+					.append(",\"count\":").append(phase.count)
+					.append(",\"comparisons\":").append(phase.comparisons)
+					.append(",\"allocatedBytes\":").append(phase.allocatedBytes).append("}");
+		}
+		return sb.append("}").toString();
+	}
+
+	@Override
+	public synchronized String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(getTime()).append(" ms");
+		for (Phase phase : phases.values()) {
+			sb.append(", ").append(phase.name).append(" ").append(phase.nanos / 1000000).append(" ms/")
+					.append(phase.count);
+			if (phase.comparisons > 0)
+				sb.append("/").append(phase.comparisons).append(" cmp");
+			if (phase.allocatedBytes >= 0)
+				sb.append("/").append(phase.allocatedBytes >> 20).append(" MB");
+		}
+		return sb.toString();
+	}
+
+	private static long getAllocatedBytes(final long thread) {
+		if (ALLOCATED_BYTES == null)
+			return -1;
+		try {
+			return (Long) ALLOCATED_BYTES.invoke(THREADS, thread);
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	private static Method findAllocatedBytes() {
+		try {
+			for (Class<?> c = THREADS.getClass(); c != null; c = c.getSuperclass()) {
+				for (Class<?> type : c.getInterfaces()) {
+					if (type.getName().equals("com.sun.management.ThreadMXBean"))
+						return type.getMethod("getThreadAllocatedBytes", long.class);
+				}
+			}
+		} catch (NoSuchMethodException | SecurityException e) {
+			// not measured
+		}
+		return null;
+	}
+}
@@ -26,8 +26,6 @@ package org.cytoscape.network.merge.internal;
 
 import java.util.List;
 
-import javax.swing.ImageIcon;
-
 import org.cytoscape.model.CyNetwork;
 
 /**
@@ -35,25 +33,15 @@ import org.cytoscape.model.CyNetwork;
  */
 public interface NetworkMerge {
 
-	final ImageIcon UNION_ICON = new ImageIcon(NetworkMerge.class.getResource("/images/venn-union-16.png"));
-	final ImageIcon INTERSECTION_ICON = new ImageIcon(NetworkMerge.class.getResource("/images/venn-intersection-16.png"));
-	final ImageIcon DIFFERENCE_ICON = new ImageIcon(NetworkMerge.class.getResource("/images/venn-difference-16.png"));
-
 	public enum Operation {
-		UNION("Union", UNION_ICON),
-		INTERSECTION("Intersection", INTERSECTION_ICON),
-		DIFFERENCE("Difference", DIFFERENCE_ICON);
+		UNION("Union"),
+		INTERSECTION("Intersection"),
+		DIFFERENCE("Difference");
 
 		private final String opName;
-		private final ImageIcon icon;
 
-		private Operation(final String opName, final ImageIcon icon) {
+		private Operation(final String opName) {
 			this.opName = opName;
-			this.icon = icon;
-		}
-
-		public ImageIcon getIcon() {
-			return icon;
 		}
 
 		@Override
@@ -27,6 +27,7 @@ package org.cytoscape.network.merge.internal.conflict;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyColumn;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -35,12 +36,59 @@ import java.util.Map;
  */
 public interface AttributeConflictCollector {
 
+        /**
+         * Receives the conflicts of one target cell.
+         */
+        public interface ConflictVisitor {
+                /**
+                 *
+                 * @param to
+                 * @param toAttr
+                 * @param mapFromGOFromAttr read-only view of the conflicting sources, only valid during the call
+                 * @return true if the conflicts of this cell are resolved and should be removed
+                 */
+                public boolean visit(CyIdentifiable to, CyColumn toAttr, Map<CyIdentifiable,CyColumn> mapFromGOFromAttr);
+        }
+
         /**
          *
          * @return true if no conflict, false otherwise
          */
         public boolean isEmpty();
 
+        /**
+         *
+         * @return number of conflicts (source, target, column) currently collected
+         */
+        public int getConflictCount();
+
+        /**
+         * Stream every conflicting (target, column) cell with its sources, without copying them.
+         * Conflicts must not be added or removed by the visitor itself.
+         *
+         * @param visitor
+         */
+        public void forEachConflict(ConflictVisitor visitor);
+
+        /**
+         * Same as {@link #forEachConflict(ConflictVisitor)}, restricted to one target column.
+         *
+         * Several columns may be visited concurrently, by visitors returning false.
+         * This is only safe because nothing is added or removed meanwhile: the
+         * collectors do not lock their reads, so the conflicts must be removed
+         * afterwards by a single writer, once all the readers are done.
+         *
+         * @param toAttr
+         * @param visitor
+         */
+        public void forEachConflict(CyColumn toAttr, ConflictVisitor visitor);
+
+        /**
+         *
+         * @return the target columns having conflicts
+         */
+        public List<CyColumn> getConflictColumns();
+
         /**
          *
          * @return all map of to node id to attribute
@@ -27,6 +27,11 @@ package org.cytoscape.network.merge.internal.conflict;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyColumn;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -34,6 +39,9 @@ import java.util.HashMap;
  * Collect attribute conflicts
  *
  * Assumption: for each from_node, only one attribute to be merged into to_node
+ *
+ * Conflicts are indexed by target column first, so that the conflicts of one
+ * column are read without walking the targets of the other columns.
  * 
  */
 public class AttributeConflictCollectorImpl implements AttributeConflictCollector {
@@ -62,24 +70,84 @@ public class AttributeConflictCollectorImpl implements AttributeConflictCollecto
                 }
         }
 
-        protected Map<CyIdentifiable,Map<CyColumn,Conflicts>> mapToGOToAttrConflicts;
+        // to column -> to graph object -> conflicts, columns in the order of their first conflict
+        protected Map<CyColumn,Map<CyIdentifiable,Conflicts>> mapToAttrToGOConflicts;
+        protected int conflictCount;
 
         public AttributeConflictCollectorImpl() {
-                this.mapToGOToAttrConflicts = new HashMap<CyIdentifiable,Map<CyColumn,Conflicts>>();
+                this.mapToAttrToGOConflicts = new LinkedHashMap<CyColumn,Map<CyIdentifiable,Conflicts>>();
         }
 
         
         @Override
         public boolean isEmpty() {
-                return mapToGOToAttrConflicts.isEmpty();
+                return mapToAttrToGOConflicts.isEmpty();
+        }
+
+        @Override
+        public int getConflictCount() {
+                return conflictCount;
+        }
+
+        @Override
+        public void forEachConflict(final ConflictVisitor visitor) {
+                if (visitor==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                Iterator<Map.Entry<CyColumn,Map<CyIdentifiable,Conflicts>>> itAttr = mapToAttrToGOConflicts.entrySet().iterator();
+                while (itAttr.hasNext()) {
+                        Map.Entry<CyColumn,Map<CyIdentifiable,Conflicts>> entryAttr = itAttr.next();
+                        visit(entryAttr.getKey(), entryAttr.getValue(), visitor);
+                        if (entryAttr.getValue().isEmpty()) {
+                                itAttr.remove();
+                        }
+                }
+        }
+
+        @Override
+        public void forEachConflict(final CyColumn toAttr, final ConflictVisitor visitor) {
+                if (toAttr==null || visitor==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                Map<CyIdentifiable,Conflicts> mapToGOConflicts = mapToAttrToGOConflicts.get(toAttr);
+                if (mapToGOConflicts==null) {
+                        return;
+                }
+
+                visit(toAttr, mapToGOConflicts, visitor);
+                if (mapToGOConflicts.isEmpty()) {
+                        mapToAttrToGOConflicts.remove(toAttr);
+                }
+        }
+
+        /**
+         * Visit the conflicting targets of one column, removing the resolved ones.
+         */
+        private void visit(final CyColumn toAttr, final Map<CyIdentifiable,Conflicts> mapToGOConflicts, final ConflictVisitor visitor) {
+                Iterator<Map.Entry<CyIdentifiable,Conflicts>> itTo = mapToGOConflicts.entrySet().iterator();
+                while (itTo.hasNext()) {
+                        Map.Entry<CyIdentifiable,Conflicts> entryTo = itTo.next();
+                        Map<CyIdentifiable,CyColumn> mapFromGOFromAttr = entryTo.getValue().mapFromGOFromAttr;
+                        if (visitor.visit(entryTo.getKey(), toAttr, Collections.unmodifiableMap(mapFromGOFromAttr))) {
+                                conflictCount -= mapFromGOFromAttr.size();
+                                itTo.remove();
+                        }
+                }
+        }
+
+        @Override
+        public List<CyColumn> getConflictColumns() {
+                return new ArrayList<CyColumn>(mapToAttrToGOConflicts.keySet());
         }
 
         @Override
         public Map<CyIdentifiable,CyColumn> getMapToGOAttr() {
                 Map<CyIdentifiable,CyColumn> mapToGOAttr = new HashMap<CyIdentifiable,CyColumn>();
-                for (Map.Entry<CyIdentifiable,Map<CyColumn,Conflicts>> entry : mapToGOToAttrConflicts.entrySet()) {
-                        CyIdentifiable go = entry.getKey();
-                        for (CyColumn attr : entry.getValue().keySet()) {
+                for (Map.Entry<CyColumn,Map<CyIdentifiable,Conflicts>> entry : mapToAttrToGOConflicts.entrySet()) {
+                        CyColumn attr = entry.getKey();
+                        for (CyIdentifiable go : entry.getValue().keySet()) {
                                 mapToGOAttr.put(go,attr);
                         }
                 }
@@ -93,12 +161,17 @@ public class AttributeConflictCollectorImpl implements AttributeConflictCollecto
                         throw new java.lang.NullPointerException();
                 }
 
-                Map<CyColumn,Conflicts> mapToAttrConflicts = mapToGOToAttrConflicts.get(to);
-                if (mapToAttrConflicts==null) {
+                Map<CyIdentifiable,Conflicts> mapToGOConflicts = mapToAttrToGOConflicts.get(toAttr);
+                if (mapToGOConflicts==null) {
+                        return null;
+                }
+
+                Conflicts conflicts = mapToGOConflicts.get(to);
+                if (conflicts==null) {
                         return null;
                 }
 
-                return mapToAttrConflicts.get(toAttr).mapFromGOFromAttr;
+                return conflicts.mapFromGOFromAttr;
         }
 
 //        @Override
@@ -124,22 +197,25 @@ public class AttributeConflictCollectorImpl implements AttributeConflictCollecto
                         throw new java.lang.NullPointerException();
                 }
 
-                Map<CyColumn,Conflicts> mapToAttrConflicts = mapToGOToAttrConflicts.get(to);
-                if (mapToAttrConflicts==null) {
-                        mapToAttrConflicts = new HashMap<CyColumn,Conflicts>();
-                        mapToGOToAttrConflicts.put(to, mapToAttrConflicts);
+                Map<CyIdentifiable,Conflicts> mapToGOConflicts = mapToAttrToGOConflicts.get(toAttr);
+                if (mapToGOConflicts==null) {
+                        mapToGOConflicts = new HashMap<CyIdentifiable,Conflicts>();
+                        mapToAttrToGOConflicts.put(toAttr, mapToGOConflicts);
                 }
 
-                Conflicts conflicts = mapToAttrConflicts.get(toAttr);
+                Conflicts conflicts = mapToGOConflicts.get(to);
                 if (conflicts==null) {
                         conflicts = new Conflicts();
-                        mapToAttrConflicts.put(toAttr, conflicts);
+                        mapToGOConflicts.put(to, conflicts);
                 } else {
 //                        if (conflicts.cyAttributes!=cyAttributes) {
 //                                throw new java.lang.IllegalArgumentException("CyAttributes are different.");
 //                        }
                 }
 
+                if (!conflicts.mapFromGOFromAttr.containsKey(from)) {
+                        conflictCount++;
+                }
                 conflicts.addConflict(from, fromAttr);
         }
 
@@ -149,16 +225,20 @@ public class AttributeConflictCollectorImpl implements AttributeConflictCollecto
                         throw new java.lang.NullPointerException();
                 }
 
-                Map<CyColumn,Conflicts> mapToAttrConflicts = mapToGOToAttrConflicts.get(to);
-                if (mapToAttrConflicts==null) {
+                Map<CyIdentifiable,Conflicts> mapToGOConflicts = mapToAttrToGOConflicts.get(toAttr);
+                if (mapToGOConflicts==null) {
                         return false;
                 }
 
-                if (mapToAttrConflicts.get(toAttr)==null) {
+                Conflicts conflicts = mapToGOConflicts.remove(to);
+                if (conflicts==null) {
                         return false;
                 }
 
-                mapToAttrConflicts.remove(toAttr);
+                conflictCount -= conflicts.mapFromGOFromAttr.size();
+                if (mapToGOConflicts.isEmpty()) {
+                        mapToAttrToGOConflicts.remove(toAttr);
+                }
                 return true;
         }
 
@@ -168,21 +248,24 @@ public class AttributeConflictCollectorImpl implements AttributeConflictCollecto
                         throw new java.lang.NullPointerException();
                 }
 
-                Map<CyColumn,Conflicts> mapToAttrConflicts = mapToGOToAttrConflicts.get(to);
-                if (mapToAttrConflicts==null) {
+                Map<CyIdentifiable,Conflicts> mapToGOConflicts = mapToAttrToGOConflicts.get(toAttr);
+                if (mapToGOConflicts==null) {
                         return false;
                 }
 
-                Conflicts conflicts = mapToAttrConflicts.get(toAttr);
+                Conflicts conflicts = mapToGOConflicts.get(to);
                 if (conflicts==null) {
                         return false;
                 }
 
                 boolean ret = conflicts.removeConflict(from, fromAttr);
+                if (ret) {
+                        conflictCount--;
+                }
                 if (ret && conflicts.mapFromGOFromAttr.isEmpty()) {
-                        mapToAttrConflicts.remove(toAttr);
-                        if (mapToAttrConflicts.isEmpty()) {
-                                mapToGOToAttrConflicts.remove(to);
+                        mapToGOConflicts.remove(to);
+                        if (mapToGOConflicts.isEmpty()) {
+                                mapToAttrToGOConflicts.remove(toAttr);
                         }
                 }
 
@@ -45,4 +45,13 @@ public interface AttributeConflictHandler {
          *      true if successful, false if failed
          */
         public boolean handleIt(CyIdentifiable to, CyColumn toAttr, Map<CyIdentifiable,CyColumn> mapFromGOFromAttr);
+
+        /**
+         * Compute the value resolving an attribute conflict, without writing it.
+         * May be called concurrently for different target cells.
+         *
+         * @return
+         *      the resolved value, or null if this handler cannot resolve the conflict
+         */
+        public Object resolve(CyIdentifiable to, CyColumn toAttr, Map<CyIdentifiable,CyColumn> mapFromGOFromAttr);
 }
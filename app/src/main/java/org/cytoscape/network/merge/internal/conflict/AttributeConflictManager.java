@@ -0,0 +1,151 @@
+package org.cytoscape.network.merge.internal.conflict;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyColumn;
+
+/**
+ *
+ * 
+ */
+public class AttributeConflictManager {
+        final AttributeConflictCollector conflictCollector;
+        final List<AttributeConflictHandler> conflictHandlers;
+
+        public AttributeConflictManager(final AttributeConflictCollector conflictCollector,
+                                        final List<AttributeConflictHandler> conflictHandlers) {
+                if (conflictCollector==null || conflictHandlers==null) {
+                        throw new java.lang.NullPointerException();
+                }
+                if (conflictHandlers.isEmpty()) {
+                        throw new java.lang.IllegalArgumentException("No conflict handler");
+                }
+
+                this.conflictCollector = conflictCollector;
+                this.conflictHandlers = conflictHandlers;
+        }
+
+        /**
+         * Resolve every conflicting cell with the first handler that accepts it.
+         *
+         * @return number of resolved (target, column) cells
+         */
+        public int handleConflicts() {
+                final int[] handled = new int[1];
+                conflictCollector.forEachConflict(new AttributeConflictCollector.ConflictVisitor() {
+                        @Override
+                        public boolean visit(CyIdentifiable toID, CyColumn toAttr, Map<CyIdentifiable,CyColumn> mapFromIDFromAttr) {
+                                for (AttributeConflictHandler handler : conflictHandlers) {
+                                        if (handler.handleIt(toID,toAttr,mapFromIDFromAttr)) {
+                                                handled[0]++;
+                                                return true;
+                                        }
+                                }
+                                return false;
+                        }
+                });
+                return handled[0];
+        }
+
+        /**
+         * Resolve the conflicts column by column on the given pool. Values are only computed
+         * by the workers ({@link AttributeConflictHandler#resolve}); they are written to the
+         * tables, and the conflicts removed, by the calling thread once all columns are done.
+         *
+         * @return number of resolved (target, column) cells
+         */
+        public int handleConflictsInParallel(final ForkJoinPool pool) {
+                if (pool==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                final List<CyColumn> columns = conflictCollector.getConflictColumns();
+                final List<ColumnResolution> resolutions = new ArrayList<ColumnResolution>(columns.size());
+                for (CyColumn column : columns) {
+                        resolutions.add(new ColumnResolution(column));
+                }
+
+                pool.invoke(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                                ForkJoinTask.invokeAll(resolutions);
+                        }
+                });
+
+                int handled = 0;
+                for (ColumnResolution resolution : resolutions) {
+                        final CyColumn toAttr = resolution.toAttr;
+                        final String name = toAttr.getName();
+                        for (int i=0; i<resolution.targets.size(); i++) {
+                                CyIdentifiable toID = resolution.targets.get(i);
+                                toAttr.getTable().getRow(toID.getSUID()).set(name, resolution.values.get(i));
+                                conflictCollector.removeConflicts(toID, toAttr);
+                                handled++;
+                        }
+                }
+                return handled;
+        }
+
+        /**
+         * Resolved values of one column, computed without touching the tables.
+         */
+        private class ColumnResolution extends RecursiveAction implements AttributeConflictCollector.ConflictVisitor {
+                final CyColumn toAttr;
+                final List<CyIdentifiable> targets = new ArrayList<CyIdentifiable>();
+                final List<Object> values = new ArrayList<Object>();
+
+                ColumnResolution(final CyColumn toAttr) {
+                        this.toAttr = toAttr;
+                }
+
+                @Override
+                protected void compute() {
+                        conflictCollector.forEachConflict(toAttr, this);
+                }
+
+                @Override
+                public boolean visit(CyIdentifiable toID, CyColumn toAttr, Map<CyIdentifiable,CyColumn> mapFromIDFromAttr) {
+                        for (AttributeConflictHandler handler : conflictHandlers) {
+                                Object value = handler.resolve(toID,toAttr,mapFromIDFromAttr);
+                                if (value!=null) {
+                                        targets.add(toID);
+                                        values.add(value);
+                                        break;
+                                }
+                        }
+                        return false;
+                }
+        }
+
+}
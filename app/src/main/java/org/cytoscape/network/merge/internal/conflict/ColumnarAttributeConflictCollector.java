@@ -0,0 +1,482 @@
+package org.cytoscape.network.merge.internal.conflict;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyColumn;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Collect attribute conflicts in parallel primitive arrays
+ * (to SUID, to column, from SUID, from column) instead of nested maps.
+ *
+ * Columns are stored as ordinals into a column dictionary. Conflicts are
+ * appended as they come and sorted by (to column, to SUID) the first time
+ * they are read, so that all the conflicts of one target cell, and all the
+ * conflicts of one column, are contiguous.
+ *
+ * Graph objects are only known by their SUIDs: the CyIdentifiable returned by
+ * this collector are lightweight keys, not the original nodes or edges.
+ *
+ * Reads may run concurrently for different columns as long as no conflict is
+ * added or removed meanwhile, see {@link AttributeConflictCollector#forEachConflict(CyColumn, ConflictVisitor)}.
+ */
+public class ColumnarAttributeConflictCollector implements AttributeConflictCollector {
+
+        private static final int INITIAL_CAPACITY = 64;
+        private static final int REMOVED = -1;
+
+        private long[] toSUIDs;
+        private int[] toColumns;
+        private long[] fromSUIDs;
+        private int[] fromColumns;
+
+        // number of used slots, including removed ones
+        private int size;
+        private int removed;
+        // slots [0, sorted) are sorted by (to column, to SUID), removed ones are left in place
+        private int sorted;
+
+        private final List<CyColumn> columns;
+        private final Map<CyColumn,Integer> columnOrdinals;
+
+        public ColumnarAttributeConflictCollector() {
+                this(INITIAL_CAPACITY);
+        }
+
+        public ColumnarAttributeConflictCollector(int initialCapacity) {
+                if (initialCapacity < 1) {
+                        initialCapacity = 1;
+                }
+                toSUIDs = new long[initialCapacity];
+                toColumns = new int[initialCapacity];
+                fromSUIDs = new long[initialCapacity];
+                fromColumns = new int[initialCapacity];
+                columns = new ArrayList<CyColumn>();
+                columnOrdinals = new IdentityHashMap<CyColumn,Integer>();
+        }
+
+        @Override
+        public boolean isEmpty() {
+                return size == removed;
+        }
+
+        @Override
+        public int getConflictCount() {
+                return size - removed;
+        }
+
+        @Override
+        public void forEachConflict(final ConflictVisitor visitor) {
+                if (visitor==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                sort();
+                final Range range = new Range();
+                int start = 0;
+                while (start<size) {
+                        int end = start + 1;
+                        while (end<size && toColumns[end]==toColumns[start] && toSUIDs[end]==toSUIDs[start]) {
+                                end++;
+                        }
+
+                        range.start = start;
+                        range.end = end;
+                        if (!range.isEmpty() && visitor.visit(new SUIDKey(toSUIDs[start]), columns.get(toColumns[start]), range)) {
+                                for (int i=start; i<end; i++) {
+                                        if (fromColumns[i]!=REMOVED) {
+                                                remove(i);
+                                        }
+                                }
+                        }
+                        start = end;
+                }
+        }
+
+        @Override
+        public void forEachConflict(final CyColumn toAttr, final ConflictVisitor visitor) {
+                if (toAttr==null || visitor==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                Integer toColumn = columnOrdinals.get(toAttr);
+                if (toColumn==null) {
+                        return;
+                }
+
+                sort();
+                final Range range = new Range();
+                int start = lowerBound(toColumn, Long.MIN_VALUE);
+                while (start<size && toColumns[start]==toColumn) {
+                        int end = start + 1;
+                        while (end<size && toColumns[end]==toColumn && toSUIDs[end]==toSUIDs[start]) {
+                                end++;
+                        }
+
+                        range.start = start;
+                        range.end = end;
+                        if (!range.isEmpty() && visitor.visit(new SUIDKey(toSUIDs[start]), toAttr, range)) {
+                                for (int i=start; i<end; i++) {
+                                        if (fromColumns[i]!=REMOVED) {
+                                                remove(i);
+                                        }
+                                }
+                        }
+                        start = end;
+                }
+        }
+
+        @Override
+        public List<CyColumn> getConflictColumns() {
+                sort();
+                List<CyColumn> conflictColumns = new ArrayList<CyColumn>();
+                int last = REMOVED;
+                for (int i=0; i<size; i++) {
+                        if (fromColumns[i]!=REMOVED && toColumns[i]!=last) {
+                                last = toColumns[i];
+                                conflictColumns.add(columns.get(last));
+                        }
+                }
+                return conflictColumns;
+        }
+
+        @Override
+        public Map<CyIdentifiable,CyColumn> getMapToGOAttr() {
+                sort();
+                Map<CyIdentifiable,CyColumn> mapToGOAttr = new HashMap<CyIdentifiable,CyColumn>();
+                for (int i=0; i<size; i++) {
+                        if (fromColumns[i]==REMOVED) {
+                                continue;
+                        }
+                        mapToGOAttr.put(new SUIDKey(toSUIDs[i]), columns.get(toColumns[i]));
+                }
+
+                return mapToGOAttr;
+        }
+
+        @Override
+        public Map<CyIdentifiable,CyColumn> getConflicts(final CyIdentifiable to, final CyColumn toAttr) {
+                if (to==null || toAttr==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                Integer toColumn = columnOrdinals.get(toAttr);
+                if (toColumn==null) {
+                        return null;
+                }
+
+                sort();
+                final long toSUID = to.getSUID();
+                Map<CyIdentifiable,CyColumn> conflicts = null;
+                for (int i=lowerBound(toColumn, toSUID); i<size && toColumns[i]==toColumn && toSUIDs[i]==toSUID; i++) {
+                        if (fromColumns[i]==REMOVED) {
+                                continue;
+                        }
+                        if (conflicts==null) {
+                                conflicts = new LinkedHashMap<CyIdentifiable,CyColumn>();
+                        }
+                        conflicts.put(new SUIDKey(fromSUIDs[i]), columns.get(fromColumns[i]));
+                }
+
+                return conflicts;
+        }
+
+        @Override
+        public void addConflict(final CyIdentifiable from,
+                                        final CyColumn fromAttr,
+                                        final CyIdentifiable to,
+                                        final CyColumn toAttr) {
+                if (from==null || fromAttr==null || to==null || toAttr==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                if (size==toSUIDs.length) {
+                        grow();
+                }
+
+                toSUIDs[size] = to.getSUID();
+                toColumns[size] = ordinal(toAttr);
+                fromSUIDs[size] = from.getSUID();
+                fromColumns[size] = ordinal(fromAttr);
+                size++;
+        }
+
+        @Override
+        public boolean removeConflicts(CyIdentifiable to, CyColumn toAttr) {
+                if (to==null || toAttr==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                Integer toColumn = columnOrdinals.get(toAttr);
+                if (toColumn==null) {
+                        return false;
+                }
+
+                sort();
+                final long toSUID = to.getSUID();
+                boolean ret = false;
+                for (int i=lowerBound(toColumn, toSUID); i<size && toColumns[i]==toColumn && toSUIDs[i]==toSUID; i++) {
+                        if (fromColumns[i]!=REMOVED) {
+                                remove(i);
+                                ret = true;
+                        }
+                }
+
+                return ret;
+        }
+
+        @Override
+        public boolean removeConflict(final CyIdentifiable from, final CyColumn fromAttr, final CyIdentifiable to, final CyColumn toAttr) {
+                if (from==null || fromAttr==null || to==null || toAttr==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                Integer toColumn = columnOrdinals.get(toAttr);
+                Integer fromColumn = columnOrdinals.get(fromAttr);
+                if (toColumn==null || fromColumn==null) {
+                        return false;
+                }
+
+                sort();
+                final long toSUID = to.getSUID();
+                final long fromSUID = from.getSUID();
+                boolean ret = false;
+                for (int i=lowerBound(toColumn, toSUID); i<size && toColumns[i]==toColumn && toSUIDs[i]==toSUID; i++) {
+                        if (fromSUIDs[i]==fromSUID && fromColumns[i]==fromColumn) {
+                                remove(i);
+                                ret = true;
+                        }
+                }
+
+                return ret;
+        }
+
+        private int ordinal(final CyColumn column) {
+                Integer ordinal = columnOrdinals.get(column);
+                if (ordinal==null) {
+                        ordinal = columns.size();
+                        columns.add(column);
+                        columnOrdinals.put(column, ordinal);
+                }
+                return ordinal;
+        }
+
+        private void grow() {
+                int capacity = toSUIDs.length + (toSUIDs.length >> 1) + 1;
+                toSUIDs = Arrays.copyOf(toSUIDs, capacity);
+                toColumns = Arrays.copyOf(toColumns, capacity);
+                fromSUIDs = Arrays.copyOf(fromSUIDs, capacity);
+                fromColumns = Arrays.copyOf(fromColumns, capacity);
+        }
+
+        private void remove(int i) {
+                fromColumns[i] = REMOVED;
+                removed++;
+        }
+
+        private int compare(int i, int j) {
+                if (toColumns[i]!=toColumns[j]) {
+                        return toColumns[i] < toColumns[j] ? -1 : 1;
+                }
+                return Long.compare(toSUIDs[i], toSUIDs[j]);
+        }
+
+        /**
+         * Sort the conflicts by (to column, to SUID) and drop the removed ones,
+         * if there are new conflicts or if most of the slots have been removed.
+         * The sort is stable, so the conflicts of one cell keep their insertion order.
+         *
+         * Every read sorts first. Synchronized so that concurrent per-column reads
+         * do not need the arrays to have been sorted before: the first one sorts,
+         * the others wait for it and see the sorted arrays.
+         */
+        private synchronized void sort() {
+                if (sorted==size && removed <= size/2) {
+                        return;
+                }
+
+                int live = size - removed;
+                int[] order = new int[live];
+                for (int i=0, n=0; i<size; i++) {
+                        if (fromColumns[i]!=REMOVED) {
+                                order[n++] = i;
+                        }
+                }
+                mergeSort(order, new int[live], 0, live);
+
+                long[] newToSUIDs = new long[Math.max(live, INITIAL_CAPACITY)];
+                int[] newToColumns = new int[newToSUIDs.length];
+                long[] newFromSUIDs = new long[newToSUIDs.length];
+                int[] newFromColumns = new int[newToSUIDs.length];
+                for (int n=0; n<live; n++) {
+                        int i = order[n];
+                        newToSUIDs[n] = toSUIDs[i];
+                        newToColumns[n] = toColumns[i];
+                        newFromSUIDs[n] = fromSUIDs[i];
+                        newFromColumns[n] = fromColumns[i];
+                }
+
+                toSUIDs = newToSUIDs;
+                toColumns = newToColumns;
+                fromSUIDs = newFromSUIDs;
+                fromColumns = newFromColumns;
+                size = live;
+                removed = 0;
+                sorted = live;
+        }
+
+        private void mergeSort(int[] order, int[] tmp, int from, int to) {
+                if (to - from < 2) {
+                        return;
+                }
+
+                int mid = (from + to) >>> 1;
+                mergeSort(order, tmp, from, mid);
+                mergeSort(order, tmp, mid, to);
+                if (compare(order[mid-1], order[mid]) <= 0) {
+                        return;
+                }
+
+                System.arraycopy(order, from, tmp, from, to - from);
+                int i = from, j = mid, k = from;
+                while (i<mid && j<to) {
+                        order[k++] = compare(tmp[j], tmp[i]) < 0 ? tmp[j++] : tmp[i++];
+                }
+                while (i<mid) {
+                        order[k++] = tmp[i++];
+                }
+                while (j<to) {
+                        order[k++] = tmp[j++];
+                }
+        }
+
+        /**
+         * @return the first sorted slot not lower than (toColumn, toSUID)
+         */
+        private int lowerBound(int toColumn, long toSUID) {
+                int low = 0, high = size;
+                while (low < high) {
+                        int mid = (low + high) >>> 1;
+                        if (toColumns[mid] < toColumn || (toColumns[mid]==toColumn && toSUIDs[mid] < toSUID)) {
+                                low = mid + 1;
+                        } else {
+                                high = mid;
+                        }
+                }
+                return low;
+        }
+
+        /**
+         * Read-only map view over the sources of one conflicting cell, i.e. the slots [start, end).
+         */
+        private final class Range extends AbstractMap<CyIdentifiable,CyColumn> {
+                int start;
+                int end;
+
+                private final Set<Map.Entry<CyIdentifiable,CyColumn>> entrySet = new AbstractSet<Map.Entry<CyIdentifiable,CyColumn>>() {
+                        @Override
+                        public Iterator<Map.Entry<CyIdentifiable,CyColumn>> iterator() {
+                                return new Iterator<Map.Entry<CyIdentifiable,CyColumn>>() {
+                                        private int i = next(start);
+
+                                        private int next(int i) {
+                                                while (i<end && fromColumns[i]==REMOVED) {
+                                                        i++;
+                                                }
+                                                return i;
+                                        }
+
+                                        @Override
+                                        public boolean hasNext() {
+                                                return i<end;
+                                        }
+
+                                        @Override
+                                        public Map.Entry<CyIdentifiable,CyColumn> next() {
+                                                if (i>=end) {
+                                                        throw new NoSuchElementException();
+                                                }
+                                                Map.Entry<CyIdentifiable,CyColumn> entry = new AbstractMap.SimpleImmutableEntry<CyIdentifiable,CyColumn>(
+                                                                new SUIDKey(fromSUIDs[i]), columns.get(fromColumns[i]));
+                                                i = next(i + 1);
+                                                return entry;
+                                        }
+                                };
+                        }
+
+                        @Override
+                        public int size() {
+                                int n = 0;
+                                for (int i=start; i<end; i++) {
+                                        if (fromColumns[i]!=REMOVED) {
+                                                n++;
+                                        }
+                                }
+                                return n;
+                        }
+                };
+
+                @Override
+                public Set<Map.Entry<CyIdentifiable,CyColumn>> entrySet() {
+                        return entrySet;
+                }
+        }
+
+        private static final class SUIDKey implements CyIdentifiable {
+                private final long suid;
+
+                SUIDKey(long suid) {
+                        this.suid = suid;
+                }
+
+                @Override
+                public Long getSUID() {
+                        return suid;
+                }
+
+                @Override
+                public int hashCode() {
+                        return Long.hashCode(suid);
+                }
+
+                @Override
+                public boolean equals(Object obj) {
+                        return obj instanceof SUIDKey && ((SUIDKey)obj).suid==suid;
+                }
+        }
+}
@@ -0,0 +1,276 @@
+package org.cytoscape.network.merge.internal.conflict;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.network.merge.internal.model.SourceSnapshot;
+
+/**
+ * Audit trail of attribute conflicts, streamed to a gzipped tab-separated file
+ * (target SUID, column, source network SUID, source SUID, source value).
+ * A null value is written as {@link #NULL_VALUE}, an empty one as an empty field.
+ *
+ * Only a fixed size buffer is kept in memory, whatever the number of conflicts.
+ */
+public class ConflictReport implements Closeable {
+
+        public static final String HEADER = "target\tcolumn\tsource network\tsource\tvalue";
+        public static final String NULL_VALUE = "\\N";
+
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        /**
+         * One line of a report.
+         */
+        public static class Entry {
+                public long target;
+                public String column;
+                public Long sourceNetwork;
+                public long source;
+                // null if the source cell has no value
+                public String value;
+        }
+
+        /**
+         * Receives the entries of a report.
+         */
+        public interface EntryVisitor {
+                /**
+                 *
+                 * @param entry reused between calls
+                 * @return false to stop reading
+                 */
+                public boolean visit(Entry entry);
+        }
+
+        private final File file;
+        private final Writer writer;
+        private final Map<CyTable,CyNetwork> tableNetworks;
+        private SourceSnapshot sourceSnapshot;
+        private long conflictCount;
+
+        /**
+         *
+         * @param file
+         * @param sourceNetworks used to find the network of each source column
+         * @throws IOException
+         */
+        public ConflictReport(final File file, final List<CyNetwork> sourceNetworks) throws IOException {
+                if (file==null || sourceNetworks==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                this.file = file;
+                this.tableNetworks = new IdentityHashMap<CyTable,CyNetwork>();
+                for (CyNetwork network : sourceNetworks) {
+                        addTables(network);
+                }
+
+                this.writer = new BufferedWriter(new OutputStreamWriter(
+                                new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE);
+                writer.write(HEADER);
+                writer.write('\n');
+        }
+
+        private void addTables(final CyNetwork network) {
+                tableNetworks.put(network.getDefaultNodeTable(), network);
+                tableNetworks.put(network.getDefaultEdgeTable(), network);
+                tableNetworks.put(network.getDefaultNetworkTable(), network);
+                tableNetworks.put(network.getTable(CyNode.class, CyNetwork.LOCAL_ATTRS), network);
+                tableNetworks.put(network.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS), network);
+                tableNetworks.put(network.getTable(CyNetwork.class, CyNetwork.LOCAL_ATTRS), network);
+                if (network instanceof CySubNetwork) {
+                        // shared columns belong to the root network
+                        CyRootNetwork root = ((CySubNetwork)network).getRootNetwork();
+                        tableNetworks.put(root.getSharedNodeTable(), root);
+                        tableNetworks.put(root.getSharedEdgeTable(), root);
+                        tableNetworks.put(root.getSharedNetworkTable(), root);
+                }
+        }
+
+        public File getFile() {
+                return file;
+        }
+
+        /**
+         *
+         * @param sourceSnapshot if not null, the source values are read from it instead of
+         *        the tables, as the merge does
+         */
+        public void setSourceSnapshot(final SourceSnapshot sourceSnapshot) {
+                this.sourceSnapshot = sourceSnapshot;
+        }
+
+        /**
+         *
+         * @return number of conflicts written so far
+         */
+        public synchronized long getConflictCount() {
+                return conflictCount;
+        }
+
+        public synchronized void addConflict(final CyIdentifiable from, final CyColumn fromAttr,
+                                        final CyIdentifiable to, final CyColumn toAttr) {
+                if (from==null || fromAttr==null || to==null || toAttr==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                final CyTable fromTable = fromAttr.getTable();
+                final CyRow fromRow = sourceSnapshot==null ? fromTable.getRow(from.getSUID())
+                                : sourceSnapshot.getRow(fromTable, from.getSUID());
+                final Object value = fromRow.getRaw(fromAttr.getName());
+                final CyNetwork network = tableNetworks.get(fromTable);
+
+                try {
+                        writer.write(Long.toString(to.getSUID()));
+                        writer.write('\t');
+                        writeEscaped(toAttr.getName());
+                        writer.write('\t');
+                        if (network!=null) {
+                                writer.write(Long.toString(network.getSUID()));
+                        }
+                        writer.write('\t');
+                        writer.write(Long.toString(from.getSUID()));
+                        writer.write('\t');
+                        if (value==null) {
+                                writer.write(NULL_VALUE);
+                        } else {
+                                writeEscaped(value.toString());
+                        }
+                        writer.write('\n');
+                } catch (IOException e) {
+                        throw new UncheckedIOException("Could not write the conflict report " + file, e);
+                }
+                conflictCount++;
+        }
+
+        private void writeEscaped(final String s) throws IOException {
+                for (int i=0; i<s.length(); i++) {
+                        char c = s.charAt(i);
+                        switch (c) {
+                        case '\\': writer.write("\\\\"); break;
+                        case '\t': writer.write("\\t"); break;
+                        case '\n': writer.write("\\n"); break;
+                        case '\r': writer.write("\\r"); break;
+                        default: writer.write(c);
+                        }
+                }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+                writer.close();
+        }
+
+        /**
+         * Stream the entries of a report written by this class.
+         *
+         * @param file
+         * @param visitor
+         * @return number of entries read
+         * @throws IOException
+         */
+        public static long read(final File file, final EntryVisitor visitor) throws IOException {
+                if (file==null || visitor==null) {
+                        throw new java.lang.NullPointerException();
+                }
+
+                long n = 0;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                                new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                        String line = reader.readLine();
+                        if (line==null || !line.equals(HEADER)) {
+                                throw new IOException("Not a conflict report: " + file);
+                        }
+
+                        final Entry entry = new Entry();
+                        while ((line = reader.readLine()) != null) {
+                                String[] fields = line.split("\t", -1);
+                                if (fields.length!=5) {
+                                        throw new IOException("Malformed line " + (n+2) + " in " + file);
+                                }
+
+                                entry.target = Long.parseLong(fields[0]);
+                                entry.column = unescape(fields[1]);
+                                entry.sourceNetwork = fields[2].isEmpty() ? null : Long.valueOf(fields[2]);
+                                entry.source = Long.parseLong(fields[3]);
+                                entry.value = fields[4].equals(NULL_VALUE) ? null : unescape(fields[4]);
+                                n++;
+                                if (!visitor.visit(entry)) {
+                                        break;
+                                }
+                        }
+                }
+                return n;
+        }
+
+        private static String unescape(final String s) {
+                if (s.indexOf('\\')<0) {
+                        return s;
+                }
+
+                StringBuilder str = new StringBuilder(s.length());
+                for (int i=0; i<s.length(); i++) {
+                        char c = s.charAt(i);
+                        if (c=='\\' && i+1<s.length()) {
+                                c = s.charAt(++i);
+                                switch (c) {
+                                case 't': c = '\t'; break;
+                                case 'n': c = '\n'; break;
+                                case 'r': c = '\r'; break;
+                                default: break;
+                                }
+                        }
+                        str.append(c);
+                }
+                return str.toString();
+        }
+}
@@ -39,6 +39,18 @@ public class DefaultAttributeConflictHandler implements AttributeConflictHandler
 	@Override
 	public boolean handleIt(final CyIdentifiable to, final CyColumn toColumn,
 			final Map<CyIdentifiable, CyColumn> mapFromGOFromAttr) {
+		final Object value = resolve(to, toColumn, mapFromGOFromAttr);
+		if (value == null) {
+			return false;
+		}
+
+		toColumn.getTable().getRow(to.getSUID()).set(toColumn.getName(), value);
+		return true;
+	}
+
+	@Override
+	public Object resolve(final CyIdentifiable to, final CyColumn toColumn,
+			final Map<CyIdentifiable, CyColumn> mapFromGOFromAttr) {
 		
 		if (to == null || toColumn == null || mapFromGOFromAttr == null) {
 			throw new java.lang.NullPointerException("All parameters should not be null.");
@@ -71,12 +83,10 @@ public class DefaultAttributeConflictHandler implements AttributeConflictHandler
 			}
 
 			str.deleteCharAt(str.length() - 1);
-			row.set(toColumn.getName(), str.toString());
-
-			return true;
+			return str.toString();
 		}
 
 		// FIXME: how about Integer, Double, Boolean?
-		return false;
+		return null;
 	}
 }
@@ -263,10 +263,25 @@ public interface AttributeMapping {
      */
     public void addNetwork(CyNetwork net, CyTable cyTable);
 
+    /**
+     * Same as {@link #addNetwork(CyNetwork, CyTable)}, but only the given columns are mapped.
+     *
+     * @param net
+     * @param cyTable
+     * @param columnNames columns of the table to map, null for all of them
+     */
+    public void addNetwork(CyNetwork net, CyTable cyTable, Set<String> columnNames);
+
     /**
      *
      * @param netID
      */
     public void removeNetwork(CyNetwork net);
+
+    /**
+     *
+     * @return an immutable snapshot of this mapping, with the source columns resolved
+     */
+    public CompiledAttributeMapping compile();
        
 }
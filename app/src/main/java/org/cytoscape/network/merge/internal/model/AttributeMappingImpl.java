@@ -36,6 +36,8 @@ import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.TreeMap;
 import java.util.WeakHashMap;
 
 import org.cytoscape.network.merge.internal.util.ColumnType;
@@ -54,6 +56,12 @@ public class AttributeMappingImpl implements AttributeMapping {
     private Map<CyNetwork,CyTable> cyTables;
     private final String nullAttr = ""; // to hold a position in vector standing that it's not a attribute
 
+    // name -> rows, for merged names and for original names of all networks
+    private final NameIndex mergedAttributeIndex = new NameIndex();
+    private final NameIndex originalAttributeIndex = new NameIndex();
+    // set when rows have been inserted or removed, the indexes are rebuilt on next use
+    private boolean indexDirty = false;
+
     public AttributeMappingImpl() {
         attributeMapping = new WeakHashMap<CyNetwork,List<String>>();
         mergedAttributes = new ArrayList<String>();
@@ -90,7 +98,7 @@ public class AttributeMappingImpl implements AttributeMapping {
 
     @Override
     public int getMergedAttributeIndex(final String attr) {
-				return mergedAttributes.indexOf(attr);
+				return indexOfMergedAttribute(attr);
     }
 
     @Override
@@ -100,6 +108,10 @@ public class AttributeMappingImpl implements AttributeMapping {
         }
 
         String ret = mergedAttributes.set(index, attributeName);
+        if (!indexDirty) {
+            mergedAttributeIndex.remove(ret, index);
+            mergedAttributeIndex.add(attributeName, index);
+        }
         resetMergedAttributeType(index,false);
 
         return ret;
@@ -120,7 +132,7 @@ public class AttributeMappingImpl implements AttributeMapping {
             throw new java.lang.NullPointerException("Null netID or mergedAttributeName");
         }
 
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index==-1) {
             throw new java.lang.IllegalArgumentException("No "+mergedAttributeName+" is contained in merged table columns");
         }
@@ -154,7 +166,7 @@ public class AttributeMappingImpl implements AttributeMapping {
             throw new java.lang.NullPointerException("Null netID or mergedAttributeName");
         }
 
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index==-1) {
             throw new java.lang.IllegalArgumentException("No "+mergedAttributeName+" is contained in merged table columns");
         }
@@ -177,7 +189,7 @@ public class AttributeMappingImpl implements AttributeMapping {
             throw new java.lang.NullPointerException("Null netID or mergedAttributeName");
         }
 
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index==-1) {
             throw new java.lang.IllegalArgumentException("No "+mergedAttributeName+" is contained in merged table columns");
         }
@@ -200,7 +212,7 @@ public class AttributeMappingImpl implements AttributeMapping {
             throw new java.lang.NullPointerException("Null netID or mergedAttributeName");
         }
 
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index==-1) {
             throw new java.lang.IllegalArgumentException("No "+mergedAttributeName+" is contained in merged table columns");
         }
@@ -213,7 +225,7 @@ public class AttributeMappingImpl implements AttributeMapping {
         if (attributeName==null) {
             throw new java.lang.NullPointerException("Column name is null.");
         }
-        return mergedAttributes.contains(attributeName);
+        return indexOfMergedAttribute(attributeName)!=-1;
     }
 
     @Override
@@ -221,7 +233,7 @@ public class AttributeMappingImpl implements AttributeMapping {
         if (net==null||mergedAttributeName==null) {
             throw new java.lang.NullPointerException("Null netID or mergedAttributeName");
         }
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index==-1) {
             throw new java.lang.IllegalArgumentException("No "+mergedAttributeName+" is contained in merged table columns");
         }
@@ -247,7 +259,7 @@ public class AttributeMappingImpl implements AttributeMapping {
         if (mergedAttributeName==null) {
             throw new java.lang.NullPointerException("Null netID or mergedAttributeName");
         }
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index==-1) {
             throw new java.lang.IllegalArgumentException("No "+mergedAttributeName+" is contained in merged table columns");
         }
@@ -281,7 +293,7 @@ public class AttributeMappingImpl implements AttributeMapping {
         if (net==null||mergedAttributeName==null) {
             throw new java.lang.NullPointerException("Null netID or mergedAttributeName");
         }
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index==-1) {
             throw new java.lang.IllegalArgumentException("No "+mergedAttributeName+" is contained in merged table columns");
         }
@@ -304,6 +316,10 @@ public class AttributeMappingImpl implements AttributeMapping {
         final String old = attrs.get(index);
         if (old.compareTo(attributeName)!=0) { // not the same                     
             attrs.set(index, attributeName);
+            if (!indexDirty) {
+                originalAttributeIndex.remove(old, index);
+                originalAttributeIndex.add(attributeName, index);
+            }
             resetMergedAttributeType(index,false);
         }
 
@@ -316,7 +332,7 @@ public class AttributeMappingImpl implements AttributeMapping {
             throw new java.lang.NullPointerException("Null netID or mergedAttributeName");
         }
 
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index==-1) {
             throw new java.lang.IllegalArgumentException("No "+mergedAttributeName+" is contained in merged table columns");
         }
@@ -337,6 +353,9 @@ public class AttributeMappingImpl implements AttributeMapping {
         final List<String> attrs = attributeMapping.get(net);
 
         String old = attrs.set(index, nullAttr);
+        if (!indexDirty) {
+            originalAttributeIndex.remove(old, index);
+        }
         if (!pack(index)) {
                 this.resetMergedAttributeType(index,false);
         }
@@ -350,7 +369,7 @@ public class AttributeMappingImpl implements AttributeMapping {
             throw new java.lang.NullPointerException("Null mergedAttributeName");
         }
 
-        final int index = mergedAttributes.indexOf(mergedAttributeName);
+        final int index = indexOfMergedAttribute(mergedAttributeName);
         if (index ==-1 ) {
             return null;
         }
@@ -371,6 +390,7 @@ public class AttributeMappingImpl implements AttributeMapping {
         for (List<String> attrs : attributeMapping.values()) {
                 attrs.remove(index);
         }
+        indexDirty = true;
 
         this.mergedAttributeTypes.remove(index);
         this.mergedAttributeMutability.remove(index);
@@ -419,6 +439,11 @@ public class AttributeMappingImpl implements AttributeMapping {
 
         String defaultName = getDefaultMergedAttrName(mergedAttrName);
         mergedAttributes.add(index,defaultName);// add in merged attr
+        if (index==mergedAttributes.size()-1) {
+            addToIndex(index);
+        } else {
+            indexDirty = true;
+        }
 
         this.resetMergedAttributeType(index, true);
         this.resetMergedAttributeMutability(index, true);
@@ -427,6 +452,11 @@ public class AttributeMappingImpl implements AttributeMapping {
 
     @Override
     public void addNetwork(final CyNetwork net, CyTable table) {
+        addNetwork(net, table, null);
+    }
+
+    @Override
+    public void addNetwork(final CyNetwork net, CyTable table, final Set<String> columnNames) {
         if (net==null || table==null) {
             throw new java.lang.NullPointerException();
         }
@@ -437,7 +467,8 @@ public class AttributeMappingImpl implements AttributeMapping {
         for (CyColumn col : table.getColumns()) {
             String colName = col.getName();
             if (!colName.equals("SUID") && !colName.equals("selected") 
-						    && !colName.equals("__Annotations")) { //skip SUID & selected
+						    && !colName.equals("__Annotations") //skip SUID & selected
+						    && (columnNames==null || columnNames.contains(colName))) {
                 attributeNames.add(col.getName());
             }
         }
@@ -472,28 +503,10 @@ public class AttributeMappingImpl implements AttributeMapping {
 
             for (int i=0; i<nAttr; i++) {
                 final String at = attributeNames.get(i);
-                boolean found = false;             
-                for (int ir=0; ir<nr; ir++) {
-                    if (attrs.get(ir).compareTo(nullAttr)!=0) continue; // if the row is occupied
-                    if (mergedAttributes.get(ir).compareTo(at)==0) { // same name as the merged attribute
-                        found = true;
-                        this.setOriginalAttribute(net, at, ir);
-                        break; 
-                    }
-
-                    final Iterator<CyNetwork> it = attributeMapping.keySet().iterator();
-                    while (it.hasNext()) {
-                        final CyNetwork net_curr = it.next();
-                        final String attr_curr = attributeMapping.get(net_curr).get(ir);
-                        if (attr_curr.compareTo(at)==0) { // same name as the original attribute
-                            found = true;
-                            this.setOriginalAttribute(net, at, ir);
-                            break; 
-                        }
-                    }
-                }
-
-                if (!found) { //no same attribute found
+                final int ir = findRow(attrs, at, nr);
+                if (ir!=-1) {
+                    this.setOriginalAttribute(net, at, ir);
+                } else { //no same attribute found
                     addNewAttribute(net,at);
                 }
             }
@@ -516,6 +529,7 @@ public class AttributeMappingImpl implements AttributeMapping {
             throw new java.lang.NullPointerException();
         }
         final List<String> removed = attributeMapping.remove(net);
+        indexDirty = true;
         final int n = removed.size();
         for (int i=n-1; i>=0; i--) {
             if (removed.get(i).compareTo(nullAttr)!=0) { // if the attribute is not empty
@@ -527,6 +541,33 @@ public class AttributeMappingImpl implements AttributeMapping {
         }
     }
 
+    @Override
+    public CompiledAttributeMapping compile() {
+        final List<CyNetwork> networks = new ArrayList<CyNetwork>(attributeMapping.keySet());
+        final int n = mergedAttributes.size();
+        final String[] names = mergedAttributes.toArray(new String[n]);
+        final ColumnType[] types = mergedAttributeTypes.toArray(new ColumnType[n]);
+        final boolean[] mutability = new boolean[n];
+        for (int i=0; i<n; i++) {
+            mutability[i] = mergedAttributeMutability.get(i);
+        }
+
+        final CyColumn[][] columns = new CyColumn[networks.size()][n];
+        for (int k=0; k<networks.size(); k++) {
+            final CyNetwork net = networks.get(k);
+            final List<String> attrs = attributeMapping.get(net);
+            final CyTable table = cyTables.get(net);
+            for (int i=0; i<n; i++) {
+                final String attr = attrs.get(i);
+                if (attr.compareTo(nullAttr)!=0 && table!=null) {
+                    columns[k][i] = table.getColumn(attr);
+                }
+            }
+        }
+
+        return new CompiledAttributeMapping(networks, names, types, mutability, columns);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -575,7 +616,7 @@ public class AttributeMappingImpl implements AttributeMapping {
 
         while (true) {
             String attr_ret = attr+appendix;
-            if (mergedAttributes.contains(attr_ret)){
+            if (indexOfMergedAttribute(attr_ret)!=-1){
                 appendix = "." + ++i;
             } else {
                 return attr+appendix;
@@ -602,10 +643,137 @@ public class AttributeMappingImpl implements AttributeMapping {
 //        }//TODO remove in Cytosape3
 
         mergedAttributes.add(getDefaultMergedAttrName(attrMerged)); // add in merged attr
+        addToIndex(mergedAttributes.size()-1);
         this.resetMergedAttributeType(mergedAttributeTypes.size(),true);
         this.resetMergedAttributeMutability(mergedAttributeMutability.size(),true);
     }
 
+    /**
+     * The first row not yet used by the network being added, lower than nr, whose merged
+     * name or original name in any network is the given attribute.
+     */
+    private int findRow(final List<String> attrs, final String attr, final int nr) {
+        int row = -1;
+        for (Integer ir : mergedAttributeIndex().rows(attr, nr)) {
+            if (attrs.get(ir).compareTo(nullAttr)==0) { // if the row is not occupied
+                row = ir;
+                break;
+            }
+        }
+
+        for (Integer ir : originalAttributeIndex().rows(attr, nr)) {
+            if (row!=-1 && ir>=row) break;
+            if (attrs.get(ir).compareTo(nullAttr)!=0) continue; // if the row is occupied
+            for (List<String> attrs_curr : attributeMapping.values()) {
+                if (attrs_curr.get(ir).compareTo(attr)==0) { // same name as the original attribute
+                    return ir;
+                }
+            }
+        }
+
+        return row;
+    }
+
+    private int indexOfMergedAttribute(final String attr) {
+        if (attr==null) {
+            return -1;
+        }
+        return mergedAttributeIndex().first(attr);
+    }
+
+    private NameIndex mergedAttributeIndex() {
+        rebuildIndexIfDirty();
+        return mergedAttributeIndex;
+    }
+
+    private NameIndex originalAttributeIndex() {
+        rebuildIndexIfDirty();
+        return originalAttributeIndex;
+    }
+
+    private void rebuildIndexIfDirty() {
+        if (!indexDirty) {
+            return;
+        }
+
+        indexDirty = false;
+        mergedAttributeIndex.clear();
+        originalAttributeIndex.clear();
+        for (int i=0; i<mergedAttributes.size(); i++) {
+            addToIndex(i);
+        }
+    }
+
+    private void addToIndex(final int index) {
+        if (indexDirty) {
+            return;
+        }
+
+        mergedAttributeIndex.add(mergedAttributes.get(index), index);
+        for (List<String> attrs : attributeMapping.values()) {
+            originalAttributeIndex.add(attrs.get(index), index);
+        }
+    }
+
+    /**
+     * Rows of each name, with the number of times the name appears in the row.
+     */
+    private static final class NameIndex {
+        private final Map<String,TreeMap<Integer,Integer>> rows = new HashMap<String,TreeMap<Integer,Integer>>();
+
+        void add(final String name, final int row) {
+            if (name==null || name.isEmpty()) {
+                return;
+            }
+            TreeMap<Integer,Integer> counts = rows.get(name);
+            if (counts==null) {
+                counts = new TreeMap<Integer,Integer>();
+                rows.put(name, counts);
+            }
+            Integer count = counts.get(row);
+            counts.put(row, count==null ? 1 : count+1);
+        }
+
+        void remove(final String name, final int row) {
+            if (name==null || name.isEmpty()) {
+                return;
+            }
+            TreeMap<Integer,Integer> counts = rows.get(name);
+            if (counts==null) {
+                return;
+            }
+            Integer count = counts.get(row);
+            if (count==null) {
+                return;
+            }
+            if (count>1) {
+                counts.put(row, count-1);
+            } else {
+                counts.remove(row);
+                if (counts.isEmpty()) {
+                    rows.remove(name);
+                }
+            }
+        }
+
+        int first(final String name) {
+            TreeMap<Integer,Integer> counts = rows.get(name);
+            return counts==null ? -1 : counts.firstKey();
+        }
+
+        NavigableSet<Integer> rows(final String name, final int limit) {
+            TreeMap<Integer,Integer> counts = rows.get(name);
+            if (counts==null) {
+                return Collections.emptyNavigableSet();
+            }
+            return counts.navigableKeySet().headSet(limit, false);
+        }
+
+        void clear() {
+            rows.clear();
+        }
+    }
+
     protected void resetMergedAttributeType(final int index, boolean add) {
         if (this.getSizeMergedAttributes()>this.mergedAttributeTypes.size()+(add?1:0)) {
                 throw new java.lang.IllegalStateException("column type not complete");
@@ -0,0 +1,163 @@
+package org.cytoscape.network.merge.internal.model;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+
+import org.cytoscape.network.merge.internal.util.ColumnType;
+
+/**
+ * Immutable snapshot of an {@link AttributeMapping}, made for the merge: networks
+ * are numbered, and the source column of each network and merged column is resolved
+ * once, so the merge does not need any name lookup.
+ *
+ * Instances can be read concurrently.
+ */
+public final class CompiledAttributeMapping {
+
+    /**
+     * How the value of a source column becomes the value of a merged column when it is
+     * the only value to merge.
+     */
+    public enum Conversion {
+        /** same scalar type, the value is copied */
+        COPY,
+        /** scalar value cast to the merged type */
+        CAST,
+        /** scalar value, cast if needed, in a list of one element */
+        TO_LIST,
+        /** list elements cast if needed, without nulls and duplicates */
+        LIST,
+        /** any other case, left to the attribute merger */
+        OTHER
+    }
+
+    private final CyNetwork[] networks;
+    private final Map<CyNetwork,Integer> networkOrdinals;
+    private final String[] mergedAttributes;
+    private final ColumnType[] mergedAttributeTypes;
+    private final boolean[] mergedAttributeMutability;
+    private final CyColumn[][] originalColumns; // [network ordinal][merged column], null if not mapped
+    private final Conversion[][] conversions; // same layout as originalColumns
+
+    CompiledAttributeMapping(final List<CyNetwork> networks, final String[] mergedAttributes,
+            final ColumnType[] mergedAttributeTypes, final boolean[] mergedAttributeMutability,
+            final CyColumn[][] originalColumns) {
+        this.networks = networks.toArray(new CyNetwork[0]);
+        final Map<CyNetwork,Integer> ordinals = new IdentityHashMap<CyNetwork,Integer>();
+        for (int i=0; i<this.networks.length; i++) {
+            ordinals.put(this.networks[i], i);
+        }
+        this.networkOrdinals = Collections.unmodifiableMap(ordinals);
+        this.mergedAttributes = mergedAttributes;
+        this.mergedAttributeTypes = mergedAttributeTypes;
+        this.mergedAttributeMutability = mergedAttributeMutability;
+        this.originalColumns = originalColumns;
+
+        this.conversions = new Conversion[originalColumns.length][];
+        for (int k=0; k<originalColumns.length; k++) {
+            conversions[k] = new Conversion[mergedAttributes.length];
+            for (int i=0; i<mergedAttributes.length; i++) {
+                if (originalColumns[k][i]!=null) {
+                    conversions[k][i] = getConversion(ColumnType.getType(originalColumns[k][i]), mergedAttributeTypes[i]);
+                }
+            }
+        }
+    }
+
+    private static Conversion getConversion(final ColumnType from, final ColumnType to) {
+        if (from==null || to==null) {
+            return Conversion.OTHER;
+        }
+        if (!to.isList()) {
+            if (from.isList()) {
+                return Conversion.OTHER;
+            }
+            return from==to ? Conversion.COPY : Conversion.CAST;
+        }
+        return from.isList() ? Conversion.LIST : Conversion.TO_LIST;
+    }
+
+    public int getSizeNetwork() {
+        return networks.length;
+    }
+
+    public CyNetwork getNetwork(final int ordinal) {
+        return networks[ordinal];
+    }
+
+    /**
+     *
+     * @param net
+     * @return ordinal of the network, -1 if it is not in the mapping
+     */
+    public int getNetworkOrdinal(final CyNetwork net) {
+        final Integer ordinal = networkOrdinals.get(net);
+        return ordinal==null ? -1 : ordinal;
+    }
+
+    public int getSizeMergedAttributes() {
+        return mergedAttributes.length;
+    }
+
+    public String getMergedAttribute(final int index) {
+        return mergedAttributes[index];
+    }
+
+    public ColumnType getMergedAttributeType(final int index) {
+        return mergedAttributeTypes[index];
+    }
+
+    public boolean getMergedAttributeMutability(final int index) {
+        return mergedAttributeMutability[index];
+    }
+
+    /**
+     *
+     * @param networkOrdinal
+     * @param index of the merged column
+     * @return source column, or null if the network has no column mapped to this merged column
+     */
+    public CyColumn getOriginalColumn(final int networkOrdinal, final int index) {
+        return originalColumns[networkOrdinal][index];
+    }
+
+    /**
+     *
+     * @param networkOrdinal
+     * @param index of the merged column
+     * @return conversion of the source column values, or null if the network has no column
+     *         mapped to this merged column
+     */
+    public Conversion getConversion(final int networkOrdinal, final int index) {
+        return conversions[networkOrdinal][index];
+    }
+}
@@ -0,0 +1,125 @@
+package org.cytoscape.network.merge.internal.model;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+
+/**
+ * Matching keys of the nodes of the source networks, read once per network and matching
+ * column, and shared by all the merges given the same index.
+ *
+ * The keys of a node are the value of its matching column, or the elements of it if it
+ * is a list, so that two nodes match as by
+ * {@link org.cytoscape.network.merge.internal.util.DefaultAttributeValueMatcher} if and
+ * only if they share a key. Instances can be used concurrently.
+ */
+public final class MatchingKeyIndex {
+    private static final Object[] NO_KEYS = new Object[0];
+
+    private final SourceSnapshot sourceSnapshot;
+    private final ConcurrentMap<CyNetwork,ConcurrentMap<CyColumn,Map<CyNode,Object[]>>> keys;
+
+    public MatchingKeyIndex() {
+        this(null);
+    }
+
+    /**
+     *
+     * @param sourceSnapshot
+     *            if not null, the keys are read from it instead of the tables
+     */
+    public MatchingKeyIndex(final SourceSnapshot sourceSnapshot) {
+        this.sourceSnapshot = sourceSnapshot;
+        this.keys = new ConcurrentHashMap<CyNetwork,ConcurrentMap<CyColumn,Map<CyNode,Object[]>>>();
+    }
+
+    /**
+     *
+     * @param network
+     * @param column
+     *            matching column of the network
+     * @return the keys of the nodes of the network, read the first time they are requested
+     */
+    public Map<CyNode,Object[]> getKeys(final CyNetwork network, final CyColumn column) {
+        if (network==null || column==null) {
+            throw new java.lang.NullPointerException();
+        }
+
+        final ConcurrentMap<CyColumn,Map<CyNode,Object[]>> networkKeys = keys.computeIfAbsent(network,
+                n -> new ConcurrentHashMap<CyColumn,Map<CyNode,Object[]>>());
+        return networkKeys.computeIfAbsent(column, c -> readKeys(network, c));
+    }
+
+    /**
+     *
+     * @return number of indexed network columns
+     */
+    public int size() {
+        int size = 0;
+        for (Map<CyColumn,Map<CyNode,Object[]>> networkKeys : keys.values()) {
+            size += networkKeys.size();
+        }
+        return size;
+    }
+
+    private Map<CyNode,Object[]> readKeys(final CyNetwork network, final CyColumn column) {
+        final List<CyNode> nodes = network.getNodeList();
+        final Map<CyNode,Object[]> nodeKeys = new IdentityHashMap<CyNode,Object[]>(nodes.size());
+        final boolean isList = List.class.isAssignableFrom(column.getType());
+        for (CyNode node : nodes) {
+            final CyRow row = sourceSnapshot==null ? column.getTable().getRow(node.getSUID())
+                    : sourceSnapshot.getRow(column.getTable(), node.getSUID());
+            if (isList) {
+                final List<?> values = row.get(column.getName(), List.class);
+                if (values==null || values.isEmpty()) {
+                    nodeKeys.put(node, NO_KEYS);
+                } else {
+                    final List<Object> elements = new ArrayList<Object>(values.size());
+                    for (Object value : values) {
+                        if (value!=null) {
+                            elements.add(value);
+                        }
+                    }
+                    nodeKeys.put(node, elements.toArray());
+                }
+            } else {
+                final Object value = row.get(column.getName(), column.getType());
+                nodeKeys.put(node, value==null ? NO_KEYS : new Object[] {value});
+            }
+        }
+        return Collections.unmodifiableMap(nodeKeys);
+    }
+}
@@ -0,0 +1,246 @@
+package org.cytoscape.network.merge.internal.model;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+
+/**
+ * Read-only columnar copy of the source columns read by a merge, taken before it starts,
+ * so that the merge reads consistent values without going through the locks of the
+ * source tables, whatever is changed in them meanwhile.
+ *
+ * Rows are read through {@link #getRow}; columns and rows that are not in the snapshot
+ * are read from the live table. Instances can be read concurrently.
+ */
+public final class SourceSnapshot {
+    private final Map<CyTable,TableSnapshot> tables;
+
+    private static final class TableSnapshot {
+        private final CyTable table;
+        private final long[] suids; // sorted
+        private final Map<String,CyColumn> columns;
+        private final Map<String,Object[]> values; // by column name, in the order of suids
+
+        private TableSnapshot(final CyTable table, final long[] suids) {
+            this.table = table;
+            this.suids = suids;
+            this.columns = new HashMap<String,CyColumn>();
+            this.values = new HashMap<String,Object[]>();
+        }
+    }
+
+    private SourceSnapshot(final Map<CyTable,TableSnapshot> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Copy the given columns of the default tables of the networks, for their nodes,
+     * edges and the network itself. Columns of other tables are left out.
+     *
+     * @param networks
+     * @param nodeColumns
+     * @param edgeColumns
+     * @param networkColumns
+     * @return the snapshot
+     */
+    public static SourceSnapshot take(final List<CyNetwork> networks, final Collection<CyColumn> nodeColumns,
+            final Collection<CyColumn> edgeColumns, final Collection<CyColumn> networkColumns) {
+        if (networks==null || nodeColumns==null || edgeColumns==null || networkColumns==null) {
+            throw new java.lang.NullPointerException();
+        }
+
+        final Map<CyTable,TableSnapshot> tables = new IdentityHashMap<CyTable,TableSnapshot>();
+        for (CyNetwork network : networks) {
+            addTable(tables, network.getDefaultNodeTable(), network.getNodeList(), nodeColumns);
+            addTable(tables, network.getDefaultEdgeTable(), network.getEdgeList(), edgeColumns);
+            addTable(tables, network.getDefaultNetworkTable(), Collections.singletonList(network), networkColumns);
+        }
+        return new SourceSnapshot(tables);
+    }
+
+    private static void addTable(final Map<CyTable,TableSnapshot> tables, final CyTable table,
+            final List<? extends CyIdentifiable> entries, final Collection<CyColumn> columns) {
+        final List<CyColumn> tableColumns = new ArrayList<CyColumn>();
+        final Set<CyColumn> added = Collections.newSetFromMap(new IdentityHashMap<CyColumn,Boolean>());
+        for (CyColumn column : columns) {
+            if (column!=null && column.getTable()==table && added.add(column)) {
+                tableColumns.add(column);
+            }
+        }
+        if (tableColumns.isEmpty() || tables.containsKey(table)) {
+            return;
+        }
+
+        final long[] suids = new long[entries.size()];
+        for (int i=0; i<suids.length; i++) {
+            suids[i] = entries.get(i).getSUID();
+        }
+        Arrays.sort(suids);
+
+        final TableSnapshot snapshot = new TableSnapshot(table, suids);
+        final Object[][] values = new Object[tableColumns.size()][];
+        for (int c=0; c<values.length; c++) {
+            values[c] = new Object[suids.length];
+            snapshot.columns.put(tableColumns.get(c).getName(), tableColumns.get(c));
+            snapshot.values.put(tableColumns.get(c).getName(), values[c]);
+        }
+
+        for (int i=0; i<suids.length; i++) {
+            final CyRow row = table.getRow(suids[i]);
+            for (int c=0; c<values.length; c++) {
+                final CyColumn column = tableColumns.get(c);
+                if (List.class.isAssignableFrom(column.getType())) {
+                    final List<?> list = row.getList(column.getName(), column.getListElementType());
+                    values[c][i] = list==null ? null : Collections.unmodifiableList(new ArrayList<Object>(list));
+                } else {
+                    values[c][i] = row.get(column.getName(), column.getType());
+                }
+            }
+        }
+        tables.put(table, snapshot);
+    }
+
+    /**
+     *
+     * @param table
+     * @param suid
+     * @return the row from the snapshot if it has the table and the row, the live row otherwise
+     */
+    public CyRow getRow(final CyTable table, final long suid) {
+        final TableSnapshot snapshot = tables.get(table);
+        if (snapshot!=null) {
+            final int index = Arrays.binarySearch(snapshot.suids, suid);
+            if (index>=0) {
+                return new SnapshotRow(snapshot, index, suid);
+            }
+        }
+        return table.getRow(suid);
+    }
+
+    /**
+     *
+     * @return number of copied cells
+     */
+    public long getSize() {
+        long size = 0;
+        for (TableSnapshot snapshot : tables.values()) {
+            size += (long) snapshot.suids.length * snapshot.values.size();
+        }
+        return size;
+    }
+
+    /*
+     * Read only row: values of other columns, or requested as another type, are read from
+     * the live row, which behaves as the table does.
+     */
+    private static final class SnapshotRow implements CyRow {
+        private final TableSnapshot snapshot;
+        private final int index;
+        private final long suid;
+
+        private SnapshotRow(final TableSnapshot snapshot, final int index, final long suid) {
+            this.snapshot = snapshot;
+            this.index = index;
+            this.suid = suid;
+        }
+
+        private CyRow live() {
+            return snapshot.table.getRow(suid);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(final String columnName, final Class<? extends T> type) {
+            final CyColumn column = snapshot.columns.get(columnName);
+            if (column==null || !type.isAssignableFrom(column.getType())) {
+                return live().get(columnName, type);
+            }
+            return (T) snapshot.values.get(columnName)[index];
+        }
+
+        @Override
+        public <T> T get(final String columnName, final Class<? extends T> type, final T defaultValue) {
+            final T value = get(columnName, type);
+            return value==null ? defaultValue : value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> getList(final String columnName, final Class<T> listElementType) {
+            final CyColumn column = snapshot.columns.get(columnName);
+            if (column==null || column.getType()!=List.class || column.getListElementType()!=listElementType) {
+                return live().getList(columnName, listElementType);
+            }
+            return (List<T>) snapshot.values.get(columnName)[index];
+        }
+
+        @Override
+        public <T> List<T> getList(final String columnName, final Class<T> listElementType, final List<T> defaultValue) {
+            final List<T> value = getList(columnName, listElementType);
+            return value==null ? defaultValue : value;
+        }
+
+        @Override
+        public <T> void set(final String columnName, final T value) {
+            throw new UnsupportedOperationException("Snapshot rows are read only");
+        }
+
+        @Override
+        public boolean isSet(final String columnName) {
+            final Object[] values = snapshot.values.get(columnName);
+            return values==null ? live().isSet(columnName) : values[index]!=null;
+        }
+
+        @Override
+        public Map<String,Object> getAllValues() {
+            return live().getAllValues();
+        }
+
+        @Override
+        public Object getRaw(final String columnName) {
+            final Object[] values = snapshot.values.get(columnName);
+            return values==null ? live().getRaw(columnName) : values[index];
+        }
+
+        @Override
+        public CyTable getTable() {
+            return snapshot.table;
+        }
+    }
+}
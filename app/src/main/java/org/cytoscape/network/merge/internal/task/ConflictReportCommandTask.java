@@ -0,0 +1,214 @@
+package org.cytoscape.network.merge.internal.task;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.cytoscape.network.merge.internal.conflict.ConflictReport;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.ObservableTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.json.JSONResult;
+
+/**
+ * Query or export a conflict report written by a merge, reading it as a stream.
+ */
+public class ConflictReportCommandTask extends AbstractTask implements ObservableTask {
+
+	@Tunable(
+				description = "Conflict report file", context=Tunable.NOGUI_CONTEXT, required = true,
+				longDescription="The conflict report written by 'network merge' with the conflictReport argument",
+				exampleStringValue = "/tmp/conflicts.tsv.gz"
+		)
+	public File file;
+
+	@Tunable(
+				description = "Column", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If set, only the conflicts on this merged column are returned",
+				exampleStringValue = "name"
+		)
+	public String column;
+
+	@Tunable(
+				description = "Target SUID", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If set, only the conflicts of this merged node, edge or network are returned",
+				exampleStringValue = "1234"
+		)
+	public Long target;
+
+	@Tunable(
+				description = "Source network SUID", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If set, only the conflicting values coming from this network are returned",
+				exampleStringValue = "52"
+		)
+	public Long sourceNetwork;
+
+	@Tunable(
+				description = "Maximum number of conflicts", context=Tunable.NOGUI_CONTEXT,
+				longDescription="Maximum number of conflicts returned, or exported. 0 means no limit. The matching conflicts are counted beyond it",
+				exampleStringValue = "100"
+		)
+	public int limit = 100;
+
+	@Tunable(
+				description = "Export file", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If set, the matching conflicts are written to this tab-separated file (gzipped if its name ends with .gz) instead of being returned",
+				exampleStringValue = "/tmp/conflicts-name.tsv",
+				params = "input=false"
+		)
+	public File exportFile;
+
+	private final List<ConflictReport.Entry> entries = new ArrayList<ConflictReport.Entry>();
+	// matching conflicts in the whole report, and the ones returned or exported
+	private long matched;
+	private long returned;
+
+	@Override
+	public void run(TaskMonitor taskMonitor) throws Exception {
+		if (file == null)
+			throw new IllegalArgumentException("A conflict report file is required");
+
+		taskMonitor.setTitle("Reading conflict report");
+
+		Writer writer = null;
+		if (exportFile != null) {
+			OutputStream out = new FileOutputStream(exportFile);
+			if (exportFile.getName().endsWith(".gz"))
+				out = new GZIPOutputStream(out);
+			writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			writer.write(ConflictReport.HEADER);
+			writer.write('\n');
+		}
+
+		final Writer export = writer;
+		try {
+			ConflictReport.read(file, entry -> {
+				if (cancelled)
+					return false;
+				if (column != null && !column.equals(entry.column))
+					return true;
+				if (target != null && target.longValue() != entry.target)
+					return true;
+				if (sourceNetwork != null && !sourceNetwork.equals(entry.sourceNetwork))
+					return true;
+
+				matched++;
+				if (limit > 0 && returned >= limit)
+					return true; // only counted
+				returned++;
+				if (export != null) {
+					try {
+						export.write(entry.target + "\t" + escape(entry.column) + "\t"
+								+ (entry.sourceNetwork == null ? "" : entry.sourceNetwork) + "\t"
+								+ entry.source + "\t"
+								+ (entry.value == null ? ConflictReport.NULL_VALUE : escape(entry.value)) + "\n");
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				} else {
+					ConflictReport.Entry copy = new ConflictReport.Entry();
+					copy.target = entry.target;
+					copy.column = entry.column;
+					copy.sourceNetwork = entry.sourceNetwork;
+					copy.source = entry.source;
+					copy.value = entry.value;
+					entries.add(copy);
+				}
+				return true;
+			});
+		} finally {
+			if (export != null)
+				export.close();
+		}
+
+		if (exportFile != null)
+			taskMonitor.setStatusMessage("Exported " + returned + " of " + matched + " conflicts to " + exportFile);
+		else
+			taskMonitor.setStatusMessage("Found " + matched + " conflicts, returned " + returned);
+	}
+
+	private static String escape(String s) {
+		return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	static String quote(String s) {
+		if (s == null)
+			return "null";
+		StringBuilder str = new StringBuilder(s.length() + 2);
+		str.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"': str.append("\\\""); break;
+			case '\\': str.append("\\\\"); break;
+			case '\n': str.append("\\n"); break;
+			case '\r': str.append("\\r"); break;
+			case '\t': str.append("\\t"); break;
+			default:
+				if (c < 0x20)
+					str.append(String.format("\\u%04x", (int) c));
+				else
+					str.append(c);
+			}
+		}
+		return str.append('"').toString();
+	}
+
+	@Override
+	public List<Class<?>> getResultClasses() {
+		return Arrays.asList(String.class, JSONResult.class);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <R> R getResults(Class<? extends R> type) {
+		if (type.equals(String.class)) {
+			StringBuilder str = new StringBuilder();
+			str.append(matched).append(" conflicts");
+			if (returned < matched)
+				str.append(", ").append(returned).append(exportFile != null ? " exported" : " returned");
+			else if (exportFile != null)
+				str.append(" exported");
+			if (exportFile != null)
+				str.append(" to ").append(exportFile);
+			for (ConflictReport.Entry entry : entries) {
+				str.append("\n").append(entry.target).append("\t").append(entry.column).append("\t")
+						.append(entry.sourceNetwork == null ? "" : entry.sourceNetwork).append("\t")
+						.append(entry.source).append("\t").append(entry.value);
+			}
+			return (R) str.toString();
+		} else if (type.equals(JSONResult.class)) {
+			JSONResult res = () -> {
+				StringBuilder str = new StringBuilder();
+				str.append("{\"count\":").append(matched).append(",\"returned\":").append(returned);
+				if (exportFile != null)
+					str.append(",\"exportFile\":").append(quote(exportFile.getPath()));
+				str.append(",\"conflicts\":[");
+				for (int i = 0; i < entries.size(); i++) {
+					ConflictReport.Entry entry = entries.get(i);
+					if (i > 0)
+						str.append(",");
+					str.append("{\"target\":").append(entry.target)
+						.append(",\"column\":").append(quote(entry.column))
+						.append(",\"sourceNetwork\":").append(entry.sourceNetwork)
+						.append(",\"source\":").append(entry.source)
+						.append(",\"value\":").append(quote(entry.value)).append("}");
+				}
+				return str.append("]}").toString();
+			};
+			return (R) res;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,16 @@
+package org.cytoscape.network.merge.internal.task;
+
+import org.cytoscape.work.TaskFactory;
+import org.cytoscape.work.TaskIterator;
+
+public class ConflictReportCommandTaskFactory implements TaskFactory {
+
+	public boolean isReady() {
+		return true;
+	}
+
+	@Override
+	public TaskIterator createTaskIterator() {
+		return new TaskIterator(new ConflictReportCommandTask());
+	}
+}
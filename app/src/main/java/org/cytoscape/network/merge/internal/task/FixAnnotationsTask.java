@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.cytoscape.model.CyNetwork;
+import org.cytoscape.network.merge.internal.util.MergeEvents;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.CyNetworkViewManager;
@@ -75,6 +76,7 @@ public class FixAnnotationsTask extends AbstractTask {
 	@Override
 	public void run(TaskMonitor taskMonitor) throws Exception {
 		taskMonitor.setStatusMessage("Fixing annotations...");
+		final Object event = MergeEvents.beginFixAnnotations();
 
 		// Step 1: get our new network view
 		CyNetworkView newNetworkView = new ArrayList<CyNetworkView>(viewManager.getNetworkViews(newNetwork)).get(0);
@@ -98,6 +100,7 @@ public class FixAnnotationsTask extends AbstractTask {
 			}
 		}
 		annotationManager.addAnnotations(newAnnotations);
+		MergeEvents.endFixAnnotations(event, newNetwork.getSUID(), newAnnotations.size());
 	}
 
 	private Annotation createAnnotation(Map<String, String> argMap, Annotation ann, CyNetworkView newNetworkView) {
@@ -24,20 +24,28 @@ package org.cytoscape.network.merge.internal.task;
  * #L%
  */
 
+import org.cytoscape.network.merge.internal.MergeEngine;
+import org.cytoscape.network.merge.internal.MergeMetrics;
+import org.cytoscape.network.merge.internal.MergeStatistics;
 import org.cytoscape.network.merge.internal.conflict.*;
 
 import org.cytoscape.work.AbstractTask;
 import org.cytoscape.work.TaskMonitor;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  *
  * @author jj
  */
 public class HandleConflictsTask extends AbstractTask {
+	// below this number of conflicts, resolving them in parallel is not worth it
+	static final int PARALLEL_THRESHOLD = 10000;
+
 	private AttributeConflictCollector conflictCollector;
+	private MergeStatistics statistics;
+	private MergeMetrics metrics;
 
 	/**
 	 * Constructor.<br>
@@ -47,6 +55,20 @@ public class HandleConflictsTask extends AbstractTask {
 		this.conflictCollector = conflictCollector;
 	}
 
+	/**
+	 * Add the conflict handling as a phase of these statistics.
+	 */
+	public void setStatistics(final MergeStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Count the resolved conflicts in these metrics.
+	 */
+	public void setMetrics(final MergeMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	/**
 	 * Executes Task
 	 *
@@ -57,28 +79,26 @@ public class HandleConflictsTask extends AbstractTask {
 	public void run(TaskMonitor taskMonitor) throws Exception {
 		taskMonitor.setStatusMessage("Handle conflicts.\n\nIt may take a while.\nPlease wait...");
 		taskMonitor.setProgress(0.0d);
+		if (statistics != null)
+			statistics.start(MergeStatistics.HANDLE_CONFLICTS);
 
-		int nBefore = conflictCollector.getMapToGOAttr().size();
-
-		List<AttributeConflictHandler> conflictHandlers = new ArrayList<AttributeConflictHandler>();
-
-		AttributeConflictHandler conflictHandler;
-
-		//             if (idMapping!=null) {
-		//                conflictHandler = new IDMappingAttributeConflictHandler(idMapping);
-		//                conflictHandlers.add(conflictHandler);
-		//             }
-
-		conflictHandler = new DefaultAttributeConflictHandler();
-		conflictHandlers.add(conflictHandler);
+		List<AttributeConflictHandler> conflictHandlers = MergeEngine.createConflictHandlers();
 
 		AttributeConflictManager conflictManager = new AttributeConflictManager(conflictCollector,conflictHandlers);
-		conflictManager.handleConflicts();
+		int nHandled;
+		if (conflictCollector.getConflictCount() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1)
+			nHandled = conflictManager.handleConflictsInParallel(ForkJoinPool.commonPool());
+		else
+			nHandled = conflictManager.handleConflicts();
 
-		int nAfter = conflictCollector.getMapToGOAttr().size();
+		int nAfter = conflictCollector.getConflictCount();
+		if (statistics != null)
+			statistics.stop(MergeStatistics.HANDLE_CONFLICTS, nHandled, 0);
+		if (metrics != null)
+			metrics.conflictsResolved(nHandled);
 
 		taskMonitor.setProgress(1.0d);
-		taskMonitor.setStatusMessage("Successfully handled " + (nBefore-nAfter) + " table column conflicts. "
+		taskMonitor.setStatusMessage("Successfully handled " + nHandled + " table column conflicts. "
 					      + nAfter+" conflicts remains.");
 	}
 }
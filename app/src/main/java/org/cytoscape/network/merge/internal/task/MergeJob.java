@@ -0,0 +1,240 @@
+package org.cytoscape.network.merge.internal.task;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.work.Task;
+import org.cytoscape.work.TaskIterator;
+import org.cytoscape.work.TaskMonitor;
+
+/**
+ * A merge run outside of a task manager, with the tasks it inserts after itself, whose
+ * phase and progress can be polled and which can be cancelled from any thread.
+ */
+public class MergeJob implements TaskMonitor {
+
+	public enum State {
+		QUEUED, RUNNING, DONE, FAILED, CANCELLED, SKIPPED;
+
+		@Override
+		public String toString() {
+			return name().toLowerCase();
+		}
+	}
+
+	private final String id;
+	private volatile NetworkMergeTask mergeTask;
+	private volatile Task currentTask;
+	private volatile State state;
+	private volatile boolean cancelled;
+	private volatile String phase;
+	private volatile double progress;
+	private volatile String message;
+	private volatile CyNetwork network;
+	private final long submitted;
+	private volatile long started;
+	private volatile long finished;
+
+	/**
+	 * 
+	 * @param id
+	 * @param mergeTask
+	 *            the merge to run, null if there is nothing to merge
+	 * @param message
+	 *            why there is nothing to merge
+	 */
+	public MergeJob(final String id, final NetworkMergeTask mergeTask, final String message) {
+		this.id = id;
+		this.mergeTask = mergeTask;
+		this.submitted = System.currentTimeMillis();
+		if (mergeTask == null) {
+			this.state = State.SKIPPED;
+			this.message = message;
+			this.finished = submitted;
+		} else {
+			this.state = State.QUEUED;
+		}
+	}
+
+	/**
+	 * Run the merge, then the tasks it inserted, in the calling thread.
+	 */
+	public void run() {
+		if (!start())
+			return;
+
+		final NetworkMergeTask mergeTask = this.mergeTask;
+		try {
+			final TaskIterator taskIterator = new TaskIterator(mergeTask);
+			while (taskIterator.hasNext() && !cancelled) {
+				currentTask = taskIterator.next();
+				currentTask.run(this);
+				if (currentTask == mergeTask)
+					network = mergeTask.getResults(CyNetwork.class);
+			}
+			if (cancelled)
+				discard(mergeTask);
+			finish(network == null ? State.CANCELLED : State.DONE);
+		} catch (Exception e) {
+			if (!cancelled)
+				message = e.getMessage() == null ? e.toString() : e.getMessage();
+			else
+				discard(mergeTask);
+			finish(cancelled ? State.CANCELLED : State.FAILED);
+		}
+	}
+
+	/*
+	 * A job cancelled while its view is created or its conflicts are handled leaves no
+	 * network either.
+	 */
+	private void discard(final NetworkMergeTask mergeTask) {
+		if (network != null)
+			mergeTask.discardNetwork();
+		network = null;
+	}
+
+	private synchronized boolean start() {
+		if (state != State.QUEUED)
+			return false;
+		started = System.currentTimeMillis();
+		state = State.RUNNING;
+		return true;
+	}
+
+	private void finish(final State state) {
+		// the merge task holds the merge data, keep the outcome only
+		mergeTask = null;
+		currentTask = null;
+		finished = System.currentTimeMillis();
+		this.state = state;
+	}
+
+	/**
+	 * Stop the job: a queued job will not start, a running merge is interrupted and the
+	 * partial merged network destroyed. A job cancelled after its merge, before it is
+	 * done, destroys its merged network too.
+	 */
+	public void cancel() {
+		synchronized (this) {
+			cancelled = true;
+			if (state == State.QUEUED) {
+				finish(State.CANCELLED);
+				return;
+			}
+		}
+
+		final NetworkMergeTask mergeTask = this.mergeTask;
+		if (mergeTask != null)
+			mergeTask.cancel();
+		final Task currentTask = this.currentTask;
+		if (currentTask != null && currentTask != mergeTask)
+			currentTask.cancel();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public boolean isFinished() {
+		return state != State.QUEUED && state != State.RUNNING;
+	}
+
+	/**
+	 * @return the last status message of the running task
+	 */
+	public String getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @return progress of the running task, from 0 to 1
+	 */
+	public double getProgress() {
+		return state == State.DONE ? 1.0 : progress;
+	}
+
+	/**
+	 * @return the error of a failed job, or the first error reported by the tasks
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the merged network, null until the merge is done
+	 */
+	public CyNetwork getNetwork() {
+		return network;
+	}
+
+	/**
+	 * @return milliseconds spent running, so far if running
+	 */
+	public long getTime() {
+		if (started == 0)
+			return 0;
+		return (finished == 0 ? System.currentTimeMillis() : finished) - started;
+	}
+
+	public long getSubmitted() {
+		return submitted;
+	}
+
+	@Override
+	public void setTitle(String title) {
+	}
+
+	@Override
+	public void setProgress(double progress) {
+		this.progress = progress;
+	}
+
+	@Override
+	public void setStatusMessage(String statusMessage) {
+		this.phase = statusMessage;
+	}
+
+	@Override
+	public void showMessage(Level level, String message) {
+		if (level == Level.ERROR && this.message == null)
+			this.message = message;
+	}
+
+	/**
+	 * @return the job as a JSON object
+	 */
+	public String toJson() {
+		final CyNetwork network = this.network;
+		StringBuilder str = new StringBuilder();
+		str.append("{\"id\":").append(ConflictReportCommandTask.quote(id))
+			.append(",\"status\":").append(ConflictReportCommandTask.quote(state.toString()))
+			.append(",\"phase\":").append(ConflictReportCommandTask.quote(phase))
+			.append(",\"progress\":").append(getProgress())
+			.append(",\"network\":").append(network == null ? "null" : network.getSUID());
+		if (network != null && state == State.DONE) {
+			str.append(",\"nodes\":").append(network.getNodeCount())
+				.append(",\"edges\":").append(network.getEdgeCount());
+		}
+		str.append(",\"time\":").append(getTime())
+			.append(",\"message\":").append(ConflictReportCommandTask.quote(message)).append("}");
+		return str.toString();
+	}
+
+	@Override
+	public String toString() {
+		final CyNetwork network = this.network;
+		StringBuilder str = new StringBuilder();
+		str.append(id).append("\t").append(state);
+		if (phase != null && !isFinished())
+			str.append("\t").append(phase).append(" (").append(Math.round(getProgress() * 100)).append("%)");
+		if (network != null)
+			str.append("\t").append(network.getSUID());
+		str.append("\t").append(getTime()).append(" ms");
+		if (message != null)
+			str.append("\t").append(message);
+		return str.toString();
+	}
+}
@@ -0,0 +1,93 @@
+package org.cytoscape.network.merge.internal.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.ObservableTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.json.JSONResult;
+
+/**
+ * Report, or cancel, the merges queued with 'network merge async=true'.
+ */
+public class MergeJobCommandTask extends AbstractTask implements ObservableTask {
+
+	@Tunable(
+				description = "Merge job id", context=Tunable.NOGUI_CONTEXT,
+				longDescription="The id returned by 'network merge async=true'. If not set, the status of all the known jobs is returned",
+				exampleStringValue = "1"
+		)
+	public String jobId;
+
+	private final MergeJobManager jobManager;
+	private final boolean cancelJob;
+	private final List<MergeJob> jobs = new ArrayList<MergeJob>();
+
+	/**
+	 * 
+	 * @param jobManager
+	 * @param cancelJob
+	 *            cancel the job instead of only reporting it
+	 */
+	public MergeJobCommandTask(final MergeJobManager jobManager, final boolean cancelJob) {
+		this.jobManager = jobManager;
+		this.cancelJob = cancelJob;
+	}
+
+	@Override
+	public void run(TaskMonitor taskMonitor) throws Exception {
+		if (jobId == null || jobId.trim().isEmpty()) {
+			if (cancelJob)
+				throw new IllegalArgumentException("A merge job id is required");
+			jobs.addAll(jobManager.getJobs());
+			return;
+		}
+
+		final MergeJob job = jobManager.getJob(jobId.trim());
+		if (job == null)
+			throw new IllegalArgumentException("Unknown merge job " + jobId);
+		if (cancelJob) {
+			job.cancel();
+			taskMonitor.setStatusMessage("Cancelled merge job " + job.getId());
+		}
+		jobs.add(job);
+	}
+
+	@Override
+	public List<Class<?>> getResultClasses() {
+		return Arrays.asList(String.class, JSONResult.class);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <R> R getResults(Class<? extends R> type) {
+		if (type.equals(String.class)) {
+			StringBuilder str = new StringBuilder();
+			for (MergeJob job: jobs) {
+				if (str.length() > 0)
+					str.append("\n");
+				str.append(job);
+			}
+			return (R) str.toString();
+		} else if (type.equals(JSONResult.class)) {
+			JSONResult res = () -> {
+				// a single job when asked for one
+				if (jobId != null && !jobId.trim().isEmpty() && jobs.size() == 1)
+					return jobs.get(0).toJson();
+
+				StringBuilder str = new StringBuilder("{\"jobs\":[");
+				for (int i = 0; i < jobs.size(); i++) {
+					if (i > 0)
+						str.append(",");
+					str.append(jobs.get(i).toJson());
+				}
+				return str.append("]}").toString();
+			};
+			return (R) res;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,24 @@
+package org.cytoscape.network.merge.internal.task;
+
+import org.cytoscape.work.TaskFactory;
+import org.cytoscape.work.TaskIterator;
+
+public class MergeJobCommandTaskFactory implements TaskFactory {
+
+	private final MergeJobManager jobManager;
+	private final boolean cancelJob;
+
+	public MergeJobCommandTaskFactory(MergeJobManager jobManager, boolean cancelJob) {
+		this.jobManager = jobManager;
+		this.cancelJob = cancelJob;
+	}
+
+	public boolean isReady() {
+		return true;
+	}
+
+	@Override
+	public TaskIterator createTaskIterator() {
+		return new TaskIterator(new MergeJobCommandTask(jobManager, cancelJob));
+	}
+}
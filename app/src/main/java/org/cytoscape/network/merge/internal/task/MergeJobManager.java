@@ -0,0 +1,98 @@
+package org.cytoscape.network.merge.internal.task;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the merges submitted asynchronously, a few at a time, and keeps them for polling
+ * until they are finished and older than the latest MAX_FINISHED_JOBS finished ones.
+ */
+public class MergeJobManager {
+
+	private static final int MAX_FINISHED_JOBS = 100;
+
+	private final ExecutorService executor;
+	private final AtomicLong nextId = new AtomicLong(1);
+	private final Map<String, MergeJob> jobs = new LinkedHashMap<String, MergeJob>();
+
+	/**
+	 * 
+	 * @param nThreads
+	 *            maximum number of merges running at the same time
+	 */
+	public MergeJobManager(final int nThreads) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(Math.max(1, nThreads), r -> {
+			final Thread thread = new Thread(r, "network-merge-job-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queue a merge.
+	 * 
+	 * @return the job, identified by a new id
+	 */
+	public MergeJob submit(final NetworkMergeTask mergeTask) {
+		if (mergeTask == null)
+			throw new java.lang.NullPointerException();
+
+		final MergeJob job = new MergeJob(String.valueOf(nextId.getAndIncrement()), mergeTask, null);
+		synchronized (jobs) {
+			jobs.put(job.getId(), job);
+			removeFinishedJobs();
+		}
+		executor.execute(job::run);
+		return job;
+	}
+
+	/**
+	 * @return the job, or null if it is unknown or has been forgotten
+	 */
+	public MergeJob getJob(final String id) {
+		synchronized (jobs) {
+			return jobs.get(id);
+		}
+	}
+
+	/**
+	 * @return the jobs, in the order they were submitted
+	 */
+	public List<MergeJob> getJobs() {
+		synchronized (jobs) {
+			return new ArrayList<MergeJob>(jobs.values());
+		}
+	}
+
+	/**
+	 * Cancel all the jobs and stop the threads.
+	 */
+	public void dispose() {
+		for (MergeJob job: getJobs())
+			job.cancel();
+		executor.shutdownNow();
+	}
+
+	private void removeFinishedJobs() {
+		int nFinished = 0;
+		for (MergeJob job: jobs.values()) {
+			if (job.isFinished())
+				nFinished++;
+		}
+		final Iterator<MergeJob> it = jobs.values().iterator();
+		while (nFinished > MAX_FINISHED_JOBS && it.hasNext()) {
+			if (it.next().isFinished()) {
+				it.remove();
+				nFinished--;
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.cytoscape.network.merge.internal.task;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.network.merge.internal.MergeStatistics;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs after other tasks of a merge to end the phase they started, or to log the
+ * statistics of the whole merge once its last task is done.
+ */
+class MergeStatisticsTask extends AbstractTask {
+	private static final Logger logger = LoggerFactory.getLogger(MergeStatisticsTask.class);
+
+	private final MergeStatistics statistics;
+	private final String phase;
+	private final long count;
+	private final String networkName;
+
+	/**
+	 * Task ending a phase.
+	 */
+	MergeStatisticsTask(final MergeStatistics statistics, final String phase, final long count) {
+		this.statistics = statistics;
+		this.phase = phase;
+		this.count = count;
+		this.networkName = null;
+	}
+
+	/**
+	 * Task logging the statistics of the merge of a network.
+	 */
+	MergeStatisticsTask(final MergeStatistics statistics, final String networkName) {
+		this.statistics = statistics;
+		this.phase = null;
+		this.count = 0;
+		this.networkName = networkName;
+	}
+
+	@Override
+	public void run(TaskMonitor taskMonitor) {
+		if (phase != null)
+			statistics.stop(phase, count, 0);
+		else
+			logger.info("Merged network \"{}\": {}", networkName, statistics);
+	}
+}
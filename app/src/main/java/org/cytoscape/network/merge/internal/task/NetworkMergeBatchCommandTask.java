@@ -0,0 +1,229 @@
+package org.cytoscape.network.merge.internal.task;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cytoscape.network.merge.internal.MergeMetrics;
+import org.cytoscape.network.merge.internal.model.MatchingKeyIndex;
+import org.cytoscape.network.merge.internal.util.JsonReader;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.ObservableTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.json.JSONResult;
+import org.cytoscape.work.util.ListSingleSelection;
+
+/**
+ * Run the merge jobs of a JSON manifest, each job taking the parameters of the
+ * 'network merge' command. The jobs are prepared in turn, then merged concurrently
+ * on a bounded pool, reading the node matching keys of their source networks once.
+ * The jobs create their merged networks in new collections: the parameters adding them
+ * to the collection of their sources are not accepted.
+ */
+public class NetworkMergeBatchCommandTask extends AbstractTask implements ObservableTask {
+
+	// concurrent jobs would add subnetworks, nodes and columns to the same root network
+	private static final List<String> SHARED_ROOT_PARAMETERS = Arrays.asList("virtualColumns", "reuseRootElements");
+
+	@Tunable(
+				description = "Merge manifest", context=Tunable.NOGUI_CONTEXT,
+				longDescription="A JSON array of merge jobs, or an object with a 'jobs' array and optional 'defaults' applied to every job. A job is an object with an optional 'id' and the parameters of the 'network merge' command, except virtualColumns and reuseRootElements. The source networks must exist before the batch starts",
+				exampleStringValue = "{\"defaults\":{\"nodeKeys\":\"name, name\"},\"jobs\":[{\"id\":\"ab\",\"sources\":\"a, b\"},{\"id\":\"ac\",\"sources\":\"a, c\",\"operation\":\"intersection\"}]}"
+		)
+	public String manifest;
+
+	@Tunable(
+				description = "Merge manifest file", context=Tunable.NOGUI_CONTEXT,
+				longDescription="A file holding the JSON manifest, used if manifest is not set",
+				exampleStringValue = "/tmp/merges.json"
+		)
+	public File manifestFile;
+
+	@Tunable(
+				description = "Number of concurrent jobs", context=Tunable.NOGUI_CONTEXT,
+				longDescription="Maximum number of merge jobs running at the same time. 0 uses all the available processors",
+				exampleStringValue = "4"
+		)
+	public int threads = 0;
+
+	private final CyServiceRegistrar registrar;
+	private final MergeMetrics metrics;
+	private final List<MergeJob> jobs = new CopyOnWriteArrayList<MergeJob>();
+	private final List<Future<?>> futures = new CopyOnWriteArrayList<Future<?>>();
+	private int indexedColumns;
+
+	public NetworkMergeBatchCommandTask(final CyServiceRegistrar registrar, final MergeMetrics metrics) {
+		this.registrar = registrar;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void run(final TaskMonitor taskMonitor) throws Exception {
+		taskMonitor.setTitle("Merging Networks in Batch");
+
+		final String text;
+		if (manifest != null && manifest.trim().length() > 0)
+			text = manifest;
+		else if (manifestFile != null)
+			text = new String(Files.readAllBytes(manifestFile.toPath()), StandardCharsets.UTF_8);
+		else
+			throw new IllegalArgumentException("A merge manifest is required");
+
+		// Prepare the jobs in turn: resolving networks and naming them is not thread safe
+		taskMonitor.setStatusMessage("Preparing merge jobs...");
+		final MatchingKeyIndex keyIndex = new MatchingKeyIndex();
+		final List<MergeJob> ready = new ArrayList<MergeJob>();
+		final Object document = JsonReader.read(text);
+		Map<?,?> defaults = Collections.emptyMap();
+		final List<?> entries;
+		if (document instanceof List) {
+			entries = (List<?>) document;
+		} else if (document instanceof Map && ((Map<?,?>) document).get("jobs") instanceof List) {
+			entries = (List<?>) ((Map<?,?>) document).get("jobs");
+			if (((Map<?,?>) document).get("defaults") instanceof Map)
+				defaults = (Map<?,?>) ((Map<?,?>) document).get("defaults");
+		} else {
+			throw new IllegalArgumentException("The manifest must be an array of jobs or an object with a 'jobs' array");
+		}
+
+		for (int i = 0; i < entries.size(); i++) {
+			if (!(entries.get(i) instanceof Map))
+				throw new IllegalArgumentException("Job " + i + " of the manifest is not an object");
+			final Map<?,?> entry = (Map<?,?>) entries.get(i);
+			final String id = entry.get("id") == null ? String.valueOf(i) : entry.get("id").toString();
+			final NetworkMergeCommandTask command = new NetworkMergeCommandTask(registrar, null, metrics);
+			setParameters(command, defaults, id);
+			setParameters(command, entry, id);
+			final NetworkMergeTask mergeTask = command.createMergeTask();
+			if (mergeTask != null)
+				mergeTask.setMatchingKeyIndex(keyIndex);
+
+			final MergeJob job = new MergeJob(id, mergeTask, "Less than two source networks found");
+			jobs.add(job);
+			if (!job.isFinished())
+				ready.add(job);
+		}
+
+		// Merge them concurrently
+		final int nThreads = Math.max(1, Math.min(ready.size(),
+				threads > 0 ? threads : Runtime.getRuntime().availableProcessors()));
+		final ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		try {
+			for (MergeJob job: ready)
+				futures.add(executor.submit(job::run));
+			if (cancelled)
+				cancelJobs();
+
+			int done = 0;
+			for (Future<?> future: futures) {
+				try {
+					future.get();
+				} catch (CancellationException e) {
+					// the batch was cancelled
+				}
+				done++;
+				taskMonitor.setProgress((double) done / futures.size());
+				taskMonitor.setStatusMessage("Finished " + done + " of " + futures.size() + " merge jobs");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		indexedColumns = keyIndex.size();
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+		cancelJobs();
+	}
+
+	private void cancelJobs() {
+		for (Future<?> future: futures)
+			future.cancel(false);
+		for (MergeJob job: jobs)
+			job.cancel();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void setParameters(final NetworkMergeCommandTask command, final Map<?,?> parameters, final String jobId) {
+		for (Map.Entry<?,?> parameter: parameters.entrySet()) {
+			final String name = parameter.getKey().toString();
+			if (name.equals("id"))
+				continue;
+
+			final Field field;
+			try {
+				field = NetworkMergeCommandTask.class.getField(name);
+			} catch (NoSuchFieldException e) {
+				throw new IllegalArgumentException("Unknown parameter '" + name + "' in merge job " + jobId);
+			}
+			if (field.getAnnotation(Tunable.class) == null)
+				throw new IllegalArgumentException("Unknown parameter '" + name + "' in merge job " + jobId);
+			if (SHARED_ROOT_PARAMETERS.contains(name))
+				throw new IllegalArgumentException("Parameter '" + name + "' in merge job " + jobId
+						+ " is not supported in a batch, whose jobs run concurrently");
+
+			final Object value = parameter.getValue();
+			final Class<?> type = field.getType();
+			try {
+				if (type == String.class)
+					field.set(command, value == null ? null : value.toString());
+				else if (type == boolean.class)
+					field.setBoolean(command, Boolean.parseBoolean(String.valueOf(value)));
+				else if (type == int.class)
+					field.setInt(command, value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(String.valueOf(value)));
+				else if (type == File.class)
+					field.set(command, value == null ? null : new File(value.toString()));
+				else if (type == ListSingleSelection.class)
+					((ListSingleSelection<String>) field.get(command)).setSelectedValue(String.valueOf(value));
+				else
+					throw new IllegalArgumentException("Unsupported parameter '" + name + "' in merge job " + jobId);
+			} catch (IllegalAccessException | NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid value of '" + name + "' in merge job " + jobId + ": " + value);
+			}
+		}
+	}
+
+	@Override
+	public List<Class<?>> getResultClasses() {
+		return Arrays.asList(String.class, JSONResult.class);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <R> R getResults(Class<? extends R> type) {
+		if (type.equals(String.class)) {
+			StringBuilder str = new StringBuilder();
+			str.append(jobs.size()).append(" merge jobs");
+			for (MergeJob job: jobs)
+				str.append("\n").append(job);
+			return (R) str.toString();
+		} else if (type.equals(JSONResult.class)) {
+			JSONResult res = () -> {
+				StringBuilder str = new StringBuilder();
+				str.append("{\"indexedColumns\":").append(indexedColumns).append(",\"jobs\":[");
+				for (int i = 0; i < jobs.size(); i++) {
+					if (i > 0)
+						str.append(",");
+					str.append(jobs.get(i).toJson());
+				}
+				return str.append("]}").toString();
+			};
+			return (R) res;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,26 @@
+package org.cytoscape.network.merge.internal.task;
+
+import org.cytoscape.network.merge.internal.MergeMetrics;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.work.TaskFactory;
+import org.cytoscape.work.TaskIterator;
+
+public class NetworkMergeBatchCommandTaskFactory implements TaskFactory {
+
+	final CyServiceRegistrar registrar;
+	final MergeMetrics metrics;
+
+	public NetworkMergeBatchCommandTaskFactory(CyServiceRegistrar reg, MergeMetrics metrics) {
+		registrar = reg;
+		this.metrics = metrics;
+	}
+
+	public boolean isReady() {
+		return true;
+	}
+
+	@Override
+	public TaskIterator createTaskIterator() {
+		return new TaskIterator(new NetworkMergeBatchCommandTask(registrar, metrics));
+	}
+}
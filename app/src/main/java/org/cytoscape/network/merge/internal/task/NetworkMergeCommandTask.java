@@ -1,23 +1,25 @@
 package org.cytoscape.network.merge.internal.task;
 
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
-import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNetworkManager;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
+import org.cytoscape.network.merge.internal.MergeMetrics;
 import org.cytoscape.network.merge.internal.NetworkMerge;
 import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
 import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollector;
-import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollectorImpl;
+import org.cytoscape.network.merge.internal.conflict.ColumnarAttributeConflictCollector;
 import org.cytoscape.network.merge.internal.model.AttributeMapping;
 import org.cytoscape.network.merge.internal.model.AttributeMappingImpl;
 import org.cytoscape.network.merge.internal.model.ColumnMergeRecord;
@@ -26,9 +28,6 @@ import org.cytoscape.network.merge.internal.model.MatchingAttributeImpl;
 import org.cytoscape.network.merge.internal.util.ParseUtils;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.session.CyNetworkNaming;
-import org.cytoscape.task.create.CreateNetworkViewTaskFactory;
-import org.cytoscape.view.model.CyNetworkViewManager;
-import org.cytoscape.view.vizmap.VisualMappingManager;
 import org.cytoscape.work.AbstractTask;
 import org.cytoscape.work.ContainsTunables;
 import org.cytoscape.work.FinishStatus;
@@ -119,27 +118,128 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
 		)
 	public boolean inNetworkMerge = true;
 
+	@Tunable(
+				description = "Resolve conflicts inline", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If true, conflicting column values are resolved as soon as they are detected, instead of being collected and handled after the merge",
+				exampleStringValue = "false"
+		)
+	public boolean inlineConflicts = false;
+
+	@Tunable(
+				description = "Conflict report file", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If set, every conflicting column value is written to this gzipped, tab-separated file, and the conflicts are resolved while merging. Use the 'network merge report' command to query it",
+				exampleStringValue = "/tmp/conflicts.tsv.gz",
+				params = "input=false"
+		)
+	public File conflictReport;
+
+	@Tunable(
+				description = "Merge mapped columns only", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If true, only the columns named in nodeMergeMap, edgeMergeMap and networkMergeMap, plus the node matching columns and the edge interaction, are created and merged. Otherwise all the columns of the source networks are merged",
+				exampleStringValue = "false"
+		)
+	public boolean mappedColumnsOnly = false;
+
+	@Tunable(
+				description = "Skip empty columns", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If true, node and edge columns are only created if at least one merged node or edge has a value in them. Sparse columns are reported",
+				exampleStringValue = "false"
+		)
+	public boolean pruneEmptyColumns = false;
+
+	@Tunable(
+				description = "Use virtual columns", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If true and all the source networks belong to the same collection, the merged network is created in that collection, and node and edge columns whose values come from a single node or edge of one source network are added as immutable virtual columns of that network instead of being copied. The merged network then depends on its source networks: destroying one of them invalidates these columns. Their join keys are held by columns named __merge_source_<network SUID>, added to the local tables of the merged network",
+				exampleStringValue = "false"
+		)
+	public boolean virtualColumns = false;
+
+	@Tunable(
+				description = "Reuse nodes and edges", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If true and all the source networks belong to the same collection, the merged network is created in that collection, and the nodes and edges that are the same in all their source networks are added to it instead of being copied. Only their local columns are merged, their shared columns are left as they are",
+				exampleStringValue = "false"
+		)
+	public boolean reuseRootElements = false;
+
+	@Tunable(
+				description = "Number of threads", context=Tunable.NOGUI_CONTEXT,
+				longDescription="Number of threads computing the merged values of the nodes and edges, which are then written to the merged network by a single thread. With more than one thread, the source tables are copied first, as with snapshotSources. 0 uses all the available processors",
+				exampleStringValue = "1"
+		)
+	public int threads = 1;
+
+	@Tunable(
+				description = "Copy the source tables first", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If true, the matching and merged columns of the source networks are copied before merging, and the merge reads them from this copy only, so that it is not affected by changes made to the networks meanwhile",
+				exampleStringValue = "false"
+		)
+	public boolean snapshotSources = false;
+
+	@Tunable(
+				description = "Run in the background", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If true, the merge is queued and the command returns its job id at once. Use 'network merge status' to poll its phase and progress, and 'network merge cancel' to stop it",
+				exampleStringValue = "false"
+		)
+	public boolean async = false;
+
+	@Tunable(
+				description = "Only estimate the merge", context=Tunable.NOGUI_CONTEXT,
+				longDescription="If true, no network is created: the nodes and edges are only matched, and the command returns the number of nodes and edges of the merged network for each operation, the number of conflicting values by column and the projected heap footprint of the merge. A dry run is never run in the background",
+				exampleStringValue = "false"
+		)
+	public boolean dryRun = false;
+
 	//--------------------------------------------------------------------------------------
 	private CyServiceRegistrar registrar;
 
 	private boolean verbose = false;
 
 	// List<CyNetwork> networkList;
-	NetworkMergeTask nmTask;
+	volatile NetworkMergeTask nmTask;
+	private final MergeJobManager jobManager;
+	private final MergeMetrics metrics;
+	private MergeJob job;
 
 	public NetworkMergeCommandTask(CyServiceRegistrar reg) {
+		this(reg, null, null);
+	}
+
+	public NetworkMergeCommandTask(CyServiceRegistrar reg, MergeJobManager jobManager, MergeMetrics metrics) {
 		registrar = reg;
+		this.jobManager = jobManager;
+		this.metrics = metrics;
 		operation.setSelectedValue("union");
 	}
 
 	@Override
 	public void run(TaskMonitor taskMonitor) throws Exception {
+		NetworkMergeTask nmTask = createMergeTask();
+		if (nmTask == null)
+			return;
+
+		if (async && !dryRun) {
+			if (jobManager == null)
+				throw new IllegalStateException("Background merges are not available");
+			job = jobManager.submit(nmTask);
+			taskMonitor.setStatusMessage("Queued merge job " + job.getId());
+			return;
+		}
+
+		this.nmTask = nmTask;
+		if (cancelled)
+			nmTask.cancel();
+		TaskManager<?,?> tm = registrar.getService(SynchronousTaskManager.class);
+		tm.execute(new TaskIterator(nmTask));
+	}
+
+	/**
+	 * Resolve the source networks and build the merge task from the parameters.
+	 *
+	 * @return the merge task, or null if there are less than two source networks
+	 */
+	NetworkMergeTask createMergeTask() {
 		CyNetworkNaming cyNetworkNaming = registrar.getService(CyNetworkNaming.class);
-		CyNetworkFactory cyNetworkFactory = registrar.getService(CyNetworkFactory.class);
-		CreateNetworkViewTaskFactory netViewCreator = registrar.getService(CreateNetworkViewTaskFactory.class);
 		CyNetworkManager cnm = registrar.getService(CyNetworkManager.class);
-		CyNetworkViewManager nvm = registrar.getService(CyNetworkViewManager.class);
-		VisualMappingManager vmm = registrar.getService(VisualMappingManager.class);
 
 		if (verbose) System.err.println("A: build network list ---------------- " );
 
@@ -158,11 +258,11 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
 		{
 			if (verbose)
 				System.err.println("networkList.size() < 2" );
-			return;
+			return null;
 		}
 
 		MatchingAttribute matchingAttribute = 	buildMatchingAttribute(networkList);
-		AttributeMapping nodeAttributeMapping = buildNodeAttributeMapping(networkList, nodeMergeMap);
+		AttributeMapping nodeAttributeMapping = buildNodeAttributeMapping(networkList, nodeMergeMap, matchingAttribute);
 		AttributeMapping edgeAttributeMapping = buildEdgeAttributeMapping(networkList, edgeMergeMap);
 		AttributeMapping networkAttributeMapping = buildNetworkAttributeMapping(networkList, networkMergeMap);
 
@@ -179,14 +279,22 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
 
 
 		boolean useDiference = op == Operation.DIFFERENCE; //TODO getDifference1Btn().isSelected();
-		final AttributeConflictCollector conflictCollector = new AttributeConflictCollectorImpl();
+		final AttributeConflictCollector conflictCollector = new ColumnarAttributeConflictCollector();
 
-		nmTask = new NetworkMergeTask(registrar, netName,
+		final NetworkMergeTask nmTask = new NetworkMergeTask(registrar, netName,
 				matchingAttribute,	nodeAttributeMapping, edgeAttributeMapping, networkAttributeMapping,
 				networkList, op, useDiference, conflictCollector, inNetworkMerge, nodesOnly);
-
-		TaskManager<?,?> tm = registrar.getService(SynchronousTaskManager.class);
-		tm.execute(new TaskIterator(nmTask));
+		nmTask.setInlineConflictHandling(inlineConflicts);
+		nmTask.setConflictReportFile(conflictReport);
+		nmTask.setPruneEmptyColumns(pruneEmptyColumns);
+		nmTask.setVirtualColumns(virtualColumns);
+		nmTask.setReuseRootElements(reuseRootElements);
+		nmTask.setSnapshotSources(snapshotSources);
+		nmTask.setParallelism(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+		nmTask.setDryRun(dryRun);
+		nmTask.setMetrics(metrics);
+
+		return nmTask;
 	}
 
 	//---------------------------------------------------------------------
@@ -257,13 +365,12 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
 		for (String src : sourceList)
 		{
 			CyNetwork sessionNet = find(sessionNets, src);
-			String netName = getNetworkName(sessionNet);
 			if (sessionNet != null)
 			{
 				networkList.add(sessionNet);
-				if (verbose)  System.out.println(netName + "<-" + sessionNet.getSUID());
+				if (verbose)  System.out.println(getNetworkName(sessionNet) + "<-" + sessionNet.getSUID());
 			}
-			else if (verbose) System.out.println("net not found: " + netName);
+			else if (verbose) System.out.println("net not found: " + src);
 		}
 		if (verbose) System.out.println(networkList + " size: " + networkList.size());
 		return networkList;
@@ -298,12 +405,19 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
 		return mapping;
 	}
 
-	private AttributeMapping buildNodeAttributeMapping(List<CyNetwork> networkList, String mergeString) {
+	private AttributeMapping buildNodeAttributeMapping(List<CyNetwork> networkList, String mergeString,
+			MatchingAttribute matchingAttribute) {
 		AttributeMapping nodeAttributeMapping = new AttributeMappingImpl();
 		for (CyNetwork net : networkList)
 		{
 			CyTable nodeTable = net.getDefaultNodeTable();
-			nodeAttributeMapping.addNetwork(net, nodeTable);
+			if (mappedColumnsOnly) {
+				// only the matching column, the merge map adds the others
+				CyColumn key = matchingAttribute.getAttributeForMatching(net);
+				Set<String> keys = key == null ? Collections.<String>emptySet() : Collections.singleton(key.getName());
+				nodeAttributeMapping.addNetwork(net, nodeTable, keys);
+			} else
+				nodeAttributeMapping.addNetwork(net, nodeTable);
 		}
 
 		return buildAttributeMapping(nodeAttributeMapping, networkList, mergeString);
@@ -315,7 +429,10 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
 		for (CyNetwork net : networkList)
 		{
 			CyTable netTable = net.getDefaultNetworkTable();
-			networkAttributeMapping.addNetwork(net, netTable);
+			if (mappedColumnsOnly)
+				networkAttributeMapping.addNetwork(net, netTable, Collections.<String>emptySet());
+			else
+				networkAttributeMapping.addNetwork(net, netTable);
 		}
 
 		return buildAttributeMapping(networkAttributeMapping, networkList, mergeString);
@@ -327,7 +444,10 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
 		for (CyNetwork net : networkList)
 		{
 			CyTable edgeTable = net.getDefaultEdgeTable();
-			edgeAttributeMapping.addNetwork(net, edgeTable);
+			if (mappedColumnsOnly)
+				edgeAttributeMapping.addNetwork(net, edgeTable, Collections.singleton(CyEdge.INTERACTION));
+			else
+				edgeAttributeMapping.addNetwork(net, edgeTable);
 		}
 
 		return buildAttributeMapping(edgeAttributeMapping, networkList, mergeString);
@@ -409,6 +529,17 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
 
 	@Override
 	public <R> R getResults(Class<? extends R> type) {
+		if (job != null) {
+			if (type.equals(String.class)) {
+				return (R)("Merge job " + job.getId() + " queued");
+			} else if (type.equals(JSONResult.class)) {
+				JSONResult res = () -> job.toJson();
+				return (R)res;
+			}
+			return null;
+		}
+		if (nmTask == null)
+			return null;
 		if (type.equals(String.class)) {
       return (R)nmTask.getResults(String.class);
     } else if (type.equals(JSONResult.class)) {
@@ -419,7 +550,13 @@ public class NetworkMergeCommandTask extends AbstractTask implements ObservableT
     return null;
   }
 
+	@Override
 	public void cancel() {
+		super.cancel();
+		// a queued job is cancelled with 'network merge cancel'
+		final NetworkMergeTask nmTask = this.nmTask;
+		if (nmTask != null)
+			nmTask.cancel();
 	}
 
 
@@ -1,5 +1,6 @@
 package org.cytoscape.network.merge.internal.task;
 
+import org.cytoscape.network.merge.internal.MergeMetrics;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.work.TaskFactory;
 import org.cytoscape.work.TaskIterator;
@@ -7,9 +8,13 @@ import org.cytoscape.work.TaskIterator;
 public class NetworkMergeCommandTaskFactory implements TaskFactory {
 
 	final CyServiceRegistrar registrar;
+	final MergeJobManager jobManager;
+	final MergeMetrics metrics;
 
-	public NetworkMergeCommandTaskFactory(CyServiceRegistrar reg) {  
+	public NetworkMergeCommandTaskFactory(CyServiceRegistrar reg, MergeJobManager jobManager, MergeMetrics metrics) {
 		registrar = reg;
+		this.jobManager = jobManager;
+		this.metrics = metrics;
 	}
 
 	public boolean isReady() {
@@ -18,6 +23,6 @@ public class NetworkMergeCommandTaskFactory implements TaskFactory {
 
 	@Override
 	public TaskIterator createTaskIterator() {
-		return new TaskIterator(new NetworkMergeCommandTask(registrar));		//, application, merge
+		return new TaskIterator(new NetworkMergeCommandTask(registrar, jobManager, metrics));		//, application, merge
 	}
 }
@@ -0,0 +1,445 @@
+package org.cytoscape.network.merge.internal.task;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkFactory;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.network.merge.internal.MergeEngine;
+import org.cytoscape.network.merge.internal.MergeEstimate;
+import org.cytoscape.network.merge.internal.MergeMetrics;
+import org.cytoscape.network.merge.internal.MergeRequest;
+import org.cytoscape.network.merge.internal.MergeResult;
+import org.cytoscape.network.merge.internal.MergeStatistics;
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollector;
+import org.cytoscape.network.merge.internal.model.AttributeMapping;
+import org.cytoscape.network.merge.internal.model.MatchingAttribute;
+import org.cytoscape.network.merge.internal.model.MatchingKeyIndex;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.task.create.CreateNetworkViewTaskFactory;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.view.presentation.annotations.Annotation;
+import org.cytoscape.view.presentation.annotations.AnnotationManager;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.ObservableTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.json.JSONResult;
+
+
+public class NetworkMergeTask extends AbstractTask implements ObservableTask {
+	private final MergeRequest request;
+	private final AttributeConflictCollector conflictCollector;
+
+
+	final private CreateNetworkViewTaskFactory netViewCreator;
+	final private CyServiceRegistrar serviceRegistrar;
+
+	private final CyNetworkFactory cnf;
+	private final CyNetworkManager networkManager;
+	private final CyNetworkViewManager viewManager;
+	private final AnnotationManager annotationManager;
+	private final String networkName;
+	private CyNetwork newNetwork;
+	private boolean dryRun;
+	private MergeEstimate estimate;
+	private MergeStatistics statistics;
+	private MergeMetrics metrics;
+
+	private volatile MergeEngine mergeEngine;
+
+	/**
+	 * Constructor.<br>
+	 *
+	 */
+	public NetworkMergeTask( final CyServiceRegistrar serviceRegistrar,
+			final String networkName, final MatchingAttribute matchingAttribute,
+			final AttributeMapping nodeAttributeMapping, final AttributeMapping edgeAttributeMapping,
+			final AttributeMapping networkAttributeMapping,
+			final List<CyNetwork> selectedNetworkList, final Operation operation,
+			final boolean subtractOnlyUnconnectedNodes, final AttributeConflictCollector conflictCollector,
+			final boolean inNetworkMerge, final boolean nodesOnly) {
+		this.serviceRegistrar = serviceRegistrar;
+		this.conflictCollector = conflictCollector;
+		this.networkName = networkName;
+		this.request = new MergeRequest(selectedNetworkList, operation, matchingAttribute,
+				nodeAttributeMapping, edgeAttributeMapping, networkAttributeMapping, conflictCollector);
+		request.setSubtractOnlyUnconnectedNodes(subtractOnlyUnconnectedNodes);
+		request.setWithinNetworkMerge(inNetworkMerge);
+		request.setNodesOnly(nodesOnly);
+
+		this.cnf = serviceRegistrar.getService(CyNetworkFactory.class);
+		this.networkManager = serviceRegistrar.getService(CyNetworkManager.class);
+		this.netViewCreator = serviceRegistrar.getService(CreateNetworkViewTaskFactory.class);
+		this.viewManager = serviceRegistrar.getService(CyNetworkViewManager.class);
+		this.annotationManager = serviceRegistrar.getService(AnnotationManager.class);
+	}
+
+	/**
+	 * Resolve attribute conflicts while merging instead of collecting them
+	 * and handling them in a separate task afterwards.
+	 */
+	public void setInlineConflictHandling(boolean inlineConflictHandling) {
+		request.setInlineConflictHandling(inlineConflictHandling);
+	}
+
+	/**
+	 * Write every attribute conflict to a gzipped report file while merging.
+	 */
+	public void setConflictReportFile(File conflictReportFile) {
+		request.setConflictReportFile(conflictReportFile);
+	}
+
+	/**
+	 * Do not create node and edge columns that would have no value in the merged network.
+	 */
+	public void setPruneEmptyColumns(boolean pruneEmptyColumns) {
+		request.setPruneEmptyColumns(pruneEmptyColumns);
+	}
+
+	/**
+	 * If all the source networks belong to the same root network, create the merged network
+	 * in that root and expose the node and edge columns coming from a single source entity
+	 * as virtual columns instead of copying their values. The merged network then depends
+	 * on its sources.
+	 */
+	public void setVirtualColumns(boolean virtualColumns) {
+		request.setVirtualColumns(virtualColumns);
+	}
+
+	/**
+	 * If all the source networks belong to the same root network, create the merged network
+	 * in that root and add to it the nodes and edges that are the same in all their
+	 * networks, rather than copies of them.
+	 */
+	public void setReuseRootElements(boolean reuseRootElements) {
+		request.setReuseRootElements(reuseRootElements);
+	}
+
+	/**
+	 * Number of threads computing the merged node and edge values, 1 by default. With
+	 * more than one thread, the source tables are copied first.
+	 */
+	public void setParallelism(int parallelism) {
+		request.setParallelism(parallelism);
+	}
+
+	/**
+	 * Copy the matching and mapped columns of the source networks before merging, and
+	 * read them from that copy during the whole merge.
+	 */
+	public void setSnapshotSources(boolean snapshotSources) {
+		request.setSnapshotSources(snapshotSources);
+	}
+
+	/**
+	 * Read the node matching keys from this index, shared with other merges of the same networks.
+	 */
+	public void setMatchingKeyIndex(MatchingKeyIndex matchingKeyIndex) {
+		request.setMatchingKeyIndex(matchingKeyIndex);
+	}
+
+	/**
+	 * Only match the nodes and edges and estimate the merge, without creating any network.
+	 */
+	public void setDryRun(boolean dryRun) {
+		this.dryRun = dryRun;
+	}
+
+	/**
+	 * Count this merge in these metrics.
+	 */
+	public void setMetrics(MergeMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void cancel() {
+		cancelled = true;
+		final MergeEngine mergeEngine = this.mergeEngine;
+		if(mergeEngine != null)
+			mergeEngine.interrupt();
+	}
+
+	@Override
+	public void run(TaskMonitor taskMonitor) throws Exception {
+
+		taskMonitor.setProgress(0.0d);
+		if (dryRun) {
+			taskMonitor.setTitle("Estimating Network Merge");
+			mergeEngine = new MergeEngine(taskMonitor);
+			if (cancelled)
+				mergeEngine.interrupt();
+			final MergeEstimate estimate = mergeEngine.estimate(request);
+			mergeEngine = null;
+			if (!estimate.isInterrupted()) {
+				this.estimate = estimate;
+				taskMonitor.setStatusMessage(estimate.getNodeCount(request.getOperation()) + " nodes and "
+						+ estimate.getEdgeCount(request.getOperation()) + " edges would be merged.");
+			}
+			return;
+		}
+
+		if (metrics != null)
+			metrics.mergeStarted();
+		try {
+			merge(taskMonitor);
+		} catch (Throwable t) {
+			if (metrics != null)
+				metrics.mergeFailed();
+			throw t;
+		}
+	}
+
+	private void merge(TaskMonitor taskMonitor) throws Exception {
+		final long startTime = System.currentTimeMillis();
+		taskMonitor.setTitle("Merging Networks");
+
+		Map<CyNetworkView, List<Annotation>> annotationMap = getAnnotations(request.getSourceNetworks());
+
+		// Create new network (merged network)
+		taskMonitor.setStatusMessage("Creating new merged network...");
+		final boolean inSharedRoot = request.isVirtualColumns() || request.isReuseRootElements();
+		final CyRootNetwork sharedRoot = inSharedRoot ? MergeEngine.getSharedRoot(request.getSourceNetworks()) : null;
+		if (sharedRoot != null) {
+			newNetwork = sharedRoot.addSubNetwork();
+		} else {
+			if (inSharedRoot)
+				taskMonitor.showMessage(TaskMonitor.Level.INFO,
+						"The networks do not belong to the same collection, all the nodes, edges and columns are copied.");
+			newNetwork = cnf.createNetwork();
+		}
+		newNetwork.getRow(newNetwork).set(CyNetwork.NAME, networkName);
+
+		// Register merged network
+		networkManager.addNetwork(newNetwork);
+
+		// Merge everything
+		taskMonitor.setStatusMessage("Merging networks...");
+		mergeEngine = new MergeEngine(taskMonitor);
+		if (cancelled)
+			mergeEngine.interrupt();
+		final MergeResult result;
+		try {
+			result = mergeEngine.merge(newNetwork, request);
+		} catch (Exception e) {
+			if (!cancelled)
+				throw e;
+			discard(taskMonitor);
+			return;
+		}
+		statistics = result.getStatistics();
+		if (result.getCopiedCells() > 0)
+			taskMonitor.showMessage(TaskMonitor.Level.INFO, "Copied " + result.getCopiedCells() + " table cells");
+		if (result.getReportedConflicts() >= 0)
+			taskMonitor.setStatusMessage("Wrote " + result.getReportedConflicts() + " conflicts to " + request.getConflictReportFile());
+
+		// Log the statistics once all the tasks below are done
+		if (!cancelled)
+			insertTasksAfterCurrentTask(new MergeStatisticsTask(statistics, networkName));
+
+		// Perform conflict handling if necessary
+		if (request.isInlineConflictHandling() || request.getConflictReportFile() != null) {
+			taskMonitor.setStatusMessage("Resolved " + result.getInlineResolvedConflicts() + " table column conflicts.");
+			if (metrics != null)
+				metrics.conflictsResolved(result.getInlineResolvedConflicts());
+		} else if (!conflictCollector.isEmpty() && !cancelled) {
+			taskMonitor.setStatusMessage("Processing conflicts...");
+			HandleConflictsTask hcTask = new HandleConflictsTask(conflictCollector);
+			hcTask.setStatistics(statistics);
+			hcTask.setMetrics(metrics);
+			insertTasksAfterCurrentTask(hcTask);
+		}
+
+		// Cancellation check...
+		if(cancelled) {
+			discard(taskMonitor);
+			return;
+		}
+
+		// Note that this has to be before we create the view so that it will execute after
+		// it's created
+		if (annotationMap.size() > 0) {
+			// Fix up annotations
+			FixAnnotationsTask fixAnnotationsTask = new FixAnnotationsTask(serviceRegistrar, newNetwork, annotationMap);
+			insertTasksAfterCurrentTask(fixAnnotationsTask);
+		}
+
+		// Create view
+		taskMonitor.setStatusMessage("Creating view...");
+		final Set<CyNetwork> networks = new HashSet<CyNetwork>();
+		networks.add(newNetwork);
+		insertTasksAfterCurrentTask(new MergeStatisticsTask(statistics, MergeStatistics.CREATE_VIEW, networks.size()));
+		insertTasksAfterCurrentTask(netViewCreator.createTaskIterator(networks));
+		statistics.start(MergeStatistics.CREATE_VIEW);
+
+		if (metrics != null)
+			metrics.mergeCompleted(request.getOperation(), System.currentTimeMillis() - startTime,
+					newNetwork.getNodeCount(), newNetwork.getEdgeCount());
+		taskMonitor.setProgress(1.0d);
+	}
+
+	/*
+	 * Free what a cancelled merge produced: the partial network and conflict report.
+	 */
+	private void discard(TaskMonitor taskMonitor) {
+		taskMonitor.setStatusMessage("Network merge canceled.");
+		taskMonitor.setProgress(1.0d);
+		if (metrics != null)
+			metrics.mergeCancelled();
+		this.mergeEngine = null;
+		discardNetwork();
+	}
+
+	/**
+	 * Destroy the merged network and delete the conflict report, when the tasks following
+	 * the merge are cancelled.
+	 */
+	void discardNetwork() {
+		if (newNetwork != null)
+			networkManager.destroyNetwork(newNetwork);
+		newNetwork = null;
+		if (request.getConflictReportFile() != null)
+			request.getConflictReportFile().delete();
+	}
+
+	private Map<CyNetworkView,List<Annotation>> getAnnotations(List<CyNetwork> networkList) {
+		Map<CyNetworkView, List<Annotation>> annotationMap = new HashMap<>();
+
+		List<CyNetworkView> viewList = new ArrayList<>(networkList.size());
+		for (CyNetwork  network: networkList) {
+			if (viewManager.viewExists(network)) {
+				viewList.addAll(viewManager.getNetworkViews(network));
+			}
+		}
+
+		for (CyNetworkView view: viewList) {
+			List<Annotation> annotations = annotationManager.getAnnotations(view);
+			if (annotations != null && annotations.size() > 0) {
+				annotationMap.put(view, annotations);
+			}
+		}
+		return annotationMap;
+	}
+
+	@Override
+	public List<Class<?>> getResultClasses() {
+		return Arrays.asList(String.class, CyNetwork.class, JSONResult.class, MergeEstimate.class, MergeStatistics.class);
+	}
+
+	@Override
+	public <R> R getResults(Class<? extends R> type) {
+		if (dryRun) {
+			if (type.equals(MergeEstimate.class)) {
+				return (R)estimate;
+			} else if (type.equals(String.class)) {
+				return (R)(estimate == null ? "<none>" : estimate.toString());
+			} else if (type.equals(JSONResult.class)) {
+				JSONResult res = () -> estimate == null ? "{}" : toJson(estimate);
+				return (R)res;
+			}
+			return null;
+		}
+		if (type.equals(MergeEstimate.class))
+			return null;
+		if (type.equals(MergeStatistics.class))
+			return (R)statistics;
+    if (type.equals(CyNetwork.class)) {
+      return (R)newNetwork;
+    } else if (type.equals(String.class)){
+      if (newNetwork == null)
+        return (R)"<none>";
+      return (R)newNetwork.toString();
+    } else if (type.equals(JSONResult.class)) {
+      JSONResult res = () -> {if (newNetwork == null)
+        return "{}";
+      else {
+        return toJson(newNetwork, statistics);
+      }};
+      return (R)res;
+    }
+    return (R)newNetwork;
+	}
+
+	/*
+	 * The SUID of the network, as returned by the command before the statistics were
+	 * added, and the figures of the merge phases next to it.
+	 */
+	static String toJson(CyNetwork network, MergeStatistics statistics) {
+		StringBuilder str = new StringBuilder();
+		str.append("{\"SUID\":").append(network.getSUID());
+		if (statistics != null)
+			str.append(",\"statistics\":").append(statistics.toJson());
+		return str.append("}").toString();
+	}
+
+	static String toJson(MergeEstimate estimate) {
+		StringBuilder str = new StringBuilder();
+		str.append("{\"operation\":").append(ConflictReportCommandTask.quote(estimate.getOperation().toString().toLowerCase()))
+			.append(",\"sourceNodes\":").append(estimate.getSourceNodes())
+			.append(",\"sourceEdges\":").append(estimate.getSourceEdges())
+			.append(",\"groups\":{");
+		for (Operation op : Operation.values()) {
+			if (op.ordinal() > 0)
+				str.append(",");
+			str.append(ConflictReportCommandTask.quote(op.toString().toLowerCase()))
+				.append(":{\"nodes\":").append(estimate.getNodeCount(op))
+				.append(",\"edges\":").append(estimate.getEdgeCount(op)).append("}");
+		}
+		str.append("},\"nodeColumns\":").append(estimate.getNodeColumns())
+			.append(",\"edgeColumns\":").append(estimate.getEdgeColumns())
+			.append(",\"nodeConflicts\":");
+		appendCounts(str, estimate.getNodeConflicts());
+		str.append(",\"edgeConflicts\":");
+		appendCounts(str, estimate.getEdgeConflicts());
+		str.append(",\"estimatedBytes\":").append(estimate.getEstimatedBytes())
+			.append(",\"availableBytes\":").append(MergeEstimate.getAvailableBytes()).append("}");
+		return str.toString();
+	}
+
+	private static void appendCounts(StringBuilder str, Map<String,Integer> counts) {
+		str.append("{");
+		boolean first = true;
+		for (Map.Entry<String,Integer> entry : counts.entrySet()) {
+			if (!first)
+				str.append(",");
+			first = false;
+			str.append(ConflictReportCommandTask.quote(entry.getKey())).append(":").append(entry.getValue());
+		}
+		str.append("}");
+	}
+
+}
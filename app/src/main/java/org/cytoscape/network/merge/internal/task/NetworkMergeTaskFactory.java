@@ -11,16 +11,19 @@ import org.cytoscape.work.TaskFactory;
 import org.cytoscape.work.TaskIterator;
 import org.cytoscape.work.TaskMonitor;
 
+import org.cytoscape.network.merge.internal.MergeMetrics;
 import org.cytoscape.network.merge.internal.ui.NetworkMergeDialog;
 
 public class NetworkMergeTaskFactory implements TaskFactory {
 
 	final CyServiceRegistrar registrar;
 	final CyNetworkManager netManager;
+	final MergeMetrics metrics;
 
-	public NetworkMergeTaskFactory(CyServiceRegistrar reg) {  
+	public NetworkMergeTaskFactory(CyServiceRegistrar reg, MergeMetrics metrics) {  
 		registrar = reg;
 		netManager = reg.getService(CyNetworkManager.class);
+		this.metrics = metrics;
 	}
 
 	public boolean isReady() {
@@ -47,6 +50,7 @@ public class NetworkMergeTaskFactory implements TaskFactory {
 			SwingUtilities.invokeLater(() -> 
 			{
 				final NetworkMergeDialog dialog = new NetworkMergeDialog(registrar);
+				dialog.setMetrics(metrics);
 				dialog.setLocationRelativeTo(swingApp.getJFrame());
 				dialog.setModalityType(Dialog.DEFAULT_MODALITY_TYPE);
 				dialog.setVisible(true);
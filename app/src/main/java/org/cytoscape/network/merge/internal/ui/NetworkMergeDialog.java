@@ -47,6 +47,7 @@ import javax.swing.ButtonGroup;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.GroupLayout;
 import javax.swing.GroupLayout.Alignment;
+import javax.swing.ImageIcon;
 import javax.swing.AbstractAction;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
@@ -62,6 +63,7 @@ import javax.swing.JToggleButton;
 import javax.swing.LayoutStyle.ComponentPlacement;
 import javax.swing.ListCellRenderer;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
@@ -71,9 +73,11 @@ import javax.swing.event.TableModelListener;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.network.merge.internal.MergeEstimate;
+import org.cytoscape.network.merge.internal.MergeMetrics;
 import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
 import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollector;
-import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollectorImpl;
+import org.cytoscape.network.merge.internal.conflict.ColumnarAttributeConflictCollector;
 import org.cytoscape.network.merge.internal.model.AttributeMapping;
 import org.cytoscape.network.merge.internal.model.AttributeMappingImpl;
 import org.cytoscape.network.merge.internal.model.MatchingAttribute;
@@ -86,8 +90,11 @@ import org.cytoscape.util.swing.BasicCollapsiblePanel;
 import org.cytoscape.util.swing.IconManager;
 import org.cytoscape.util.swing.LookAndFeelUtil;
 import org.cytoscape.work.swing.DialogTaskManager;
+import org.cytoscape.work.FinishStatus;
+import org.cytoscape.work.ObservableTask;
 import org.cytoscape.work.TaskIterator;
 import org.cytoscape.work.TaskManager;
+import org.cytoscape.work.TaskObserver;
 
 /**
  * Main dialog for advance network merge
@@ -96,9 +103,14 @@ public class NetworkMergeDialog extends JDialog {
 
 	private static final long serialVersionUID = 1013626339762545400L;
 
+	private static final ImageIcon UNION_ICON = new ImageIcon(NetworkMergeDialog.class.getResource("/images/venn-union-16.png"));
+	private static final ImageIcon INTERSECTION_ICON = new ImageIcon(NetworkMergeDialog.class.getResource("/images/venn-intersection-16.png"));
+	private static final ImageIcon DIFFERENCE_ICON = new ImageIcon(NetworkMergeDialog.class.getResource("/images/venn-difference-16.png"));
+
 	private final CyNetworkManager cnm;
 	private final CyNetworkNaming cnn;
 	private final CyServiceRegistrar serviceRegistrar;
+	private MergeMetrics metrics;
 	private final TaskManager<?, ?> taskManager;
 	private final IconManager iconMgr;
 
@@ -130,6 +142,7 @@ public class NetworkMergeDialog extends JDialog {
 	private JCheckBox idMappingCkb;
 	private JCheckBox inNetMergeCkb;
 	private JCheckBox NodesOnly;
+	private JCheckBox dryRunCkb;
 	private JPanel buttonPnl;
 	private JButton cancelBtn;
 	private JButton okBtn;
@@ -166,6 +179,13 @@ public class NetworkMergeDialog extends JDialog {
 		updateOKButton();
 	}
 
+	/**
+	 * Count the merges started from this dialog in these metrics.
+	 */
+	public void setMetrics(final MergeMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	private void initComponents() {
 		setTitle("Advanced Network Merge");
 		setResizable(false);
@@ -216,7 +236,7 @@ public class NetworkMergeDialog extends JDialog {
 			final Operation[] values = Operation.values();
 
 			for (Operation op : values) {
-				final JToggleButton btn = new JToggleButton(op.toString(), op.getIcon());
+				final JToggleButton btn = new JToggleButton(op.toString(), getIcon(op));
 				btn.setActionCommand(op.name());
 				operationGroup.add(btn);
 				operationButtons.put(op, btn);
@@ -283,6 +303,17 @@ public class NetworkMergeDialog extends JDialog {
 		return operationPnl;
 	}
 
+	private static ImageIcon getIcon(final Operation op) {
+		switch (op) {
+			case UNION:
+				return UNION_ICON;
+			case INTERSECTION:
+				return INTERSECTION_ICON;
+			default:
+				return DIFFERENCE_ICON;
+		}
+	}
+
 	private JPanel getDifferencePnl() {
 		if (differencePnl == null) {
 			differencePnl = new JPanel();
@@ -686,6 +717,7 @@ public class NetworkMergeDialog extends JDialog {
 					.addComponent(getMergeAttrTp(), DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
 					.addComponent(getInNetMergeCkb())
 					.addComponent(getNodesOnly())
+					.addComponent(getDryRunCkb())
 			);
 			layout.setVerticalGroup(layout.createSequentialGroup()
 					.addComponent(matchingColumnsLbl)
@@ -695,6 +727,7 @@ public class NetworkMergeDialog extends JDialog {
 					.addComponent(getMergeAttrTp(), DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
 					.addComponent(getInNetMergeCkb())
 					.addComponent(getNodesOnly())
+					.addComponent(getDryRunCkb())
 			);
 		}
 
@@ -840,6 +873,16 @@ public class NetworkMergeDialog extends JDialog {
 		return NodesOnly;
 	}
 
+	private JCheckBox getDryRunCkb() {
+		if (dryRunCkb == null) {
+			dryRunCkb = new JCheckBox("Only estimate the merge (dry run)");
+			dryRunCkb.setToolTipText("Match the nodes and edges and report the expected size, conflicts and "
+					+ "memory of the merged network, without creating it");
+			dryRunCkb.setSelected(false);
+		}
+		return dryRunCkb;
+	}
+
 	private JPanel getButtonPnl() {
 		if (buttonPnl == null) {
 			buttonPnl = LookAndFeelUtil.createOkCancelPanel(getOkBtn(), getCancelBtn());
@@ -860,16 +903,36 @@ public class NetworkMergeDialog extends JDialog {
 					}
 
 					final String netName = cnn.getSuggestedNetworkTitle(getMergeNodeAttrTbl().getMergedNetworkName());
-					final AttributeConflictCollector conflictCollector = new AttributeConflictCollectorImpl();
+					final AttributeConflictCollector conflictCollector = new ColumnarAttributeConflictCollector();
 
 					// Network merge task
 					final NetworkMergeTask nmTask = new NetworkMergeTask(serviceRegistrar, netName, matchingAttr,
 							nodeAttrMapping, edgeAttrMapping, netAttrMapping, selectedNetData.getNetworkList(),
 							getOperation(), getDifference1Btn().isSelected(), conflictCollector,
 							getInNetMergeCkb().isSelected(), getNodesOnly().isSelected());
+					nmTask.setMetrics(metrics);
 
 					final TaskIterator ti = new TaskIterator(nmTask);
 
+					if (!getAdvancedOptionsPnl().isCollapsed() && getDryRunCkb().isSelected()) {
+						// keep the dialog open to merge once the estimate is known
+						nmTask.setDryRun(true);
+						taskManager.execute(ti, new TaskObserver() {
+							@Override
+							public void taskFinished(ObservableTask task) {
+								final MergeEstimate estimate = task.getResults(MergeEstimate.class);
+								if (estimate != null)
+									SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(NetworkMergeDialog.this,
+											estimate.toString(), "Merge Estimate", JOptionPane.INFORMATION_MESSAGE));
+							}
+
+							@Override
+							public void allFinished(FinishStatus finishStatus) {
+							}
+						});
+						return;
+					}
+
 					// Execute Task in New Thread; pop open JTask Dialog Box.
 					taskManager.execute(ti);
 
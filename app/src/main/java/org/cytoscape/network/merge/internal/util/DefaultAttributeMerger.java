@@ -0,0 +1,355 @@
+package org.cytoscape.network.merge.internal.util;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollector;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictHandler;
+import org.cytoscape.network.merge.internal.conflict.ConflictReport;
+import org.cytoscape.network.merge.internal.model.SourceSnapshot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * 
+ */
+public class DefaultAttributeMerger implements AttributeMerger {
+
+	protected final AttributeConflictCollector conflictCollector;
+	protected final List<AttributeConflictHandler> conflictHandlers;
+	private int inlineResolvedConflicts;
+	private ConflictReport conflictReport;
+	private SourceSnapshot sourceSnapshot;
+
+	public DefaultAttributeMerger(final AttributeConflictCollector conflictCollector) {
+		this(conflictCollector, null);
+	}
+
+	/**
+	 * 
+	 * @param conflictCollector
+	 *            receives the conflicts that could not be resolved
+	 * @param conflictHandlers
+	 *            if not empty, each conflict is resolved by these handlers as soon as all
+	 *            the sources of the merged entry have been read, instead of being collected
+	 *            and handled after the merge
+	 */
+	public DefaultAttributeMerger(final AttributeConflictCollector conflictCollector,
+			final List<AttributeConflictHandler> conflictHandlers) {
+		this.conflictCollector = conflictCollector;
+		this.conflictHandlers = conflictHandlers;
+	}
+
+	/**
+	 * 
+	 * @return number of conflicts resolved inline by the conflict handlers
+	 */
+	public int getInlineResolvedConflicts() {
+		return inlineResolvedConflicts;
+	}
+
+	/**
+	 * 
+	 * @param conflictReport
+	 *            if not null, every conflict is written to it when detected, then resolved
+	 *            inline by the conflict handlers, if any. Reported conflicts are not kept by
+	 *            the collector: the ones that no handler resolves keep the first value, and
+	 *            are only found in the report
+	 */
+	public void setConflictReport(final ConflictReport conflictReport) {
+		this.conflictReport = conflictReport;
+	}
+
+	/**
+	 * 
+	 * @param sourceSnapshot
+	 *            if not null, the source values are read from it instead of the tables
+	 */
+	public void setSourceSnapshot(final SourceSnapshot sourceSnapshot) {
+		this.sourceSnapshot = sourceSnapshot;
+	}
+
+	@Override
+	public <T extends CyIdentifiable> void mergeAttribute(final Map<T, CyColumn> mapGOAttr, final T graphObject, final CyColumn column,
+			final CyNetwork network) {
+		if ((mapGOAttr == null) || (graphObject == null) || (column == null))
+			throw new java.lang.IllegalArgumentException("Required parameters cannot be null.");
+
+		final CyRow cyRow = network.getRow(graphObject);
+		final ColumnType colType = ColumnType.getType(column);
+		final Object currentValue;
+		if (colType.isList())
+			currentValue = cyRow.getList(column.getName(), colType.toPlain().getType());
+		else
+			currentValue = cyRow.get(column.getName(), colType.getType());
+
+		applyValue(graphObject, column, network, computeValue(mapGOAttr, graphObject, column, currentValue));
+	}
+
+	/**
+	 * Merge the source values of a cell without writing anything, so that it can be called
+	 * from several threads at once. Only the source rows are read.
+	 * 
+	 * @param currentValue
+	 *            value of the cell before the merge, null for a new node or edge
+	 * @return the merged value, to be written by {@link #applyValue}
+	 */
+	public <T extends CyIdentifiable> MergedValue computeValue(final Map<T, CyColumn> mapGOAttr, final T graphObject,
+			final CyColumn column, final Object currentValue) {
+		if ((mapGOAttr == null) || (graphObject == null) || (column == null))
+			throw new java.lang.IllegalArgumentException("Required parameters cannot be null.");
+
+		final ColumnType colType = ColumnType.getType(column);
+		Object current = currentValue;
+		boolean changed = false;
+		List<Object> l2 = null;
+		Map<CyIdentifiable, CyColumn> conflicts = null;
+		RuntimeException failure = null;
+
+		try {
+			for (Map.Entry<T, CyColumn> entryGOAttr : mapGOAttr.entrySet()) {
+				final T from = entryGOAttr.getKey();
+				final CyColumn fromColumn = entryGOAttr.getValue();
+				final CyTable fromTable = fromColumn.getTable();
+				final CyRow fromCyRow = sourceSnapshot == null ? fromTable.getRow(from.getSUID())
+						: sourceSnapshot.getRow(fromTable, from.getSUID());
+				final ColumnType fromColType = ColumnType.getType(fromColumn);
+
+				if (colType == ColumnType.STRING) {
+					// a list is read as such, then cast to a string like the other types
+					Object fromValue = fromCyRow.get(fromColumn.getName(), fromColumn.getType());
+					if (fromValue != null && fromColType != colType) {
+						fromValue = colType.castService(fromValue);
+					}
+					final String o2 = (String) current;
+
+					if (o2 == null || o2.length() == 0) { // null or empty attribute
+						current = fromValue;
+						changed = true;
+					} else if (fromValue != null && fromValue.equals(o2)) { // TODO: necessary?
+						// the same, do nothing
+					} else { // attribute conflict
+						// add to conflict collector
+						if (graphObject instanceof CyNetwork) {
+							if (column.getName().equals(CyNetwork.NAME) || column.getName().equals(CyRootNetwork.SHARED_NAME)) {
+								// We don't want to mess with the network name
+								continue;
+							}
+						}
+						conflicts = addConflict(conflicts, from, fromColumn);
+					}
+				} else if (!colType.isList()) { // simple type (Integer, Long, Double, Boolean)
+					Object o1 = fromCyRow.get(fromColumn.getName(), fromColType.getType());
+					Object o2 = current;
+					if (o1 != null && fromColType != colType) {
+						o1 = colType.castService(o1);
+					}
+
+					if (o2 == null) {
+						current = o1;
+						changed = true;
+					} else if (o1 == null) {
+						// keep o2
+					} else if (o1.equals(o2)) {
+						// the same, do nothing
+					} else { // attribute conflict
+
+						// add to conflict collector
+						conflicts = addConflict(conflicts, from, fromColumn);
+					}
+				} else { // toattr is list type
+					// TODO: use a conflict handler to handle this part?
+					ColumnType plainType = colType.toPlain();
+
+					if (l2 == null) {
+						l2 = current == null ? new ArrayList<Object>() : new ArrayList<Object>((List<?>) current);
+					}
+
+					if (!fromColType.isList()) {
+						// Simple data type
+						Object o1 = fromCyRow.get(fromColumn.getName(), fromColType.getType());
+						if (o1 != null) {
+							if (plainType != fromColType) {
+								o1 = plainType.castService(o1);
+							}
+
+							if (!l2.contains(o1)) {
+								l2.add(o1);
+							}
+						}
+					} else { // from list
+						final ColumnType fromPlain = fromColType.toPlain();
+						final List<?> list = fromCyRow.getList(fromColumn.getName(), fromPlain.getType());
+						if(list == null)
+							continue;
+					
+						for (final Object listValue:list) {
+							if(listValue == null)
+								continue;
+						
+							final Object validValue;
+							if (plainType != fromColType) {
+								validValue = plainType.castService(listValue);
+							} else {
+								validValue = listValue;
+							}
+							if (!l2.contains(validValue)) {
+								l2.add(validValue);
+							}
+						}
+					}
+
+					if(!l2.isEmpty()) {
+						current = l2;
+						changed = true;
+					}
+				}
+			}
+		} catch (RuntimeException e) {
+			// the sources merged so far are still applied
+			failure = e;
+		}
+
+		return new MergedValue(current, changed, conflicts, failure);
+	}
+
+	/**
+	 * Write a merged value computed by {@link #computeValue}, then collect, report or
+	 * resolve its conflicts. Must be called by a single thread.
+	 * 
+	 * @throws RuntimeException
+	 *             the failure of the computation, once the value merged until then is written
+	 */
+	public void applyValue(final CyIdentifiable graphObject, final CyColumn column, final CyNetwork network,
+			final MergedValue mergedValue) {
+		if (mergedValue.changed) {
+			network.getRow(graphObject).set(column.getName(), mergedValue.value);
+		}
+		if (mergedValue.conflicts != null) {
+			handleConflicts(graphObject, column, mergedValue.conflicts, mergedValue.failure == null);
+		}
+		if (mergedValue.failure != null) {
+			throw mergedValue.failure;
+		}
+	}
+
+	private static Map<CyIdentifiable, CyColumn> addConflict(Map<CyIdentifiable, CyColumn> conflicts,
+			final CyIdentifiable from, final CyColumn fromColumn) {
+		if (conflicts == null)
+			conflicts = new LinkedHashMap<CyIdentifiable, CyColumn>();
+		conflicts.put(from, fromColumn);
+		return conflicts;
+	}
+
+	/*
+	 * Without inline conflict handlers the conflicts go straight to the collector,
+	 * otherwise they are resolved together, if all the sources could be read.
+	 * Reported conflicts never go to the collector, so that its size does not grow
+	 * with the number of conflicts when they are streamed to a report.
+	 */
+	private void handleConflicts(final CyIdentifiable to, final CyColumn toColumn,
+			final Map<CyIdentifiable, CyColumn> conflicts, final boolean complete) {
+		if (conflictReport != null) {
+			for (Map.Entry<CyIdentifiable, CyColumn> entry : conflicts.entrySet()) {
+				conflictReport.addConflict(entry.getKey(), entry.getValue(), to, toColumn);
+			}
+		}
+
+		if (conflictHandlers == null || conflictHandlers.isEmpty()) {
+			collectConflicts(to, toColumn, conflicts);
+			return;
+		}
+
+		if (complete) {
+			resolveConflicts(to, toColumn, conflicts);
+		}
+	}
+
+	private void resolveConflicts(final CyIdentifiable to, final CyColumn toColumn,
+			final Map<CyIdentifiable, CyColumn> conflicts) {
+		for (AttributeConflictHandler handler : conflictHandlers) {
+			if (handler.handleIt(to, toColumn, conflicts)) {
+				inlineResolvedConflicts++;
+				return;
+			}
+		}
+
+		// no handler could resolve it, leave it to the collector
+		collectConflicts(to, toColumn, conflicts);
+	}
+
+	private void collectConflicts(final CyIdentifiable to, final CyColumn toColumn,
+			final Map<CyIdentifiable, CyColumn> conflicts) {
+		if (conflictReport != null) {
+			return;
+		}
+		for (Map.Entry<CyIdentifiable, CyColumn> entry : conflicts.entrySet()) {
+			conflictCollector.addConflict(entry.getKey(), entry.getValue(), to, toColumn);
+		}
+	}
+
+	/**
+	 * Value of a merged cell, and the sources conflicting with it.
+	 */
+	public static final class MergedValue {
+		private final Object value;
+		private final boolean changed;
+		private final Map<CyIdentifiable, CyColumn> conflicts;
+		private final RuntimeException failure;
+
+		MergedValue(final Object value, final boolean changed, final Map<CyIdentifiable, CyColumn> conflicts,
+				final RuntimeException failure) {
+			this.value = value;
+			this.changed = changed;
+			this.conflicts = conflicts;
+			this.failure = failure;
+		}
+
+		/**
+		 * 
+		 * @return the value of a cell that has a single source, without conflict
+		 */
+		public static MergedValue of(final Object value) {
+			return new MergedValue(value, value != null, null, null);
+		}
+
+		public Object getValue() {
+			return value;
+		}
+
+		public boolean hasConflicts() {
+			return conflicts != null;
+		}
+	}
+}
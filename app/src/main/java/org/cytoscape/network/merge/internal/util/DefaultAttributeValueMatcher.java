@@ -30,6 +30,7 @@ import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.network.merge.internal.model.SourceSnapshot;
 
 /**
  * Match attribute values
@@ -38,6 +39,17 @@ import org.cytoscape.model.CyIdentifiable;
  */
 public class DefaultAttributeValueMatcher implements AttributeValueMatcher {
 
+	private SourceSnapshot sourceSnapshot;
+
+	/**
+	 * 
+	 * @param sourceSnapshot
+	 *            if not null, the values are read from it instead of the tables
+	 */
+	public void setSourceSnapshot(final SourceSnapshot sourceSnapshot) {
+		this.sourceSnapshot = sourceSnapshot;
+	}
+
 	@Override
 	public boolean matched(CyIdentifiable entry1, CyColumn attr1, CyIdentifiable entry2, CyColumn attr2) {
 
@@ -49,8 +61,8 @@ public class DefaultAttributeValueMatcher implements AttributeValueMatcher {
 
 		CyTable table1 = attr1.getTable();
 		CyTable table2 = attr2.getTable();
-		CyRow row1 = table1.getRow(entry1.getSUID());
-		CyRow row2 = table2.getRow(entry2.getSUID());
+		CyRow row1 = sourceSnapshot == null ? table1.getRow(entry1.getSUID()) : sourceSnapshot.getRow(table1, entry1.getSUID());
+		CyRow row2 = sourceSnapshot == null ? table2.getRow(entry2.getSUID()) : sourceSnapshot.getRow(table2, entry2.getSUID());
 
 		Class<?> type1 = attr1.getType();
 		Class<?> type2 = attr2.getType();
@@ -99,6 +111,9 @@ public class DefaultAttributeValueMatcher implements AttributeValueMatcher {
 				// TODO: use a list comparator?
 				List<?> l1 = row1.get(attr1.getName(), List.class);
 				List<?> l2 = row2.get(attr2.getName(), List.class);
+				if (l1 == null || l2 == null)
+					return false;
+
 				int nl1 = l1.size();
 				int nl2 = l2.size();
 				for (int il1 = 0; il1 < nl1; il1++) {
@@ -0,0 +1,195 @@
+package org.cytoscape.network.merge.internal.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader for the documents given to the commands: objects are read into
+ * maps keeping the order of their members, arrays into lists, numbers into Long or Double.
+ */
+public final class JsonReader {
+
+	private final String text;
+	private int pos;
+
+	private JsonReader(final String text) {
+		this.text = text;
+	}
+
+	/**
+	 * @return the value of the document
+	 * @throws IllegalArgumentException
+	 *             if the text is not a JSON document
+	 */
+	public static Object read(final String text) {
+		if (text == null)
+			throw new java.lang.NullPointerException();
+
+		final JsonReader reader = new JsonReader(text);
+		final Object value = reader.readValue();
+		reader.skipWhitespace();
+		if (reader.pos < text.length())
+			throw reader.error("Unexpected content");
+		return value;
+	}
+
+	private Object readValue() {
+		skipWhitespace();
+		if (pos >= text.length())
+			throw error("Unexpected end");
+
+		final char c = text.charAt(pos);
+		switch (c) {
+		case '{':
+			return readObject();
+		case '[':
+			return readArray();
+		case '"':
+			return readString();
+		case 't':
+			return readLiteral("true", Boolean.TRUE);
+		case 'f':
+			return readLiteral("false", Boolean.FALSE);
+		case 'n':
+			return readLiteral("null", null);
+		default:
+			if (c == '-' || (c >= '0' && c <= '9'))
+				return readNumber();
+			throw error("Unexpected character '" + c + "'");
+		}
+	}
+
+	private Map<String,Object> readObject() {
+		final Map<String,Object> object = new LinkedHashMap<String,Object>();
+		pos++;
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return object;
+		}
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"')
+				throw error("Expected a member name");
+			final String name = readString();
+			skipWhitespace();
+			expect(':');
+			object.put(name, readValue());
+			skipWhitespace();
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect('}');
+				return object;
+			}
+		}
+	}
+
+	private List<Object> readArray() {
+		final List<Object> array = new ArrayList<Object>();
+		pos++;
+		skipWhitespace();
+		if (peek() == ']') {
+			pos++;
+			return array;
+		}
+		while (true) {
+			array.add(readValue());
+			skipWhitespace();
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect(']');
+				return array;
+			}
+		}
+	}
+
+	private String readString() {
+		final StringBuilder str = new StringBuilder();
+		pos++;
+		while (true) {
+			if (pos >= text.length())
+				throw error("Unterminated string");
+			final char c = text.charAt(pos++);
+			if (c == '"')
+				return str.toString();
+			if (c != '\\') {
+				str.append(c);
+				continue;
+			}
+			if (pos >= text.length())
+				throw error("Unterminated string");
+			final char e = text.charAt(pos++);
+			switch (e) {
+			case '"': str.append('"'); break;
+			case '\\': str.append('\\'); break;
+			case '/': str.append('/'); break;
+			case 'b': str.append('\b'); break;
+			case 'f': str.append('\f'); break;
+			case 'n': str.append('\n'); break;
+			case 'r': str.append('\r'); break;
+			case 't': str.append('\t'); break;
+			case 'u':
+				if (pos + 4 > text.length())
+					throw error("Invalid escape");
+				try {
+					str.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+				} catch (NumberFormatException ex) {
+					throw error("Invalid escape");
+				}
+				pos += 4;
+				break;
+			default:
+				throw error("Invalid escape");
+			}
+		}
+	}
+
+	private Object readNumber() {
+		final int start = pos;
+		boolean integral = true;
+		while (pos < text.length()) {
+			final char c = text.charAt(pos);
+			if (c == '.' || c == 'e' || c == 'E')
+				integral = false;
+			else if (c != '-' && c != '+' && (c < '0' || c > '9'))
+				break;
+			pos++;
+		}
+		final String number = text.substring(start, pos);
+		try {
+			return integral ? (Object) Long.valueOf(number) : (Object) Double.valueOf(number);
+		} catch (NumberFormatException e) {
+			throw error("Invalid number " + number);
+		}
+	}
+
+	private Object readLiteral(final String literal, final Object value) {
+		if (!text.startsWith(literal, pos))
+			throw error("Unexpected content");
+		pos += literal.length();
+		return value;
+	}
+
+	private void expect(final char c) {
+		if (peek() != c)
+			throw error("Expected '" + c + "'");
+		pos++;
+	}
+
+	private char peek() {
+		return pos < text.length() ? text.charAt(pos) : 0;
+	}
+
+	private void skipWhitespace() {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+			pos++;
+	}
+
+	private IllegalArgumentException error(final String message) {
+		return new IllegalArgumentException(message + " at position " + pos + " of the JSON document");
+	}
+}
@@ -0,0 +1,215 @@
+package org.cytoscape.network.merge.internal.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of the merges, so that a recording shows each merge, its
+ * phases, the matching of each network and the fixing of annotations as named units of
+ * work, with their duration.
+ *
+ * The events are begun and ended through untyped handles, so that the callers do not
+ * depend on jdk.jfr: where it cannot be loaded, the handles are null and nothing is
+ * recorded. Recording costs little unless the events are enabled in a recording.
+ */
+public final class MergeEvents {
+	private static volatile boolean available = isAvailable();
+
+	private MergeEvents() {
+	}
+
+	@Name("org.cytoscape.networkmerge.Merge")
+	@Label("Network Merge")
+	@Category({ "Cytoscape", "Network Merge" })
+	@Description("Merge of networks into a new network")
+	static final class MergeEvent extends Event {
+		@Label("Operation")
+		String operation;
+		@Label("Source Networks")
+		int sourceNetworks;
+		@Label("Network SUID")
+		long networkSuid;
+		@Label("Nodes")
+		long nodes;
+		@Label("Edges")
+		long edges;
+		@Label("Interrupted")
+		boolean interrupted;
+	}
+
+	@Name("org.cytoscape.networkmerge.Phase")
+	@Label("Network Merge Phase")
+	@Category({ "Cytoscape", "Network Merge" })
+	@Description("Phase of a merge, as reported in its statistics")
+	static final class PhaseEvent extends Event {
+		@Label("Phase")
+		String phase;
+		@Label("Network SUID")
+		long networkSuid;
+		@Label("Count")
+		@Description("Nodes, edges, cells or conflicts processed")
+		long count;
+		@Label("Comparisons")
+		long comparisons;
+		@Label("Allocated")
+		@DataAmount
+		@Description("Allocated by the thread running the phase, -1 if unknown")
+		long allocated;
+	}
+
+	@Name("org.cytoscape.networkmerge.Matching")
+	@Label("Network Merge Matching")
+	@Category({ "Cytoscape", "Network Merge" })
+	@Description("Matching of the nodes or edges of a source network with those of the networks before it")
+	static final class MatchingEvent extends Event {
+		@Label("Network SUID")
+		long networkSuid;
+		@Label("Kind")
+		String kind;
+		@Label("Count")
+		long count;
+		@Label("Comparisons")
+		long comparisons;
+	}
+
+	@Name("org.cytoscape.networkmerge.FixAnnotations")
+	@Label("Network Merge Annotations")
+	@Category({ "Cytoscape", "Network Merge" })
+	@Description("Copy of the annotations of the source network views to the merged network view")
+	static final class AnnotationsEvent extends Event {
+		@Label("Network SUID")
+		long networkSuid;
+		@Label("Annotations")
+		int annotations;
+	}
+
+	private static boolean isAvailable() {
+		try {
+			return new PhaseEvent() != null;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	private static Object begin(final Event event) {
+		event.begin();
+		return event;
+	}
+
+	private static Object unavailable(final LinkageError e) {
+		available = false;
+		return null;
+	}
+
+	/**
+	 * @return the handle of a merge event, null if not recorded
+	 */
+	public static Object beginMerge() {
+		if (!available)
+			return null;
+		try {
+			return begin(new MergeEvent());
+		} catch (LinkageError e) {
+			return unavailable(e);
+		}
+	}
+
+	public static void endMerge(final Object handle, final String operation, final int sourceNetworks,
+			final long networkSuid, final long nodes, final long edges, final boolean interrupted) {
+		if (handle == null)
+			return;
+		final MergeEvent event = (MergeEvent) handle;
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.sourceNetworks = sourceNetworks;
+			event.networkSuid = networkSuid;
+			event.nodes = nodes;
+			event.edges = edges;
+			event.interrupted = interrupted;
+			event.commit();
+		}
+	}
+
+	/**
+	 * @return the handle of a phase event, null if not recorded
+	 */
+	public static Object beginPhase() {
+		if (!available)
+			return null;
+		try {
+			return begin(new PhaseEvent());
+		} catch (LinkageError e) {
+			return unavailable(e);
+		}
+	}
+
+	public static void endPhase(final Object handle, final String phase, final long networkSuid, final long count,
+			final long comparisons, final long allocated) {
+		if (handle == null)
+			return;
+		final PhaseEvent event = (PhaseEvent) handle;
+		if (event.shouldCommit()) {
+			event.phase = phase;
+			event.networkSuid = networkSuid;
+			event.count = count;
+			event.comparisons = comparisons;
+			event.allocated = allocated;
+			event.commit();
+		}
+	}
+
+	/**
+	 * @return the handle of a matching event, null if not recorded
+	 */
+	public static Object beginMatching() {
+		if (!available)
+			return null;
+		try {
+			return begin(new MatchingEvent());
+		} catch (LinkageError e) {
+			return unavailable(e);
+		}
+	}
+
+	public static void endMatching(final Object handle, final long networkSuid, final String kind, final long count,
+			final long comparisons) {
+		if (handle == null)
+			return;
+		final MatchingEvent event = (MatchingEvent) handle;
+		if (event.shouldCommit()) {
+			event.networkSuid = networkSuid;
+			event.kind = kind;
+			event.count = count;
+			event.comparisons = comparisons;
+			event.commit();
+		}
+	}
+
+	/**
+	 * @return the handle of an annotation fixing event, null if not recorded
+	 */
+	public static Object beginFixAnnotations() {
+		if (!available)
+			return null;
+		try {
+			return begin(new AnnotationsEvent());
+		} catch (LinkageError e) {
+			return unavailable(e);
+		}
+	}
+
+	public static void endFixAnnotations(final Object handle, final long networkSuid, final int annotations) {
+		if (handle == null)
+			return;
+		final AnnotationsEvent event = (AnnotationsEvent) handle;
+		if (event.shouldCommit()) {
+			event.networkSuid = networkSuid;
+			event.annotations = annotations;
+			event.commit();
+		}
+	}
+}
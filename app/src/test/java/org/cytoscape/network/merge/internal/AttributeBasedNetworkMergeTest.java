@@ -0,0 +1,409 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.KEY;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.TASK_MONITOR;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.createNetwork;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.createRequest;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.getNode;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.list;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.match;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+import org.cytoscape.network.merge.internal.conflict.ColumnarAttributeConflictCollector;
+import org.cytoscape.network.merge.internal.model.AttributeMapping;
+import org.cytoscape.network.merge.internal.model.CompiledAttributeMapping;
+import org.cytoscape.network.merge.internal.model.MatchingKeyIndex;
+import org.cytoscape.network.merge.internal.util.AttributeMerger;
+import org.cytoscape.network.merge.internal.util.AttributeValueMatcher;
+import org.cytoscape.network.merge.internal.util.ColumnType;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeMerger;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeValueMatcher;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Merged values of the shortcuts of the default merger, compared with the values the
+ * merger computes for each cell.
+ */
+public class AttributeBasedNetworkMergeTest {
+	private static final int NODES = 40;
+
+	private List<CyNetwork> networks;
+
+	/**
+	 * Two networks sharing a node out of four, with columns of the same name and of
+	 * different types, so that their values are copied, cast, or put in lists.
+	 */
+	@Before
+	public void createNetworks() {
+		networks = createNetworks(NODES);
+	}
+
+	private static List<CyNetwork> createNetworks(final int nodes) {
+		final String[] keys1 = new String[nodes];
+		final String[] keys2 = new String[nodes];
+		for (int i = 0; i < nodes; i++) {
+			keys1[i] = "n" + i;
+			keys2[i] = (i % 4 == 0 ? "n" : "m") + i;
+		}
+		final CyNetwork net1 = createNetwork("net1", keys1);
+		final CyNetwork net2 = createNetwork("net2", keys2);
+
+		final CyTable table1 = net1.getDefaultNodeTable();
+		table1.createColumn("int", Integer.class, false);
+		table1.createColumn("long", Long.class, false);
+		table1.createColumn("double", Double.class, false);
+		table1.createColumn("bool", Boolean.class, false);
+		table1.createColumn("text", String.class, false);
+		table1.createListColumn("texts", String.class, false);
+		table1.createListColumn("ints", Integer.class, false);
+		table1.createColumn("mixed", Integer.class, false);
+
+		final CyTable table2 = net2.getDefaultNodeTable();
+		table2.createColumn("int", Double.class, false);
+		table2.createColumn("long", Long.class, false);
+		table2.createColumn("text", Integer.class, false);
+		table2.createColumn("texts", String.class, false);
+		table2.createListColumn("ints", Double.class, false);
+		table2.createListColumn("mixed", String.class, false);
+
+		// in the order of their keys
+		final List<CyNode> nodes1 = net1.getNodeList();
+		final List<CyNode> nodes2 = net2.getNodeList();
+		for (int i = 0; i < nodes; i++) {
+			final CyNode node1 = nodes1.get(i);
+			// some cells are left empty
+			if (i % 5 != 1)
+				table1.getRow(node1.getSUID()).set("int", i);
+			table1.getRow(node1.getSUID()).set("long", (long) i << 33);
+			if (i % 7 != 2)
+				table1.getRow(node1.getSUID()).set("double", i / 3d);
+			table1.getRow(node1.getSUID()).set("bool", i % 2 == 0);
+			table1.getRow(node1.getSUID()).set("text", i % 6 == 3 ? "" : "t" + i);
+			table1.getRow(node1.getSUID()).set("texts", i % 5 == 4 ? null : Arrays.asList("x" + i, "y", "x" + i));
+			table1.getRow(node1.getSUID()).set("ints", Arrays.asList(i, i + 1, i));
+			table1.getRow(node1.getSUID()).set("mixed", i * 10);
+
+			final CyNode node2 = nodes2.get(i);
+			if (i % 3 != 0)
+				table2.getRow(node2.getSUID()).set("int", i + 0.5);
+			table2.getRow(node2.getSUID()).set("long", (long) i);
+			table2.getRow(node2.getSUID()).set("text", i * 100);
+			if (i % 2 == 0)
+				table2.getRow(node2.getSUID()).set("texts", "z" + i);
+			table2.getRow(node2.getSUID()).set("ints", Arrays.asList(i + 0.5, i * 2d));
+			table2.getRow(node2.getSUID()).set("mixed", Arrays.asList("a", "b" + i, "a"));
+		}
+
+		for (int i = 0; i + 1 < nodes; i += 3) {
+			net1.getRow(net1.addEdge(nodes1.get(i), nodes1.get(i + 1), true)).set(CyEdge.INTERACTION, "pp");
+			net2.getRow(net2.addEdge(nodes2.get(i), nodes2.get(i + 1), i % 2 == 0)).set(CyEdge.INTERACTION, "pp");
+		}
+		return Arrays.asList(net1, net2);
+	}
+
+	/**
+	 * Merge the networks by key, with their columns matched by name.
+	 */
+	static CyNetwork merge(final List<CyNetwork> networks, final Operation operation,
+			final AttributeMerger attributeMerger, final int parallelism) {
+		final MergeRequest request = createRequest(networks, operation);
+		final AttributeBasedNetworkMerge networkMerge = new AttributeBasedNetworkMerge(request.getMatchingAttribute(),
+				request.getNodeAttributeMapping(), request.getEdgeAttributeMapping(),
+				request.getNetworkAttributeMapping(), attributeMerger, TASK_MONITOR);
+		networkMerge.setParallelism(parallelism);
+		final CyNetwork merged = new InMemoryNetwork();
+		networkMerge.mergeNetwork(merged, networks, operation, false, false);
+		return merged;
+	}
+
+	/**
+	 * Check that the networks have the same nodes, by key, and edges, in the same order,
+	 * with the same values in all their columns.
+	 */
+	static void assertSameValues(final CyNetwork expected, final CyNetwork actual) {
+		assertEquals(expected.getNodeCount(), actual.getNodeCount());
+		assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+		assertSameColumns(expected.getDefaultNodeTable(), actual.getDefaultNodeTable());
+		assertSameColumns(expected.getDefaultEdgeTable(), actual.getDefaultEdgeTable());
+
+		final Map<String, CyNode> nodes = new HashMap<String, CyNode>();
+		for (CyNode node : actual.getNodeList())
+			nodes.put(actual.getRow(node).get(KEY, String.class), node);
+		for (CyNode node : expected.getNodeList()) {
+			final String key = expected.getRow(node).get(KEY, String.class);
+			final CyNode other = nodes.get(key);
+			assertNotNull(key, other);
+			assertSameRow(expected, node, actual, other);
+		}
+		final List<CyEdge> edges = actual.getEdgeList();
+		for (int i = 0; i < edges.size(); i++)
+			assertSameRow(expected, expected.getEdgeList().get(i), actual, edges.get(i));
+	}
+
+	private static void assertSameColumns(final CyTable expected, final CyTable actual) {
+		assertEquals(columns(expected), columns(actual));
+		for (CyColumn column : expected.getColumns()) {
+			assertEquals(column.getName(), column.getType(), actual.getColumn(column.getName()).getType());
+			assertEquals(column.getName(), column.getListElementType(),
+					actual.getColumn(column.getName()).getListElementType());
+		}
+	}
+
+	private static List<String> columns(final CyTable table) {
+		final List<String> columns = new ArrayList<String>();
+		for (CyColumn column : table.getColumns())
+			columns.add(column.getName());
+		return columns;
+	}
+
+	private static void assertSameRow(final CyNetwork expected, final CyIdentifiable go, final CyNetwork actual,
+			final CyIdentifiable other) {
+		final CyTable table = go instanceof CyNode ? expected.getDefaultNodeTable() : expected.getDefaultEdgeTable();
+		for (CyColumn column : table.getColumns()) {
+			if (column.isPrimaryKey())
+				continue;
+			assertEquals(column.getName() + " of " + expected.getRow(go).get(CyNetwork.NAME, String.class),
+					expected.getRow(go).getRaw(column.getName()), actual.getRow(other).getRaw(column.getName()));
+		}
+	}
+
+	@Test
+	public void testCopySameAsMerger() {
+		// any other merger is called for each cell, the default one copies the values of
+		// the nodes and edges having a single source
+		final AttributeMerger merger = new DefaultAttributeMerger(new ColumnarAttributeConflictCollector()) {
+		};
+		final CyNetwork expected = merge(networks, Operation.UNION, merger, 1);
+		final CyNetwork copied = merge(networks, Operation.UNION,
+				new DefaultAttributeMerger(new ColumnarAttributeConflictCollector()), 1);
+
+		assertEquals(NODES * 2 - NODES / 4, copied.getNodeCount());
+		assertSameValues(expected, copied);
+		final CyNode node = getNode(copied, "m1");
+		assertEquals(Arrays.asList("a", "b1"), copied.getRow(node).getRaw("mixed"));
+		assertEquals("100", copied.getRow(node).getRaw("text"));
+		assertEquals(Arrays.asList(1.5d, 2d), copied.getRow(node).getRaw("ints"));
+		assertEquals(Arrays.asList(1d, 2d), copied.getRow(getNode(copied, "n1")).getRaw("ints"));
+	}
+
+	@Test
+	public void testParallelSameAsSerial() {
+		// enough nodes for several chunks of groups, computed by different threads
+		final List<CyNetwork> networks = createNetworks(3000);
+		final ColumnarAttributeConflictCollector serialConflicts = new ColumnarAttributeConflictCollector();
+		final ColumnarAttributeConflictCollector parallelConflicts = new ColumnarAttributeConflictCollector();
+		final CyNetwork serial = merge(networks, Operation.UNION, new DefaultAttributeMerger(serialConflicts), 1);
+		final CyNetwork parallel = merge(networks, Operation.UNION, new DefaultAttributeMerger(parallelConflicts), 3);
+
+		assertSameValues(serial, parallel);
+		assertEquals(serialConflicts.getConflictCount(), parallelConflicts.getConflictCount());
+		assertEquals(serialConflicts.getConflictColumns().size(), parallelConflicts.getConflictColumns().size());
+		assertNotEquals(0, serialConflicts.getConflictCount());
+	}
+
+	@Test
+	public void testParallelIntersection() {
+		final List<CyNetwork> networks = createNetworks(3000);
+		assertSameValues(merge(networks, Operation.INTERSECTION, new DefaultAttributeMerger(new ColumnarAttributeConflictCollector()), 1),
+				merge(networks, Operation.INTERSECTION, new DefaultAttributeMerger(new ColumnarAttributeConflictCollector()), 4));
+	}
+
+	/**
+	 * Networks matched by list and string columns, with nodes sharing keys, nodes
+	 * without keys, and nodes matching others through several keys.
+	 */
+	private static List<CyNetwork> createMatchingNetworks() {
+		final CyNetwork net1 = createNetwork("net1", "a", "b", "c", "d", "e", "f");
+		net1.getDefaultNodeTable().createListColumn("match", String.class, false);
+		final List<List<String>> values1 = Arrays.asList(list("x", "y"), list("y"), list("z"), null,
+				new ArrayList<String>(), list("w", "x"));
+		final CyNetwork net2 = createNetwork("net2", "g", "h", "i", "j", "k");
+		net2.getDefaultNodeTable().createColumn("match", String.class, false);
+		final List<String> values2 = Arrays.asList("y", "z", "z", null, "u");
+		final CyNetwork net3 = createNetwork("net3", "l", "m", "n", "o");
+		net3.getDefaultNodeTable().createListColumn("match", String.class, false);
+		final List<List<String>> values3 = Arrays.asList(list("u", "v"), list("v"), list("w"), list("t"));
+
+		setValues(net1, values1);
+		setValues(net2, values2);
+		setValues(net3, values3);
+		return Arrays.asList(net1, net2, net3);
+	}
+
+	private static void setValues(final CyNetwork network, final List<?> values) {
+		final List<CyNode> nodes = network.getNodeList();
+		for (int i = 0; i < nodes.size(); i++)
+			network.getRow(nodes.get(i)).set("match", values.get(i));
+	}
+
+	/**
+	 *
+	 * @return the matched groups, as the sets of the keys of their nodes
+	 */
+	private static Set<Set<String>> getGroups(final List<CyNetwork> networks,
+			final AttributeValueMatcher attributeValueMatcher, final MatchingKeyIndex matchingKeyIndex) {
+		final MergeRequest request = createRequest(networks, Operation.UNION);
+		final AttributeBasedNetworkMerge networkMerge = new AttributeBasedNetworkMerge(match(networks, "match"),
+				request.getNodeAttributeMapping(), request.getEdgeAttributeMapping(),
+				request.getNetworkAttributeMapping(),
+				new DefaultAttributeMerger(new ColumnarAttributeConflictCollector()), attributeValueMatcher,
+				TASK_MONITOR);
+		networkMerge.setMatchingKeyIndex(matchingKeyIndex);
+
+		final Set<Set<String>> groups = new HashSet<Set<String>>();
+		final List<Map<CyNetwork, Set<CyNode>>> matchedList = networkMerge.getMatchedList(networks, true);
+		for (Map<CyNetwork, Set<CyNode>> matched : matchedList) {
+			final Set<String> group = new HashSet<String>();
+			for (Map.Entry<CyNetwork, Set<CyNode>> entry : matched.entrySet()) {
+				for (CyNode node : entry.getValue())
+					group.add(entry.getKey().getRow(node).get(KEY, String.class));
+			}
+			groups.add(group);
+		}
+		// the groups are disjoint
+		int nodes = 0;
+		for (Set<String> group : groups)
+			nodes += group.size();
+		assertEquals(matchedList.size(), groups.size());
+		assertEquals(15, nodes);
+		return groups;
+	}
+
+	@Test
+	public void testMatchingKeysSameAsPairs() {
+		final List<CyNetwork> networks = createMatchingNetworks();
+		// any other matcher is called for each pair of nodes
+		final Set<Set<String>> pairs = getGroups(networks, new DefaultAttributeValueMatcher() {
+		}, null);
+		final Set<Set<String>> keys = getGroups(networks, new DefaultAttributeValueMatcher(), null);
+		final MatchingKeyIndex matchingKeyIndex = new MatchingKeyIndex();
+		final Set<Set<String>> indexed = getGroups(networks, new DefaultAttributeValueMatcher(), matchingKeyIndex);
+
+		// the nodes of a network are not matched together, and a node is only put in
+		// the first group it matches
+		assertEquals(10, pairs.size());
+		assertTrue(pairs.contains(new HashSet<String>(list("a", "g"))));
+		assertTrue(pairs.contains(new HashSet<String>(list("b"))));
+		assertTrue(pairs.contains(new HashSet<String>(list("c", "h", "i"))));
+		assertTrue(pairs.contains(new HashSet<String>(list("f", "n"))));
+		assertTrue(pairs.contains(new HashSet<String>(list("k", "l"))));
+		assertTrue(pairs.contains(new HashSet<String>(list("e"))));
+		assertEquals(pairs, keys);
+		assertEquals(pairs, indexed);
+		assertEquals(3, matchingKeyIndex.size());
+		// read again from the shared index
+		assertEquals(pairs, getGroups(networks, new DefaultAttributeValueMatcher(), matchingKeyIndex));
+		assertEquals(3, matchingKeyIndex.size());
+	}
+
+	private static Map<CyNetwork, Set<CyNode>> group(final CyNetwork network, final String... keys) {
+		final Set<CyNode> nodes = new HashSet<CyNode>();
+		for (String key : keys)
+			nodes.add(getNode(network, key));
+		final Map<CyNetwork, Set<CyNode>> group = new HashMap<CyNetwork, Set<CyNode>>();
+		group.put(network, nodes);
+		return group;
+	}
+
+	@Test
+	public void testSelectVirtualColumns() {
+		final CyNetwork net1 = createNetwork("net1", "a", "b");
+		final CyNetwork net2 = createNetwork("net2", "a");
+		final CyTable table1 = net1.getDefaultNodeTable();
+		table1.createColumn("single", Integer.class, false);
+		table1.createColumn("converted", Integer.class, false);
+		table1.createListColumn("list", String.class, false);
+		table1.createColumn("existing", String.class, false);
+		table1.createColumn("skipped", String.class, false);
+		net2.getDefaultNodeTable().createColumn("other", Double.class, false);
+		final List<CyNetwork> networks = Arrays.asList(net1, net2);
+		final AttributeMapping mapping = createRequest(networks, Operation.UNION).getNodeAttributeMapping();
+		mapping.setMergedAttributeType("converted", ColumnType.STRING);
+		final CompiledAttributeMapping plan = mapping.compile();
+
+		final CyTable target = new InMemoryNetwork().getDefaultNodeTable();
+		target.createColumn("existing", String.class, false);
+		final int n = plan.getSizeMergedAttributes();
+		final boolean[] create = new boolean[n];
+		Arrays.fill(create, true);
+		create[mapping.getMergedAttributeIndex("skipped")] = false;
+
+		// only the first network shares the root of the merged network
+		final int ordinal = plan.getNetworkOrdinal(net1);
+		final boolean[] eligible = new boolean[2];
+		eligible[ordinal] = true;
+		final Map<CyNetwork, Set<CyNode>> group = group(net1, "a");
+		group.putAll(group(net2, "a"));
+		final List<Map<CyNetwork, Set<CyNode>>> groups = Arrays.asList(group, group(net1, "b"));
+		final int[] sources = AttributeBasedNetworkMerge.selectVirtualColumns(groups, plan, target, create,
+				eligible.clone());
+
+		assertNotNull(sources);
+		for (int i = 0; i < n; i++) {
+			final String column = plan.getMergedAttribute(i);
+			if (column.equals("single")) {
+				assertEquals(column, ordinal, sources[i]);
+				assertFalse(column, create[i]);
+			} else {
+				// mapped from both networks or from the other one, a list, of another
+				// type, already in the target table, or not created
+				assertEquals(column, -1, sources[i]);
+				assertEquals(column, !column.equals("skipped"), create[i]);
+			}
+		}
+
+		// a merged node made of two nodes of the network has values to merge
+		Arrays.fill(create, true);
+		assertNull(AttributeBasedNetworkMerge.selectVirtualColumns(Arrays.asList(group(net1, "a", "b")), plan,
+				target, create, eligible));
+		assertFalse(eligible[ordinal]);
+		for (int i = 0; i < n; i++)
+			assertTrue(plan.getMergedAttribute(i), create[i]);
+	}
+}
@@ -0,0 +1,305 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.ALIASES;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.LABEL;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.SCORE;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.addEdge;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.createNetwork;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.createRequest;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.createSubNetwork;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.getNode;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.getNodeValue;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.list;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.merge;
+import static org.cytoscape.network.merge.internal.MergeTestNetworks.setNode;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.fixture.InMemoryRootNetwork;
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+import org.cytoscape.network.merge.internal.conflict.ConflictReport;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Merges of two small networks by the merge engine, into in-memory networks.
+ *
+ * The first network is A -> B -> C, the second B -> C -> D, so that B and C and the edge
+ * between them are in both.
+ */
+public class MergeEngineTest {
+	private CyNetwork net1;
+	private CyNetwork net2;
+	private List<CyNetwork> networks;
+
+	@Before
+	public void createNetworks() {
+		net1 = createNetwork("net1", "A", "B", "C");
+		addEdge(net1, "A", "B", "pp", true);
+		addEdge(net1, "B", "C", "pp", true);
+		setNode(net1, "A", SCORE, 1);
+		setNode(net1, "B", SCORE, 2);
+		setNode(net1, "C", SCORE, 3);
+		setNode(net1, "B", LABEL, "b1");
+		setNode(net1, "B", ALIASES, list("x", "y"));
+
+		net2 = createNetwork("net2", "B", "C", "D");
+		addEdge(net2, "B", "C", "pp", true);
+		addEdge(net2, "C", "D", "pp", true);
+		setNode(net2, "B", SCORE, 2);
+		setNode(net2, "C", SCORE, 30);
+		setNode(net2, "D", SCORE, 4);
+		setNode(net2, "B", LABEL, "b2");
+		setNode(net2, "B", ALIASES, list("y", "z"));
+
+		networks = Arrays.asList(net1, net2);
+	}
+
+	@Test
+	public void testUnion() throws Exception {
+		final MergeRequest request = createRequest(networks, Operation.UNION);
+		final CyNetwork merged = merge(request);
+
+		assertEquals(4, merged.getNodeCount());
+		assertEquals(3, merged.getEdgeCount());
+		assertEquals(1, getNodeValue(merged, "A", SCORE));
+		assertEquals(2, getNodeValue(merged, "B", SCORE));
+		assertEquals(4, getNodeValue(merged, "D", SCORE));
+		// one of the values is kept, the sources are not ordered, the other one is a conflict
+		final Object score = getNodeValue(merged, "C", SCORE);
+		assertTrue(score.equals(3) || score.equals(30));
+		final Object label = getNodeValue(merged, "B", LABEL);
+		assertTrue(label.equals("b1") || label.equals("b2"));
+		assertNull(getNodeValue(merged, "A", LABEL));
+		// lists are accumulated, without duplicates
+		final List<?> aliases = (List<?>) getNodeValue(merged, "B", ALIASES);
+		assertEquals(3, aliases.size());
+		assertEquals(new HashSet<Object>(list("x", "y", "z")), new HashSet<Object>(aliases));
+		assertEquals(2, request.getConflictCollector().getConflictCount());
+		assertNotNull(request.getConflictCollector().getConflicts(getNode(merged, "C"),
+				merged.getDefaultNodeTable().getColumn(SCORE)));
+	}
+
+	@Test
+	public void testConflictReport() throws Exception {
+		final File file = File.createTempFile("conflicts", ".tsv.gz");
+		try {
+			final MergeRequest request = createRequest(networks, Operation.UNION);
+			request.setConflictReportFile(file);
+			final MergeResult result = new MergeEngine(MergeTestNetworks.TASK_MONITOR).merge(new InMemoryNetwork(), request);
+			final CyNetwork merged = result.getNetwork();
+
+			// reported conflicts are resolved while merging, none is left in the collector
+			assertEquals(2, result.getReportedConflicts());
+			assertTrue(request.getConflictCollector().isEmpty());
+			assertEquals(1, result.getInlineResolvedConflicts());
+			assertEquals("b1;b2", getNodeValue(merged, "B", LABEL));
+
+			final List<String> columns = new ArrayList<String>();
+			assertEquals(2, ConflictReport.read(file, entry -> columns.add(entry.column)));
+			Collections.sort(columns);
+			assertEquals(Arrays.asList(LABEL, SCORE), columns);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testIntersection() throws Exception {
+		final CyNetwork merged = merge(createRequest(networks, Operation.INTERSECTION));
+
+		assertEquals(2, merged.getNodeCount());
+		assertEquals(1, merged.getEdgeCount());
+		assertNull(getNode(merged, "A"));
+		assertNull(getNode(merged, "D"));
+		final CyEdge edge = merged.getEdgeList().get(0);
+		assertEquals("B", merged.getRow(edge.getSource()).get(MergeTestNetworks.KEY, String.class));
+		assertEquals("C", merged.getRow(edge.getTarget()).get(MergeTestNetworks.KEY, String.class));
+		assertEquals("pp", merged.getRow(edge).get(CyEdge.INTERACTION, String.class));
+	}
+
+	@Test
+	public void testDifference() throws Exception {
+		final CyNetwork merged = merge(createRequest(networks, Operation.DIFFERENCE));
+
+		// the nodes of the second network are removed, and the edges reaching them
+		assertEquals(1, merged.getNodeCount());
+		assertEquals(0, merged.getEdgeCount());
+		assertEquals(1, getNodeValue(merged, "A", SCORE));
+	}
+
+	@Test
+	public void testDifferenceOfUnconnectedNodes() throws Exception {
+		final MergeRequest request = createRequest(networks, Operation.DIFFERENCE);
+		request.setSubtractOnlyUnconnectedNodes(true);
+		final CyNetwork merged = merge(request);
+
+		// B is kept for the edge from A, which is not in the second network
+		assertEquals(2, merged.getNodeCount());
+		assertEquals(1, merged.getEdgeCount());
+		assertEquals(2, getNodeValue(merged, "B", SCORE));
+		final Object label = getNodeValue(merged, "B", LABEL);
+		assertTrue(label.equals("b1") || label.equals("b2"));
+	}
+
+	@Test
+	public void testDifferenceOfUnconnectedNodesWithSelfLoop() throws Exception {
+		final CyNetwork net3 = createNetwork("net3", "X", "Y");
+		addEdge(net3, "Y", "Y", "pp", true);
+		final CyNetwork net4 = createNetwork("net4", "Y");
+		final List<CyNetwork> loopNetworks = Arrays.asList(net3, net4);
+
+		final MergeRequest request = createRequest(loopNetworks, Operation.DIFFERENCE);
+		request.setSubtractOnlyUnconnectedNodes(true);
+		final CyNetwork merged = merge(request);
+
+		// Y is kept once, as both ends of the loop
+		assertEquals(2, merged.getNodeCount());
+		assertEquals(1, merged.getEdgeCount());
+		final CyEdge loop = merged.getEdgeList().get(0);
+		assertSame(loop.getSource(), loop.getTarget());
+		assertSame(getNode(merged, "Y"), loop.getSource());
+
+		final MergeRequest estimated = createRequest(loopNetworks, Operation.DIFFERENCE);
+		estimated.setSubtractOnlyUnconnectedNodes(true);
+		final MergeEstimate estimate = new MergeEngine(MergeTestNetworks.TASK_MONITOR).estimate(estimated);
+		assertEquals(2, estimate.getNodeCount(Operation.DIFFERENCE));
+		assertEquals(1, estimate.getEdgeCount(Operation.DIFFERENCE));
+	}
+
+	@Test
+	public void testNodesOnly() throws Exception {
+		addEdge(net2, "C", "B", "pd", true);
+		assertEquals(1, merge(createRequest(networks, Operation.INTERSECTION)).getEdgeCount());
+
+		final MergeRequest request = createRequest(networks, Operation.INTERSECTION);
+		request.setNodesOnly(true);
+		final CyNetwork merged = merge(request);
+
+		// all the edges between the merged nodes are kept
+		assertEquals(2, merged.getNodeCount());
+		assertEquals(2, merged.getEdgeCount());
+	}
+
+	@Test
+	public void testParallelMergeReadsSnapshot() throws Exception {
+		final MergeEngine engine = new MergeEngine(MergeTestNetworks.TASK_MONITOR);
+		final MergeResult serial = engine.merge(new InMemoryNetwork(), createRequest(networks, Operation.UNION));
+		assertEquals(0, serial.getCopiedCells());
+
+		// the worker threads never read the source tables
+		final MergeRequest request = createRequest(networks, Operation.UNION);
+		request.setParallelism(2);
+		final MergeResult parallel = engine.merge(new InMemoryNetwork(), request);
+		assertTrue(parallel.getCopiedCells() > 0);
+		assertEquals(4, parallel.getNetwork().getNodeCount());
+		assertEquals(1, getNodeValue(parallel.getNetwork(), "A", SCORE));
+	}
+
+	@Test
+	public void testSharedRoot() throws Exception {
+		final InMemoryRootNetwork root = new InMemoryRootNetwork();
+		final CySubNetwork sub1 = createSubNetwork(root, "net1", "A", "B", "C");
+		addEdge(sub1, "A", "B", "pp", true);
+		addEdge(sub1, "B", "C", "pp", true);
+		// B is the same node in both networks, C is not
+		final CyNode b = getNode(sub1, "B");
+		final CySubNetwork sub2 = createSubNetwork(root, "net2", "C", "D");
+		sub2.addNode(b);
+		sub2.getRow(b).set(MergeTestNetworks.KEY, "B");
+		addEdge(sub2, "B", "C", "pp", true);
+		addEdge(sub2, "C", "D", "pp", true);
+		setNode(sub1, "A", SCORE, 1);
+		setNode(sub1, "B", SCORE, 2);
+		setNode(sub2, "B", SCORE, 2);
+		setNode(sub2, "D", SCORE, 4);
+		setNode(sub1, "B", LABEL, "b");
+		setNode(sub2, "B", LABEL, "b");
+		final List<CyNetwork> subNetworks = Arrays.<CyNetwork>asList(sub1, sub2);
+		final int sharedColumns = root.getSharedNodeTable().getColumns().size();
+
+		final CySubNetwork serial = mergeIntoRoot(root, subNetworks, 1);
+		final CySubNetwork parallel = mergeIntoRoot(root, subNetworks, 2);
+		for (CySubNetwork merged: Arrays.asList(serial, parallel)) {
+			assertEquals(4, merged.getNodeCount());
+			assertEquals(3, merged.getEdgeCount());
+			// a group of a single node or edge keeps it, rather than a copy
+			assertSame(getNode(sub1, "A"), getNode(merged, "A"));
+			assertSame(b, getNode(merged, "B"));
+			assertSame(getNode(sub2, "D"), getNode(merged, "D"));
+			final CyNode c = getNode(merged, "C");
+			assertFalse(c == getNode(sub1, "C") || c == getNode(sub2, "C"));
+			assertSame(sub1.getConnectingEdgeList(getNode(sub1, "A"), b, CyEdge.Type.ANY).get(0),
+					merged.getConnectingEdgeList(getNode(merged, "A"), b, CyEdge.Type.ANY).get(0));
+
+			// the label merged into the shared name is not written to the shared row of B
+			assertNull(root.getSharedNodeTable().getRow(b.getSUID()).getRaw(CyRootNetwork.SHARED_NAME));
+			assertEquals(sharedColumns, root.getSharedNodeTable().getColumns().size());
+			assertEquals("b", getNodeValue(merged, "B", LABEL));
+		}
+
+		// the parallel merge writes what the serial one does
+		for (String key: Arrays.asList("A", "B", "C", "D"))
+			assertEquals(getNodeValue(serial, key, SCORE), getNodeValue(parallel, key, SCORE));
+		assertEquals(2, getNodeValue(parallel, "B", SCORE));
+		assertEquals(4, getNodeValue(parallel, "D", SCORE));
+	}
+
+	/**
+	 *
+	 * @return a new subnetwork of the root, into which the subnetworks are merged, reusing
+	 *         their nodes and edges; their labels are also merged into the shared name
+	 */
+	private static CySubNetwork mergeIntoRoot(final CyRootNetwork root, final List<CyNetwork> subNetworks,
+			final int parallelism) throws Exception {
+		final MergeRequest request = createRequest(subNetworks, Operation.UNION);
+		for (CyNetwork network: subNetworks)
+			request.getNodeAttributeMapping().setOriginalAttribute(network, LABEL, CyRootNetwork.SHARED_NAME);
+		request.setReuseRootElements(true);
+		request.setParallelism(parallelism);
+		final CySubNetwork merged = root.addSubNetwork();
+		new MergeEngine(MergeTestNetworks.TASK_MONITOR).merge(merged, request);
+		return merged;
+	}
+}
@@ -0,0 +1,177 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+import org.cytoscape.network.merge.internal.conflict.ColumnarAttributeConflictCollector;
+import org.cytoscape.network.merge.internal.model.AttributeMapping;
+import org.cytoscape.network.merge.internal.model.AttributeMappingImpl;
+import org.cytoscape.network.merge.internal.model.MatchingAttribute;
+import org.cytoscape.network.merge.internal.model.MatchingAttributeImpl;
+import org.cytoscape.work.TaskMonitor;
+
+/**
+ * Small source networks for the tests, matched by key, with an integer, a string and a
+ * list column on their nodes and edges.
+ */
+final class MergeTestNetworks {
+	static final String KEY = "key";
+	static final String SCORE = "score";
+	static final String LABEL = "label";
+	static final String ALIASES = "aliases";
+
+	static final TaskMonitor TASK_MONITOR = new TaskMonitor() {
+		@Override
+		public void setTitle(final String title) {
+		}
+
+		@Override
+		public void setProgress(final double progress) {
+		}
+
+		@Override
+		public void setStatusMessage(final String statusMessage) {
+		}
+
+		@Override
+		public void showMessage(final Level level, final String message) {
+		}
+	};
+
+	private MergeTestNetworks() {
+	}
+
+	/**
+	 *
+	 * @return a network with a node for each key
+	 */
+	static CyNetwork createNetwork(final String name, final String... keys) {
+		final CyNetwork network = new InMemoryNetwork();
+		initNetwork(network, name, keys);
+		return network;
+	}
+
+	/**
+	 *
+	 * @return a subnetwork of the root with a new node for each key
+	 */
+	static CySubNetwork createSubNetwork(final CyRootNetwork root, final String name, final String... keys) {
+		final CySubNetwork network = root.addSubNetwork();
+		initNetwork(network, name, keys);
+		return network;
+	}
+
+	private static void initNetwork(final CyNetwork network, final String name, final String... keys) {
+		network.getRow(network).set(CyNetwork.NAME, name);
+		createColumns(network.getDefaultNodeTable());
+		network.getDefaultNodeTable().createColumn(KEY, String.class, false);
+		createColumns(network.getDefaultEdgeTable());
+		for (String key: keys) {
+			final CyNode node = network.addNode();
+			network.getRow(node).set(CyNetwork.NAME, key);
+			network.getRow(node).set(KEY, key);
+		}
+	}
+
+	private static void createColumns(final CyTable table) {
+		table.createColumn(SCORE, Integer.class, false);
+		table.createColumn(LABEL, String.class, false);
+		table.createListColumn(ALIASES, String.class, false);
+	}
+
+	/**
+	 *
+	 * @return the node with the key, or null
+	 */
+	static CyNode getNode(final CyNetwork network, final String key) {
+		for (CyNode node: network.getNodeList()) {
+			if (key.equals(network.getRow(node).get(KEY, String.class)))
+				return node;
+		}
+		return null;
+	}
+
+	static CyEdge addEdge(final CyNetwork network, final String source, final String target,
+			final String interaction, final boolean directed) {
+		final CyEdge edge = network.addEdge(getNode(network, source), getNode(network, target), directed);
+		network.getRow(edge).set(CyEdge.INTERACTION, interaction);
+		return edge;
+	}
+
+	static void setNode(final CyNetwork network, final String key, final String column, final Object value) {
+		network.getRow(getNode(network, key)).set(column, value);
+	}
+
+	static Object getNodeValue(final CyNetwork network, final String key, final String column) {
+		return network.getRow(getNode(network, key)).getRaw(column);
+	}
+
+	static List<String> list(final String... values) {
+		return Arrays.asList(values);
+	}
+
+	static MatchingAttribute match(final List<CyNetwork> networks, final String column) {
+		final MatchingAttribute matchingAttribute = new MatchingAttributeImpl();
+		for (CyNetwork network: networks)
+			matchingAttribute.putAttributeForMatching(network, network.getDefaultNodeTable().getColumn(column));
+		return matchingAttribute;
+	}
+
+	/**
+	 *
+	 * @return a request merging all the columns, matching the nodes by key
+	 */
+	static MergeRequest createRequest(final List<CyNetwork> networks, final Operation operation) {
+		final AttributeMapping nodeAttributeMapping = new AttributeMappingImpl();
+		final AttributeMapping edgeAttributeMapping = new AttributeMappingImpl();
+		final AttributeMapping networkAttributeMapping = new AttributeMappingImpl();
+		for (CyNetwork network: networks) {
+			nodeAttributeMapping.addNetwork(network, network.getDefaultNodeTable());
+			edgeAttributeMapping.addNetwork(network, network.getDefaultEdgeTable());
+			networkAttributeMapping.addNetwork(network, network.getDefaultNetworkTable());
+		}
+		return new MergeRequest(networks, operation, match(networks, KEY), nodeAttributeMapping,
+				edgeAttributeMapping, networkAttributeMapping, new ColumnarAttributeConflictCollector());
+	}
+
+	/**
+	 *
+	 * @return the merged network, a new one
+	 */
+	static CyNetwork merge(final MergeRequest request) throws IOException {
+		return new MergeEngine(TASK_MONITOR).merge(new InMemoryNetwork(), request).getNetwork();
+	}
+}
@@ -0,0 +1,173 @@
+package org.cytoscape.network.merge.internal.conflict;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AttributeConflictCollectorImplTest {
+	private static final int NODES = 30;
+	private static final int COLUMNS = 6;
+
+	private CyNetwork fromNetwork;
+	private CyNode[] from;
+	private CyColumn fromAttr;
+
+	@Before
+	public void createSources() {
+		fromNetwork = new InMemoryNetwork();
+		fromNetwork.getDefaultNodeTable().createColumn("value", String.class, false);
+		fromAttr = fromNetwork.getDefaultNodeTable().getColumn("value");
+		from = new CyNode[NODES];
+		for (int i = 0; i < NODES; i++) {
+			from[i] = fromNetwork.addNode();
+			fromNetwork.getRow(from[i]).set("value", "v" + (char) ('a' + i % 26));
+		}
+	}
+
+	/**
+	 *
+	 * @return a target network with String columns c0, c1..., every node conflicting in
+	 *         some of them with two sources
+	 */
+	private CyNetwork createTarget(final AttributeConflictCollector collector) {
+		final CyNetwork toNetwork = new InMemoryNetwork();
+		for (int k = 0; k < COLUMNS; k++)
+			toNetwork.getDefaultNodeTable().createColumn("c" + k, String.class, false);
+		for (int i = 0; i < NODES; i++) {
+			final CyNode to = toNetwork.addNode();
+			for (int k = 0; k < COLUMNS; k++) {
+				if ((i + k) % 3 == 0)
+					continue;
+				toNetwork.getRow(to).set("c" + k, "t");
+				final CyColumn toAttr = toNetwork.getDefaultNodeTable().getColumn("c" + k);
+				collector.addConflict(from[i], fromAttr, to, toAttr);
+				collector.addConflict(from[(i + k) % NODES], fromAttr, to, toAttr);
+			}
+		}
+		return toNetwork;
+	}
+
+	@Test
+	public void testForEachConflictOfColumn() {
+		final AttributeConflictCollector collector = new AttributeConflictCollectorImpl();
+		final CyNetwork toNetwork = createTarget(collector);
+		final CyColumn c1 = toNetwork.getDefaultNodeTable().getColumn("c1");
+
+		final List<CyIdentifiable> visited = new ArrayList<CyIdentifiable>();
+		collector.forEachConflict(c1, new AttributeConflictCollector.ConflictVisitor() {
+			@Override
+			public boolean visit(CyIdentifiable to, CyColumn toAttr, Map<CyIdentifiable, CyColumn> mapFromGOFromAttr) {
+				assertEquals("c1", toAttr.getName());
+				visited.add(to);
+				return to.getSUID() % 2 == 0;
+			}
+		});
+		assertEquals(NODES * 2 / 3, visited.size());
+
+		// the resolved ones are removed, the other columns are left as they were
+		for (CyIdentifiable to : visited)
+			assertEquals(to.getSUID() % 2 == 0, collector.getConflicts(to, c1) == null);
+		assertEquals(COLUMNS, collector.getConflictColumns().size());
+	}
+
+	@Test
+	public void testConflictColumns() {
+		final AttributeConflictCollector collector = new AttributeConflictCollectorImpl();
+		final CyNetwork toNetwork = new InMemoryNetwork();
+		toNetwork.getDefaultNodeTable().createColumn("a", String.class, false);
+		toNetwork.getDefaultNodeTable().createColumn("b", String.class, false);
+		final CyColumn a = toNetwork.getDefaultNodeTable().getColumn("a");
+		final CyColumn b = toNetwork.getDefaultNodeTable().getColumn("b");
+		final CyNode to = toNetwork.addNode();
+
+		collector.addConflict(from[0], fromAttr, to, b);
+		collector.addConflict(from[1], fromAttr, to, a);
+		collector.addConflict(from[1], fromAttr, to, a);
+		assertEquals(2, collector.getConflictCount());
+		assertEquals(Arrays.asList(b, a), collector.getConflictColumns());
+		// no conflict in this cell, while the target has some in another column
+		assertNull(collector.getConflicts(from[0], a));
+		assertFalse(collector.removeConflicts(from[0], a));
+
+		assertTrue(collector.removeConflict(from[0], fromAttr, to, b));
+		assertEquals(Arrays.asList(a), collector.getConflictColumns());
+		assertEquals(1, collector.getMapToGOAttr().size());
+		assertTrue(collector.removeConflicts(to, a));
+		assertTrue(collector.isEmpty());
+		assertEquals(0, collector.getConflictCount());
+	}
+
+	@Test
+	public void testParallelSameAsSerial() {
+		checkParallelSameAsSerial(new AttributeConflictCollectorImpl(), new AttributeConflictCollectorImpl());
+	}
+
+	@Test
+	public void testParallelSameAsSerialColumnar() {
+		checkParallelSameAsSerial(new ColumnarAttributeConflictCollector(), new ColumnarAttributeConflictCollector());
+	}
+
+	private void checkParallelSameAsSerial(final AttributeConflictCollector serial, final AttributeConflictCollector parallel) {
+		final CyNetwork serialNetwork = createTarget(serial);
+		final CyNetwork parallelNetwork = createTarget(parallel);
+		final List<AttributeConflictHandler> handlers = Arrays.<AttributeConflictHandler> asList(new DefaultAttributeConflictHandler());
+
+		final int handled = new AttributeConflictManager(serial, handlers).handleConflicts();
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(handled, new AttributeConflictManager(parallel, handlers).handleConflictsInParallel(pool));
+		} finally {
+			pool.shutdown();
+		}
+
+		assertTrue(serial.isEmpty());
+		assertTrue(parallel.isEmpty());
+		final List<CyNode> serialNodes = serialNetwork.getNodeList();
+		final List<CyNode> parallelNodes = parallelNetwork.getNodeList();
+		for (int i = 0; i < NODES; i++) {
+			for (int k = 0; k < COLUMNS; k++) {
+				final String expected = serialNetwork.getRow(serialNodes.get(i)).get("c" + k, String.class);
+				assertEquals(expected, parallelNetwork.getRow(parallelNodes.get(i)).get("c" + k, String.class));
+			}
+		}
+	}
+}
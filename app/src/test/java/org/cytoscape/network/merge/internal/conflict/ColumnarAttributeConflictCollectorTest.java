@@ -0,0 +1,271 @@
+package org.cytoscape.network.merge.internal.conflict;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnarAttributeConflictCollectorTest {
+	private static final int NODES = 20;
+
+	private CyNode[] from;
+	private CyNode[] to;
+	private CyColumn fromAttr;
+	private CyColumn toA;
+	private CyColumn toB;
+	private ColumnarAttributeConflictCollector collector;
+
+	@Before
+	public void createNodes() {
+		final CyNetwork fromNetwork = new InMemoryNetwork();
+		fromNetwork.getDefaultNodeTable().createColumn("value", String.class, false);
+		fromAttr = fromNetwork.getDefaultNodeTable().getColumn("value");
+		final CyNetwork toNetwork = new InMemoryNetwork();
+		toNetwork.getDefaultNodeTable().createColumn("a", String.class, false);
+		toNetwork.getDefaultNodeTable().createColumn("b", String.class, false);
+		toA = toNetwork.getDefaultNodeTable().getColumn("a");
+		toB = toNetwork.getDefaultNodeTable().getColumn("b");
+
+		from = new CyNode[NODES];
+		to = new CyNode[NODES];
+		for (int i = 0; i < NODES; i++) {
+			from[i] = fromNetwork.addNode();
+			to[i] = toNetwork.addNode();
+		}
+		collector = new ColumnarAttributeConflictCollector(4);
+	}
+
+	/**
+	 *
+	 * @return the SUIDs of the keys, in the order of the map
+	 */
+	private static List<Long> suids(final Map<CyIdentifiable, CyColumn> conflicts) {
+		final List<Long> suids = new ArrayList<Long>();
+		for (CyIdentifiable go : conflicts.keySet())
+			suids.add(go.getSUID());
+		return suids;
+	}
+
+	private static List<Long> suids(final CyIdentifiable... gos) {
+		final List<Long> suids = new ArrayList<Long>();
+		for (CyIdentifiable go : gos)
+			suids.add(go.getSUID());
+		return suids;
+	}
+
+	@Test
+	public void testSortKeepsInsertionOrder() {
+		// the sources of one cell are interleaved with the other cells, in no SUID order
+		collector.addConflict(from[3], fromAttr, to[5], toB);
+		collector.addConflict(from[3], fromAttr, to[1], toA);
+		collector.addConflict(from[7], fromAttr, to[5], toB);
+		collector.addConflict(from[0], fromAttr, to[0], toA);
+		collector.addConflict(from[1], fromAttr, to[5], toB);
+		collector.addConflict(from[9], fromAttr, to[1], toA);
+
+		assertEquals(6, collector.getConflictCount());
+		assertEquals(suids(from[3], from[7], from[1]), suids(collector.getConflicts(to[5], toB)));
+		assertEquals(suids(from[3], from[9]), suids(collector.getConflicts(to[1], toA)));
+		// in the order of their first conflict
+		assertEquals(Arrays.asList(toB, toA), collector.getConflictColumns());
+		assertNull(collector.getConflicts(to[5], toA));
+	}
+
+	@Test
+	public void testAddAfterRead() {
+		collector.addConflict(from[4], fromAttr, to[2], toA);
+		collector.addConflict(from[2], fromAttr, to[2], toA);
+		assertEquals(suids(from[4], from[2]), suids(collector.getConflicts(to[2], toA)));
+
+		// appended after the sorted slots, then merged with them on the next read
+		collector.addConflict(from[1], fromAttr, to[1], toA);
+		collector.addConflict(from[0], fromAttr, to[2], toA);
+		assertEquals(suids(from[4], from[2], from[0]), suids(collector.getConflicts(to[2], toA)));
+		assertEquals(suids(from[1]), suids(collector.getConflicts(to[1], toA)));
+		assertEquals(4, collector.getConflictCount());
+	}
+
+	@Test
+	public void testRemoveConflictLeavesTombstone() {
+		collector.addConflict(from[0], fromAttr, to[0], toA);
+		collector.addConflict(from[1], fromAttr, to[0], toA);
+		collector.addConflict(from[2], fromAttr, to[0], toA);
+
+		assertTrue(collector.removeConflict(from[1], fromAttr, to[0], toA));
+		assertFalse(collector.removeConflict(from[1], fromAttr, to[0], toA));
+		assertFalse(collector.removeConflict(from[0], fromAttr, to[0], toB));
+		assertEquals(2, collector.getConflictCount());
+		final Map<CyIdentifiable, CyColumn> conflicts = collector.getConflicts(to[0], toA);
+		assertEquals(suids(from[0], from[2]), suids(conflicts));
+		assertEquals(2, conflicts.size());
+
+		// the visitor does not see the removed source
+		final List<Long> visited = new ArrayList<Long>();
+		collector.forEachConflict(toA, new AttributeConflictCollector.ConflictVisitor() {
+			@Override
+			public boolean visit(CyIdentifiable go, CyColumn toAttr, Map<CyIdentifiable, CyColumn> mapFromGOFromAttr) {
+				assertEquals(2, mapFromGOFromAttr.size());
+				visited.addAll(suids(mapFromGOFromAttr));
+				return false;
+			}
+		});
+		assertEquals(suids(from[0], from[2]), visited);
+
+		assertTrue(collector.removeConflict(from[0], fromAttr, to[0], toA));
+		assertTrue(collector.removeConflict(from[2], fromAttr, to[0], toA));
+		assertTrue(collector.isEmpty());
+		assertNull(collector.getConflicts(to[0], toA));
+		assertTrue(collector.getConflictColumns().isEmpty());
+	}
+
+	@Test
+	public void testRemoveConflicts() {
+		collector.addConflict(from[0], fromAttr, to[0], toA);
+		collector.addConflict(from[1], fromAttr, to[0], toA);
+		collector.addConflict(from[2], fromAttr, to[0], toB);
+		collector.addConflict(from[3], fromAttr, to[1], toA);
+
+		assertTrue(collector.removeConflicts(to[0], toA));
+		assertFalse(collector.removeConflicts(to[0], toA));
+		assertEquals(2, collector.getConflictCount());
+		assertNull(collector.getConflicts(to[0], toA));
+		assertEquals(suids(from[2]), suids(collector.getConflicts(to[0], toB)));
+		assertEquals(suids(from[3]), suids(collector.getConflicts(to[1], toA)));
+		assertEquals(2, collector.getMapToGOAttr().size());
+	}
+
+	@Test
+	public void testCompactionAfterRemovals() {
+		for (int i = 0; i < NODES; i++)
+			for (int j = 0; j < NODES; j++)
+				collector.addConflict(from[j], fromAttr, to[i], j % 2 == 0 ? toA : toB);
+		for (int i = 0; i < NODES; i++)
+			if (i % 4 != 0)
+				assertTrue(collector.removeConflicts(to[i], toA));
+
+		// more than half of the slots are tombstones: the next read compacts them
+		collector.addConflict(from[0], fromAttr, to[1], toA);
+		assertEquals(NODES * NODES / 2 + NODES / 4 * NODES / 2 + 1, collector.getConflictCount());
+		assertEquals(suids(from[0]), suids(collector.getConflicts(to[1], toA)));
+		assertEquals(NODES / 2, collector.getConflicts(to[4], toA).size());
+		assertEquals(NODES / 2, collector.getConflicts(to[3], toB).size());
+		assertNull(collector.getConflicts(to[2], toA));
+	}
+
+	@Test
+	public void testVisitorRemovesResolvedCells() {
+		collector.addConflict(from[0], fromAttr, to[0], toA);
+		collector.addConflict(from[1], fromAttr, to[0], toA);
+		collector.addConflict(from[2], fromAttr, to[1], toA);
+		collector.addConflict(from[3], fromAttr, to[1], toB);
+
+		collector.forEachConflict(toA, new AttributeConflictCollector.ConflictVisitor() {
+			@Override
+			public boolean visit(CyIdentifiable go, CyColumn toAttr, Map<CyIdentifiable, CyColumn> mapFromGOFromAttr) {
+				return go.getSUID().equals(to[0].getSUID());
+			}
+		});
+		assertEquals(2, collector.getConflictCount());
+		assertNull(collector.getConflicts(to[0], toA));
+
+		final List<CyColumn> visited = new ArrayList<CyColumn>();
+		collector.forEachConflict(new AttributeConflictCollector.ConflictVisitor() {
+			@Override
+			public boolean visit(CyIdentifiable go, CyColumn toAttr, Map<CyIdentifiable, CyColumn> mapFromGOFromAttr) {
+				visited.add(toAttr);
+				return true;
+			}
+		});
+		assertEquals(Arrays.asList(toA, toB), visited);
+		assertTrue(collector.isEmpty());
+	}
+
+	@Test
+	public void testSameConflictsAsMapCollector() {
+		final AttributeConflictCollector reference = new AttributeConflictCollectorImpl();
+		final CyColumn[] toAttrs = { toA, toB };
+		final Random random = new Random(42);
+		for (int n = 0; n < 2000; n++) {
+			final CyNode go = to[random.nextInt(NODES)];
+			final CyColumn attr = toAttrs[random.nextInt(2)];
+			final int action = random.nextInt(10);
+			if (action < 6) {
+				final CyNode source = from[random.nextInt(NODES)];
+				// the map collector keeps one column by source, so no duplicates
+				final Map<CyIdentifiable, CyColumn> conflicts = collector.getConflicts(go, attr);
+				if (conflicts != null && suids(conflicts).contains(source.getSUID()))
+					continue;
+				reference.addConflict(source, fromAttr, go, attr);
+				collector.addConflict(source, fromAttr, go, attr);
+			} else if (action < 9) {
+				final CyNode source = from[random.nextInt(NODES)];
+				assertEquals(reference.removeConflict(source, fromAttr, go, attr),
+						collector.removeConflict(source, fromAttr, go, attr));
+			} else {
+				assertEquals(reference.removeConflicts(go, attr), collector.removeConflicts(go, attr));
+			}
+			assertEquals(reference.getConflictCount(), collector.getConflictCount());
+		}
+
+		assertEquals(reference.isEmpty(), collector.isEmpty());
+		assertEquals(toSUIDs(reference), toSUIDs(collector));
+	}
+
+	/**
+	 *
+	 * @return by column name and target SUID, the sorted SUIDs of the sources
+	 */
+	private static Map<String, List<Long>> toSUIDs(final AttributeConflictCollector collector) {
+		final Map<String, List<Long>> conflicts = new HashMap<String, List<Long>>();
+		collector.forEachConflict(new AttributeConflictCollector.ConflictVisitor() {
+			@Override
+			public boolean visit(CyIdentifiable go, CyColumn toAttr, Map<CyIdentifiable, CyColumn> mapFromGOFromAttr) {
+				final List<Long> sources = suids(mapFromGOFromAttr);
+				Collections.sort(sources);
+				conflicts.put(toAttr.getName() + ":" + go.getSUID(), sources);
+				return false;
+			}
+		});
+		return conflicts;
+	}
+}
@@ -0,0 +1,135 @@
+package org.cytoscape.network.merge.internal.conflict;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.model.SourceSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConflictReportTest {
+	private File file;
+	private CyNetwork from;
+	private CyColumn fromAttr;
+	private CyNetwork to;
+	private CyColumn toAttr;
+	private CyNode target;
+
+	@Before
+	public void createNetworks() throws IOException {
+		file = File.createTempFile("conflicts", ".tsv.gz");
+		from = new InMemoryNetwork();
+		from.getDefaultNodeTable().createColumn("value", String.class, false);
+		fromAttr = from.getDefaultNodeTable().getColumn("value");
+		to = new InMemoryNetwork();
+		to.getDefaultNodeTable().createColumn("merged", String.class, false);
+		toAttr = to.getDefaultNodeTable().getColumn("merged");
+		target = to.addNode();
+	}
+
+	@After
+	public void deleteFile() {
+		file.delete();
+	}
+
+	private CyNode addSource(final String value) {
+		final CyNode node = from.addNode();
+		from.getRow(node).set("value", value);
+		return node;
+	}
+
+	private List<ConflictReport.Entry> read() throws IOException {
+		final List<ConflictReport.Entry> entries = new ArrayList<ConflictReport.Entry>();
+		ConflictReport.read(file, entry -> {
+			final ConflictReport.Entry copy = new ConflictReport.Entry();
+			copy.target = entry.target;
+			copy.column = entry.column;
+			copy.sourceNetwork = entry.sourceNetwork;
+			copy.source = entry.source;
+			copy.value = entry.value;
+			return entries.add(copy);
+		});
+		return entries;
+	}
+
+	@Test
+	public void testValues() throws IOException {
+		final CyNode empty = addSource("");
+		final CyNode missing = addSource(null);
+		final CyNode escaped = addSource("a\tb\\N\n");
+		final CyNode literal = addSource("\\N");
+
+		try (ConflictReport report = new ConflictReport(file, Collections.singletonList(from))) {
+			report.addConflict(empty, fromAttr, target, toAttr);
+			report.addConflict(missing, fromAttr, target, toAttr);
+			report.addConflict(escaped, fromAttr, target, toAttr);
+			report.addConflict(literal, fromAttr, target, toAttr);
+			assertEquals(4, report.getConflictCount());
+		}
+
+		final List<ConflictReport.Entry> entries = read();
+		assertEquals(4, entries.size());
+		// an empty value and no value are told apart
+		assertEquals("", entries.get(0).value);
+		assertNull(entries.get(1).value);
+		assertEquals("a\tb\\N\n", entries.get(2).value);
+		assertEquals("\\N", entries.get(3).value);
+
+		final ConflictReport.Entry entry = entries.get(1);
+		assertEquals(target.getSUID().longValue(), entry.target);
+		assertEquals("merged", entry.column);
+		assertEquals(from.getSUID(), entry.sourceNetwork);
+		assertEquals(missing.getSUID().longValue(), entry.source);
+	}
+
+	@Test
+	public void testSourceSnapshot() throws IOException {
+		final CyNode source = addSource("before");
+		final SourceSnapshot snapshot = SourceSnapshot.take(Collections.singletonList(from), Arrays.asList(fromAttr),
+				Collections.<CyColumn> emptyList(), Collections.<CyColumn> emptyList());
+		from.getRow(source).set("value", "after");
+
+		// the value merged, not the one the table has now
+		try (ConflictReport report = new ConflictReport(file, Collections.singletonList(from))) {
+			report.setSourceSnapshot(snapshot);
+			report.addConflict(source, fromAttr, target, toAttr);
+		}
+		assertEquals("before", read().get(0).value);
+	}
+}
@@ -0,0 +1,243 @@
+package org.cytoscape.network.merge.internal.model;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Lookups by name go through indexes kept up to date, or rebuilt, as the mapping changes.
+ * They are checked against a scan of the mapping.
+ */
+public class AttributeMappingImplTest {
+	private static final String[] NAMES = { "a", "b", "c", "d", "e", "f" };
+
+	private AttributeMappingImpl mapping;
+	private List<CyNetwork> networks;
+
+	@Before
+	public void createMapping() {
+		mapping = new AttributeMappingImpl();
+		networks = new ArrayList<CyNetwork>();
+		addNetwork("a", "b", "c");
+		addNetwork("b", "c", "d");
+	}
+
+	private CyNetwork addNetwork(final String... columns) {
+		final CyNetwork network = new InMemoryNetwork();
+		for (String column : columns)
+			network.getDefaultNodeTable().createColumn(column, String.class, false);
+		mapping.addNetwork(network, network.getDefaultNodeTable(), new HashSet<String>(Arrays.asList(columns)));
+		networks.add(network);
+		return network;
+	}
+
+	private static void createColumn(final CyNetwork network, final String name) {
+		if (network.getDefaultNodeTable().getColumn(name) == null)
+			network.getDefaultNodeTable().createColumn(name, String.class, false);
+	}
+
+	/**
+	 * Check the index of every merged name, and of a missing one, against a scan.
+	 */
+	private void assertMergedIndex() {
+		final List<String> merged = Arrays.asList(mapping.getMergedAttributes());
+		for (String name : merged) {
+			assertEquals(name, merged.indexOf(name), mapping.getMergedAttributeIndex(name));
+			assertTrue(mapping.containsMergedAttribute(name));
+		}
+		for (String name : NAMES)
+			assertEquals(name, merged.indexOf(name), mapping.getMergedAttributeIndex(name));
+		assertEquals(-1, mapping.getMergedAttributeIndex("missing"));
+	}
+
+	/**
+	 * Add a network with the given columns, checking that each one goes to the first row
+	 * free for it whose merged name, or original name in another network, is the same.
+	 */
+	private void assertNetworkAdded(final String... columns) {
+		final int rows = mapping.getSizeMergedAttributes();
+		final String[] merged = mapping.getMergedAttributes();
+		final List<String> sorted = new ArrayList<String>(Arrays.asList(columns));
+		Collections.sort(sorted);
+		final Set<Integer> taken = new HashSet<Integer>();
+		final Map<String, Integer> expected = new HashMap<String, Integer>();
+		for (String column : sorted) {
+			for (int row = 0; row < rows; row++) {
+				if (taken.contains(row))
+					continue;
+				if (merged[row].equals(column) || mapping.getOriginalAttributeMap(row).containsValue(column)) {
+					taken.add(row);
+					expected.put(column, row);
+					break;
+				}
+			}
+		}
+
+		final CyNetwork network = addNetwork(columns);
+		for (Map.Entry<String, Integer> entry : expected.entrySet())
+			assertEquals(entry.getKey(), mapping.getOriginalAttribute(network, entry.getValue()));
+		assertEquals(rows + columns.length - expected.size(), mapping.getSizeMergedAttributes());
+		assertMergedIndex();
+	}
+
+	@Test
+	public void testAddNetworks() {
+		assertEquals(Arrays.asList("a", "b", "c", "d"), Arrays.asList(mapping.getMergedAttributes()));
+		assertEquals("b", mapping.getOriginalAttribute(networks.get(1), "b"));
+		assertNull(mapping.getOriginalAttribute(networks.get(1), "a"));
+		assertMergedIndex();
+	}
+
+	@Test
+	public void testSetMergedAttribute() {
+		assertEquals("b", mapping.setMergedAttribute(1, "x"));
+		assertEquals(-1, mapping.getMergedAttributeIndex("b"));
+		assertEquals(1, mapping.getMergedAttributeIndex("x"));
+		assertMergedIndex();
+
+		// still found by its original name, and by its new merged name
+		assertNetworkAdded("b", "x");
+		assertEquals("b", mapping.getOriginalAttribute(networks.get(2), 1));
+
+		// a duplicate merged name is found at its first row
+		mapping.setMergedAttribute(3, "a");
+		assertEquals(0, mapping.getMergedAttributeIndex("a"));
+		mapping.setMergedAttribute(0, "y");
+		assertEquals(3, mapping.getMergedAttributeIndex("a"));
+		assertMergedIndex();
+	}
+
+	@Test
+	public void testSetOriginalAttribute() {
+		final CyNetwork network = networks.get(0);
+		network.getDefaultNodeTable().createColumn("z", String.class, false);
+		assertEquals("a", mapping.setOriginalAttribute(network, "z", 0));
+		// found by its new original name only
+		assertNetworkAdded("z", "e");
+		assertEquals("z", mapping.getOriginalAttribute(networks.get(2), 0));
+		assertNetworkAdded("a");
+		assertEquals("a", mapping.getOriginalAttribute(networks.get(3), 0));
+	}
+
+	@Test
+	public void testAddAttributes() {
+		final Map<CyNetwork, String> columns = new HashMap<CyNetwork, String>();
+		columns.put(networks.get(0), "a");
+		columns.put(networks.get(1), "d");
+
+		// in the middle, so the rows after it move
+		assertEquals("m", mapping.addAttributes(columns, "m", 1));
+		assertEquals(Arrays.asList("a", "m", "b", "c", "d"), Arrays.asList(mapping.getMergedAttributes()));
+		assertMergedIndex();
+		// at the end, a taken name gets a suffix
+		assertEquals("m.1", mapping.addAttributes(columns, "m"));
+		assertEquals(5, mapping.getMergedAttributeIndex("m.1"));
+		assertMergedIndex();
+		assertNetworkAdded("d", "b", "n");
+	}
+
+	@Test
+	public void testRemoveMergedAttribute() {
+		assertEquals("b", mapping.removeMergedAttribute("b"));
+		assertNull(mapping.removeMergedAttribute("b"));
+		assertEquals(Arrays.asList("a", "c", "d"), Arrays.asList(mapping.getMergedAttributes()));
+		assertMergedIndex();
+		assertNetworkAdded("b", "c", "d");
+	}
+
+	@Test
+	public void testRemoveOriginalAttribute() {
+		// the last original column of a row removes the row
+		assertEquals("a", mapping.removeOriginalAttribute(networks.get(0), "a"));
+		assertFalse(mapping.containsMergedAttribute("a"));
+		assertEquals("b", mapping.removeOriginalAttribute(networks.get(0), "b"));
+		assertTrue(mapping.containsMergedAttribute("b"));
+		assertMergedIndex();
+		assertNetworkAdded("a", "b");
+	}
+
+	@Test
+	public void testRemoveNetwork() {
+		mapping.removeNetwork(networks.get(1));
+		assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(mapping.getMergedAttributes()));
+		assertMergedIndex();
+		assertNetworkAdded("c", "d");
+	}
+
+	@Test
+	public void testRandomChanges() {
+		final Random random = new Random(7);
+		for (int n = 0; n < 300; n++) {
+			final int rows = mapping.getSizeMergedAttributes();
+			final String name = NAMES[random.nextInt(NAMES.length)];
+			switch (random.nextInt(5)) {
+			case 0:
+				if (rows > 0)
+					mapping.setMergedAttribute(random.nextInt(rows), name);
+				break;
+			case 1: {
+				final CyNetwork network = networks.get(random.nextInt(networks.size()));
+				createColumn(network, name);
+				mapping.addAttributes(Collections.singletonMap(network, name), name, random.nextInt(rows + 1));
+				break;
+			}
+			case 2:
+				if (rows > 1)
+					mapping.removeMergedAttribute(random.nextInt(rows));
+				break;
+			case 3:
+				if (rows > 0) {
+					final CyNetwork network = networks.get(random.nextInt(networks.size()));
+					createColumn(network, name);
+					mapping.setOriginalAttribute(network, name, random.nextInt(rows));
+				}
+				break;
+			default:
+				if (networks.size() < 8)
+					assertNetworkAdded(NAMES[random.nextInt(NAMES.length)], NAMES[random.nextInt(3) + 3]);
+				break;
+			}
+			assertMergedIndex();
+		}
+	}
+}
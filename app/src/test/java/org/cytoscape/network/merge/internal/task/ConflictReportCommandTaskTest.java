@@ -0,0 +1,145 @@
+package org.cytoscape.network.merge.internal.task;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.conflict.ConflictReport;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.json.JSONResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConflictReportCommandTaskTest {
+	private static final TaskMonitor TASK_MONITOR = new TaskMonitor() {
+		@Override
+		public void setTitle(final String title) {
+		}
+
+		@Override
+		public void setProgress(final double progress) {
+		}
+
+		@Override
+		public void setStatusMessage(final String statusMessage) {
+		}
+
+		@Override
+		public void showMessage(final Level level, final String message) {
+		}
+	};
+
+	private File file;
+	private File exportFile;
+
+	/**
+	 * Write a report with 5 conflicts on column "a", the last one without value, and 2 on "b".
+	 */
+	@Before
+	public void writeReport() throws IOException {
+		file = File.createTempFile("conflicts", ".tsv.gz");
+		exportFile = File.createTempFile("export", ".tsv");
+
+		final CyNetwork from = new InMemoryNetwork();
+		from.getDefaultNodeTable().createColumn("value", String.class, false);
+		final CyColumn fromAttr = from.getDefaultNodeTable().getColumn("value");
+		final CyNetwork to = new InMemoryNetwork();
+		to.getDefaultNodeTable().createColumn("a", String.class, false);
+		to.getDefaultNodeTable().createColumn("b", String.class, false);
+		final CyNode target = to.addNode();
+
+		try (ConflictReport report = new ConflictReport(file, Collections.singletonList(from))) {
+			for (int i = 0; i < 7; i++) {
+				final CyNode source = from.addNode();
+				from.getRow(source).set("value", i == 4 ? null : "v" + i);
+				report.addConflict(source, fromAttr, target, to.getDefaultNodeTable().getColumn(i < 5 ? "a" : "b"));
+			}
+		}
+	}
+
+	@After
+	public void deleteFiles() {
+		file.delete();
+		exportFile.delete();
+	}
+
+	private ConflictReportCommandTask run(final String column, final int limit, final File exportFile) throws Exception {
+		final ConflictReportCommandTask task = new ConflictReportCommandTask();
+		task.file = file;
+		task.column = column;
+		task.limit = limit;
+		task.exportFile = exportFile;
+		task.run(TASK_MONITOR);
+		return task;
+	}
+
+	@Test
+	public void testCountBeyondLimit() throws Exception {
+		final ConflictReportCommandTask task = run("a", 2, null);
+
+		// all the matching conflicts are counted, only the first ones are returned
+		final String json = task.getResults(JSONResult.class).getJSON();
+		assertTrue(json, json.startsWith("{\"count\":5,\"returned\":2,\"conflicts\":["));
+		assertTrue(json, json.contains("\"value\":\"v1\"") && !json.contains("\"value\":\"v2\""));
+		final String text = task.getResults(String.class);
+		assertTrue(text, text.startsWith("5 conflicts, 2 returned\n"));
+		assertEquals(3, text.split("\n").length);
+	}
+
+	@Test
+	public void testNoLimit() throws Exception {
+		final String json = run("a", 0, null).getResults(JSONResult.class).getJSON();
+		assertTrue(json, json.startsWith("{\"count\":5,\"returned\":5,"));
+		assertTrue(json, json.contains("\"value\":null"));
+		assertTrue(run(null, 100, null).getResults(String.class).startsWith("7 conflicts\n"));
+	}
+
+	@Test
+	public void testExport() throws Exception {
+		final ConflictReportCommandTask task = run("a", 0, exportFile);
+		assertTrue(task.getResults(String.class).startsWith("5 conflicts exported to "));
+
+		// written as the report, a missing value included
+		final List<String> lines = Files.readAllLines(exportFile.toPath());
+		assertEquals(6, lines.size());
+		assertEquals(ConflictReport.HEADER, lines.get(0));
+		assertTrue(lines.get(4), lines.get(4).endsWith("\tv3"));
+		assertTrue(lines.get(5), lines.get(5).endsWith("\t" + ConflictReport.NULL_VALUE));
+
+		assertTrue(run("a", 3, exportFile).getResults(String.class).startsWith("5 conflicts, 3 exported to "));
+	}
+}
@@ -0,0 +1,129 @@
+package org.cytoscape.network.merge.internal.task;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.network.merge.internal.task.MergeJob.State;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Merges of the networks a: 1 2 and b: 2 3 run as jobs, cancelled at different stages.
+ */
+public class MergeJobTest {
+	private TaskTestServices services;
+	private MergeJob job;
+
+	@Before
+	public void createJob() {
+		services = new TaskTestServices();
+		services.createNetwork("a", "1", "2");
+		services.createNetwork("b", "2", "3");
+		final NetworkMergeCommandTask command = new NetworkMergeCommandTask(services.getRegistrar());
+		command.sources = "a, b";
+		command.inlineConflicts = true;
+		job = new MergeJob("1", command.createMergeTask(), null);
+	}
+
+	/**
+	 *
+	 * @return the networks added by the job, destroyed or not
+	 */
+	private CyNetwork getMergedNetwork() {
+		final List<CyNetwork> networks = services.getNetworks();
+		networks.addAll(services.getDestroyed());
+		for (CyNetwork network : networks) {
+			if ("union: a, b".equals(network.getRow(network).get(CyNetwork.NAME, String.class)))
+				return network;
+		}
+		return null;
+	}
+
+	@Test
+	public void testDone() {
+		job.run();
+
+		assertEquals(State.DONE, job.getState());
+		assertNotNull(job.getNetwork());
+		assertEquals(3, job.getNetwork().getNodeCount());
+		assertEquals(3, services.getNetworks().size());
+		assertTrue(services.getDestroyed().isEmpty());
+	}
+
+	@Test
+	public void testCancelQueued() {
+		job.cancel();
+		job.run();
+
+		assertEquals(State.CANCELLED, job.getState());
+		assertNull(getMergedNetwork());
+	}
+
+	@Test
+	public void testCancelDuringMerge() {
+		// once the merged network is registered, before the nodes are merged
+		services.setOnAddNetwork(job::cancel);
+		job.run();
+
+		assertEquals(State.CANCELLED, job.getState());
+		assertNull(job.getNetwork());
+		final CyNetwork merged = getMergedNetwork();
+		assertNotNull(merged);
+		assertEquals(Collections.singletonList(merged), services.getDestroyed());
+		assertFalse(services.getNetworks().contains(merged));
+	}
+
+	@Test
+	public void testCancelDuringViewCreation() {
+		final int[] nodes = new int[1];
+		services.setViewTask(new AbstractTask() {
+			@Override
+			public void run(final TaskMonitor taskMonitor) {
+				// the merge is complete
+				nodes[0] = getMergedNetwork().getNodeCount();
+				job.cancel();
+			}
+		});
+		job.run();
+
+		assertEquals(3, nodes[0]);
+		assertEquals(State.CANCELLED, job.getState());
+		assertNull(job.getNetwork());
+		final CyNetwork merged = getMergedNetwork();
+		assertEquals(Collections.singletonList(merged), services.getDestroyed());
+		assertFalse(services.getNetworks().contains(merged));
+	}
+}
@@ -0,0 +1,160 @@
+package org.cytoscape.network.merge.internal.task;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.network.merge.internal.util.JsonReader;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.json.JSONResult;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Batches of merges of the networks a: 1 2, b: 2 3 and c: 3 4, matched by node name.
+ */
+public class NetworkMergeBatchCommandTaskTest {
+	private static final TaskMonitor TASK_MONITOR = new TaskMonitor() {
+		@Override
+		public void setTitle(final String title) {
+		}
+
+		@Override
+		public void setProgress(final double progress) {
+		}
+
+		@Override
+		public void setStatusMessage(final String statusMessage) {
+		}
+
+		@Override
+		public void showMessage(final Level level, final String message) {
+		}
+	};
+
+	private TaskTestServices services;
+
+	@Before
+	public void createNetworks() {
+		services = new TaskTestServices();
+		services.createNetwork("a", "1", "2");
+		services.createNetwork("b", "2", "3");
+		services.createNetwork("c", "3", "4");
+	}
+
+	/**
+	 *
+	 * @return the jobs of the JSON result of the batch, by id
+	 */
+	private Map<String, Map<?,?>> run(final String manifest) throws Exception {
+		final NetworkMergeBatchCommandTask task = new NetworkMergeBatchCommandTask(services.getRegistrar(), null);
+		task.manifest = manifest;
+		task.threads = 2;
+		task.run(TASK_MONITOR);
+
+		final Map<?,?> result = (Map<?,?>) JsonReader.read(task.getResults(JSONResult.class).getJSON());
+		final Map<String, Map<?,?>> jobs = new HashMap<String, Map<?,?>>();
+		for (Object job : (List<?>) result.get("jobs"))
+			jobs.put((String) ((Map<?,?>) job).get("id"), (Map<?,?>) job);
+		jobs.put("", result);
+		return jobs;
+	}
+
+	private CyNetwork getNetwork(final String name) {
+		for (CyNetwork network : services.getNetworks()) {
+			if (name.equals(network.getRow(network).get(CyNetwork.NAME, String.class)))
+				return network;
+		}
+		return null;
+	}
+
+	@Test
+	public void testDefaults() throws Exception {
+		final Map<String, Map<?,?>> jobs = run("{\"defaults\":{\"operation\":\"intersection\",\"inlineConflicts\":true},"
+				+ "\"jobs\":[{\"id\":\"ab\",\"sources\":\"a, b\"},"
+				+ "{\"id\":\"bc\",\"sources\":\"b, c\",\"operation\":\"union\",\"netName\":\"merged\"},"
+				+ "{\"sources\":\"a, d\"}]}");
+
+		assertEquals(4, jobs.size());
+		assertEquals("done", jobs.get("ab").get("status"));
+		assertEquals(1L, jobs.get("ab").get("nodes"));
+		assertEquals("done", jobs.get("bc").get("status"));
+		assertEquals(3L, jobs.get("bc").get("nodes"));
+		// the job without id is named after its position, d does not exist
+		assertEquals("skipped", jobs.get("2").get("status"));
+		// the keys of b are read once for both jobs
+		assertEquals(3L, jobs.get("").get("indexedColumns"));
+
+		assertEquals(5, services.getNetworks().size());
+		assertEquals(1, getNetwork("intersection: a, b").getNodeCount());
+		assertEquals(3, getNetwork("merged").getNodeCount());
+		assertEquals(jobs.get("bc").get("network"), getNetwork("merged").getSUID());
+	}
+
+	@Test
+	public void testJobArray() throws Exception {
+		final Map<String, Map<?,?>> jobs = run("[{\"sources\":\"a, c\"}]");
+
+		assertEquals("done", jobs.get("0").get("status"));
+		assertEquals(4L, jobs.get("0").get("nodes"));
+		assertEquals(4, getNetwork("union: a, c").getNodeCount());
+	}
+
+	@Test
+	public void testUnknownParameter() throws Exception {
+		try {
+			run("[{\"id\":\"ab\",\"sources\":\"a, b\"},{\"id\":\"bc\",\"sources\":\"b, c\",\"color\":\"red\"}]");
+			throw new AssertionError("unknown parameter accepted");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Unknown parameter 'color' in merge job bc", e.getMessage());
+		}
+		// nothing is merged
+		assertEquals(3, services.getNetworks().size());
+	}
+
+	@Test
+	public void testSharedRootParameters() throws Exception {
+		for (String parameter : new String[] { "virtualColumns", "reuseRootElements" }) {
+			try {
+				run("{\"defaults\":{\"" + parameter + "\":true},\"jobs\":[{\"sources\":\"a, b\"}]}");
+				throw new AssertionError(parameter + " accepted");
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Parameter '" + parameter + "'"));
+			}
+		}
+		assertEquals(3, services.getNetworks().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidManifest() throws Exception {
+		run("{\"jobs\":{\"sources\":\"a, b\"}}");
+	}
+}
@@ -0,0 +1,59 @@
+package org.cytoscape.network.merge.internal.task;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.MergeStatistics;
+import org.cytoscape.network.merge.internal.util.JsonReader;
+import org.junit.Test;
+
+public class NetworkMergeTaskTest {
+
+	@Test
+	public void testJsonResult() {
+		final CyNetwork network = new InMemoryNetwork();
+		final MergeStatistics statistics = new MergeStatistics();
+		statistics.start(MergeStatistics.MATCH_NODES);
+		statistics.stop(MergeStatistics.MATCH_NODES, 4, 6);
+
+		// the SUID stays at the top level, where the clients of the command read it
+		final Map<?,?> json = (Map<?,?>) JsonReader.read(NetworkMergeTask.toJson(network, statistics));
+		assertEquals(network.getSUID(), json.get("SUID"));
+		final Map<?,?> phases = (Map<?,?>) json.get("statistics");
+		final Map<?,?> phase = (Map<?,?>) phases.get(MergeStatistics.MATCH_NODES);
+		assertEquals(4L, phase.get("count"));
+		assertEquals(6L, phase.get("comparisons"));
+
+		final Map<?,?> noStatistics = (Map<?,?>) JsonReader.read(NetworkMergeTask.toJson(network, null));
+		assertEquals(1, noStatistics.size());
+		assertTrue(noStatistics.containsKey("SUID"));
+	}
+}
@@ -0,0 +1,154 @@
+package org.cytoscape.network.merge.internal.task;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.work.Task;
+import org.cytoscape.work.TaskIterator;
+
+/**
+ * The services used by the merge tasks, as proxies of their interfaces: a network manager
+ * of in-memory networks remembering those destroyed, no view, and names used as suggested.
+ */
+final class TaskTestServices implements InvocationHandler {
+	private final Set<CyNetwork> networks = Collections.synchronizedSet(new LinkedHashSet<CyNetwork>());
+	private final List<CyNetwork> destroyed = Collections.synchronizedList(new ArrayList<CyNetwork>());
+	private volatile Task viewTask;
+	private volatile Runnable onAddNetwork;
+
+	/**
+	 *
+	 * @return a network in the network manager, with a node of each name
+	 */
+	CyNetwork createNetwork(final String name, final String... nodes) {
+		final CyNetwork network = new InMemoryNetwork();
+		network.getRow(network).set(CyNetwork.NAME, name);
+		for (String node : nodes) {
+			final CyNode n = network.addNode();
+			network.getRow(n).set(CyNetwork.NAME, node);
+		}
+		networks.add(network);
+		return network;
+	}
+
+	/**
+	 *
+	 * @return the networks in the network manager
+	 */
+	List<CyNetwork> getNetworks() {
+		synchronized (networks) {
+			return new ArrayList<CyNetwork>(networks);
+		}
+	}
+
+	/**
+	 *
+	 * @return the networks destroyed through the network manager
+	 */
+	List<CyNetwork> getDestroyed() {
+		synchronized (destroyed) {
+			return new ArrayList<CyNetwork>(destroyed);
+		}
+	}
+
+	/**
+	 * Run this task instead of creating the views of the merged networks.
+	 */
+	void setViewTask(final Task viewTask) {
+		this.viewTask = viewTask;
+	}
+
+	/**
+	 * Run this when a network is added to the network manager.
+	 */
+	void setOnAddNetwork(final Runnable onAddNetwork) {
+		this.onAddNetwork = onAddNetwork;
+	}
+
+	CyServiceRegistrar getRegistrar() {
+		return proxy(CyServiceRegistrar.class);
+	}
+
+	private <S> S proxy(final Class<S> service) {
+		return service.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { service }, this));
+	}
+
+	@Override
+	public Object invoke(final Object proxy, final Method method, final Object[] args) {
+		switch (method.getName()) {
+		case "getService":
+			return proxy((Class<?>) args[0]);
+		case "getSuggestedNetworkTitle":
+			return args[0];
+		case "createNetwork":
+			return new InMemoryNetwork();
+		case "getNetworkSet":
+			return new LinkedHashSet<CyNetwork>(getNetworks());
+		case "addNetwork":
+			networks.add((CyNetwork) args[0]);
+			final Runnable onAddNetwork = this.onAddNetwork;
+			if (onAddNetwork != null)
+				onAddNetwork.run();
+			return null;
+		case "destroyNetwork":
+			networks.remove(args[0]);
+			destroyed.add((CyNetwork) args[0]);
+			return null;
+		case "createTaskIterator":
+			final Task viewTask = this.viewTask;
+			return viewTask == null ? new TaskIterator() : new TaskIterator(viewTask);
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		case "equals":
+			return proxy == args[0];
+		case "toString":
+			return method.getDeclaringClass().getSimpleName() + " proxy";
+		}
+		// no view, no annotation
+		final Class<?> type = method.getReturnType();
+		if (type == boolean.class)
+			return false;
+		if (type == int.class)
+			return 0;
+		if (type == long.class)
+			return 0L;
+		if (Collection.class.isAssignableFrom(type))
+			return type == Set.class ? Collections.emptySet() : Collections.emptyList();
+		return null;
+	}
+}
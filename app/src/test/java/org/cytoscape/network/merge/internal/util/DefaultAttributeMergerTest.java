@@ -0,0 +1,130 @@
+package org.cytoscape.network.merge.internal.util;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollector;
+import org.cytoscape.network.merge.internal.conflict.ColumnarAttributeConflictCollector;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Merges of the cells of source nodes into the cell of a new node, with conversions.
+ */
+public class DefaultAttributeMergerTest {
+	private CyNetwork target;
+	private CyNode node;
+	private AttributeConflictCollector conflictCollector;
+	private DefaultAttributeMerger merger;
+
+	@Before
+	public void createTarget() {
+		target = new InMemoryNetwork();
+		target.getDefaultNodeTable().createColumn("text", String.class, false);
+		target.getDefaultNodeTable().createColumn("number", Integer.class, false);
+		target.getDefaultNodeTable().createListColumn("texts", String.class, false);
+		node = target.addNode();
+		conflictCollector = new ColumnarAttributeConflictCollector();
+		merger = new DefaultAttributeMerger(conflictCollector);
+	}
+
+	/**
+	 *
+	 * @return the sources, a node of a new network for each value, in a column of the type
+	 */
+	private static Map<CyNode, CyColumn> createSources(final Class<?> type, final Object... values) {
+		final Map<CyNode, CyColumn> sources = new LinkedHashMap<CyNode, CyColumn>();
+		for (Object value: values) {
+			final CyNetwork network = new InMemoryNetwork();
+			if (value instanceof java.util.List)
+				network.getDefaultNodeTable().createListColumn("source", type, false);
+			else
+				network.getDefaultNodeTable().createColumn("source", type, false);
+			final CyNode source = network.addNode();
+			network.getRow(source).set("source", value);
+			sources.put(source, network.getDefaultNodeTable().getColumn("source"));
+		}
+		return sources;
+	}
+
+	private Object merge(final Map<CyNode, CyColumn> sources, final String column) {
+		merger.mergeAttribute(sources, node, target.getDefaultNodeTable().getColumn(column), target);
+		return target.getRow(node).getRaw(column);
+	}
+
+	@Test
+	public void testListToString() {
+		// a list is read as a list, then written as its string
+		final Object merged = merge(createSources(String.class, Arrays.asList("a", "b")), "text");
+		assertEquals("[a, b]", merged);
+		assertEquals(0, conflictCollector.getConflictCount());
+	}
+
+	@Test
+	public void testListsToStringConflict() {
+		final Object merged = merge(createSources(Integer.class, Arrays.asList(1, 2), Arrays.asList(3)), "text");
+		assertEquals("[1, 2]", merged);
+		assertEquals(1, conflictCollector.getConflictCount());
+	}
+
+	@Test
+	public void testEqualListsToString() {
+		final Object merged = merge(createSources(String.class, Arrays.asList("a"), Arrays.asList("a")), "text");
+		assertEquals("[a]", merged);
+		assertEquals(0, conflictCollector.getConflictCount());
+	}
+
+	@Test
+	public void testScalarToString() {
+		assertEquals("12", merge(createSources(Integer.class, 12), "text"));
+	}
+
+	@Test
+	public void testStringToInteger() {
+		assertEquals(7, merge(createSources(String.class, "7", "7"), "number"));
+		assertEquals(0, conflictCollector.getConflictCount());
+	}
+
+	@Test
+	public void testNullSource() {
+		assertNull(merge(createSources(String.class, new Object[] { null }), "text"));
+	}
+
+	@Test
+	public void testListsAccumulated() {
+		final Object merged = merge(createSources(Integer.class, Arrays.asList(1, 2), Arrays.asList(2, 3), 4), "texts");
+		assertEquals(Arrays.asList("1", "2", "3", "4"), merged);
+	}
+}
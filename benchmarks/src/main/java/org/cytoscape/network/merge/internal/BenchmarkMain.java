@@ -0,0 +1,102 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Entry point of the benchmark jar, taking the options of the JMH command line.
+ *
+ * Unlike the JMH one, it always adds the GC profiler, so that the allocation rate and the
+ * collections of each benchmark are reported, and writes the results as JSON unless
+ * another format is asked for.
+ */
+public final class BenchmarkMain {
+	private static final String GC_PROFILER = "gc";
+
+	private BenchmarkMain() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final CommandLineOptions cmd;
+		try {
+			cmd = new CommandLineOptions(args);
+		} catch (CommandLineOptionException e) {
+			System.err.println("Error parsing command line:");
+			System.err.println(" " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		if (cmd.shouldHelp()) {
+			cmd.showHelp();
+			return;
+		}
+		if (cmd.shouldListProfilers()) {
+			cmd.listProfilers();
+			return;
+		}
+		if (cmd.shouldListResultFormats()) {
+			cmd.listResultFormats();
+			return;
+		}
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if (!hasGCProfiler(cmd))
+			options.addProfiler(GCProfiler.class);
+		if (!cmd.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+
+		final Runner runner = new Runner(options.build());
+		try {
+			if (cmd.shouldList())
+				runner.list();
+			else if (cmd.shouldListWithParams())
+				runner.listWithParams(cmd);
+			else
+				runner.run();
+		} catch (RunnerException e) {
+			System.err.println("Error running the benchmarks:");
+			e.printStackTrace(System.err);
+			System.exit(1);
+		}
+	}
+
+	private static boolean hasGCProfiler(final CommandLineOptions cmd) {
+		for (ProfilerConfig profiler: cmd.getProfilers()) {
+			if (GC_PROFILER.equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass()))
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,119 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeValueMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A single matchEdge lookup, once all the edges are matched. Each edge is looked up with
+ * the index of its own group, so that the lookups leave the edge maps as they are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class MatchEdgeBenchmark {
+	@Param({ "10000", "100000", "1000000" })
+	public int nodes;
+
+	private AttributeBasedNetworkMerge merge;
+	private CyNetwork[] edgeNetworks;
+	private CyEdge[] edges;
+	private int[] positions;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void matchEdges() {
+		final List<CyNetwork> networks = MergeFixtures.createNetworks(2, nodes, 0.5, 3, 1);
+		merge = MergeFixtures.createMerge(MergeFixtures.match(networks, MergeFixtures.KEY),
+				new DefaultAttributeValueMatcher());
+		merge.<CyNode>getMatchedList(networks, true);
+		final List<Map<CyNetwork, Set<CyEdge>>> matchedEdges = merge.<CyEdge>getMatchedList(networks, false);
+
+		final int count = networks.size() * nodes;
+		edgeNetworks = new CyNetwork[count];
+		edges = new CyEdge[count];
+		positions = new int[count];
+		int i = 0;
+		for (int position = 0; position < matchedEdges.size(); position++) {
+			for (Map.Entry<CyNetwork, Set<CyEdge>> entry: matchedEdges.get(position).entrySet()) {
+				for (CyEdge edge: entry.getValue()) {
+					edgeNetworks[i] = entry.getKey();
+					edges[i] = edge;
+					positions[i] = position;
+					i++;
+				}
+			}
+		}
+		// look the edges up in random order rather than group by group
+		shuffle(edgeNetworks, edges, positions);
+	}
+
+	private static void shuffle(final CyNetwork[] edgeNetworks, final CyEdge[] edges, final int[] positions) {
+		final Random random = new Random(1);
+		for (int i = edges.length - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final CyNetwork network = edgeNetworks[i];
+			edgeNetworks[i] = edgeNetworks[j];
+			edgeNetworks[j] = network;
+			final CyEdge edge = edges[i];
+			edges[i] = edges[j];
+			edges[j] = edge;
+			final int position = positions[i];
+			positions[i] = positions[j];
+			positions[j] = position;
+		}
+	}
+
+	@Benchmark
+	public int matchEdge() {
+		final int i = next;
+		next = i + 1 == edges.length ? 0 : i + 1;
+		return merge.matchEdge(edgeNetworks[i], edges[i], positions[i]);
+	}
+}
@@ -0,0 +1,106 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.fixture.NetworkGenerator;
+import org.cytoscape.network.merge.fixture.NetworkGenerator.DegreeDistribution;
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole merges by the merge engine, of generated networks, into a new network, so that
+ * the time and allocation of a merge can be plotted against the size of its sources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+public class MergeBenchmark {
+	@Param({ "2", "4" })
+	public int networks;
+
+	@Param({ "100000", "1000000" })
+	public int nodes;
+
+	@Param
+	public DegreeDistribution distribution;
+
+	@Param({ "UNION" })
+	public Operation operation;
+
+	@Param({ "0.5" })
+	public double overlap;
+
+	@Param({ "4" })
+	public int attributes;
+
+	@Param({ "0.1" })
+	public double conflicts;
+
+	@Param({ "3" })
+	public int synonyms;
+
+	@Param({ NetworkGenerator.KEY })
+	public String column;
+
+	private List<CyNetwork> sourceNetworks;
+
+	@Setup(Level.Trial)
+	public void createNetworks() {
+		final NetworkGenerator generator = new NetworkGenerator(networks, nodes);
+		generator.setDegreeDistribution(distribution);
+		generator.setDirectedFraction(0.5);
+		generator.setOverlap(overlap);
+		generator.setSynonymCount(synonyms);
+		generator.setAttributeCount(attributes);
+		generator.setConflictRate(conflicts);
+		sourceNetworks = generator.generate();
+	}
+
+	@Benchmark
+	public MergeResult merge() throws IOException {
+		final MergeRequest request = MergeFixtures.createRequest(sourceNetworks, operation, column);
+		return MergeFixtures.createEngine().merge(new InMemoryNetwork(), request);
+	}
+}
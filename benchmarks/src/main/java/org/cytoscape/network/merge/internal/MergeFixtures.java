@@ -0,0 +1,202 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.NetworkMerge.Operation;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollectorImpl;
+import org.cytoscape.network.merge.internal.conflict.ColumnarAttributeConflictCollector;
+import org.cytoscape.network.merge.internal.model.AttributeMapping;
+import org.cytoscape.network.merge.internal.model.AttributeMappingImpl;
+import org.cytoscape.network.merge.internal.model.MatchingAttribute;
+import org.cytoscape.network.merge.internal.model.MatchingAttributeImpl;
+import org.cytoscape.network.merge.internal.util.AttributeValueMatcher;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeMerger;
+import org.cytoscape.work.TaskMonitor;
+
+/**
+ * Synthetic source networks and merges for the benchmarks.
+ *
+ * The networks have the same number of nodes, and node i is either shared by all of them,
+ * with the same key, or has a key of its own. Their edges join the same node indexes, so
+ * that an edge between two shared nodes matches in every network.
+ */
+public final class MergeFixtures {
+	/** String column holding the key of each node. */
+	public static final String KEY = "key";
+	/** List column holding synonyms of each node, its key last. */
+	public static final String SYNONYMS = "synonyms";
+
+	private static final String[] INTERACTIONS = { "pp", "pd", "activates", "inhibits" };
+
+	private static final TaskMonitor TASK_MONITOR = new TaskMonitor() {
+		@Override
+		public void setTitle(final String title) {
+		}
+
+		@Override
+		public void setProgress(final double progress) {
+		}
+
+		@Override
+		public void setStatusMessage(final String statusMessage) {
+		}
+
+		@Override
+		public void showMessage(final Level level, final String message) {
+		}
+	};
+
+	private MergeFixtures() {
+	}
+
+	/**
+	 *
+	 * @param count
+	 *            number of networks
+	 * @param nodes
+	 *            number of nodes of each network, and of edges
+	 * @param overlap
+	 *            fraction of the nodes shared by all the networks
+	 * @param synonyms
+	 *            size of the synonym lists
+	 * @param seed
+	 * @return the networks
+	 */
+	public static List<CyNetwork> createNetworks(final int count, final int nodes, final double overlap,
+			final int synonyms, final long seed) {
+		final Random structure = new Random(seed);
+		final boolean[] shared = new boolean[nodes];
+		for (int i = 0; i < nodes; i++)
+			shared[i] = structure.nextDouble() < overlap;
+		final int[] sources = new int[nodes];
+		final int[] targets = new int[nodes];
+		final boolean[] directed = new boolean[nodes];
+		final String[] interactions = new String[nodes];
+		for (int e = 0; e < nodes; e++) {
+			sources[e] = structure.nextInt(nodes);
+			targets[e] = structure.nextInt(nodes);
+			directed[e] = structure.nextBoolean();
+			interactions[e] = INTERACTIONS[structure.nextInt(INTERACTIONS.length)];
+		}
+
+		final List<CyNetwork> networks = new ArrayList<CyNetwork>(count);
+		for (int k = 0; k < count; k++) {
+			final CyNetwork network = new InMemoryNetwork(nodes, nodes);
+			network.getRow(network).set(CyNetwork.NAME, "network " + k);
+			network.getDefaultNodeTable().createColumn(KEY, String.class, false);
+			network.getDefaultNodeTable().createListColumn(SYNONYMS, String.class, false);
+
+			final CyNode[] nodeArray = new CyNode[nodes];
+			for (int i = 0; i < nodes; i++) {
+				final CyNode node = network.addNode();
+				final String key = shared[i] ? "G" + i : "N" + k + "_" + i;
+				final String[] names = new String[synonyms];
+				for (int s = 0; s < synonyms - 1; s++)
+					names[s] = key + "_alias" + s + "_" + k;
+				if (synonyms > 0)
+					names[synonyms - 1] = key;
+				final CyRow row = network.getRow(node);
+				row.set(CyNetwork.NAME, key);
+				row.set(KEY, key);
+				row.set(SYNONYMS, Arrays.asList(names));
+				nodeArray[i] = node;
+			}
+			for (int e = 0; e < nodes; e++) {
+				final CyEdge edge = network.addEdge(nodeArray[sources[e]], nodeArray[targets[e]], directed[e]);
+				network.getRow(edge).set(CyEdge.INTERACTION, interactions[e]);
+			}
+			networks.add(network);
+		}
+		return networks;
+	}
+
+	/**
+	 *
+	 * @param networks
+	 * @param column
+	 *            name of the node column matching the nodes in every network
+	 * @return the matching attribute
+	 */
+	public static MatchingAttribute match(final List<CyNetwork> networks, final String column) {
+		final MatchingAttribute matchingAttribute = new MatchingAttributeImpl();
+		for (CyNetwork network: networks)
+			matchingAttribute.putAttributeForMatching(network, network.getDefaultNodeTable().getColumn(column));
+		return matchingAttribute;
+	}
+
+	/**
+	 *
+	 * @param networks
+	 * @param operation
+	 * @param column
+	 *            name of the node column matching the nodes in every network
+	 * @return a request merging all the columns of the networks, as the merge task does
+	 */
+	public static MergeRequest createRequest(final List<CyNetwork> networks, final Operation operation,
+			final String column) {
+		final AttributeMapping nodeAttributeMapping = new AttributeMappingImpl();
+		final AttributeMapping edgeAttributeMapping = new AttributeMappingImpl();
+		final AttributeMapping networkAttributeMapping = new AttributeMappingImpl();
+		for (CyNetwork network: networks) {
+			nodeAttributeMapping.addNetwork(network, network.getDefaultNodeTable());
+			edgeAttributeMapping.addNetwork(network, network.getDefaultEdgeTable());
+			networkAttributeMapping.addNetwork(network, network.getDefaultNetworkTable());
+		}
+		return new MergeRequest(networks, operation, match(networks, column), nodeAttributeMapping,
+				edgeAttributeMapping, networkAttributeMapping, new ColumnarAttributeConflictCollector());
+	}
+
+	/**
+	 *
+	 * @return an engine reporting its progress nowhere
+	 */
+	public static MergeEngine createEngine() {
+		return new MergeEngine(TASK_MONITOR);
+	}
+
+	/**
+	 *
+	 * @param matchingAttribute
+	 * @param attributeValueMatcher
+	 * @return a merge ready to match, mapping no attribute
+	 */
+	public static AttributeBasedNetworkMerge createMerge(final MatchingAttribute matchingAttribute,
+			final AttributeValueMatcher attributeValueMatcher) {
+		return new AttributeBasedNetworkMerge(matchingAttribute,
+				new AttributeMappingImpl(), new AttributeMappingImpl(), null,
+				new DefaultAttributeMerger(new AttributeConflictCollectorImpl()), attributeValueMatcher,
+				TASK_MONITOR);
+	}
+}
@@ -0,0 +1,83 @@
+package org.cytoscape.network.merge.internal;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.internal.model.MatchingAttribute;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeValueMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Node matching of two networks by comparing pairs of nodes, as a merge with any other
+ * value matcher than the default one does. It is quadratic, hence run on smaller networks
+ * than {@link NodeMatchingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class PairwiseNodeMatchingBenchmark {
+	@Param({ "1000", "10000" })
+	public int nodes;
+
+	@Param({ MergeFixtures.KEY, MergeFixtures.SYNONYMS })
+	public String column;
+
+	private List<CyNetwork> networks;
+	private MatchingAttribute matchingAttribute;
+
+	@Setup(Level.Trial)
+	public void createNetworks() {
+		networks = MergeFixtures.createNetworks(2, nodes, 0.5, 3, 1);
+		matchingAttribute = MergeFixtures.match(networks, column);
+	}
+
+	@Benchmark
+	public List<Map<CyNetwork, Set<CyNode>>> matchNodes() {
+		// matches as the default matcher, but is not one, so that nodes are compared by pairs
+		final AttributeBasedNetworkMerge merge = MergeFixtures.createMerge(matchingAttribute,
+				new DefaultAttributeValueMatcher() {});
+		return merge.<CyNode>getMatchedList(networks, true);
+	}
+}
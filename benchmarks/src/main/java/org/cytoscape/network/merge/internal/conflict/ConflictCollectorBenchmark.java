@@ -0,0 +1,210 @@
+package org.cytoscape.network.merge.internal.conflict;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Collection, iteration and removal of millions of conflicts.
+ *
+ * Each target node has conflicts in two columns, each with two source nodes, as after a
+ * merge of three networks sharing all their nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConflictCollectorBenchmark {
+	private static final int SOURCES = 2;
+	private static final int COLUMNS = 2;
+
+	public enum Collector {
+		/** The collector keeping a map of source nodes by target cell. */
+		MAP {
+			@Override
+			AttributeConflictCollector create(final int conflicts) {
+				return new AttributeConflictCollectorImpl();
+			}
+		},
+		/** The collector keeping the conflicts in arrays, used by the merge task. */
+		COLUMNAR {
+			@Override
+			AttributeConflictCollector create(final int conflicts) {
+				return new ColumnarAttributeConflictCollector(conflicts);
+			}
+		};
+
+		abstract AttributeConflictCollector create(int conflicts);
+	}
+
+	@Param({ "1000000", "4000000" })
+	public int conflicts;
+
+	@Param
+	public Collector collector;
+
+	private CyNode[] targets;
+	private CyNode[][] sources;
+	private CyColumn[] targetColumns;
+	private CyColumn[] sourceColumns;
+	private AttributeConflictCollector filled;
+
+	@Setup(Level.Trial)
+	public void createConflicts() {
+		final int count = conflicts / (SOURCES * COLUMNS);
+		final CyNetwork target = new InMemoryNetwork(count, 0);
+		targets = createNodes(target, count);
+		targetColumns = createColumns(target);
+		sources = new CyNode[SOURCES][];
+		sourceColumns = new CyColumn[SOURCES * COLUMNS];
+		for (int k = 0; k < SOURCES; k++) {
+			final CyNetwork source = new InMemoryNetwork(count, 0);
+			sources[k] = createNodes(source, count);
+			System.arraycopy(createColumns(source), 0, sourceColumns, k * COLUMNS, COLUMNS);
+		}
+		filled = fill();
+	}
+
+	private static CyNode[] createNodes(final CyNetwork network, final int count) {
+		final CyNode[] nodes = new CyNode[count];
+		for (int i = 0; i < count; i++)
+			nodes[i] = network.addNode();
+		return nodes;
+	}
+
+	private static CyColumn[] createColumns(final CyNetwork network) {
+		final CyColumn[] columns = new CyColumn[COLUMNS];
+		for (int c = 0; c < COLUMNS; c++) {
+			network.getDefaultNodeTable().createColumn("attribute" + c, String.class, false);
+			columns[c] = network.getDefaultNodeTable().getColumn("attribute" + c);
+		}
+		return columns;
+	}
+
+	AttributeConflictCollector fill() {
+		final AttributeConflictCollector conflictCollector = collector.create(conflicts);
+		for (int i = 0; i < targets.length; i++) {
+			for (int c = 0; c < COLUMNS; c++) {
+				for (int k = 0; k < SOURCES; k++)
+					conflictCollector.addConflict(sources[k][i], sourceColumns[k * COLUMNS + c], targets[i],
+							targetColumns[c]);
+			}
+		}
+		return conflictCollector;
+	}
+
+	@Benchmark
+	public AttributeConflictCollector add() {
+		return fill();
+	}
+
+	/**
+	 * Visit of all the conflicts, as when they are listed, without resolving any.
+	 */
+	@Benchmark
+	public int iterate() {
+		final CountingVisitor visitor = new CountingVisitor();
+		filled.forEachConflict(visitor);
+		return visitor.count;
+	}
+
+	/**
+	 * Visit of the conflicts of each column, as when the handlers of a column are applied.
+	 */
+	@Benchmark
+	public int iterateByColumn() {
+		final CountingVisitor visitor = new CountingVisitor();
+		for (CyColumn column: targetColumns)
+			filled.forEachConflict(column, visitor);
+		return visitor.count;
+	}
+
+	/**
+	 * Removal of the conflicts one by one, as when they are resolved by hand.
+	 */
+	@Benchmark
+	public boolean remove(final Filled state) {
+		final AttributeConflictCollector conflictCollector = state.conflictCollector;
+		for (int i = 0; i < targets.length; i++) {
+			for (int c = 0; c < COLUMNS; c++) {
+				for (int k = 0; k < SOURCES; k++)
+					conflictCollector.removeConflict(sources[k][i], sourceColumns[k * COLUMNS + c], targets[i],
+							targetColumns[c]);
+			}
+		}
+		return conflictCollector.isEmpty();
+	}
+
+	/**
+	 * A new collector holding all the conflicts, for each call.
+	 */
+	@State(Scope.Thread)
+	public static class Filled {
+		AttributeConflictCollector conflictCollector;
+
+		@Setup(Level.Invocation)
+		public void fill(final ConflictCollectorBenchmark benchmark) {
+			conflictCollector = benchmark.fill();
+		}
+
+		@TearDown(Level.Invocation)
+		public void clear() {
+			conflictCollector = null;
+		}
+	}
+
+	private static final class CountingVisitor implements AttributeConflictCollector.ConflictVisitor {
+		int count;
+
+		@Override
+		public boolean visit(final CyIdentifiable to, final CyColumn toAttr,
+				final Map<CyIdentifiable,CyColumn> mapFromGOFromAttr) {
+			count += mapFromGOFromAttr.size();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package org.cytoscape.network.merge.internal.conflict;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of string conflicts by the default handler, which joins the distinct values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConflictHandlerBenchmark {
+	private static final String VALUE = "value";
+	private static final int NODES = 1 << 16;
+
+	@Param({ "2", "8" })
+	public int sources;
+
+	private final DefaultAttributeConflictHandler handler = new DefaultAttributeConflictHandler();
+	private CyNetwork target;
+	private CyColumn targetColumn;
+	private CyNode[] targets;
+	private List<Map<CyIdentifiable,CyColumn>> conflicts;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void createConflicts() {
+		final List<CyNetwork> networks = new ArrayList<CyNetwork>(sources);
+		for (int k = 0; k < sources; k++) {
+			final CyNetwork network = new InMemoryNetwork();
+			network.getDefaultNodeTable().createColumn(VALUE, String.class, false);
+			networks.add(network);
+		}
+		target = new InMemoryNetwork();
+		target.getDefaultNodeTable().createColumn(VALUE, String.class, false);
+		targetColumn = target.getDefaultNodeTable().getColumn(VALUE);
+
+		targets = new CyNode[NODES];
+		conflicts = new ArrayList<Map<CyIdentifiable,CyColumn>>(NODES);
+		for (int i = 0; i < NODES; i++) {
+			final Map<CyIdentifiable,CyColumn> mapFromGOFromAttr = new LinkedHashMap<CyIdentifiable,CyColumn>();
+			for (int k = 0; k < sources; k++) {
+				final CyNetwork network = networks.get(k);
+				final CyNode node = network.addNode();
+				network.getRow(node).set(VALUE, "value " + i + "_" + k);
+				mapFromGOFromAttr.put(node, network.getDefaultNodeTable().getColumn(VALUE));
+			}
+			conflicts.add(mapFromGOFromAttr);
+			targets[i] = target.addNode();
+			resetTarget(i);
+		}
+	}
+
+	// the value of the first source, as left by the merge
+	void resetTarget(final int i) {
+		target.getRow(targets[i]).set(VALUE, "value " + i + "_0");
+	}
+
+	@Benchmark
+	public Object resolve() {
+		final int i = next;
+		next = (i + 1) & (NODES - 1);
+		return handler.resolve(targets[i], targetColumn, conflicts.get(i));
+	}
+
+	/**
+	 * Resolution of a cell, which is reset first, as the handler writes the joined values.
+	 */
+	@Benchmark
+	public boolean handleIt() {
+		final int i = next;
+		next = (i + 1) & (NODES - 1);
+		resetTarget(i);
+		return handler.handleIt(targets[i], targetColumn, conflicts.get(i));
+	}
+
+	/**
+	 * Resolution of all the conflicts of a collector, as when the merge task applies the
+	 * handlers.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public boolean handleAll(final Collected state) {
+		state.conflictCollector.forEachConflict(new AttributeConflictCollector.ConflictVisitor() {
+			@Override
+			public boolean visit(final CyIdentifiable to, final CyColumn toAttr,
+					final Map<CyIdentifiable,CyColumn> mapFromGOFromAttr) {
+				return handler.handleIt(to, toAttr, mapFromGOFromAttr);
+			}
+		});
+		return state.conflictCollector.isEmpty();
+	}
+
+	/**
+	 * A collector holding the conflicts of all the nodes, which are reset, for each call.
+	 */
+	@State(Scope.Thread)
+	public static class Collected {
+		AttributeConflictCollector conflictCollector;
+
+		@Setup(Level.Invocation)
+		public void collect(final ConflictHandlerBenchmark benchmark) {
+			conflictCollector = new ColumnarAttributeConflictCollector(NODES * benchmark.sources);
+			for (int i = 0; i < NODES; i++) {
+				benchmark.resetTarget(i);
+				for (Map.Entry<CyIdentifiable,CyColumn> entry: benchmark.conflicts.get(i).entrySet())
+					conflictCollector.addConflict(entry.getKey(), entry.getValue(), benchmark.targets[i],
+							benchmark.targetColumn);
+			}
+		}
+
+		@TearDown(Level.Invocation)
+		public void clear() {
+			conflictCollector = null;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package org.cytoscape.network.merge.internal.util;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollectorImpl;
+import org.cytoscape.network.merge.internal.util.DefaultAttributeMerger.MergedValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merge of the values of two source nodes into a new node, for every pair of source and
+ * target column types that can be converted. The sources have the same values, or
+ * conflicting ones; lists have three elements, and conflicting lists share two of them.
+ *
+ * The conflicts go to a collector keyed by cell, so that merging the same cells again does
+ * not make it grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeMergerBenchmark {
+	private static final String VALUE = "value";
+	private static final String MERGED = "merged";
+	private static final int NODES = 1 << 12;
+
+	@Param({ "STRING->STRING", "STRING->LIST_STRING",
+			"INTEGER->STRING", "INTEGER->INTEGER", "INTEGER->LONG", "INTEGER->DOUBLE",
+			"INTEGER->LIST_STRING", "INTEGER->LIST_INTEGER", "INTEGER->LIST_LONG", "INTEGER->LIST_DOUBLE",
+			"LONG->STRING", "LONG->LONG", "LONG->DOUBLE", "LONG->LIST_STRING", "LONG->LIST_LONG", "LONG->LIST_DOUBLE",
+			"DOUBLE->STRING", "DOUBLE->DOUBLE", "DOUBLE->LIST_STRING", "DOUBLE->LIST_DOUBLE",
+			"BOOLEAN->STRING", "BOOLEAN->BOOLEAN", "BOOLEAN->LIST_STRING", "BOOLEAN->LIST_BOOLEAN",
+			"LIST_STRING->STRING", "LIST_STRING->LIST_STRING",
+			"LIST_INTEGER->STRING", "LIST_INTEGER->LIST_STRING", "LIST_INTEGER->LIST_INTEGER",
+			"LIST_INTEGER->LIST_LONG", "LIST_INTEGER->LIST_DOUBLE",
+			"LIST_LONG->STRING", "LIST_LONG->LIST_STRING", "LIST_LONG->LIST_LONG", "LIST_LONG->LIST_DOUBLE",
+			"LIST_DOUBLE->STRING", "LIST_DOUBLE->LIST_STRING", "LIST_DOUBLE->LIST_DOUBLE",
+			"LIST_BOOLEAN->STRING", "LIST_BOOLEAN->LIST_STRING", "LIST_BOOLEAN->LIST_BOOLEAN" })
+	public String types;
+
+	@Param({ "false", "true" })
+	public boolean conflicting;
+
+	private DefaultAttributeMerger merger;
+	private CyNetwork target;
+	private CyColumn mergedColumn;
+	private CyNode[] targets;
+	private List<Map<CyNode, CyColumn>> sources;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void createNodes() {
+		final String[] pair = types.split("->");
+		final ColumnType fromType = ColumnType.valueOf(pair[0]);
+		final ColumnType toType = ColumnType.valueOf(pair[1]);
+
+		final CyNetwork source1 = createNetwork(VALUE, fromType);
+		final CyNetwork source2 = createNetwork(VALUE, fromType);
+		target = createNetwork(MERGED, toType);
+		mergedColumn = target.getDefaultNodeTable().getColumn(MERGED);
+
+		targets = new CyNode[NODES];
+		sources = new ArrayList<Map<CyNode, CyColumn>>(NODES);
+		for (int i = 0; i < NODES; i++) {
+			final CyNode node1 = source1.addNode();
+			final CyNode node2 = source2.addNode();
+			source1.getRow(node1).set(VALUE, value(fromType, i));
+			source2.getRow(node2).set(VALUE, value(fromType, conflicting ? i + 1 : i));
+			final Map<CyNode, CyColumn> mapGOAttr = new HashMap<CyNode, CyColumn>();
+			mapGOAttr.put(node1, source1.getDefaultNodeTable().getColumn(VALUE));
+			mapGOAttr.put(node2, source2.getDefaultNodeTable().getColumn(VALUE));
+			sources.add(mapGOAttr);
+			targets[i] = target.addNode();
+		}
+		merger = new DefaultAttributeMerger(new AttributeConflictCollectorImpl());
+	}
+
+	private static CyNetwork createNetwork(final String column, final ColumnType type) {
+		final CyNetwork network = new InMemoryNetwork();
+		final CyTable table = network.getDefaultNodeTable();
+		if (type.isList())
+			table.createListColumn(column, type.getType(), false);
+		else
+			table.createColumn(column, type.getType(), false);
+		return network;
+	}
+
+	/*
+	 * Values i, i+1 and i+2 for lists, of the plain type.
+	 */
+	private static Object value(final ColumnType type, final int i) {
+		if (type.isList())
+			return Arrays.asList(value(type.toPlain(), i), value(type.toPlain(), i + 1), value(type.toPlain(), i + 2));
+		switch (type) {
+		case STRING:
+			return "value " + i;
+		case INTEGER:
+			return i;
+		case LONG:
+			return (long) i;
+		case DOUBLE:
+			return i + 0.5;
+		default:
+			return i % 2 == 0;
+		}
+	}
+
+	/**
+	 * The merge of a node, which is cleared first, as it is new in a merge.
+	 */
+	@Benchmark
+	public void mergeAttribute() {
+		final int i = next;
+		next = (i + 1) & (NODES - 1);
+		target.getRow(targets[i]).set(MERGED, null);
+		merger.mergeAttribute(sources.get(i), targets[i], mergedColumn, target);
+	}
+
+	/**
+	 * The merged value only, as computed by the worker threads of a parallel merge.
+	 */
+	@Benchmark
+	public MergedValue computeValue() {
+		final int i = next;
+		next = (i + 1) & (NODES - 1);
+		return merger.computeValue(sources.get(i), targets[i], mergedColumn, null);
+	}
+}
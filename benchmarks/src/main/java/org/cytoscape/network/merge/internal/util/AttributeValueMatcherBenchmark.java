@@ -0,0 +1,130 @@
+package org.cytoscape.network.merge.internal.util;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.internal.MergeFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A single comparison of the keys of two nodes of different networks, half of the pairs
+ * matching, for scalar keys, a list of synonyms against a scalar key, and two lists. The
+ * key of a node is the last of its synonyms, so that lists are read through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class AttributeValueMatcherBenchmark {
+	public enum Keys {
+		SCALAR(MergeFixtures.KEY, MergeFixtures.KEY),
+		LIST_SCALAR(MergeFixtures.SYNONYMS, MergeFixtures.KEY),
+		LIST_LIST(MergeFixtures.SYNONYMS, MergeFixtures.SYNONYMS);
+
+		private final String column1;
+		private final String column2;
+
+		private Keys(final String column1, final String column2) {
+			this.column1 = column1;
+			this.column2 = column2;
+		}
+	}
+
+	private static final int PAIRS = 1 << 16;
+
+	@Param({ "10000", "100000", "1000000" })
+	public int nodes;
+
+	@Param
+	public Keys keys;
+
+	@Param({ "2", "8" })
+	public int synonyms;
+
+	private final DefaultAttributeValueMatcher matcher = new DefaultAttributeValueMatcher();
+	private CyColumn column1;
+	private CyColumn column2;
+	private CyNode[] nodes1;
+	private CyNode[] nodes2;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void createPairs() {
+		final List<CyNetwork> networks = MergeFixtures.createNetworks(2, nodes, 0.5, synonyms, 1);
+		final CyNetwork network1 = networks.get(0);
+		final CyNetwork network2 = networks.get(1);
+		column1 = network1.getDefaultNodeTable().getColumn(keys.column1);
+		column2 = network2.getDefaultNodeTable().getColumn(keys.column2);
+
+		final Map<String, CyNode> byKey = new HashMap<String, CyNode>();
+		for (CyNode node: network2.getNodeList())
+			byKey.put(network2.getRow(node).get(MergeFixtures.KEY, String.class), node);
+
+		final List<CyNode> nodeList1 = network1.getNodeList();
+		final List<CyNode> nodeList2 = network2.getNodeList();
+		final Random random = new Random(1);
+		nodes1 = new CyNode[PAIRS];
+		nodes2 = new CyNode[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			CyNode node1;
+			CyNode sameKey;
+			do {
+				node1 = nodeList1.get(random.nextInt(nodeList1.size()));
+				sameKey = byKey.get(network1.getRow(node1).get(MergeFixtures.KEY, String.class));
+			} while (i % 2 == 0 && sameKey == null);
+			nodes1[i] = node1;
+			// every other pair matches, the others most probably do not
+			nodes2[i] = i % 2 == 0 ? sameKey : nodeList2.get(random.nextInt(nodeList2.size()));
+		}
+	}
+
+	@Benchmark
+	public boolean matched() {
+		final int i = next;
+		next = (i + 1) & (PAIRS - 1);
+		return matcher.matched(nodes1[i], column1, nodes2[i], column2);
+	}
+}
@@ -0,0 +1,120 @@
+package org.cytoscape.network.merge.internal.util;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.network.merge.fixture.InMemoryNetwork;
+import org.cytoscape.network.merge.internal.conflict.AttributeConflictCollectorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Accumulation of long string lists of several source nodes into the list of a new node.
+ * Each source list shares half of its elements with the list of the previous source.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListMergeBenchmark {
+	private static final String VALUES = "values";
+	private static final String MERGED = "merged";
+	private static final int NODES = 1 << 8;
+
+	@Param({ "10", "100", "1000" })
+	public int length;
+
+	@Param({ "2", "8" })
+	public int sources;
+
+	private DefaultAttributeMerger merger;
+	private CyNetwork target;
+	private CyColumn mergedColumn;
+	private CyNode[] targets;
+	private List<Map<CyNode, CyColumn>> sourceNodes;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void createNodes() {
+		final List<CyNetwork> networks = new ArrayList<CyNetwork>(sources);
+		for (int k = 0; k < sources; k++) {
+			final CyNetwork network = new InMemoryNetwork();
+			network.getDefaultNodeTable().createListColumn(VALUES, String.class, false);
+			networks.add(network);
+		}
+		target = new InMemoryNetwork();
+		target.getDefaultNodeTable().createListColumn(MERGED, String.class, false);
+		mergedColumn = target.getDefaultNodeTable().getColumn(MERGED);
+
+		targets = new CyNode[NODES];
+		sourceNodes = new ArrayList<Map<CyNode, CyColumn>>(NODES);
+		for (int i = 0; i < NODES; i++) {
+			final Map<CyNode, CyColumn> mapGOAttr = new HashMap<CyNode, CyColumn>();
+			for (int k = 0; k < sources; k++) {
+				final CyNetwork network = networks.get(k);
+				final CyNode node = network.addNode();
+				final List<String> values = new ArrayList<String>(length);
+				for (int j = 0; j < length; j++)
+					values.add("value " + i + "_" + (k * length / 2 + j));
+				network.getRow(node).set(VALUES, values);
+				mapGOAttr.put(node, network.getDefaultNodeTable().getColumn(VALUES));
+			}
+			sourceNodes.add(mapGOAttr);
+			targets[i] = target.addNode();
+		}
+		merger = new DefaultAttributeMerger(new AttributeConflictCollectorImpl());
+	}
+
+	/**
+	 * The merge of a node, which is cleared first, as it is new in a merge.
+	 */
+	@Benchmark
+	public void mergeLists() {
+		final int i = next;
+		next = (i + 1) & (NODES - 1);
+		target.getRow(targets[i]).set(MERGED, null);
+		merger.mergeAttribute(sourceNodes.get(i), targets[i], mergedColumn, target);
+	}
+}
@@ -0,0 +1,224 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.VirtualColumnInfo;
+
+/**
+ * Column of an {@link InMemoryTable}. Its values are held by the rows, at the ordinal of
+ * the column, or by the source table of a virtual column.
+ */
+public class InMemoryColumn implements CyColumn {
+	private final InMemoryTable table;
+	private final int ordinal;
+	private String name;
+	private final Class<?> type;
+	private final Class<?> listElementType;
+	private final boolean primaryKey;
+	private final boolean immutable;
+	private final Object defaultValue;
+	private final VirtualColumnInfo virtualColumnInfo;
+
+	InMemoryColumn(final InMemoryTable table, final int ordinal, final String name, final Class<?> type,
+			final Class<?> listElementType, final boolean primaryKey, final boolean immutable,
+			final Object defaultValue) {
+		this.table = table;
+		this.ordinal = ordinal;
+		this.name = name;
+		this.type = type;
+		this.listElementType = listElementType;
+		this.primaryKey = primaryKey;
+		this.immutable = immutable;
+		this.defaultValue = defaultValue;
+		this.virtualColumnInfo = NOT_VIRTUAL;
+	}
+
+	/**
+	 * Virtual column, of the type of the source column.
+	 */
+	InMemoryColumn(final InMemoryTable table, final int ordinal, final String name, final CyColumn sourceColumn,
+			final String targetJoinKey, final boolean immutable) {
+		this.table = table;
+		this.ordinal = ordinal;
+		this.name = name;
+		this.type = sourceColumn.getType();
+		this.listElementType = sourceColumn.getListElementType();
+		this.primaryKey = false;
+		this.immutable = immutable;
+		this.defaultValue = null;
+		this.virtualColumnInfo = new Info(sourceColumn.getTable(), sourceColumn.getName(), targetJoinKey, immutable);
+	}
+
+	int getOrdinal() {
+		return ordinal;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void setName(final String newName) {
+		if (newName == null)
+			throw new java.lang.NullPointerException();
+		if (immutable)
+			throw new IllegalArgumentException("Cannot rename immutable column " + name);
+		table.renameColumn(this, newName);
+		name = newName;
+	}
+
+	@Override
+	public Class<?> getType() {
+		return type;
+	}
+
+	@Override
+	public Class<?> getListElementType() {
+		return listElementType;
+	}
+
+	@Override
+	public boolean isPrimaryKey() {
+		return primaryKey;
+	}
+
+	@Override
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	@Override
+	public CyTable getTable() {
+		return table;
+	}
+
+	@Override
+	public <T> List<T> getValues(final Class<? extends T> valueType) {
+		final List<T> values = new ArrayList<T>(table.getRowCount());
+		for (CyRow row: table.getAllRows())
+			values.add(row.get(name, valueType));
+		return values;
+	}
+
+	@Override
+	public VirtualColumnInfo getVirtualColumnInfo() {
+		return virtualColumnInfo;
+	}
+
+	@Override
+	public Object getDefaultValue() {
+		return defaultValue;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	private static final VirtualColumnInfo NOT_VIRTUAL = new VirtualColumnInfo() {
+		@Override
+		public boolean isVirtual() {
+			return false;
+		}
+
+		@Override
+		public String getSourceColumn() {
+			return null;
+		}
+
+		@Override
+		public String getSourceJoinKey() {
+			return null;
+		}
+
+		@Override
+		public String getTargetJoinKey() {
+			return null;
+		}
+
+		@Override
+		public CyTable getSourceTable() {
+			return null;
+		}
+
+		public boolean isImmutable() {
+			return false;
+		}
+	};
+
+	/**
+	 * Join of a virtual column on the primary key of its source table.
+	 */
+	private static final class Info implements VirtualColumnInfo {
+		private final CyTable sourceTable;
+		private final String sourceColumn;
+		private final String targetJoinKey;
+		private final boolean immutable;
+
+		Info(final CyTable sourceTable, final String sourceColumn, final String targetJoinKey,
+				final boolean immutable) {
+			this.sourceTable = sourceTable;
+			this.sourceColumn = sourceColumn;
+			this.targetJoinKey = targetJoinKey;
+			this.immutable = immutable;
+		}
+
+		@Override
+		public boolean isVirtual() {
+			return true;
+		}
+
+		@Override
+		public String getSourceColumn() {
+			return sourceColumn;
+		}
+
+		@Override
+		public String getSourceJoinKey() {
+			return sourceTable.getPrimaryKey().getName();
+		}
+
+		@Override
+		public String getTargetJoinKey() {
+			return targetJoinKey;
+		}
+
+		@Override
+		public CyTable getSourceTable() {
+			return sourceTable;
+		}
+
+		public boolean isImmutable() {
+			return immutable;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+/**
+ * Edge of an {@link InMemoryNetwork}, equal to itself only.
+ */
+public class InMemoryEdge implements CyEdge {
+	private final Long suid;
+	// null once removed
+	private InMemoryNetwork network;
+	private final CyNode source;
+	private final CyNode target;
+	private final boolean directed;
+
+	InMemoryEdge(final long suid, final InMemoryNetwork network, final CyNode source, final CyNode target,
+			final boolean directed) {
+		this.suid = suid;
+		this.network = network;
+		this.source = source;
+		this.target = target;
+		this.directed = directed;
+	}
+
+	InMemoryNetwork getNetwork() {
+		return network;
+	}
+
+	void remove() {
+		network = null;
+	}
+
+	@Override
+	public Long getSUID() {
+		return suid;
+	}
+
+	@Override
+	public CyNode getSource() {
+		return source;
+	}
+
+	@Override
+	public CyNode getTarget() {
+		return target;
+	}
+
+	@Override
+	public boolean isDirected() {
+		return directed;
+	}
+
+	@Override
+	public String toString() {
+		return "edge " + suid + " (" + source.getSUID() + (directed ? " -> " : " - ") + target.getSUID() + ")";
+	}
+}
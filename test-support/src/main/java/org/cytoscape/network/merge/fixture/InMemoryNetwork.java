@@ -0,0 +1,375 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.SavePolicy;
+
+/**
+ * Network held in memory, with its own node, edge and network tables, so that merges can
+ * be run and measured without a Cytoscape runtime.
+ *
+ * The default tables have the SUID, name and selected columns, and the edge table the
+ * interaction column. The local and default tables are the same: the network is not a
+ * subnetwork, so that a merge into it uses neither virtual columns nor root elements.
+ * The node and edge lists are read only views. Nodes and edges belong to the network that
+ * created them, and hold their adjacency, so that adjacency queries cost the degree of the
+ * node only.
+ */
+public class InMemoryNetwork implements CyNetwork {
+	private static final AtomicLong SUIDS = new AtomicLong(1);
+
+	private final Long suid;
+	private final List<CyNode> nodeList;
+	private final List<CyEdge> edgeList;
+	private final Map<Long,CyNode> nodes;
+	private final Map<Long,CyEdge> edges;
+	private final InMemoryTable networkTable;
+	private final InMemoryTable nodeTable;
+	private final InMemoryTable edgeTable;
+
+	public InMemoryNetwork() {
+		this(0, 0);
+	}
+
+	/**
+	 *
+	 * @param nodeCapacity
+	 *            number of nodes expected
+	 * @param edgeCapacity
+	 *            number of edges expected, so that large networks are not rehashed while
+	 *            built
+	 */
+	public InMemoryNetwork(final int nodeCapacity, final int edgeCapacity) {
+		this.suid = nextSUID();
+		this.nodeList = new ArrayList<CyNode>(nodeCapacity);
+		this.edgeList = new ArrayList<CyEdge>(edgeCapacity);
+		this.nodes = new HashMap<Long,CyNode>(mapCapacity(nodeCapacity));
+		this.edges = new HashMap<Long,CyEdge>(mapCapacity(edgeCapacity));
+		this.networkTable = createTable("network", 1);
+		this.nodeTable = createTable("node", nodeCapacity);
+		this.edgeTable = createTable("edge", edgeCapacity);
+		edgeTable.createColumn(CyEdge.INTERACTION, String.class, false);
+	}
+
+	private static int mapCapacity(final int size) {
+		return Math.max(size + size / 3 + 1, 16);
+	}
+
+	private InMemoryTable createTable(final String type, final int rowCapacity) {
+		final InMemoryTable table = new InMemoryTable("Default " + type + " table of network " + suid,
+				CyIdentifiable.SUID, Long.class, rowCapacity);
+		table.createColumn(CyNetwork.NAME, String.class, false);
+		table.createColumn(CyNetwork.SELECTED, Boolean.class, false, Boolean.FALSE);
+		return table;
+	}
+
+	static long nextSUID() {
+		return SUIDS.getAndIncrement();
+	}
+
+	@Override
+	public Long getSUID() {
+		return suid;
+	}
+
+	@Override
+	public CyNode addNode() {
+		final InMemoryNode node = new InMemoryNode(nextSUID(), this);
+		nodeList.add(node);
+		nodes.put(node.getSUID(), node);
+		nodeTable.getRow(node.getSUID());
+		return node;
+	}
+
+	/**
+	 * Remove the nodes, and their edges.
+	 */
+	@Override
+	public boolean removeNodes(final Collection<CyNode> removedNodes) {
+		if (removedNodes == null)
+			return false;
+		final Set<CyNode> removed = Collections.newSetFromMap(new IdentityHashMap<CyNode,Boolean>());
+		final Set<CyEdge> removedEdges = Collections.newSetFromMap(new IdentityHashMap<CyEdge,Boolean>());
+		for (CyNode node: removedNodes) {
+			if (containsNode(node) && removed.add(node))
+				removedEdges.addAll(((InMemoryNode) node).getAdjacentEdges());
+		}
+		if (removed.isEmpty())
+			return false;
+
+		removeEdges(removedEdges);
+		nodeList.removeIf(removed::contains);
+		final List<Long> keys = new ArrayList<Long>(removed.size());
+		for (CyNode node: removed) {
+			nodes.remove(node.getSUID());
+			((InMemoryNode) node).remove();
+			keys.add(node.getSUID());
+		}
+		nodeTable.deleteRows(keys);
+		return true;
+	}
+
+	@Override
+	public CyEdge addEdge(final CyNode source, final CyNode target, final boolean isDirected) {
+		if (!containsNode(source) || !containsNode(target))
+			throw new IllegalArgumentException("The source and target nodes must be in the network");
+		final InMemoryEdge edge = new InMemoryEdge(nextSUID(), this, source, target, isDirected);
+		edgeList.add(edge);
+		edges.put(edge.getSUID(), edge);
+		edgeTable.getRow(edge.getSUID());
+		((InMemoryNode) source).addAdjacentEdge(edge);
+		if (target != source)
+			((InMemoryNode) target).addAdjacentEdge(edge);
+		return edge;
+	}
+
+	@Override
+	public boolean removeEdges(final Collection<CyEdge> removedEdges) {
+		if (removedEdges == null)
+			return false;
+		final Set<CyEdge> removed = Collections.newSetFromMap(new IdentityHashMap<CyEdge,Boolean>());
+		for (CyEdge edge: removedEdges) {
+			if (containsEdge(edge))
+				removed.add(edge);
+		}
+		if (removed.isEmpty())
+			return false;
+
+		edgeList.removeIf(removed::contains);
+		final List<Long> keys = new ArrayList<Long>(removed.size());
+		for (CyEdge edge: removed) {
+			edges.remove(edge.getSUID());
+			((InMemoryNode) edge.getSource()).removeAdjacentEdge(edge);
+			((InMemoryNode) edge.getTarget()).removeAdjacentEdge(edge);
+			((InMemoryEdge) edge).remove();
+			keys.add(edge.getSUID());
+		}
+		edgeTable.deleteRows(keys);
+		return true;
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodeList.size();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeList.size();
+	}
+
+	@Override
+	public List<CyNode> getNodeList() {
+		return Collections.unmodifiableList(nodeList);
+	}
+
+	@Override
+	public List<CyEdge> getEdgeList() {
+		return Collections.unmodifiableList(edgeList);
+	}
+
+	@Override
+	public boolean containsNode(final CyNode node) {
+		return node instanceof InMemoryNode && ((InMemoryNode) node).getNetwork() == this;
+	}
+
+	@Override
+	public boolean containsEdge(final CyEdge edge) {
+		return edge instanceof InMemoryEdge && ((InMemoryEdge) edge).getNetwork() == this;
+	}
+
+	/**
+	 *
+	 * @return true if a directed edge goes from the first node to the second one, or an
+	 *         undirected edge joins them
+	 */
+	@Override
+	public boolean containsEdge(final CyNode from, final CyNode to) {
+		if (!containsNode(from) || !containsNode(to))
+			return false;
+		for (CyEdge edge: ((InMemoryNode) from).getAdjacentEdges()) {
+			if (edge.isDirected() ? edge.getSource() == from && edge.getTarget() == to
+					: getNeighbor(edge, from) == to)
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public CyNode getNode(final long suid) {
+		return nodes.get(suid);
+	}
+
+	@Override
+	public CyEdge getEdge(final long suid) {
+		return edges.get(suid);
+	}
+
+	@Override
+	public List<CyNode> getNeighborList(final CyNode node, final CyEdge.Type edgeType) {
+		final List<CyNode> neighbors = new ArrayList<CyNode>();
+		for (CyEdge edge: getAdjacentEdgeList(node, edgeType))
+			neighbors.add(getNeighbor(edge, node));
+		return neighbors;
+	}
+
+	@Override
+	public List<CyEdge> getAdjacentEdgeList(final CyNode node, final CyEdge.Type edgeType) {
+		if (!containsNode(node))
+			throw new IllegalArgumentException("The node must be in the network");
+		final List<CyEdge> adjacentEdges = new ArrayList<CyEdge>();
+		for (CyEdge edge: ((InMemoryNode) node).getAdjacentEdges()) {
+			if (isOfType(edge, node, edgeType))
+				adjacentEdges.add(edge);
+		}
+		return adjacentEdges;
+	}
+
+	@Override
+	public Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode node, final CyEdge.Type edgeType) {
+		return getAdjacentEdgeList(node, edgeType);
+	}
+
+	@Override
+	public List<CyEdge> getConnectingEdgeList(final CyNode source, final CyNode target, final CyEdge.Type edgeType) {
+		if (!containsNode(target))
+			throw new IllegalArgumentException("The target node must be in the network");
+		final List<CyEdge> connectingEdges = new ArrayList<CyEdge>();
+		for (CyEdge edge: getAdjacentEdgeList(source, edgeType)) {
+			if (getNeighbor(edge, source) == target)
+				connectingEdges.add(edge);
+		}
+		return connectingEdges;
+	}
+
+	static CyNode getNeighbor(final CyEdge edge, final CyNode node) {
+		return edge.getSource() == node ? edge.getTarget() : edge.getSource();
+	}
+
+	static boolean isOfType(final CyEdge edge, final CyNode node, final CyEdge.Type edgeType) {
+		switch (edgeType) {
+		case UNDIRECTED:
+			return !edge.isDirected();
+		case DIRECTED:
+			return edge.isDirected();
+		case INCOMING:
+			return edge.isDirected() && edge.getTarget() == node;
+		case OUTGOING:
+			return edge.isDirected() && edge.getSource() == node;
+		default:
+			return true;
+		}
+	}
+
+	@Override
+	public CyTable getDefaultNetworkTable() {
+		return networkTable;
+	}
+
+	@Override
+	public CyTable getDefaultNodeTable() {
+		return nodeTable;
+	}
+
+	@Override
+	public CyTable getDefaultEdgeTable() {
+		return edgeTable;
+	}
+
+	@Override
+	public CyTable getTable(final Class<? extends CyIdentifiable> type, final String namespace) {
+		if (!CyNetwork.DEFAULT_ATTRS.equals(namespace) && !CyNetwork.LOCAL_ATTRS.equals(namespace))
+			return null;
+		if (type == CyNode.class)
+			return nodeTable;
+		if (type == CyEdge.class)
+			return edgeTable;
+		if (type == CyNetwork.class)
+			return networkTable;
+		return null;
+	}
+
+	@Override
+	public CyRow getRow(final CyIdentifiable entry) {
+		return getRow(entry, CyNetwork.DEFAULT_ATTRS);
+	}
+
+	@Override
+	public CyRow getRow(final CyIdentifiable entry, final String namespace) {
+		return getRow(this, entry, namespace);
+	}
+
+	/**
+	 *
+	 * @return the row of the entry in the table of its type and namespace in the network
+	 */
+	static CyRow getRow(final CyNetwork network, final CyIdentifiable entry, final String namespace) {
+		if (entry == null || namespace == null)
+			throw new java.lang.NullPointerException();
+		final CyTable table;
+		if (entry instanceof CyNode)
+			table = network.getTable(CyNode.class, namespace);
+		else if (entry instanceof CyEdge)
+			table = network.getTable(CyEdge.class, namespace);
+		else if (entry instanceof CyNetwork)
+			table = network.getTable(CyNetwork.class, namespace);
+		else
+			table = null;
+		if (table == null)
+			throw new IllegalArgumentException("No " + namespace + " table for " + entry);
+		return table.getRow(entry.getSUID());
+	}
+
+	@Override
+	public SavePolicy getSavePolicy() {
+		return SavePolicy.DO_NOT_SAVE;
+	}
+
+	@Override
+	public void dispose() {
+	}
+
+	@Override
+	public String toString() {
+		final String name = networkTable.getRow(suid).get(CyNetwork.NAME, String.class);
+		return name == null ? "network " + suid : name;
+	}
+}
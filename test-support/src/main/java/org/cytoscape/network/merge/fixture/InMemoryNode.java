@@ -0,0 +1,105 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+
+/**
+ * Node of an {@link InMemoryNetwork}, equal to itself only.
+ *
+ * It belongs to a single network, and holds its adjacent edges, so that adjacency needs
+ * no lookup.
+ */
+public class InMemoryNode implements CyNode {
+	private static final int ADJACENT_EDGES_CAPACITY = 4;
+
+	private final Long suid;
+	// null once removed
+	private InMemoryNetwork network;
+	// null until an edge is added
+	private List<CyEdge> adjacentEdges;
+	private CyNetwork networkPointer;
+
+	InMemoryNode(final long suid, final InMemoryNetwork network) {
+		this.suid = suid;
+		this.network = network;
+	}
+
+	InMemoryNetwork getNetwork() {
+		return network;
+	}
+
+	void remove() {
+		network = null;
+		adjacentEdges = null;
+	}
+
+	void addAdjacentEdge(final CyEdge edge) {
+		if (adjacentEdges == null)
+			adjacentEdges = new ArrayList<CyEdge>(ADJACENT_EDGES_CAPACITY);
+		adjacentEdges.add(edge);
+	}
+
+	void removeAdjacentEdge(final CyEdge edge) {
+		if (adjacentEdges != null)
+			adjacentEdges.remove(edge);
+	}
+
+	/**
+	 *
+	 * @return the edges of this node, a self loop once, in the order they were added
+	 */
+	List<CyEdge> getAdjacentEdges() {
+		if (adjacentEdges == null)
+			return Collections.<CyEdge>emptyList();
+		return adjacentEdges;
+	}
+
+	@Override
+	public Long getSUID() {
+		return suid;
+	}
+
+	@Override
+	public CyNetwork getNetworkPointer() {
+		return networkPointer;
+	}
+
+	@Override
+	public void setNetworkPointer(final CyNetwork networkPointer) {
+		this.networkPointer = networkPointer;
+	}
+
+	@Override
+	public String toString() {
+		return "node " + suid;
+	}
+}
@@ -0,0 +1,257 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.SavePolicy;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+
+/**
+ * Root network held in memory: it holds the nodes and edges of its subnetworks, and the
+ * shared tables.
+ *
+ * The shared tables have the SUID and shared name columns, and the edge table the shared
+ * interaction column. A subnetwork gets a virtual column for each shared column when it
+ * is created, so that shared columns are to be created before the subnetworks; Cytoscape
+ * also adds them to the existing subnetworks. As in Cytoscape, the base network is the
+ * first subnetwork.
+ */
+public class InMemoryRootNetwork extends InMemoryNetwork implements CyRootNetwork {
+	private final InMemoryTable sharedNetworkTable;
+	private final InMemoryTable sharedNodeTable;
+	private final InMemoryTable sharedEdgeTable;
+	private final List<CySubNetwork> subNetworks;
+	private final CySubNetwork baseNetwork;
+
+	public InMemoryRootNetwork() {
+		this(0, 0);
+	}
+
+	/**
+	 *
+	 * @param nodeCapacity
+	 *            number of nodes expected in all the subnetworks
+	 * @param edgeCapacity
+	 *            number of edges expected in all the subnetworks
+	 */
+	public InMemoryRootNetwork(final int nodeCapacity, final int edgeCapacity) {
+		super(nodeCapacity, edgeCapacity);
+		this.sharedNetworkTable = createSharedTable("network", 1);
+		this.sharedNodeTable = createSharedTable("node", nodeCapacity);
+		this.sharedEdgeTable = createSharedTable("edge", edgeCapacity);
+		sharedEdgeTable.createColumn(SHARED_INTERACTION, String.class, false);
+		this.subNetworks = new ArrayList<CySubNetwork>();
+		this.baseNetwork = addSubNetwork();
+	}
+
+	private InMemoryTable createSharedTable(final String type, final int rowCapacity) {
+		final InMemoryTable table = new InMemoryTable("Shared " + type + " table of network " + getSUID(),
+				CyIdentifiable.SUID, Long.class, rowCapacity);
+		table.createColumn(SHARED_NAME, String.class, false);
+		return table;
+	}
+
+	@Override
+	public CyNode addNode() {
+		final CyNode node = super.addNode();
+		sharedNodeTable.getRow(node.getSUID());
+		return node;
+	}
+
+	/**
+	 * Remove the nodes from the root and all its subnetworks, with their edges.
+	 */
+	@Override
+	public boolean removeNodes(final Collection<CyNode> removedNodes) {
+		if (removedNodes == null)
+			return false;
+		final List<Long> keys = new ArrayList<Long>(removedNodes.size());
+		for (CyNode node: removedNodes) {
+			if (containsNode(node))
+				keys.add(node.getSUID());
+		}
+		for (CySubNetwork subNetwork: subNetworks)
+			subNetwork.removeNodes(removedNodes);
+		if (!super.removeNodes(removedNodes))
+			return false;
+		sharedNodeTable.deleteRows(keys);
+		return true;
+	}
+
+	@Override
+	public CyEdge addEdge(final CyNode source, final CyNode target, final boolean isDirected) {
+		final CyEdge edge = super.addEdge(source, target, isDirected);
+		sharedEdgeTable.getRow(edge.getSUID());
+		return edge;
+	}
+
+	/**
+	 * Remove the edges from the root and all its subnetworks.
+	 */
+	@Override
+	public boolean removeEdges(final Collection<CyEdge> removedEdges) {
+		if (removedEdges == null)
+			return false;
+		final List<Long> keys = new ArrayList<Long>(removedEdges.size());
+		for (CyEdge edge: removedEdges) {
+			if (containsEdge(edge))
+				keys.add(edge.getSUID());
+		}
+		for (CySubNetwork subNetwork: subNetworks)
+			subNetwork.removeEdges(removedEdges);
+		if (!super.removeEdges(removedEdges))
+			return false;
+		sharedEdgeTable.deleteRows(keys);
+		return true;
+	}
+
+	@Override
+	public CySubNetwork addSubNetwork() {
+		final InMemorySubNetwork subNetwork = new InMemorySubNetwork(this);
+		subNetworks.add(subNetwork);
+		sharedNetworkTable.getRow(subNetwork.getSUID());
+		return subNetwork;
+	}
+
+	/**
+	 * The save policy is ignored: networks held in memory are never saved.
+	 */
+	@Override
+	public CySubNetwork addSubNetwork(final SavePolicy savePolicy) {
+		return addSubNetwork();
+	}
+
+	/**
+	 *
+	 * @param nodes
+	 *            nodes of the root, including the source and target nodes of the edges
+	 * @param edges
+	 *            edges of the root
+	 */
+	@Override
+	public CySubNetwork addSubNetwork(final Iterable<CyNode> nodes, final Iterable<CyEdge> edges) {
+		final CySubNetwork subNetwork = addSubNetwork();
+		if (nodes != null) {
+			for (CyNode node: nodes)
+				subNetwork.addNode(node);
+		}
+		if (edges != null) {
+			for (CyEdge edge: edges)
+				subNetwork.addEdge(edge);
+		}
+		return subNetwork;
+	}
+
+	@Override
+	public CySubNetwork addSubNetwork(final Iterable<CyNode> nodes, final Iterable<CyEdge> edges,
+			final SavePolicy savePolicy) {
+		return addSubNetwork(nodes, edges);
+	}
+
+	/**
+	 * Remove the subnetwork, but not its nodes and edges, which stay in the root.
+	 */
+	@Override
+	public void removeSubNetwork(final CySubNetwork subNetwork) {
+		if (subNetwork == null)
+			return;
+		if (subNetwork == baseNetwork)
+			throw new IllegalArgumentException("The base network cannot be removed");
+		if (subNetworks.remove(subNetwork))
+			sharedNetworkTable.deleteRows(Collections.singletonList(subNetwork.getSUID()));
+	}
+
+	@Override
+	public List<CySubNetwork> getSubNetworkList() {
+		return Collections.unmodifiableList(new ArrayList<CySubNetwork>(subNetworks));
+	}
+
+	@Override
+	public CySubNetwork getBaseNetwork() {
+		return baseNetwork;
+	}
+
+	@Override
+	public boolean containsNetwork(final CyNetwork network) {
+		return subNetworks.contains(network);
+	}
+
+	@Override
+	public void restoreNode(final CyNode node) {
+		throw new UnsupportedOperationException("Removed nodes cannot be restored");
+	}
+
+	@Override
+	public void restoreEdge(final CyEdge edge) {
+		throw new UnsupportedOperationException("Removed edges cannot be restored");
+	}
+
+	@Override
+	public CyTable getSharedNetworkTable() {
+		return sharedNetworkTable;
+	}
+
+	@Override
+	public CyTable getSharedNodeTable() {
+		return sharedNodeTable;
+	}
+
+	@Override
+	public CyTable getSharedEdgeTable() {
+		return sharedEdgeTable;
+	}
+
+	/**
+	 *
+	 * @return the shared tables in the shared namespaces, the default tables of the root
+	 *         otherwise
+	 */
+	@Override
+	public CyTable getTable(final Class<? extends CyIdentifiable> type, final String namespace) {
+		if (SHARED_ATTRS.equals(namespace) || SHARED_DEFAULT_ATTRS.equals(namespace))
+			return getSharedTable(type);
+		return super.getTable(type, namespace);
+	}
+
+	CyTable getSharedTable(final Class<? extends CyIdentifiable> type) {
+		if (type == CyNode.class)
+			return sharedNodeTable;
+		if (type == CyEdge.class)
+			return sharedEdgeTable;
+		if (type == CyNetwork.class)
+			return sharedNetworkTable;
+		return null;
+	}
+}
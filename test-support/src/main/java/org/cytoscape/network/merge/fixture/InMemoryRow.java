@@ -0,0 +1,182 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.VirtualColumnInfo;
+
+/**
+ * Row of an {@link InMemoryTable}: an array of values, by column ordinal.
+ *
+ * Values are checked as a Cytoscape table does when set, and read without any lock. The
+ * values of virtual columns are read from and written to the joined row of their source
+ * table.
+ */
+public class InMemoryRow implements CyRow {
+	private static final Object[] NO_VALUES = new Object[0];
+
+	private final InMemoryTable table;
+	private final Object key;
+	private Object[] values = NO_VALUES;
+
+	InMemoryRow(final InMemoryTable table, final Object key) {
+		this.table = table;
+		this.key = key;
+	}
+
+	Object getValue(final InMemoryColumn column) {
+		if (column.isPrimaryKey())
+			return key;
+		final VirtualColumnInfo info = column.getVirtualColumnInfo();
+		if (info.isVirtual()) {
+			final CyRow sourceRow = getSourceRow(info);
+			return sourceRow == null ? null : sourceRow.getRaw(info.getSourceColumn());
+		}
+		final int ordinal = column.getOrdinal();
+		final Object value = ordinal < values.length ? values[ordinal] : null;
+		return value == null ? column.getDefaultValue() : value;
+	}
+
+	/**
+	 *
+	 * @return the row of the source table joined to this row by a virtual column, null if
+	 *         the join key is not set or matches no row
+	 */
+	private CyRow getSourceRow(final VirtualColumnInfo info) {
+		final InMemoryColumn joinColumn = table.getColumn(info.getTargetJoinKey());
+		final Object joinKey = joinColumn == null ? null : getValue(joinColumn);
+		if (joinKey == null || !info.getSourceTable().rowExists(joinKey))
+			return null;
+		return info.getSourceTable().getRow(joinKey);
+	}
+
+	@Override
+	public <T> T get(final String columnName, final Class<? extends T> type) {
+		final InMemoryColumn column = table.getColumn(columnName);
+		if (column == null)
+			return null;
+		if (!type.isAssignableFrom(column.getType()))
+			throw new IllegalArgumentException("Column " + columnName + " is of type " + column.getType().getName()
+					+ ", not " + type.getName());
+		return type.cast(getValue(column));
+	}
+
+	@Override
+	public <T> T get(final String columnName, final Class<? extends T> type, final T defaultValue) {
+		final T value = get(columnName, type);
+		return value == null ? defaultValue : value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getList(final String columnName, final Class<T> listElementType) {
+		final InMemoryColumn column = table.getColumn(columnName);
+		if (column == null)
+			return null;
+		if (column.getType() != List.class || column.getListElementType() != listElementType)
+			throw new IllegalArgumentException("Column " + columnName + " is not a list of "
+					+ listElementType.getName());
+		return (List<T>) getValue(column);
+	}
+
+	@Override
+	public <T> List<T> getList(final String columnName, final Class<T> listElementType, final List<T> defaultValue) {
+		final List<T> value = getList(columnName, listElementType);
+		return value == null ? defaultValue : value;
+	}
+
+	@Override
+	public <T> void set(final String columnName, final T value) {
+		final InMemoryColumn column = table.getColumn(columnName);
+		if (column == null)
+			throw new IllegalArgumentException("No column " + columnName + " in table " + table.getTitle());
+		if (column.isPrimaryKey())
+			throw new IllegalArgumentException("Cannot change the primary key of a row");
+		if (value != null && !column.getType().isInstance(value))
+			throw new IllegalArgumentException("Value of type " + value.getClass().getName()
+					+ " cannot be set in column " + columnName + " of type " + column.getType().getName());
+		if (value instanceof List) {
+			for (Object element: (List<?>) value) {
+				if (element != null && !column.getListElementType().isInstance(element))
+					throw new IllegalArgumentException("List element of type " + element.getClass().getName()
+							+ " cannot be set in column " + columnName);
+			}
+		}
+
+		final VirtualColumnInfo info = column.getVirtualColumnInfo();
+		if (info.isVirtual()) {
+			final CyRow sourceRow = getSourceRow(info);
+			if (sourceRow == null)
+				throw new IllegalArgumentException("No row of table " + info.getSourceTable().getTitle()
+						+ " is joined to column " + columnName);
+			sourceRow.set(info.getSourceColumn(), value);
+			return;
+		}
+
+		final int ordinal = column.getOrdinal();
+		if (ordinal >= values.length) {
+			if (value == null)
+				return;
+			values = Arrays.copyOf(values, Math.max(ordinal + 1, table.getOrdinals()));
+		}
+		values[ordinal] = value;
+	}
+
+	@Override
+	public boolean isSet(final String columnName) {
+		final InMemoryColumn column = table.getColumn(columnName);
+		return column != null && getValue(column) != null;
+	}
+
+	@Override
+	public Map<String,Object> getAllValues() {
+		final Map<String,Object> allValues = new LinkedHashMap<String,Object>();
+		for (InMemoryColumn column: table.getInMemoryColumns())
+			allValues.put(column.getName(), getValue(column));
+		return allValues;
+	}
+
+	@Override
+	public Object getRaw(final String columnName) {
+		final InMemoryColumn column = table.getColumn(columnName);
+		return column == null ? null : getValue(column);
+	}
+
+	@Override
+	public CyTable getTable() {
+		return table;
+	}
+
+	@Override
+	public String toString() {
+		return getAllValues().toString();
+	}
+}
@@ -0,0 +1,367 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.SavePolicy;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+
+/**
+ * Subnetwork of an {@link InMemoryRootNetwork}, holding some of the nodes and edges of the
+ * root. Removing them from the subnetwork leaves them in the root.
+ *
+ * Its local tables have the SUID, name and selected columns, the edge table the
+ * interaction column, and a virtual column for each column of the shared tables of the
+ * root, joined on the SUID. Unlike in Cytoscape, the default tables are the local tables,
+ * so that the columns created in them are local.
+ */
+public class InMemorySubNetwork implements CySubNetwork {
+	private final Long suid;
+	private final InMemoryRootNetwork root;
+	private final List<CyNode> nodeList;
+	private final List<CyEdge> edgeList;
+	private final Map<Long,CyNode> nodes;
+	private final Map<Long,CyEdge> edges;
+	private final InMemoryTable networkTable;
+	private final InMemoryTable nodeTable;
+	private final InMemoryTable edgeTable;
+
+	InMemorySubNetwork(final InMemoryRootNetwork root) {
+		this.suid = InMemoryNetwork.nextSUID();
+		this.root = root;
+		this.nodeList = new ArrayList<CyNode>();
+		this.edgeList = new ArrayList<CyEdge>();
+		this.nodes = new HashMap<Long,CyNode>();
+		this.edges = new HashMap<Long,CyEdge>();
+		this.networkTable = createTable(CyNetwork.class, "network");
+		this.nodeTable = createTable(CyNode.class, "node");
+		this.edgeTable = createTable(CyEdge.class, "edge");
+		edgeTable.createColumn(CyEdge.INTERACTION, String.class, false);
+	}
+
+	private InMemoryTable createTable(final Class<? extends CyIdentifiable> type, final String name) {
+		final InMemoryTable table = new InMemoryTable("Local " + name + " table of network " + suid,
+				CyIdentifiable.SUID, Long.class);
+		table.createColumn(CyNetwork.NAME, String.class, false);
+		table.createColumn(CyNetwork.SELECTED, Boolean.class, false, Boolean.FALSE);
+		table.addVirtualColumns(root.getSharedTable(type), CyIdentifiable.SUID, false);
+		return table;
+	}
+
+	@Override
+	public Long getSUID() {
+		return suid;
+	}
+
+	@Override
+	public CyRootNetwork getRootNetwork() {
+		return root;
+	}
+
+	/**
+	 * Add a new node to the root, and to this subnetwork.
+	 */
+	@Override
+	public CyNode addNode() {
+		final CyNode node = root.addNode();
+		addNode(node);
+		return node;
+	}
+
+	/**
+	 *
+	 * @param node
+	 *            node of the root
+	 * @return false if the node is already in this subnetwork
+	 */
+	@Override
+	public boolean addNode(final CyNode node) {
+		if (!root.containsNode(node))
+			throw new IllegalArgumentException("The node must be in the root network");
+		if (containsNode(node))
+			return false;
+		nodeList.add(node);
+		nodes.put(node.getSUID(), node);
+		nodeTable.getRow(node.getSUID());
+		return true;
+	}
+
+	/**
+	 * Remove the nodes, and their edges, from this subnetwork only.
+	 */
+	@Override
+	public boolean removeNodes(final Collection<CyNode> removedNodes) {
+		if (removedNodes == null)
+			return false;
+		final Set<CyNode> removed = Collections.newSetFromMap(new IdentityHashMap<CyNode,Boolean>());
+		final List<CyEdge> removedEdges = new ArrayList<CyEdge>();
+		for (CyNode node: removedNodes) {
+			if (containsNode(node) && removed.add(node))
+				removedEdges.addAll(getAdjacentEdgeList(node, CyEdge.Type.ANY));
+		}
+		if (removed.isEmpty())
+			return false;
+
+		removeEdges(removedEdges);
+		nodeList.removeIf(removed::contains);
+		final List<Long> keys = new ArrayList<Long>(removed.size());
+		for (CyNode node: removed) {
+			nodes.remove(node.getSUID());
+			keys.add(node.getSUID());
+		}
+		nodeTable.deleteRows(keys);
+		return true;
+	}
+
+	/**
+	 * Add a new edge to the root, and to this subnetwork.
+	 */
+	@Override
+	public CyEdge addEdge(final CyNode source, final CyNode target, final boolean isDirected) {
+		if (!containsNode(source) || !containsNode(target))
+			throw new IllegalArgumentException("The source and target nodes must be in the network");
+		final CyEdge edge = root.addEdge(source, target, isDirected);
+		addEdge(edge);
+		return edge;
+	}
+
+	/**
+	 *
+	 * @param edge
+	 *            edge of the root, whose source and target nodes are in this subnetwork
+	 * @return false if the edge is already in this subnetwork
+	 */
+	@Override
+	public boolean addEdge(final CyEdge edge) {
+		if (!root.containsEdge(edge))
+			throw new IllegalArgumentException("The edge must be in the root network");
+		if (containsEdge(edge))
+			return false;
+		if (!containsNode(edge.getSource()) || !containsNode(edge.getTarget()))
+			throw new IllegalArgumentException("The source and target nodes must be in the network");
+		edgeList.add(edge);
+		edges.put(edge.getSUID(), edge);
+		edgeTable.getRow(edge.getSUID());
+		return true;
+	}
+
+	/**
+	 * Remove the edges from this subnetwork only.
+	 */
+	@Override
+	public boolean removeEdges(final Collection<CyEdge> removedEdges) {
+		if (removedEdges == null)
+			return false;
+		final Set<CyEdge> removed = Collections.newSetFromMap(new IdentityHashMap<CyEdge,Boolean>());
+		for (CyEdge edge: removedEdges) {
+			if (containsEdge(edge))
+				removed.add(edge);
+		}
+		if (removed.isEmpty())
+			return false;
+
+		edgeList.removeIf(removed::contains);
+		final List<Long> keys = new ArrayList<Long>(removed.size());
+		for (CyEdge edge: removed) {
+			edges.remove(edge.getSUID());
+			keys.add(edge.getSUID());
+		}
+		edgeTable.deleteRows(keys);
+		return true;
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodeList.size();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeList.size();
+	}
+
+	@Override
+	public List<CyNode> getNodeList() {
+		return Collections.unmodifiableList(nodeList);
+	}
+
+	@Override
+	public List<CyEdge> getEdgeList() {
+		return Collections.unmodifiableList(edgeList);
+	}
+
+	@Override
+	public boolean containsNode(final CyNode node) {
+		return node != null && nodes.get(node.getSUID()) == node;
+	}
+
+	@Override
+	public boolean containsEdge(final CyEdge edge) {
+		return edge != null && edges.get(edge.getSUID()) == edge;
+	}
+
+	/**
+	 *
+	 * @return true if a directed edge of this subnetwork goes from the first node to the
+	 *         second one, or an undirected one joins them
+	 */
+	@Override
+	public boolean containsEdge(final CyNode from, final CyNode to) {
+		if (!containsNode(from) || !containsNode(to))
+			return false;
+		for (CyEdge edge: getAdjacentEdgeList(from, CyEdge.Type.ANY)) {
+			if (edge.isDirected() ? edge.getSource() == from && edge.getTarget() == to
+					: InMemoryNetwork.getNeighbor(edge, from) == to)
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public CyNode getNode(final long suid) {
+		return nodes.get(suid);
+	}
+
+	@Override
+	public CyEdge getEdge(final long suid) {
+		return edges.get(suid);
+	}
+
+	@Override
+	public List<CyNode> getNeighborList(final CyNode node, final CyEdge.Type edgeType) {
+		final List<CyNode> neighbors = new ArrayList<CyNode>();
+		for (CyEdge edge: getAdjacentEdgeList(node, edgeType))
+			neighbors.add(InMemoryNetwork.getNeighbor(edge, node));
+		return neighbors;
+	}
+
+	/**
+	 *
+	 * @return the edges of the node in this subnetwork, among its edges in the root
+	 */
+	@Override
+	public List<CyEdge> getAdjacentEdgeList(final CyNode node, final CyEdge.Type edgeType) {
+		if (!containsNode(node))
+			throw new IllegalArgumentException("The node must be in the network");
+		final List<CyEdge> adjacentEdges = new ArrayList<CyEdge>();
+		for (CyEdge edge: ((InMemoryNode) node).getAdjacentEdges()) {
+			if (containsEdge(edge) && InMemoryNetwork.isOfType(edge, node, edgeType))
+				adjacentEdges.add(edge);
+		}
+		return adjacentEdges;
+	}
+
+	@Override
+	public Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode node, final CyEdge.Type edgeType) {
+		return getAdjacentEdgeList(node, edgeType);
+	}
+
+	@Override
+	public List<CyEdge> getConnectingEdgeList(final CyNode source, final CyNode target, final CyEdge.Type edgeType) {
+		if (!containsNode(target))
+			throw new IllegalArgumentException("The target node must be in the network");
+		final List<CyEdge> connectingEdges = new ArrayList<CyEdge>();
+		for (CyEdge edge: getAdjacentEdgeList(source, edgeType)) {
+			if (InMemoryNetwork.getNeighbor(edge, source) == target)
+				connectingEdges.add(edge);
+		}
+		return connectingEdges;
+	}
+
+	@Override
+	public CyTable getDefaultNetworkTable() {
+		return networkTable;
+	}
+
+	@Override
+	public CyTable getDefaultNodeTable() {
+		return nodeTable;
+	}
+
+	@Override
+	public CyTable getDefaultEdgeTable() {
+		return edgeTable;
+	}
+
+	/**
+	 *
+	 * @return the local tables in the default and local namespaces, the shared tables of the
+	 *         root in the shared ones
+	 */
+	@Override
+	public CyTable getTable(final Class<? extends CyIdentifiable> type, final String namespace) {
+		if (CyRootNetwork.SHARED_ATTRS.equals(namespace) || CyRootNetwork.SHARED_DEFAULT_ATTRS.equals(namespace))
+			return root.getSharedTable(type);
+		if (!CyNetwork.DEFAULT_ATTRS.equals(namespace) && !CyNetwork.LOCAL_ATTRS.equals(namespace))
+			return null;
+		if (type == CyNode.class)
+			return nodeTable;
+		if (type == CyEdge.class)
+			return edgeTable;
+		if (type == CyNetwork.class)
+			return networkTable;
+		return null;
+	}
+
+	@Override
+	public CyRow getRow(final CyIdentifiable entry) {
+		return getRow(entry, CyNetwork.DEFAULT_ATTRS);
+	}
+
+	@Override
+	public CyRow getRow(final CyIdentifiable entry, final String namespace) {
+		return InMemoryNetwork.getRow(this, entry, namespace);
+	}
+
+	@Override
+	public SavePolicy getSavePolicy() {
+		return SavePolicy.DO_NOT_SAVE;
+	}
+
+	@Override
+	public void dispose() {
+	}
+
+	@Override
+	public String toString() {
+		final String name = networkTable.getRow(suid).get(CyNetwork.NAME, String.class);
+		return name == null ? "network " + suid : name;
+	}
+}
@@ -0,0 +1,337 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.SavePolicy;
+
+/**
+ * Table held in memory, without events.
+ *
+ * As in Cytoscape, column names are case insensitive, and rows are created when they are
+ * first requested. Rows can be read and created concurrently; columns cannot be changed
+ * while the table is read.
+ */
+public class InMemoryTable implements CyTable {
+	private final Long suid;
+	private final InMemoryColumn primaryKey;
+	// by name, in creation order
+	private final Map<String,InMemoryColumn> columns;
+	// by lower case name
+	private final Map<String,InMemoryColumn> normalizedColumns;
+	private final Map<Object,InMemoryRow> rows;
+	// next column ordinal
+	private int ordinals;
+	private String title;
+	private boolean isPublic;
+	private SavePolicy savePolicy = SavePolicy.DO_NOT_SAVE;
+
+	/**
+	 *
+	 * @param title
+	 * @param primaryKeyName
+	 * @param primaryKeyType
+	 *            usually Long, for the SUIDs of the rows
+	 */
+	public InMemoryTable(final String title, final String primaryKeyName, final Class<?> primaryKeyType) {
+		this(title, primaryKeyName, primaryKeyType, 0);
+	}
+
+	/**
+	 *
+	 * @param title
+	 * @param primaryKeyName
+	 * @param primaryKeyType
+	 *            usually Long, for the SUIDs of the rows
+	 * @param rowCapacity
+	 *            number of rows expected, so that large tables are not rehashed while filled
+	 */
+	public InMemoryTable(final String title, final String primaryKeyName, final Class<?> primaryKeyType,
+			final int rowCapacity) {
+		if (title == null || primaryKeyName == null || primaryKeyType == null)
+			throw new java.lang.NullPointerException();
+		this.suid = InMemoryNetwork.nextSUID();
+		this.title = title;
+		this.columns = new LinkedHashMap<String,InMemoryColumn>();
+		this.normalizedColumns = new HashMap<String,InMemoryColumn>();
+		this.rows = new ConcurrentHashMap<Object,InMemoryRow>(Math.max(rowCapacity, 16));
+		this.primaryKey = new InMemoryColumn(this, ordinals++, primaryKeyName, primaryKeyType, null, true, true, null);
+		addColumn(primaryKey);
+	}
+
+	int getOrdinals() {
+		return ordinals;
+	}
+
+	Collection<InMemoryColumn> getInMemoryColumns() {
+		return columns.values();
+	}
+
+	private void addColumn(final InMemoryColumn column) {
+		columns.put(column.getName(), column);
+		normalizedColumns.put(normalize(column.getName()), column);
+	}
+
+	void renameColumn(final InMemoryColumn column, final String newName) {
+		checkNewColumn(newName, column);
+		columns.remove(column.getName());
+		normalizedColumns.remove(normalize(column.getName()));
+		columns.put(newName, column);
+		normalizedColumns.put(normalize(newName), column);
+	}
+
+	private void checkNewColumn(final String name, final InMemoryColumn renamed) {
+		if (name == null)
+			throw new java.lang.NullPointerException();
+		final InMemoryColumn existing = normalizedColumns.get(normalize(name));
+		if (existing != null && existing != renamed)
+			throw new IllegalArgumentException("Column " + name + " already exists in table " + title);
+	}
+
+	private static String normalize(final String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	private static void checkType(final Class<?> type) {
+		if (type != String.class && type != Long.class && type != Integer.class && type != Double.class
+				&& type != Boolean.class)
+			throw new IllegalArgumentException("Invalid column type: " + type.getName());
+	}
+
+	@Override
+	public Long getSUID() {
+		return suid;
+	}
+
+	@Override
+	public boolean isPublic() {
+		return isPublic;
+	}
+
+	@Override
+	public void setPublic(final boolean isPublic) {
+		this.isPublic = isPublic;
+	}
+
+	@Override
+	public Mutability getMutability() {
+		return Mutability.MUTABLE;
+	}
+
+	@Override
+	public String getTitle() {
+		return title;
+	}
+
+	@Override
+	public void setTitle(final String title) {
+		this.title = title;
+	}
+
+	@Override
+	public CyColumn getPrimaryKey() {
+		return primaryKey;
+	}
+
+	@Override
+	public InMemoryColumn getColumn(final String columnName) {
+		if (columnName == null)
+			return null;
+		final InMemoryColumn column = columns.get(columnName);
+		return column != null ? column : normalizedColumns.get(normalize(columnName));
+	}
+
+	@Override
+	public Collection<CyColumn> getColumns() {
+		return new ArrayList<CyColumn>(columns.values());
+	}
+
+	@Override
+	public String getLastInternalError() {
+		return null;
+	}
+
+	@Override
+	public <T> void createColumn(final String columnName, final Class<? extends T> type, final boolean isImmutable) {
+		createColumn(columnName, type, isImmutable, null);
+	}
+
+	@Override
+	public <T> void createColumn(final String columnName, final Class<? extends T> type, final boolean isImmutable,
+			final T defaultValue) {
+		checkNewColumn(columnName, null);
+		checkType(type);
+		addColumn(new InMemoryColumn(this, ordinals++, columnName, type, null, false, isImmutable, defaultValue));
+	}
+
+	@Override
+	public <T> void createListColumn(final String columnName, final Class<T> listElementType, final boolean isImmutable) {
+		createListColumn(columnName, listElementType, isImmutable, null);
+	}
+
+	@Override
+	public <T> void createListColumn(final String columnName, final Class<T> listElementType,
+			final boolean isImmutable, final List<T> defaultValue) {
+		checkNewColumn(columnName, null);
+		checkType(listElementType);
+		addColumn(new InMemoryColumn(this, ordinals++, columnName, List.class, listElementType, false, isImmutable,
+				defaultValue));
+	}
+
+	@Override
+	public void deleteColumn(final String columnName) {
+		final InMemoryColumn column = getColumn(columnName);
+		if (column == null)
+			return;
+		if (column.isImmutable())
+			throw new IllegalArgumentException("Cannot delete immutable column " + columnName);
+		columns.remove(column.getName());
+		normalizedColumns.remove(normalize(column.getName()));
+		// its values stay in the rows, at an ordinal that is not reused
+	}
+
+	@Override
+	public CyRow getRow(final Object primaryKey) {
+		if (primaryKey == null)
+			throw new java.lang.NullPointerException();
+		final InMemoryRow row = rows.get(primaryKey);
+		return row != null ? row : rows.computeIfAbsent(primaryKey, key -> new InMemoryRow(this, key));
+	}
+
+	@Override
+	public boolean rowExists(final Object primaryKey) {
+		return primaryKey != null && rows.containsKey(primaryKey);
+	}
+
+	@Override
+	public List<CyRow> getAllRows() {
+		return new ArrayList<CyRow>(rows.values());
+	}
+
+	@Override
+	public int getRowCount() {
+		return rows.size();
+	}
+
+	@Override
+	public boolean deleteRows(final Collection<?> primaryKeys) {
+		boolean changed = false;
+		for (Object key: primaryKeys)
+			changed |= rows.remove(key) != null;
+		return changed;
+	}
+
+	@Override
+	public Collection<CyRow> getMatchingRows(final String columnName, final Object value) {
+		final InMemoryColumn column = getColumn(columnName);
+		final List<CyRow> matching = new ArrayList<CyRow>();
+		if (column != null) {
+			for (InMemoryRow row: rows.values()) {
+				if (Objects.equals(row.getValue(column), value))
+					matching.add(row);
+			}
+		}
+		return matching;
+	}
+
+	public <T> Collection<T> getMatchingKeys(final String columnName, final Object value, final Class<T> type) {
+		final List<T> keys = new ArrayList<T>();
+		for (CyRow row: getMatchingRows(columnName, value))
+			keys.add(type.cast(row.getRaw(primaryKey.getName())));
+		return keys;
+	}
+
+	@Override
+	public int countMatchingRows(final String columnName, final Object value) {
+		return getMatchingRows(columnName, value).size();
+	}
+
+	/**
+	 * As in Cytoscape, the virtual column is joined on the primary key of the source table.
+	 *
+	 * @return the name of the virtual column, which must not exist yet
+	 */
+	@Override
+	public String addVirtualColumn(final String virtualColumn, final String sourceColumn, final CyTable sourceTable,
+			final String targetJoinKey, final boolean isImmutable) {
+		if (sourceColumn == null || sourceTable == null || targetJoinKey == null)
+			throw new java.lang.NullPointerException();
+		checkNewColumn(virtualColumn, null);
+		final CyColumn column = sourceTable.getColumn(sourceColumn);
+		if (column == null)
+			throw new IllegalArgumentException("No column " + sourceColumn + " in table " + sourceTable.getTitle());
+		final InMemoryColumn joinKey = getColumn(targetJoinKey);
+		if (joinKey == null)
+			throw new IllegalArgumentException("No join key " + targetJoinKey + " in table " + title);
+		if (joinKey.getType() != sourceTable.getPrimaryKey().getType())
+			throw new IllegalArgumentException("Join key " + targetJoinKey + " is not of the type of the primary key of "
+					+ sourceTable.getTitle());
+		addColumn(new InMemoryColumn(this, ordinals++, virtualColumn, column, targetJoinKey, isImmutable));
+		return virtualColumn;
+	}
+
+	/**
+	 * Add a virtual column for each column of the source table but its primary key.
+	 */
+	@Override
+	public void addVirtualColumns(final CyTable sourceTable, final String targetJoinKey, final boolean isImmutable) {
+		for (CyColumn column: sourceTable.getColumns()) {
+			if (!column.isPrimaryKey())
+				addVirtualColumn(column.getName(), column.getName(), sourceTable, targetJoinKey, isImmutable);
+		}
+	}
+
+	@Override
+	public SavePolicy getSavePolicy() {
+		return savePolicy;
+	}
+
+	@Override
+	public void setSavePolicy(final SavePolicy savePolicy) {
+		this.savePolicy = savePolicy;
+	}
+
+	@Override
+	public void swap(final CyTable otherTable) {
+		throw new UnsupportedOperationException("Tables cannot be swapped");
+	}
+
+	@Override
+	public String toString() {
+		return title;
+	}
+}
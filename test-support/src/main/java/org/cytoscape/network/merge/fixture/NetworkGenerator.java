@@ -0,0 +1,622 @@
+package org.cytoscape.network.merge.fixture;
+
+/*
+ * #%L
+ * Cytoscape Merge Impl (network-merge-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+
+/**
+ * Generator of source networks with known properties, for scaling tests and benchmarks of
+ * merges.
+ *
+ * Each network has the same number of nodes. The first nodes, as many as the overlap
+ * fraction of them, are shared by all the networks: they have the same key everywhere,
+ * and the edges between them are the same in every network. The other nodes, and the
+ * edges reaching them, are private to a network. With a scale-free distribution the
+ * shared nodes are the oldest ones of the preferential attachment, hence the hubs.
+ *
+ * Nodes have a key column, a list of synonyms ending with the key, and a number of
+ * attribute columns, of each type in turn; edges have the attribute columns too. The
+ * attributes of a shared node or edge are the same in every network, except for a
+ * fraction of them, the conflict rate, that differ in each network.
+ *
+ * The networks depend on the parameters and the seed only, so that they can be generated
+ * again to reproduce a measure, or written to files.
+ */
+public class NetworkGenerator {
+	/** String column holding the key of each node. */
+	public static final String KEY = "key";
+	/** List column holding synonyms of each node, its key last. */
+	public static final String SYNONYMS = "synonyms";
+	/** Prefix of the attribute columns, followed by their index. */
+	public static final String ATTRIBUTE = "attribute";
+
+	private static final Class<?>[] ATTRIBUTE_TYPES = { String.class, Integer.class, Double.class, Boolean.class };
+	private static final String LIST_SEPARATOR = "|";
+
+	public enum DegreeDistribution {
+		/** Preferential attachment (Barabasi-Albert): a few hubs and many leaves. */
+		SCALE_FREE,
+		/** Uniformly random edges (Erdos-Renyi): degrees close to the average. */
+		ERDOS_RENYI
+	}
+
+	private final int networkCount;
+	private final int nodeCount;
+
+	private DegreeDistribution degreeDistribution = DegreeDistribution.SCALE_FREE;
+	private double averageDegree = 2;
+	private double directedFraction = 1;
+	private int interactionCount = 4;
+	private double overlap = 0.5;
+	private int synonymCount = 1;
+	private int attributeCount = 0;
+	private double conflictRate = 0;
+	private long seed = 1;
+
+	/**
+	 *
+	 * @param networkCount
+	 *            number of networks
+	 * @param nodeCount
+	 *            number of nodes of each network
+	 */
+	public NetworkGenerator(final int networkCount, final int nodeCount) {
+		if (networkCount < 1 || nodeCount < 1)
+			throw new IllegalArgumentException("At least one network of one node is required");
+		this.networkCount = networkCount;
+		this.nodeCount = nodeCount;
+	}
+
+	public int getNetworkCount() {
+		return networkCount;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public DegreeDistribution getDegreeDistribution() {
+		return degreeDistribution;
+	}
+
+	public void setDegreeDistribution(DegreeDistribution degreeDistribution) {
+		if (degreeDistribution == null)
+			throw new java.lang.NullPointerException();
+		this.degreeDistribution = degreeDistribution;
+	}
+
+	/**
+	 *
+	 * @return average number of edges of a node, 2 by default, so that a network has about
+	 *         as many edges as nodes
+	 */
+	public double getAverageDegree() {
+		return averageDegree;
+	}
+
+	public void setAverageDegree(double averageDegree) {
+		if (averageDegree < 0)
+			throw new IllegalArgumentException("The average degree cannot be negative");
+		this.averageDegree = averageDegree;
+	}
+
+	/**
+	 *
+	 * @return fraction of the edges that are directed, all by default
+	 */
+	public double getDirectedFraction() {
+		return directedFraction;
+	}
+
+	public void setDirectedFraction(double directedFraction) {
+		this.directedFraction = checkFraction(directedFraction);
+	}
+
+	/**
+	 *
+	 * @return number of interactions the edges have, in equal proportions, 4 by default
+	 */
+	public int getInteractionCount() {
+		return interactionCount;
+	}
+
+	public void setInteractionCount(int interactionCount) {
+		if (interactionCount < 1)
+			throw new IllegalArgumentException("At least one interaction is required");
+		this.interactionCount = interactionCount;
+	}
+
+	/**
+	 *
+	 * @return fraction of the nodes shared by all the networks, half by default
+	 */
+	public double getOverlap() {
+		return overlap;
+	}
+
+	public void setOverlap(double overlap) {
+		this.overlap = checkFraction(overlap);
+	}
+
+	/**
+	 *
+	 * @return size of the synonym lists, including the key, 1 by default
+	 */
+	public int getSynonymCount() {
+		return synonymCount;
+	}
+
+	public void setSynonymCount(int synonymCount) {
+		if (synonymCount < 1)
+			throw new IllegalArgumentException("The synonyms include the key");
+		this.synonymCount = synonymCount;
+	}
+
+	/**
+	 *
+	 * @return number of attribute columns of the nodes and of the edges, none by default
+	 */
+	public int getAttributeCount() {
+		return attributeCount;
+	}
+
+	public void setAttributeCount(int attributeCount) {
+		if (attributeCount < 0)
+			throw new IllegalArgumentException("The number of attributes cannot be negative");
+		this.attributeCount = attributeCount;
+	}
+
+	/**
+	 *
+	 * @return fraction of the attributes of the shared nodes and edges that differ in each
+	 *         network, none by default
+	 */
+	public double getConflictRate() {
+		return conflictRate;
+	}
+
+	public void setConflictRate(double conflictRate) {
+		this.conflictRate = checkFraction(conflictRate);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	private static double checkFraction(final double fraction) {
+		if (!(fraction >= 0 && fraction <= 1))
+			throw new IllegalArgumentException("Not a fraction: " + fraction);
+		return fraction;
+	}
+
+	/**
+	 *
+	 * @return number of nodes shared by all the networks
+	 */
+	public int getSharedNodeCount() {
+		return (int) Math.round(nodeCount * overlap);
+	}
+
+	/**
+	 *
+	 * @return the networks, held in memory
+	 */
+	public List<CyNetwork> generate() {
+		final int edgeCount = (int) Math.round(nodeCount * averageDegree / 2);
+		return generate(() -> new InMemoryNetwork(nodeCount, edgeCount));
+	}
+
+	/**
+	 *
+	 * @param networkFactory
+	 *            creates each network, empty; the missing columns are added to its default
+	 *            tables
+	 * @return the networks
+	 */
+	public List<CyNetwork> generate(final Supplier<? extends CyNetwork> networkFactory) {
+		if (networkFactory == null)
+			throw new java.lang.NullPointerException();
+
+		// the shared part is drawn first, from a generator of its own, so that it is the
+		// same in every network
+		final Topology core = new Topology(nodeCount);
+		final int shared = getSharedNodeCount();
+		final Random coreRandom = new Random(seed);
+		grow(core, 0, shared, coreRandom);
+		final int coreEdges = core.edgeCount;
+
+		final List<CyNetwork> networks = new ArrayList<CyNetwork>(networkCount);
+		for (int k = 0; k < networkCount; k++) {
+			final Random random = new Random(seed + 1 + k);
+			final Topology topology = new Topology(core);
+			grow(topology, shared, nodeCount, random);
+			networks.add(build(networkFactory.get(), k, topology, shared, coreEdges, random));
+		}
+		return networks;
+	}
+
+	/*
+	 * Add nodes [from, to) and their edges, keeping the edges between the nodes before from.
+	 */
+	private void grow(final Topology topology, final int from, final int to, final Random random) {
+		if (degreeDistribution == DegreeDistribution.SCALE_FREE) {
+			final int perNode = Math.max(1, (int) Math.round(averageDegree / 2));
+			final int[] picked = new int[perNode];
+			for (int i = from; i < to; i++) {
+				if (averageDegree == 0)
+					break;
+				int count = 0;
+				for (int j = 0; j < perNode && count < i; j++) {
+					int target;
+					do {
+						// an endpoint of a random edge, hence a node chosen in proportion to its degree
+						target = topology.edgeCount == 0 ? random.nextInt(i)
+								: topology.endpoint(random.nextInt(2 * topology.edgeCount));
+					} while (contains(picked, count, target));
+					picked[count++] = target;
+					// the new node is the source, the older one the hub
+					topology.addEdge(i, target, random);
+				}
+			}
+		} else {
+			final long pairs = (long) to * (to - 1) / 2 - (long) from * (from - 1) / 2;
+			final long total = Math.round((double) nodeCount * averageDegree / 2);
+			final long allPairs = (long) nodeCount * (nodeCount - 1) / 2;
+			final long edges = allPairs == 0 ? 0 : Math.round((double) total * pairs / allPairs);
+			for (long e = 0; e < edges; e++) {
+				// a random pair of distinct nodes, not both before from
+				int source;
+				int target;
+				do {
+					source = random.nextInt(to);
+					target = random.nextInt(to);
+				} while (source == target || (source < from && target < from));
+				topology.addEdge(source, target, random);
+			}
+		}
+	}
+
+	private static boolean contains(final int[] values, final int count, final int value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value)
+				return true;
+		}
+		return false;
+	}
+
+	private CyNetwork build(final CyNetwork network, final int k, final Topology topology, final int shared,
+			final int coreEdges, final Random random) {
+		network.getRow(network).set(CyNetwork.NAME, "network " + k);
+		final CyTable nodeTable = network.getDefaultNodeTable();
+		final CyTable edgeTable = network.getDefaultEdgeTable();
+		if (nodeTable.getColumn(KEY) == null)
+			nodeTable.createColumn(KEY, String.class, false);
+		if (nodeTable.getColumn(SYNONYMS) == null)
+			nodeTable.createListColumn(SYNONYMS, String.class, false);
+		createAttributeColumns(nodeTable);
+		createAttributeColumns(edgeTable);
+
+		final CyNode[] nodes = new CyNode[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			final CyNode node = network.addNode();
+			final String key = i < shared ? "G" + i : "N" + k + "_" + i;
+			final String[] synonyms = new String[synonymCount];
+			for (int s = 0; s < synonymCount - 1; s++)
+				synonyms[s] = key + "_alias" + s + "_" + k;
+			synonyms[synonymCount - 1] = key;
+			final CyRow row = network.getRow(node);
+			row.set(CyNetwork.NAME, key);
+			row.set(KEY, key);
+			row.set(SYNONYMS, Arrays.asList(synonyms));
+			// private nodes are numbered after the shared ones of every network
+			setAttributes(row, i < shared ? i : (long) nodeCount * (k + 1) + i, i < shared, k, random);
+			nodes[i] = node;
+		}
+
+		for (int e = 0; e < topology.edgeCount; e++) {
+			final CyEdge edge = network.addEdge(nodes[topology.sources[e]], nodes[topology.targets[e]],
+					topology.directed[e]);
+			final CyRow row = network.getRow(edge);
+			row.set(CyEdge.INTERACTION, "interaction" + topology.interactions[e]);
+			setAttributes(row, e < coreEdges ? e : (long) nodeCount * (k + 1) + e, e < coreEdges, k, random);
+		}
+		return network;
+	}
+
+	private void createAttributeColumns(final CyTable table) {
+		for (int c = 0; c < attributeCount; c++) {
+			if (table.getColumn(ATTRIBUTE + c) == null)
+				table.createColumn(ATTRIBUTE + c, ATTRIBUTE_TYPES[c % ATTRIBUTE_TYPES.length], false);
+		}
+	}
+
+	/*
+	 * The value of an attribute depends on the element only, unless it is a conflict, where
+	 * it depends on the network too.
+	 */
+	private void setAttributes(final CyRow row, final long id, final boolean shared, final int k,
+			final Random random) {
+		for (int c = 0; c < attributeCount; c++) {
+			final int variant = shared && random.nextDouble() < conflictRate ? k + 1 : 0;
+			final Object value;
+			switch (c % ATTRIBUTE_TYPES.length) {
+			case 0:
+				value = "value" + id + "_" + c + (variant == 0 ? "" : "_" + variant);
+				break;
+			case 1:
+				value = (int) (id * 31 + c) + variant;
+				break;
+			case 2:
+				value = id + c / 100.0 + variant;
+				break;
+			default:
+				value = ((id + c) % 2 == 0) != (variant != 0);
+				break;
+			}
+			row.set(ATTRIBUTE + c, value);
+		}
+	}
+
+	/**
+	 * Write each network as a table of nodes and a table of edges, both tab separated with
+	 * a header, which Cytoscape can import; lists are separated by "|". The parameters are
+	 * written to generator.txt, so that the networks can be generated again.
+	 *
+	 * @param networks
+	 *            networks generated by this generator
+	 * @param directory
+	 *            created if needed
+	 * @throws IOException
+	 */
+	public void write(final List<CyNetwork> networks, final File directory) throws IOException {
+		if (networks == null || directory == null)
+			throw new java.lang.NullPointerException();
+		Files.createDirectories(directory.toPath());
+		try (Writer writer = open(new File(directory, "generator.txt"))) {
+			writer.write(toString());
+			writer.write('\n');
+		}
+
+		for (int k = 0; k < networks.size(); k++) {
+			final CyNetwork network = networks.get(k);
+			try (Writer writer = open(new File(directory, "network" + k + ".nodes.tsv"))) {
+				writeTable(writer, network, network.getNodeList(), network.getDefaultNodeTable(), null);
+			}
+			try (Writer writer = open(new File(directory, "network" + k + ".edges.tsv"))) {
+				writeTable(writer, network, network.getEdgeList(), network.getDefaultEdgeTable(), KEY);
+			}
+		}
+	}
+
+	private static Writer open(final File file) throws IOException {
+		return new BufferedWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8), 1 << 16);
+	}
+
+	/*
+	 * Edges are written with the keys of their source and target, and their directedness,
+	 * before their columns.
+	 */
+	private static void writeTable(final Writer writer, final CyNetwork network,
+			final List<? extends CyIdentifiable> entries, final CyTable table,
+			final String nodeKey) throws IOException {
+		final List<CyColumn> columns = new ArrayList<CyColumn>();
+		for (CyColumn column: table.getColumns()) {
+			if (!column.isPrimaryKey() && !column.getName().equals(CyNetwork.SELECTED))
+				columns.add(column);
+		}
+
+		final StringBuilder line = new StringBuilder();
+		if (nodeKey != null)
+			line.append("source\ttarget\tdirected\t");
+		for (CyColumn column: columns)
+			line.append(column.getName()).append('\t');
+		writeLine(writer, line);
+
+		for (CyIdentifiable entry: entries) {
+			line.setLength(0);
+			if (nodeKey != null) {
+				final CyEdge edge = (CyEdge) entry;
+				line.append(network.getRow(edge.getSource()).get(nodeKey, String.class)).append('\t');
+				line.append(network.getRow(edge.getTarget()).get(nodeKey, String.class)).append('\t');
+				line.append(edge.isDirected()).append('\t');
+			}
+			final CyRow row = network.getRow(entry);
+			for (CyColumn column: columns) {
+				final Object value = row.getRaw(column.getName());
+				if (value instanceof List) {
+					boolean first = true;
+					for (Object element: (List<?>) value) {
+						if (!first)
+							line.append(LIST_SEPARATOR);
+						line.append(element);
+						first = false;
+					}
+				} else if (value != null) {
+					line.append(value);
+				}
+				line.append('\t');
+			}
+			writeLine(writer, line);
+		}
+	}
+
+	private static void writeLine(final Writer writer, final StringBuilder line) throws IOException {
+		if (line.length() > 0)
+			line.setLength(line.length() - 1);
+		line.append('\n');
+		writer.append(line);
+	}
+
+	@Override
+	public String toString() {
+		return "networks=" + networkCount + " nodes=" + nodeCount + " distribution=" + degreeDistribution
+				+ " degree=" + averageDegree + " directed=" + directedFraction + " interactions="
+				+ interactionCount + " overlap=" + overlap + " synonyms=" + synonymCount + " attributes="
+				+ attributeCount + " conflicts=" + conflictRate + " seed=" + seed;
+	}
+
+	/**
+	 * Write generated networks to files.
+	 *
+	 * @param args
+	 *            the directory, then parameters as in {@link #toString()}, e.g.
+	 *            <code>networks=4 nodes=1000000 distribution=ERDOS_RENYI</code>
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: NetworkGenerator directory [networks=2] [nodes=1000] [distribution="
+					+ DegreeDistribution.SCALE_FREE + "|" + DegreeDistribution.ERDOS_RENYI
+					+ "] [degree=2] [directed=1] [interactions=4] [overlap=0.5] [synonyms=1] [attributes=0]"
+					+ " [conflicts=0] [seed=1]");
+			System.exit(1);
+		}
+
+		int networks = 2;
+		int nodes = 1000;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].startsWith("networks="))
+				networks = Integer.parseInt(args[i].substring("networks=".length()));
+			else if (args[i].startsWith("nodes="))
+				nodes = Integer.parseInt(args[i].substring("nodes=".length()));
+		}
+		final NetworkGenerator generator = new NetworkGenerator(networks, nodes);
+		for (int i = 1; i < args.length; i++) {
+			final int separator = args[i].indexOf('=');
+			if (separator < 0)
+				throw new IllegalArgumentException("Not a parameter: " + args[i]);
+			final String name = args[i].substring(0, separator);
+			final String value = args[i].substring(separator + 1);
+			switch (name) {
+			case "networks":
+			case "nodes":
+				break;
+			case "distribution":
+				generator.setDegreeDistribution(DegreeDistribution.valueOf(value));
+				break;
+			case "degree":
+				generator.setAverageDegree(Double.parseDouble(value));
+				break;
+			case "directed":
+				generator.setDirectedFraction(Double.parseDouble(value));
+				break;
+			case "interactions":
+				generator.setInteractionCount(Integer.parseInt(value));
+				break;
+			case "overlap":
+				generator.setOverlap(Double.parseDouble(value));
+				break;
+			case "synonyms":
+				generator.setSynonymCount(Integer.parseInt(value));
+				break;
+			case "attributes":
+				generator.setAttributeCount(Integer.parseInt(value));
+				break;
+			case "conflicts":
+				generator.setConflictRate(Double.parseDouble(value));
+				break;
+			case "seed":
+				generator.setSeed(Long.parseLong(value));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown parameter: " + name);
+			}
+		}
+
+		final File directory = new File(args[0]);
+		generator.write(generator.generate(), directory);
+		System.out.println("Wrote " + generator + " to " + directory);
+	}
+
+	/**
+	 * Edges by node index, in arrays, so that millions of them cost a few bytes each.
+	 */
+	private final class Topology {
+		int[] sources;
+		int[] targets;
+		boolean[] directed;
+		int[] interactions;
+		int edgeCount;
+
+		Topology(final int nodes) {
+			final int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (long) (nodes * averageDegree / 2) + 16);
+			sources = new int[capacity];
+			targets = new int[capacity];
+			directed = new boolean[capacity];
+			interactions = new int[capacity];
+		}
+
+		Topology(final Topology core) {
+			sources = core.sources.clone();
+			targets = core.targets.clone();
+			directed = core.directed.clone();
+			interactions = core.interactions.clone();
+			edgeCount = core.edgeCount;
+		}
+
+		/*
+		 * The source of an edge for an even index, its target for an odd one.
+		 */
+		int endpoint(final int index) {
+			return (index & 1) == 0 ? sources[index >> 1] : targets[index >> 1];
+		}
+
+		void addEdge(final int source, final int target, final Random random) {
+			if (edgeCount == sources.length) {
+				final int capacity = edgeCount + (edgeCount >> 1);
+				sources = Arrays.copyOf(sources, capacity);
+				targets = Arrays.copyOf(targets, capacity);
+				directed = Arrays.copyOf(directed, capacity);
+				interactions = Arrays.copyOf(interactions, capacity);
+			}
+			sources[edgeCount] = source;
+			targets[edgeCount] = target;
+			directed[edgeCount] = random.nextDouble() < directedFraction;
+			interactions[edgeCount] = random.nextInt(interactionCount);
+			edgeCount++;
+		}
+	}
+}